@@ -6,6 +6,7 @@ plugins {
     `java-library`
     `maven-publish`
     signing
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 
@@ -16,11 +17,13 @@ repositories {
 
 dependencies {
     api("org.eclipse.paho:org.eclipse.paho.client.mqttv3:1.2.5")
+    api("org.eclipse.paho:org.eclipse.paho.mqttv5.client:1.2.5")
     api("com.github.spullara.mustache.java:compiler:0.9.10")
     api("ch.qos.logback:logback-classic:1.4.14")
     api("com.google.code.gson:gson:2.10")
     api("io.github.wldt:wldt-core:0.4.0")
     testImplementation("junit:junit:4.13.2")
+    testImplementation("com.hivemq:hivemq-community-edition-embedded:2024.3")
 }
 
 java {
@@ -28,6 +31,40 @@ java {
     withSourcesJar()
 }
 
+// Java 11+ classes (e.g. Java Flight Recorder events) packaged as a multi-release jar on top of the Java 8 ones
+val java11: SourceSet by sourceSets.creating {
+    java.srcDir("src/main/java11")
+}
+
+tasks.named<JavaCompile>("compileJava11Java") {
+    options.release.set(11)
+}
+
+tasks.named<Jar>("jar") {
+    into("META-INF/versions/11") {
+        from(java11.output)
+    }
+    manifest {
+        attributes("Multi-Release" to "true")
+    }
+}
+
+tasks.named<Jar>("sourcesJar") {
+    into("META-INF/versions/11") {
+        from(java11.allJava)
+    }
+}
+
+// JMH benchmarks (src/jmh/java), run with: ./gradlew jmh [-PjmhIncludes=<regex>]
+jmh {
+    jmhVersion = "1.37"
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    if (project.hasProperty("jmhIncludes")) {
+        includes = listOf(project.property("jmhIncludes") as String)
+    }
+}
+
 tasks.withType<JavaCompile>() {
     options.encoding = "UTF-8"
 }
@@ -45,6 +82,31 @@ version = "0.1.2"
 description = "Digital adapter to output data with the MQTT protocol"
 java.sourceCompatibility = JavaVersion.VERSION_1_8
 
+// The library targets Java 8, test utilities (e.g. the embedded MQTT 5 broker) and the benchmarks that share
+// them require a Java 11 runtime
+listOf("compileTestJava", "compileJmhJava").forEach { name ->
+    tasks.named<JavaCompile>(name) {
+        options.release.set(11)
+    }
+}
+
+listOf("testCompileClasspath", "testRuntimeClasspath", "jmhCompileClasspath", "jmhRuntimeClasspath").forEach { name ->
+    configurations.named(name) {
+        attributes.attribute(TargetJvmVersion.TARGET_JVM_VERSION_ATTRIBUTE, 11)
+    }
+}
+
+// Offline load test of a fleet of Digital Twins against an embedded broker, configured with -Pload.<option>=<value>
+// (see LoadTestMain), e.g.: ./gradlew loadTest -Pload.twins=100 -Pload.propertyRate=20
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs the MQTT Digital Adapter load test against an embedded MQTT broker"
+    classpath = sourceSets["test"].runtimeClasspath
+    mainClass.set("it.wldt.adapter.mqtt.digital.LoadTestMain")
+    maxHeapSize = "1g"
+    systemProperties(project.properties.filterKeys { it.startsWith("load.") })
+}
+
 publishing {
     publications.create<MavenPublication>("maven") {
         from(components["java"])
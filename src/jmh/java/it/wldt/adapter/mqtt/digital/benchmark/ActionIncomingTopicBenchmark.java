@@ -0,0 +1,50 @@
+package it.wldt.adapter.mqtt.digital.benchmark;
+
+import com.google.gson.Gson;
+import it.wldt.adapter.mqtt.digital.topic.incoming.ActionIncomingTopic;
+import it.wldt.core.event.WldtEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decoding of an incoming MQTT message into the action event delivered to the DT, with a plain
+ * string payload and with a JSON payload parsed by Gson.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActionIncomingTopicBenchmark {
+
+    private static final Gson GSON = new Gson();
+
+    private ActionIncomingTopic<String> stringActionTopic;
+
+    private ActionIncomingTopic<Map<?, ?>> jsonActionTopic;
+
+    private String stringPayload;
+
+    private String jsonPayload;
+
+    @Setup
+    public void setup() {
+        this.stringActionTopic = new ActionIncomingTopic<>("dt/benchmark/actions/switch", "switch", payload -> payload);
+        this.jsonActionTopic = new ActionIncomingTopic<>("dt/benchmark/actions/set-point", "set-point", payload -> GSON.fromJson(payload, Map.class));
+        this.stringPayload = "ON";
+        this.jsonPayload = "{\"value\":21.5,\"unit\":\"C\",\"timestamp\":1700000000000}";
+    }
+
+    @Benchmark
+    public WldtEvent<?> decodeStringAction() {
+        return stringActionTopic.applySubscribeFunction(stringPayload);
+    }
+
+    @Benchmark
+    public WldtEvent<?> decodeJsonAction() {
+        return jsonActionTopic.applySubscribeFunction(jsonPayload);
+    }
+}
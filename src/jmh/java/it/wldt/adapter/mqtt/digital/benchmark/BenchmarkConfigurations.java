@@ -0,0 +1,54 @@
+package it.wldt.adapter.mqtt.digital.benchmark;
+
+import it.wldt.adapter.mqtt.digital.MqttDigitalAdapterConfiguration;
+import it.wldt.adapter.mqtt.digital.MqttDigitalAdapterConfigurationBuilder;
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+import it.wldt.adapter.mqtt.digital.logging.HotPathLoggingPolicy;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.core.state.DigitalTwinStateChange;
+import it.wldt.core.state.DigitalTwinStateProperty;
+import it.wldt.exception.WldtDigitalTwinStateException;
+import org.slf4j.event.Level;
+
+import java.util.ArrayList;
+
+/**
+ * Shared fixtures of the benchmarks.
+ */
+public final class BenchmarkConfigurations {
+
+    public static final String PROPERTY_PREFIX = "property-";
+
+    public static final String EVENT_KEY = "overheating";
+
+    private BenchmarkConfigurations() {
+    }
+
+    /**
+     * Creates a builder with the given number of numeric property topics ({@code property-<i>}) and one event
+     * topic, and hot path logging disabled so that the benchmarks do not measure the logging backend.
+     */
+    public static MqttDigitalAdapterConfigurationBuilder builder(int propertyTopics) throws MqttDigitalAdapterConfigurationException {
+        MqttDigitalAdapterConfigurationBuilder builder = MqttDigitalAdapterConfiguration.builder("127.0.0.1", 1883)
+                .setHotPathLoggingPolicy(HotPathLoggingPolicy.builder()
+                        .setLevel(Level.TRACE)
+                        .setSummaryIntervalMs(0)
+                        .build());
+        for (int i = 0; i < propertyTopics; i++)
+            builder.addPropertyTopic(PROPERTY_PREFIX + i, "dt/benchmark/state/properties/" + PROPERTY_PREFIX + i + "/updated", MqttQosLevel.MQTT_QOS_0, (Double value) -> String.valueOf(value));
+        builder.addEventNotificationTopic(EVENT_KEY, "dt/benchmark/events/" + EVENT_KEY, MqttQosLevel.MQTT_QOS_0, (String body) -> body);
+        return builder;
+    }
+
+    /**
+     * Creates a list of property value updates on keys {@code property-0 .. property-(keySpace-1)}.
+     */
+    public static ArrayList<DigitalTwinStateChange> propertyValueChanges(int changes, int keySpace) throws WldtDigitalTwinStateException {
+        ArrayList<DigitalTwinStateChange> changeList = new ArrayList<>(changes);
+        for (int i = 0; i < changes; i++)
+            changeList.add(new DigitalTwinStateChange(DigitalTwinStateChange.Operation.OPERATION_UPDATE_VALUE,
+                    DigitalTwinStateChange.ResourceType.PROPERTY_VALUE,
+                    new DigitalTwinStateProperty<>(PROPERTY_PREFIX + (i % keySpace), 20.0 + i * 0.25)));
+        return changeList;
+    }
+}
@@ -0,0 +1,28 @@
+package it.wldt.adapter.mqtt.digital.benchmark;
+
+import it.wldt.adapter.mqtt.digital.MqttDigitalAdapter;
+import it.wldt.adapter.mqtt.digital.MqttDigitalAdapterConfiguration;
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterClient;
+import it.wldt.core.state.DigitalTwinState;
+import it.wldt.core.state.DigitalTwinStateChange;
+import it.wldt.core.state.DigitalTwinStateEventNotification;
+
+import java.util.ArrayList;
+
+/**
+ * MQTT Digital Adapter exposing its DT callbacks to the benchmarks and publishing through a stub client.
+ */
+public class BenchmarkMqttDigitalAdapter extends MqttDigitalAdapter {
+
+    public BenchmarkMqttDigitalAdapter(MqttDigitalAdapterConfiguration configuration, MqttDigitalAdapterClient client) {
+        super("benchmark-da", configuration, client);
+    }
+
+    public void stateUpdate(DigitalTwinState state, ArrayList<DigitalTwinStateChange> changes) {
+        onStateUpdate(state, state, changes);
+    }
+
+    public void eventNotification(DigitalTwinStateEventNotification<?> notification) {
+        onEventNotificationReceived(notification);
+    }
+}
@@ -0,0 +1,59 @@
+package it.wldt.adapter.mqtt.digital.benchmark;
+
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.DigitalTwinOutgoingTopic;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.DigitalTwinOutgoingTopicFactory;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.EventNotificationOutgoingTopic;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.PropertyOutgoingTopic;
+import it.wldt.core.state.DigitalTwinStateEventNotification;
+import it.wldt.core.state.DigitalTwinStateProperty;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the payload serialization of the Gson based topics created by {@link DigitalTwinOutgoingTopicFactory}
+ * with topics configured with a custom publish function.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublishFunctionBenchmark {
+
+    private DigitalTwinOutgoingTopic<DigitalTwinStateProperty<?>> factoryPropertyTopic;
+
+    private PropertyOutgoingTopic<Double> customPropertyTopic;
+
+    private EventNotificationOutgoingTopic<String> customEventNotificationTopic;
+
+    private DigitalTwinStateProperty<Double> property;
+
+    private DigitalTwinStateEventNotification<String> eventNotification;
+
+    @Setup
+    public void setup() throws Exception {
+        this.factoryPropertyTopic = DigitalTwinOutgoingTopicFactory.createDefaultPropertyCreatedTopic("energy", MqttQosLevel.MQTT_QOS_0);
+        this.customPropertyTopic = new PropertyOutgoingTopic<>("dt/benchmark/energy", MqttQosLevel.MQTT_QOS_0, String::valueOf);
+        this.customEventNotificationTopic = new EventNotificationOutgoingTopic<>("dt/benchmark/overheating", MqttQosLevel.MQTT_QOS_0, body -> body);
+        this.property = new DigitalTwinStateProperty<>("energy", 42.5);
+        this.eventNotification = new DigitalTwinStateEventNotification<>(BenchmarkConfigurations.EVENT_KEY, "overheating detected", System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public String factoryGsonPropertyTopic() {
+        return factoryPropertyTopic.applyPublishFunction(property);
+    }
+
+    @Benchmark
+    public String customPropertyTopic() {
+        return customPropertyTopic.applyPublishFunction(property);
+    }
+
+    @Benchmark
+    public String customEventNotificationTopic() {
+        return customEventNotificationTopic.applyPublishFunction(eventNotification);
+    }
+}
@@ -0,0 +1,68 @@
+package it.wldt.adapter.mqtt.digital.benchmark;
+
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.core.state.DigitalTwinState;
+import it.wldt.core.state.DigitalTwinStateChange;
+import it.wldt.core.state.DigitalTwinStateEventNotification;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the end-to-end publish path of a single property update and of a single event notification, from the
+ * DT callback to the client publish, using a stub client that completes every delivery immediately. The constant
+ * payload variant isolates the adapter from the publish function: in steady state it should not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublishPathBenchmark {
+
+    private static final String CONSTANT_PAYLOAD = "{\"value\":42.5,\"unit\":\"kWh\"}";
+
+    private BenchmarkMqttDigitalAdapter adapter;
+
+    private BenchmarkMqttDigitalAdapter constantPayloadAdapter;
+
+    private StubMqttDigitalAdapterClient client;
+
+    private DigitalTwinState state;
+
+    private ArrayList<DigitalTwinStateChange> singleChange;
+
+    private DigitalTwinStateEventNotification<String> eventNotification;
+
+    @Setup
+    public void setup() throws Exception {
+        this.client = new StubMqttDigitalAdapterClient();
+        this.adapter = new BenchmarkMqttDigitalAdapter(BenchmarkConfigurations.builder(1).build(), client);
+        this.constantPayloadAdapter = new BenchmarkMqttDigitalAdapter(BenchmarkConfigurations.builder(0)
+                .addPropertyTopic(BenchmarkConfigurations.PROPERTY_PREFIX + 0, "dt/benchmark/state/properties/constant", MqttQosLevel.MQTT_QOS_0, value -> CONSTANT_PAYLOAD)
+                .build(), client);
+        this.state = new DigitalTwinState();
+        this.singleChange = BenchmarkConfigurations.propertyValueChanges(1, 1);
+        this.eventNotification = new DigitalTwinStateEventNotification<>(BenchmarkConfigurations.EVENT_KEY, "overheating detected", System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public long propertyUpdate() {
+        adapter.stateUpdate(state, singleChange);
+        return client.getPublishedBytes();
+    }
+
+    @Benchmark
+    public long constantPayloadPropertyUpdate() {
+        constantPayloadAdapter.stateUpdate(state, singleChange);
+        return client.getPublishedBytes();
+    }
+
+    @Benchmark
+    public long eventNotification() {
+        adapter.eventNotification(eventNotification);
+        return client.getPublishedBytes();
+    }
+}
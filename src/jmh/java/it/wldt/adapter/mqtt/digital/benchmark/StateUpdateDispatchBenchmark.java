@@ -0,0 +1,65 @@
+package it.wldt.adapter.mqtt.digital.benchmark;
+
+import it.wldt.adapter.mqtt.digital.MqttDigitalAdapterConfigurationBuilder;
+import it.wldt.adapter.mqtt.digital.serialization.ParallelSerializationPolicy;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.core.state.DigitalTwinState;
+import it.wldt.core.state.DigitalTwinStateChange;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the dispatch of a DT state update carrying a large change list: lookup of the matching property topics,
+ * serialization and publication through a stub client. Half of the changed keys have no configured topic so that
+ * the cost of skipping irrelevant changes is included. The publish functions optionally burn some CPU to model
+ * expensive serializations, which the parallel variant spreads on a fork-join pool (large change lists only).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StateUpdateDispatchBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int changes;
+
+    @Param({"100"})
+    public int propertyTopics;
+
+    @Param({"0", "1000"})
+    public int serializationCpuTokens;
+
+    @Param({"false", "true"})
+    public boolean parallelSerialization;
+
+    private BenchmarkMqttDigitalAdapter adapter;
+
+    private DigitalTwinState state;
+
+    private ArrayList<DigitalTwinStateChange> changeList;
+
+    @Setup
+    public void setup() throws Exception {
+        MqttDigitalAdapterConfigurationBuilder builder = BenchmarkConfigurations.builder(0);
+        for (int i = 0; i < propertyTopics; i++)
+            builder.addPropertyTopic(BenchmarkConfigurations.PROPERTY_PREFIX + i, "dt/benchmark/state/properties/" + BenchmarkConfigurations.PROPERTY_PREFIX + i + "/updated", MqttQosLevel.MQTT_QOS_0, (Double value) -> {
+                Blackhole.consumeCPU(serializationCpuTokens);
+                return String.valueOf(value);
+            });
+        if (parallelSerialization)
+            builder.setParallelSerializationPolicy(ParallelSerializationPolicy.builder().build());
+        this.adapter = new BenchmarkMqttDigitalAdapter(builder.build(), new StubMqttDigitalAdapterClient());
+        this.state = new DigitalTwinState();
+        this.changeList = BenchmarkConfigurations.propertyValueChanges(changes, propertyTopics * 2);
+    }
+
+    @Benchmark
+    public void onStateUpdate() {
+        adapter.stateUpdate(state, changeList);
+    }
+}
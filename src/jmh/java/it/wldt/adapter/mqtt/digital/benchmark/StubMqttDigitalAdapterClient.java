@@ -0,0 +1,71 @@
+package it.wldt.adapter.mqtt.digital.benchmark;
+
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterClient;
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterDeliveryToken;
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterMessageListener;
+import it.wldt.adapter.mqtt.digital.client.MqttProtocolVersion;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+
+/**
+ * MQTT client stub used by the benchmarks: publishes complete immediately without any network activity and the
+ * payloads are not retained, so the adapter recycles them.
+ */
+public class StubMqttDigitalAdapterClient implements MqttDigitalAdapterClient {
+
+    private static final MqttDigitalAdapterDeliveryToken COMPLETED_TOKEN = () -> { };
+
+    private long publishedMessages = 0;
+
+    private long publishedBytes = 0;
+
+    @Override
+    public void connect() {
+    }
+
+    @Override
+    public void disconnect() {
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public MqttDigitalAdapterDeliveryToken publish(MqttTopic topic, byte[] payload) {
+        publishedMessages++;
+        publishedBytes += payload.length;
+        return COMPLETED_TOKEN;
+    }
+
+    @Override
+    public int getInFlightMessageCount() {
+        return 0;
+    }
+
+    @Override
+    public boolean isPayloadReusableAfterDelivery() {
+        return true;
+    }
+
+    @Override
+    public void subscribe(MqttTopic topic, MqttDigitalAdapterMessageListener listener) {
+    }
+
+    @Override
+    public void unsubscribe(MqttTopic topic) {
+    }
+
+    @Override
+    public MqttProtocolVersion getProtocolVersion() {
+        return MqttProtocolVersion.MQTT_3_1_1;
+    }
+
+    public long getPublishedMessages() {
+        return publishedMessages;
+    }
+
+    public long getPublishedBytes() {
+        return publishedBytes;
+    }
+}
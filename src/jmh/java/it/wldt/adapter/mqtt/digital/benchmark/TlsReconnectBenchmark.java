@@ -0,0 +1,92 @@
+package it.wldt.adapter.mqtt.digital.benchmark;
+
+import it.wldt.adapter.mqtt.digital.MqttDigitalAdapterConfiguration;
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterClient;
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterClientFactory;
+import it.wldt.adapter.mqtt.digital.tls.TlsPolicy;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.utils.EmbeddedMqttBroker;
+import org.openjdk.jmh.annotations.*;
+
+import javax.net.ssl.SSLSocket;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the reconnection over TLS to an embedded broker with a self-signed certificate, with and without the
+ * resumption of the cached TLS session:
+ * <ul>
+ *   <li>{@code handshake}: connection and handshake of a socket created by the socket factory of the TLS policy, i.e.
+ *   the cost of a full handshake over an abbreviated one</li>
+ *   <li>{@code reconnect}: disconnection and connection of the MQTT client of the adapter, including the MQTT
+ *   CONNECT exchange with the broker</li>
+ * </ul>
+ * With TLS 1.2 a resumed session skips the key exchange and the certificate verification, while with TLS 1.3 the JDK
+ * resumes the session with a pre-shared key combined with a new (EC)DHE key exchange, so the gain is smaller.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TlsReconnectBenchmark {
+
+    private static final String BROKER_ADDRESS = "127.0.0.1";
+
+    private static final int BROKER_PORT = 1883;
+
+    private static final int BROKER_TLS_PORT = 8883;
+
+    @Param({"TLSv1.2", "TLSv1.3"})
+    public String protocol;
+
+    @Param({"true", "false"})
+    public boolean sessionResumption;
+
+    private EmbeddedMqttBroker broker;
+
+    private TlsPolicy tlsPolicy;
+
+    private MqttDigitalAdapterClient client;
+
+    @Setup
+    public void setup() throws Exception {
+        this.broker = new EmbeddedMqttBroker(BROKER_ADDRESS, BROKER_PORT, BROKER_TLS_PORT);
+        this.broker.start();
+        this.tlsPolicy = TlsPolicy.builder()
+                .setTrustStore(broker.getTrustStore())
+                .setProtocols(protocol)
+                .setSessionResumption(sessionResumption)
+                .build();
+        MqttDigitalAdapterConfiguration configuration = MqttDigitalAdapterConfiguration.builder(BROKER_ADDRESS, BROKER_TLS_PORT)
+                .setAutomaticReconnectFlag(false)
+                .setTlsPolicy(tlsPolicy)
+                .addPropertyTopic(BenchmarkConfigurations.PROPERTY_PREFIX + 0, "dt/benchmark/state/properties/tls", MqttQosLevel.MQTT_QOS_0, Object::toString)
+                .build();
+        this.client = MqttDigitalAdapterClientFactory.createClient(configuration);
+        this.client.connect();
+    }
+
+    @Benchmark
+    public boolean handshake() throws Exception {
+        try (SSLSocket socket = (SSLSocket) tlsPolicy.getSocketFactory().createSocket()) {
+            socket.connect(new InetSocketAddress(BROKER_ADDRESS, BROKER_TLS_PORT));
+            socket.startHandshake();
+            return socket.getSession().isValid();
+        }
+    }
+
+    @Benchmark
+    public boolean reconnect() throws Exception {
+        client.disconnect();
+        client.connect();
+        return client.isConnected();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.disconnect();
+        broker.close();
+    }
+}
@@ -1,20 +1,67 @@
 package it.wldt.adapter.mqtt.digital;
 
-import it.wldt.adapter.mqtt.digital.topic.incoming.DigitalTwinIncomingTopic;
+import it.wldt.adapter.mqtt.digital.aggregation.WindowAggregator;
+import it.wldt.adapter.mqtt.digital.aggregation.WindowSummary;
+import it.wldt.adapter.mqtt.digital.batch.PropertySampleBatcher;
+import it.wldt.adapter.mqtt.digital.batch.SampleBatch;
+import it.wldt.adapter.mqtt.digital.batch.SampleBatchPolicy;
+import it.wldt.adapter.mqtt.digital.buffer.Utf8PayloadEncoder;
+import it.wldt.adapter.mqtt.digital.cache.PublishedPayload;
+import it.wldt.adapter.mqtt.digital.cache.PublishedPayloadCache;
+import it.wldt.adapter.mqtt.digital.cache.StateRequestHandler;
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterClient;
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterClientFactory;
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterMessageListener;
+import it.wldt.adapter.mqtt.digital.client.MqttProtocolVersion;
+import it.wldt.adapter.mqtt.digital.client.SessionSubscriptionStore;
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterClientException;
+import it.wldt.adapter.mqtt.digital.jfr.MqttDigitalAdapterFlightRecorder;
+import it.wldt.adapter.mqtt.digital.logging.HotPathLogger;
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterDeliveryToken;
+import it.wldt.adapter.mqtt.digital.metrics.MqttDigitalAdapterMetrics;
+import it.wldt.adapter.mqtt.digital.pacing.AdaptivePublishPacer;
+import it.wldt.adapter.mqtt.digital.reconnect.BufferedPublication;
+import it.wldt.adapter.mqtt.digital.reconnect.ReconnectManager;
+import it.wldt.adapter.mqtt.digital.routing.SubscriptionDiff;
+import it.wldt.adapter.mqtt.digital.routing.TopicRoutingTable;
+import it.wldt.adapter.mqtt.digital.serialization.ParallelPropertySerializer;
+import it.wldt.adapter.mqtt.digital.stripe.StripedPublisher;
+import it.wldt.adapter.mqtt.digital.structure.StructurePublication;
+import it.wldt.adapter.mqtt.digital.structure.StructureTracker;
+import it.wldt.adapter.mqtt.digital.subscription.DynamicActionSubscriptions;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+import it.wldt.adapter.mqtt.digital.topic.incoming.ActionIncomingTopic;
+import it.wldt.adapter.mqtt.digital.topic.incoming.StateRequestIncomingTopic;
 import it.wldt.adapter.mqtt.digital.topic.outgoing.DigitalTwinOutgoingTopic;
 import it.wldt.adapter.mqtt.digital.topic.outgoing.EventNotificationOutgoingTopic;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.OutgoingTopicFanOut;
 import it.wldt.adapter.mqtt.digital.topic.outgoing.PropertyOutgoingTopic;
 import it.wldt.adapter.digital.DigitalAdapter;
+import it.wldt.adapter.digital.event.DigitalActionWldtEvent;
 import it.wldt.core.state.*;
 import it.wldt.exception.EventBusException;
+import it.wldt.exception.WldtDigitalTwinStateActionException;
 import it.wldt.exception.WldtDigitalTwinStateEventException;
-import org.eclipse.paho.client.mqttv3.MqttClient;
-import org.eclipse.paho.client.mqttv3.MqttException;
-import org.eclipse.paho.client.mqttv3.MqttMessage;
+import it.wldt.exception.WldtDigitalTwinStatePropertyException;
+import it.wldt.exception.WldtWorkerException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -22,7 +69,8 @@ import java.util.stream.Collectors;
  * `DigitalAdapter` class and provides functionality to interact with a Digital Twin over MQTT. The adapter
  * subscribes to incoming topics, handles state updates, and publishes events and property changes over MQTT.
  *
- * The class utilizes the Eclipse Paho MQTT client library for MQTT communication.
+ * The class utilizes the Eclipse Paho MQTT client library for MQTT communication, either in its MQTT 3.1.1 (mqttv3)
+ * or MQTT 5 (mqttv5) flavour according to the configured protocol version.
  *
  * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
  */
@@ -30,21 +78,291 @@ public class MqttDigitalAdapter extends DigitalAdapter<MqttDigitalAdapterConfigu
     
     private final static Logger logger = LoggerFactory.getLogger(MqttDigitalAdapter.class);
     
-    private final MqttClient mqttClient;
+    private volatile MqttDigitalAdapterClient mqttClient;
+
+    private final MqttDigitalAdapterMetrics metrics;
+
+    private final HotPathLogger hotPathLogger;
+
+    private final PublishedPayloadCache publishedPayloadCache;
+
+    private volatile StateRequestHandler stateRequestHandler;
+
+    private final ReconnectManager reconnectManager;
+
+    private final AdaptivePublishPacer publishPacer;
+
+    // Current topics, replaced as a whole by a reconfiguration and read once per update, notification or message
+    private volatile TopicRoutingTable routing;
+
+    private final ParallelPropertySerializer parallelSerializer;
+
+    // Subscribes the action topics following the actions of the DT state, null if all of them are subscribed at startup
+    private final DynamicActionSubscriptions dynamicSubscriptions;
+
+    // Structure of the DT state whose changes are published, null if they are not
+    private final StructureTracker structureTracker;
+
+    // Delivers the publications on per-key ordered lanes, null if they are delivered on the calling thread
+    private final StripedPublisher stripedPublisher;
+
+    // Guards the following fields, serializing the reconfigurations with the startup and the stop of the adapter
+    private final Object reconfigurationLock = new Object();
+
+    // Schedules the window summaries and the age triggers of the sample batches
+    private ScheduledExecutorService publishScheduler;
+
+    private List<ScheduledFuture<?>> windowSummaryTasks = Collections.emptyList();
+
+    private boolean started = false;
+
+    // Thread running the asynchronous startup, joined by the stop
+    private Thread startupThread;
+
+    // Set once the adapter has been stopped, the following publications are discarded
+    private volatile boolean stopped = false;
+
+    // Listeners by incoming topic, created at startup
+    private Map<MqttTopic, MqttDigitalAdapterMessageListener> incomingSubscriptions;
+
+    private boolean incomingTopicsSubscribed = false;
+
+    // Topics subscribed in the persistent broker session, created at the first startup with a persistent session
+    private volatile SessionSubscriptionStore sessionSubscriptionStore;
+
+    // Keys of the events of the DT state, null until the DT is synchronized, then kept up to date by the state updates
+    private Set<String> registeredEventKeys;
+
+    // Keys of the observed event notifications, the registered events with a topic
+    private Set<String> observedEventKeys = Collections.emptySet();
 
     /**
      * Constructs an instance of the `MqttDigitalAdapter` class with the specified identifier and configuration.
-     * It initializes the MQTT client with the provided broker connection details.
+     * It initializes the MQTT client, matching the configured protocol version, with the provided broker connection details.
+     * With the persistent session enabled, the client is initialized once the adapter is added to its DT, so that
+     * its client id can be derived from the DT id.
      *
      * @param id The unique identifier for the adapter.
      * @param configuration The configuration for the MQTT Digital Adapter.
-     * @throws MqttException If there is an issue with the MQTT client initialization.
+     * @throws MqttDigitalAdapterClientException If there is an issue with the MQTT client initialization.
      */
-    public MqttDigitalAdapter(String id, MqttDigitalAdapterConfiguration configuration) throws MqttException {
+    public MqttDigitalAdapter(String id, MqttDigitalAdapterConfiguration configuration) throws MqttDigitalAdapterClientException {
+        this(id, configuration, configuration.getPersistentSessionFlag() ? null : MqttDigitalAdapterClientFactory.createClient(configuration));
+    }
+
+    /**
+     * Constructs an instance of the `MqttDigitalAdapter` class using the provided MQTT client instead of the one
+     * matching the configured protocol version (e.g. a stub client for benchmarks and tests).
+     *
+     * @param id The unique identifier for the adapter.
+     * @param configuration The configuration for the MQTT Digital Adapter.
+     * @param mqttClient The MQTT client used by the adapter, or null to create it from the configuration once the
+     *                   DT id is known.
+     */
+    protected MqttDigitalAdapter(String id, MqttDigitalAdapterConfiguration configuration, MqttDigitalAdapterClient mqttClient) {
         super(id, configuration);
-        mqttClient = new MqttClient(getConfiguration().getBrokerConnectionString(),
-                getConfiguration().getClientId(),
-                getConfiguration().getPersistence());
+        this.mqttClient = mqttClient;
+        metrics = getConfiguration().getMetrics();
+        hotPathLogger = new HotPathLogger(logger, id, getConfiguration().getHotPathLoggingPolicy());
+        routing = new TopicRoutingTable(getConfiguration(), this::publishSampleBatch);
+        publishedPayloadCache = getConfiguration().getPublishedPayloadCacheFlag() ?
+                new PublishedPayloadCache(routing.getPrimaryPropertyTopicNames()) : null;
+        reconnectManager = getConfiguration().getReconnectPolicy() != null ?
+                new ReconnectManager(id, getConfiguration().getReconnectPolicy(), metrics, createResumptionHandler()) : null;
+        publishPacer = getConfiguration().getPublishPacingPolicy() != null ?
+                new AdaptivePublishPacer(getConfiguration().getPublishPacingPolicy(), metrics) : null;
+        parallelSerializer = getConfiguration().getParallelSerializationPolicy() != null ?
+                new ParallelPropertySerializer(getConfiguration().getParallelSerializationPolicy()) : null;
+        dynamicSubscriptions = getConfiguration().getDynamicSubscriptionPolicy() != null ?
+                new DynamicActionSubscriptions(id, getConfiguration().getDynamicSubscriptionPolicy(),
+                        actionKey -> routing.getActionTopicByKey(actionKey), this::updateIncomingSubscriptions) : null;
+        structureTracker = getConfiguration().getStructurePublishingPolicy() != null ?
+                new StructureTracker(getConfiguration().getStructurePublishingPolicy()) : null;
+        stripedPublisher = getConfiguration().getStripedPublishingPolicy() != null ?
+                new StripedPublisher(id, getConfiguration().getStripedPublishingPolicy(), metrics) : null;
+    }
+
+    /**
+     * Gets the current topics of the adapter.
+     *
+     * @return The routing table of the adapter.
+     */
+    public TopicRoutingTable getRoutingTable() {
+        return routing;
+    }
+
+    /**
+     * Replaces the property, event notification and action topics of the adapter with the ones of the given
+     * configuration, including the aggregation and batching of the property topics, without restarting the adapter
+     * nor reconnecting to the broker. The other settings of the given configuration are ignored.
+     * <p>
+     * The new topics are swapped in atomically: the state updates, event notifications and messages in flight
+     * complete on the previous topics, the following ones use the new topics. Only the action topics added, removed
+     * or whose QoS level changed are subscribed or unsubscribed, the event notifications are observed or no longer
+     * observed according to the new event topics, the pending sample batches of the previous topics are published
+     * and the windows of the aggregated topics start over. The cached payloads of the properties whose primary
+     * topic changed are discarded. With the dynamic action subscriptions, the topics of the registered actions are
+     * resolved again and their subscriptions updated after the debounce time.
+     *
+     * @param configuration The configuration with the new topics.
+     * @throws MqttDigitalAdapterClientException If the subscriptions cannot be updated, the new topics are routed anyway.
+     */
+    public void reconfigure(MqttDigitalAdapterConfiguration configuration) throws MqttDigitalAdapterClientException {
+        synchronized (reconfigurationLock) {
+            TopicRoutingTable previous = routing;
+            TopicRoutingTable next = new TopicRoutingTable(configuration, this::publishSampleBatch);
+            routing = next;
+            if(publishedPayloadCache != null)
+                publishedPayloadCache.setTopics(next.getPrimaryPropertyTopicNames());
+            if(started) {
+                windowSummaryTasks.forEach(task -> task.cancel(false));
+                previous.getBatchers().forEach(PropertySampleBatcher::flush);
+                schedulePublications(next);
+            }
+            updateEventObservations(next);
+            if(dynamicSubscriptions != null)
+                dynamicSubscriptions.refresh();
+            else {
+                SubscriptionDiff<ActionIncomingTopic<?>> diff = SubscriptionDiff.between(previous.getActionTopics(), next.getActionTopics());
+                updateIncomingSubscriptions(diff.getUnsubscribed(), diff.getSubscribed());
+            }
+            logger.info("MQTT Digital Adapter {} - reconfigured, properties: {} events: {} actions: {}", getId(),
+                    next.getPrimaryPropertyTopicNames().size(), next.getEventKeys().size(), next.getActionTopics().size());
+        }
+    }
+
+    /**
+     * Unsubscribes and subscribes action topics, matching the subscriptions by topic filter: filters not subscribed
+     * are not unsubscribed, and filters already subscribed are subscribed again only with a different QoS level,
+     * replacing their subscription. Before the initial subscription,
+     * and while disconnected, only the subscriptions sent at startup or after a reconnection are updated. With a
+     * reconnect policy, the changes requested while reconnecting are applied by the reconnect manager once
+     * reconnected, also when the broker resumed the session.
+     *
+     * @param unsubscribed The action topics to unsubscribe, unsubscribed first.
+     * @param subscribed The action topics to subscribe.
+     * @throws MqttDigitalAdapterClientException If the subscriptions cannot be updated.
+     */
+    private void updateIncomingSubscriptions(List<? extends MqttTopic> unsubscribed, List<? extends ActionIncomingTopic<?>> subscribed) throws MqttDigitalAdapterClientException {
+        synchronized (reconfigurationLock) {
+            if(incomingSubscriptions == null)
+                return;
+            Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions = new LinkedHashMap<>(incomingSubscriptions);
+            Set<String> unsubscribedFilters = unsubscribed.stream().map(MqttTopic::getTopic).collect(Collectors.toSet());
+            List<MqttTopic> removed = subscriptions.keySet().stream()
+                    .filter(topic -> unsubscribedFilters.contains(topic.getTopic()))
+                    .collect(Collectors.toList());
+            subscriptions.keySet().removeAll(removed);
+            Map<String, MqttTopic> subscribedFilters = new HashMap<>();
+            subscriptions.keySet().forEach(topic -> subscribedFilters.put(topic.getTopic(), topic));
+            Map<MqttTopic, MqttDigitalAdapterMessageListener> added = new LinkedHashMap<>();
+            for (ActionIncomingTopic<?> topic : subscribed) {
+                MqttTopic current = subscribedFilters.get(topic.getTopic());
+                if(current != null && current.getQos().equals(topic.getQos()))
+                    continue;
+                // A subscription with a different QoS level replaces the current one
+                if(current != null)
+                    subscriptions.remove(current);
+                subscribedFilters.put(topic.getTopic(), topic);
+                added.put(topic, createActionMessageListener(topic.getTopic()));
+            }
+            if(removed.isEmpty() && added.isEmpty())
+                return;
+            subscriptions.putAll(added);
+            incomingSubscriptions = subscriptions;
+            if(getConfiguration().getPersistentSessionFlag())
+                mqttClient.setSessionListeners(subscriptions);
+            // While reconnecting, the reconnect manager applies the changes once connected
+            boolean deferred = reconnectManager != null && reconnectManager.setSubscriptions(subscriptions);
+            if(deferred || !incomingTopicsSubscribed || !mqttClient.isConnected())
+                return;
+            if(!removed.isEmpty()) {
+                mqttClient.unsubscribe(removed);
+                recordSessionUnsubscribed(removed);
+                removed.forEach(topic -> logger.info("MQTT Digital Adapter - MQTT client unsubscribed from topic: {}", topic.getTopic()));
+            }
+            if(!added.isEmpty()) {
+                long subscribeStart = System.nanoTime();
+                mqttClient.subscribe(added);
+                metrics.recordSubscribe(added.size(), System.nanoTime() - subscribeStart);
+                recordSessionSubscribed(added.keySet());
+                added.keySet().forEach(topic -> logger.info("MQTT Digital Adapter - MQTT client subscribed to topic: {}", topic.getTopic()));
+            }
+            if(reconnectManager != null)
+                reconnectManager.setSessionSubscriptions(subscriptions);
+        }
+    }
+
+    /**
+     * Applies the events registered and removed by a state update and updates the observed event notifications
+     * accordingly. Changes received before the DT is synchronized are ignored, the events are then read from the
+     * synchronized state.
+     *
+     * @param eventChanges The registration (true) or removal (false) of the changed events, by event key.
+     */
+    private void updateRegisteredEvents(Map<String, Boolean> eventChanges) {
+        synchronized (reconfigurationLock) {
+            if(registeredEventKeys == null)
+                return;
+            eventChanges.forEach((eventKey, registered) -> {
+                if(registered)
+                    registeredEventKeys.add(eventKey);
+                else
+                    registeredEventKeys.remove(eventKey);
+            });
+            updateEventObservations(routing);
+        }
+    }
+
+    /**
+     * Observes the notifications of the registered events with a topic, and no longer observes the other ones, with
+     * at most one batched call each. Nothing is observed until the DT is synchronized.
+     *
+     * @param table The routing table.
+     */
+    private void updateEventObservations(TopicRoutingTable table) {
+        if(registeredEventKeys == null)
+            return;
+        Set<String> eventKeys = registeredEventKeys.stream()
+                .filter(key -> table.getEventFanOut(key) != null)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        List<String> observed = eventKeys.stream().filter(key -> !observedEventKeys.contains(key)).collect(Collectors.toList());
+        List<String> unobserved = observedEventKeys.stream().filter(key -> !eventKeys.contains(key)).collect(Collectors.toList());
+        try {
+            if(!unobserved.isEmpty()) {
+                unObserveDigitalTwinEventsNotifications(unobserved);
+                logger.debug("MQTT Digital Adapter - no longer observing event notifications: {}", unobserved);
+            }
+            if(!observed.isEmpty()) {
+                observeDigitalTwinEventsNotifications(observed);
+                logger.debug("MQTT Digital Adapter - observing event notifications: {}", observed);
+            }
+            observedEventKeys = eventKeys;
+        } catch (EventBusException e) {
+            logger.error("MQTT Digital Adapter - error updating the observed event notifications: {}", e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Gets the last payload published on the topic of a property, served from the published payload cache without
+     * serializing the DT state again.
+     *
+     * @param propertyKey The property key.
+     * @return The last published payload, empty if nothing has been published yet for the property or the cache
+     * is disabled.
+     */
+    public Optional<PublishedPayload> getPublishedPayload(String propertyKey) {
+        return publishedPayloadCache == null ? Optional.empty() : publishedPayloadCache.get(propertyKey);
+    }
+
+    /**
+     * Gets the last payloads published on the property topics, i.e. the DT state as currently published by the
+     * adapter, served from the published payload cache without serializing the DT state again.
+     *
+     * @return The last published payloads by property key, empty if the cache is disabled.
+     */
+    public Map<String, PublishedPayload> getPublishedState() {
+        return publishedPayloadCache == null ? Collections.emptyMap() : publishedPayloadCache.getAll();
     }
 
     /**
@@ -60,6 +378,20 @@ public class MqttDigitalAdapter extends DigitalAdapter<MqttDigitalAdapterConfigu
 
         if (digitalTwinStateChangeList != null && !digitalTwinStateChangeList.isEmpty()) {
 
+            TopicRoutingTable routingTable = routing;
+
+            // Structural changes are published first, so that consumers learn about new resources before their values
+            if(structureTracker != null)
+                publishStructurePublications(structureTracker.update(digitalTwinStateChangeList));
+
+            // Events registered (true) or removed (false) by the state update, applied once all the changes are matched
+            Map<String, Boolean> eventChanges = null;
+
+            // Property updates of state updates with enough changes are collected once all the changes are matched, and
+            // serialized in parallel only if they reach the threshold themselves
+            List<DigitalTwinStateProperty<?>> parallelUpdates = parallelSerializer != null && parallelSerializer.isParallel(digitalTwinStateChangeList.size()) ?
+                    new ArrayList<>(digitalTwinStateChangeList.size()) : null;
+
             // Iterate through each state change in the list
             for (DigitalTwinStateChange stateChange : digitalTwinStateChangeList) {
 
@@ -73,87 +405,301 @@ public class MqttDigitalAdapter extends DigitalAdapter<MqttDigitalAdapterConfigu
                         && (resource instanceof DigitalTwinStateProperty))){
 
                     DigitalTwinStateProperty<?> digitalTwinStateProperty = (DigitalTwinStateProperty<?>) resource;
+                    String propertyKey = digitalTwinStateProperty.getKey();
 
-                    if(getConfiguration().getPropertyUpdateTopics().containsKey(digitalTwinStateProperty.getKey())){
-                        PropertyOutgoingTopic<?> outgoingTopic = getConfiguration().getPropertyUpdateTopics().get(digitalTwinStateProperty.getKey());
-                        publishOnDigitalTwinOutgoingTopic(outgoingTopic, outgoingTopic.applyPublishFunction(digitalTwinStateProperty));
+                    // Aggregated topics publish the values as window summaries
+                    Map<PropertyOutgoingTopic<?>, WindowAggregator> aggregators = routingTable.getPropertyAggregators(propertyKey);
+                    if(aggregators != null){
+                        if(digitalTwinStateProperty.getValue() instanceof Number) {
+                            double value = ((Number) digitalTwinStateProperty.getValue()).doubleValue();
+                            for (WindowAggregator aggregator : aggregators.values())
+                                aggregator.add(value);
+                        }
+                        else
+                            logger.debug("MQTT Digital Adapter - discarded non numeric value of aggregated property: {}", propertyKey);
                     }
+
+                    // Batched topics publish the values with the other samples of their batch
+                    Map<PropertyOutgoingTopic<?>, PropertySampleBatcher> batchers = routingTable.getPropertyBatchers(propertyKey);
+                    if(batchers != null){
+                        long timestamp = System.currentTimeMillis();
+                        for (Map.Entry<PropertyOutgoingTopic<?>, PropertySampleBatcher> batcher : batchers.entrySet()) {
+                            if(digitalTwinStateProperty.getValue() instanceof Number)
+                                batcher.getValue().add(timestamp, ((Number) digitalTwinStateProperty.getValue()).doubleValue());
+                            else
+                                batcher.getValue().add(timestamp, batcher.getKey().applyPublishFunction(digitalTwinStateProperty));
+                        }
+                    }
+
+                    OutgoingTopicFanOut<PropertyOutgoingTopic<?>> fanOut = routingTable.getPropertyFanOut(propertyKey);
+                    if(fanOut != null){
+                        if(parallelUpdates != null)
+                            parallelUpdates.add(digitalTwinStateProperty);
+                        else
+                            serializeAndPublishPropertyUpdate(digitalTwinStateProperty, fanOut);
+                    }
+                }
+                // Search for registered or removed events, whose notifications are observed only while registered
+                else if(resourceType.equals(DigitalTwinStateChange.ResourceType.EVENT) && resource instanceof DigitalTwinStateEvent
+                        && (operation.equals(DigitalTwinStateChange.Operation.OPERATION_ADD) || operation.equals(DigitalTwinStateChange.Operation.OPERATION_REMOVE))){
+                    if(eventChanges == null)
+                        eventChanges = new LinkedHashMap<>();
+                    eventChanges.put(((DigitalTwinStateEvent) resource).getKey(), operation.equals(DigitalTwinStateChange.Operation.OPERATION_ADD));
+                }
+                // Search for registered or removed actions, followed by the dynamic action subscriptions
+                else if(dynamicSubscriptions != null && resourceType.equals(DigitalTwinStateChange.ResourceType.ACTION)
+                        && resource instanceof DigitalTwinStateAction){
+                    String actionKey = ((DigitalTwinStateAction) resource).getKey();
+                    if(operation.equals(DigitalTwinStateChange.Operation.OPERATION_ADD))
+                        dynamicSubscriptions.onActionsRegistered(Collections.singletonList(actionKey));
+                    else if(operation.equals(DigitalTwinStateChange.Operation.OPERATION_REMOVE))
+                        dynamicSubscriptions.onActionUnregistered(actionKey);
                 }
             }
+
+            if(eventChanges != null)
+                updateRegisteredEvents(eventChanges);
+
+            if(parallelUpdates != null && parallelSerializer.isParallel(parallelUpdates.size()))
+                parallelSerializer.serializeInOrder(parallelUpdates,
+                        property -> routingTable.getPropertyFanOut(property.getKey()).serialize(outgoingTopic -> serializePropertyUpdate(property, outgoingTopic)),
+                        (property, payloads) -> publishPropertyUpdate(property.getKey(), routingTable.getPropertyFanOut(property.getKey()), payloads));
+            else if(parallelUpdates != null)
+                parallelUpdates.forEach(property -> serializeAndPublishPropertyUpdate(property, routingTable.getPropertyFanOut(property.getKey())));
         } else {
             // No state changes
-            logger.info("No relevant DT's state changes detected !");
+            logger.debug("No relevant DT's state changes detected !");
         }
     }
 
+    /**
+     * Publishes the messages of the structural changes of the DT state.
+     *
+     * @param publications The structure publications.
+     */
+    private void publishStructurePublications(List<StructurePublication> publications) {
+        for (StructurePublication publication : publications)
+            publishOnDigitalTwinOutgoingTopic(publication.getTopicKey(), publication.getTopic(), publication.getPayload(), null);
+    }
+
+    /**
+     * Serializes a property update with the publish function of its topic, reporting the serialization time.
+     *
+     * @param digitalTwinStateProperty The updated property.
+     * @param outgoingTopic The topic of the property.
+     * @return The payload.
+     */
+    private String serializePropertyUpdate(DigitalTwinStateProperty<?> digitalTwinStateProperty, PropertyOutgoingTopic<?> outgoingTopic) {
+        long serializationStart = System.nanoTime();
+        String payload = outgoingTopic.applyPublishFunction(digitalTwinStateProperty);
+        metrics.recordSerialization(digitalTwinStateProperty.getKey(), System.nanoTime() - serializationStart);
+        return payload;
+    }
+
+    /**
+     * Serializes a property update on the calling thread and publishes it on the direct topics of the property.
+     *
+     * @param digitalTwinStateProperty The updated property.
+     * @param fanOut The direct topics of the property.
+     */
+    private void serializeAndPublishPropertyUpdate(DigitalTwinStateProperty<?> digitalTwinStateProperty, OutgoingTopicFanOut<PropertyOutgoingTopic<?>> fanOut) {
+        String propertyKey = digitalTwinStateProperty.getKey();
+        if(fanOut.size() == 1)
+            publishOnDigitalTwinOutgoingTopic(propertyKey, fanOut.get(0), serializePropertyUpdate(digitalTwinStateProperty, fanOut.get(0)), fanOut.isPrimary(0) ? publishedPayloadCache : null);
+        else
+            publishPropertyUpdate(propertyKey, fanOut, fanOut.serialize(outgoingTopic -> serializePropertyUpdate(digitalTwinStateProperty, outgoingTopic)));
+    }
+
+    /**
+     * Publishes the payloads of a property update on the direct topics of the property, caching only the payload of
+     * the primary topic.
+     *
+     * @param propertyKey The property key.
+     * @param fanOut The direct topics of the property.
+     * @param payloads The payloads of the topics, by index.
+     */
+    private void publishPropertyUpdate(String propertyKey, OutgoingTopicFanOut<PropertyOutgoingTopic<?>> fanOut, String[] payloads) {
+        for (int i = 0; i < payloads.length; i++)
+            publishOnDigitalTwinOutgoingTopic(propertyKey, fanOut.get(i), payloads[i], fanOut.isPrimary(i) ? publishedPayloadCache : null);
+    }
+
     /**
      * Callback method to receive a new computed Event Notification (associated to event declared in the DT State)
-     * In the case of the MQTT Digital Adapter, it sends the received event over MQTT on the configured topic.
+     * In the case of the MQTT Digital Adapter, it sends the received event over MQTT on the configured topics.
      *
      * @param digitalTwinStateEventNotification The generated Notification associated to a DT Event
      */
     @Override
     protected void onEventNotificationReceived(DigitalTwinStateEventNotification<?> digitalTwinStateEventNotification) {
-        logger.info("MQTT Digital Adapter({}) - received event: {}", this.getId(), digitalTwinStateEventNotification.getDigitalEventKey());
-        if(this.getConfiguration().getEventNotificationTopics().containsKey(digitalTwinStateEventNotification.getDigitalEventKey())){
-            EventNotificationOutgoingTopic<?> outgoingTopic = getConfiguration().getEventNotificationTopics().get(digitalTwinStateEventNotification.getDigitalEventKey());
-            publishOnDigitalTwinOutgoingTopic(outgoingTopic, outgoingTopic.applyPublishFunction(digitalTwinStateEventNotification));
+        hotPathLogger.logEventNotificationReceived(digitalTwinStateEventNotification.getDigitalEventKey());
+        String eventKey = digitalTwinStateEventNotification.getDigitalEventKey();
+        OutgoingTopicFanOut<EventNotificationOutgoingTopic<?>> fanOut = routing.getEventFanOut(eventKey);
+        if(fanOut == null)
+            return;
+        if(fanOut.size() == 1) {
+            publishOnDigitalTwinOutgoingTopic(eventKey, fanOut.get(0), serializeEventNotification(digitalTwinStateEventNotification, fanOut.get(0)), null);
+            return;
         }
+        String[] payloads = fanOut.serialize(outgoingTopic -> serializeEventNotification(digitalTwinStateEventNotification, outgoingTopic));
+        for (int i = 0; i < payloads.length; i++)
+            publishOnDigitalTwinOutgoingTopic(eventKey, fanOut.get(i), payloads[i], null);
     }
 
     /**
-     * Callback to notify the adapter on its correct startup
+     * Serializes an event notification with the publish function of a topic, reporting the serialization time.
+     *
+     * @param digitalTwinStateEventNotification The event notification.
+     * @param outgoingTopic The topic of the event.
+     * @return The payload.
+     */
+    private String serializeEventNotification(DigitalTwinStateEventNotification<?> digitalTwinStateEventNotification, EventNotificationOutgoingTopic<?> outgoingTopic) {
+        long serializationStart = System.nanoTime();
+        String payload = outgoingTopic.applyPublishFunction(digitalTwinStateEventNotification);
+        metrics.recordSerialization(digitalTwinStateEventNotification.getDigitalEventKey(), System.nanoTime() - serializationStart);
+        return payload;
+    }
+
+    /**
+     * Callback to notify the adapter on its correct startup.
+     * The adapter connects to the broker, subscribes to the incoming topics and notifies its binding to the DT,
+     * on a dedicated thread if the asynchronous startup is enabled.
      */
     @Override
     public void onAdapterStart() {
-        connectToMqttBroker();
-        getConfiguration().getActionIncomingTopics().values().forEach(this::subscribeClientToDigitalTwinIncomingTopic);
-        notifyDigitalAdapterBound();
+        hotPathLogger.start();
+        stopped = false;
+        if(reconnectManager != null)
+            reconnectManager.start();
+        if(parallelSerializer != null)
+            parallelSerializer.start();
+        if(dynamicSubscriptions != null)
+            dynamicSubscriptions.start();
+        if(stripedPublisher != null)
+            stripedPublisher.start();
+        long startupStart = System.nanoTime();
+        synchronized (reconfigurationLock) {
+            started = true;
+            schedulePublications(routing);
+            if(getConfiguration().getAsyncStartupFlag()) {
+                startupThread = new Thread(() -> startAdapter(startupStart), "mqtt-digital-adapter-startup-" + getId());
+                startupThread.setDaemon(true);
+                startupThread.start();
+                return;
+            }
+        }
+        startAdapter(startupStart);
+    }
+
+    /**
+     * Sets the id of the DT of the adapter and, if not created yet, creates the MQTT client whose client id may be
+     * derived from it.
+     *
+     * @param digitalTwinId The DT id.
+     * @throws WldtWorkerException If the MQTT client cannot be created.
+     */
+    @Override
+    public void setDigitalTwinId(String digitalTwinId) throws WldtWorkerException {
+        super.setDigitalTwinId(digitalTwinId);
+        if(mqttClient == null) {
+            try {
+                createMqttClient();
+            } catch (MqttDigitalAdapterClientException e) {
+                throw new WldtWorkerException("Error creating the MQTT client: " + e.getMessage());
+            }
+        }
     }
 
     /**
-     * Callback to notify the adapter that has been stopped
+     * Callback to notify the adapter that has been stopped. An asynchronous startup still in progress is waited for,
+     * up to the connection timeout, and no longer subscribes nor notifies the binding once it is connected.
      */
     @Override
     public void onAdapterStop() {
+        Thread pendingStartup;
+        synchronized (reconfigurationLock) {
+            started = false;
+            pendingStartup = startupThread;
+            startupThread = null;
+        }
+        if(pendingStartup != null) {
+            try {
+                pendingStartup.join(TimeUnit.SECONDS.toMillis(getConfiguration().getConnectionTimeout() + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        hotPathLogger.stop();
+        if(stateRequestHandler != null)
+            stateRequestHandler.stop();
+        if(reconnectManager != null)
+            reconnectManager.stop();
+        if(dynamicSubscriptions != null)
+            dynamicSubscriptions.stop();
+        synchronized (reconfigurationLock) {
+            if(publishScheduler != null) {
+                publishScheduler.shutdownNow();
+                publishScheduler = null;
+            }
+            routing.getBatchers().forEach(PropertySampleBatcher::flush);
+        }
+        if(parallelSerializer != null)
+            parallelSerializer.shutdown();
+        // The pending publications are delivered before disconnecting
+        if(stripedPublisher != null)
+            stripedPublisher.shutdown();
+        stopped = true;
         try {
-            mqttClient.disconnect();
-        } catch (MqttException e) {
-            e.printStackTrace();
+            if(mqttClient != null && mqttClient.isConnected())
+                mqttClient.disconnect();
+        } catch (MqttDigitalAdapterClientException e) {
+            logger.error("MQTT Digital Adapter - error disconnecting from the broker: {}", e.getLocalizedMessage());
         }
     }
 
     /**
      * DT Life Cycle notification that the DT is correctly on Sync.
      * In this case the MQTT Digital Adapter observ the list of events for their variation with the aim to
-     * publish the associated value over MQTT.
+     * publish the associated value over MQTT. The events registered and removed by the following state updates are
+     * observed and no longer observed incrementally. With the dynamic action subscriptions, the actions of the DT
+     * state are registered so that their topics are subscribed, and with the structure publishing its structure is
+     * published.
      *
      * @param currentDigitalTwinState
      */
     @Override
     public void onDigitalTwinSync(DigitalTwinState currentDigitalTwinState) {
+        if(dynamicSubscriptions != null) {
+            try {
+                currentDigitalTwinState.getActionList().ifPresent(actions ->
+                        dynamicSubscriptions.onActionsRegistered(actions.stream()
+                                .map(DigitalTwinStateAction::getKey)
+                                .collect(Collectors.toList())));
+            } catch (WldtDigitalTwinStateActionException e) {
+                logger.error("MQTT Digital Adapter - error reading the actions of the DT state: {}", e.getLocalizedMessage());
+            }
+        }
+        if(structureTracker != null) {
+            try {
+                publishStructurePublications(structureTracker.synchronize(
+                        currentDigitalTwinState.getPropertyList().orElseGet(Collections::emptyList),
+                        currentDigitalTwinState.getActionList().orElseGet(Collections::emptyList),
+                        currentDigitalTwinState.getEventList().orElseGet(Collections::emptyList)));
+            } catch (WldtDigitalTwinStatePropertyException | WldtDigitalTwinStateActionException | WldtDigitalTwinStateEventException e) {
+                logger.error("MQTT Digital Adapter - error reading the structure of the DT state: {}", e.getLocalizedMessage());
+            }
+        }
         try {
-//            currentDigitalTwinState.getActionList().ifPresent(actions ->
-//                actions.stream()
-//                        .map(DigitalTwinStateAction::getKey)
-//                        .filter(a -> getConfiguration().getActionIncomingTopics().containsKey(a))
-//                        .map(a -> getConfiguration().getActionIncomingTopics().get(a))
-//                        .forEach(this::subscribeClientToDigitalTwinIncomingTopic));
-
-            currentDigitalTwinState.getEventList()
+            Set<String> eventKeys = currentDigitalTwinState.getEventList()
                     .map(events -> events.stream()
                             .map(DigitalTwinStateEvent::getKey)
-                            .filter(key -> getConfiguration().getEventNotificationTopics().containsKey(key))
-                            .collect(Collectors.toList()))
-                    .ifPresent(l -> {
-                        try {
-                            observeDigitalTwinEventsNotifications(l);
-                        } catch (EventBusException e) {
-                            e.printStackTrace();
-                        }
-                    });
+                            .collect(Collectors.toCollection(LinkedHashSet::new)))
+                    .orElseGet(LinkedHashSet::new);
+            synchronized (reconfigurationLock) {
+                registeredEventKeys = eventKeys;
+                updateEventObservations(routing);
+            }
         } catch (WldtDigitalTwinStateEventException e) {
-            e.printStackTrace();
+            logger.error("MQTT Digital Adapter - error reading the events of the DT state: {}", e.getLocalizedMessage());
         }
     }
 
@@ -199,58 +745,525 @@ public class MqttDigitalAdapter extends DigitalAdapter<MqttDigitalAdapterConfigu
     }
 
     /**
-     * Publishes a message on the specified Digital Twin outgoing topic using MQTT.
+     * Publishes a message on the specified Digital Twin outgoing topic using MQTT and waits for its delivery.
+     * With a reconnect policy, the message is buffered while the adapter is disconnected or resuming, and with a
+     * publish pacing policy it waits for its slot of the adaptive rate limit. Publish time, delivery time, in-flight messages and failures are reported to the configured metrics and,
+     * when enabled, a publish Flight Recorder event is emitted. When a payload cache is provided, the delivered
+     * payload is cached and, if enabled, a payload identical to the cached one is not published. With a striped
+     * publishing policy, all of the above happens on the lane of the topic key and the caller only waits for room on
+     * the lane.
      *
+     * @param topicKey The key (property or event key) associated with the outgoing topic.
      * @param topic   The Digital Twin outgoing topic to publish the message on.
      * @param payload The message payload to be published.
+     * @param payloadCache The cache of the published payloads of the topic, or null.
      */
-    private void publishOnDigitalTwinOutgoingTopic(DigitalTwinOutgoingTopic<?> topic, String payload){
-        try {
-            MqttMessage msg = new MqttMessage(payload.getBytes());
-            msg.setQos(topic.getQos());
-            msg.setRetained(topic.isRetained());
-            mqttClient.publish(topic.getTopic(), msg);
-            logger.info("MQTT Digital Adapter - MQTT client published message: {} on topic: {}", payload, topic.getTopic());
-        } catch (MqttException e) {
-            e.printStackTrace();
+    private void publishOnDigitalTwinOutgoingTopic(String topicKey, DigitalTwinOutgoingTopic<?> topic, String payload, PublishedPayloadCache payloadCache){
+        if(stopped) {
+            logger.debug("MQTT Digital Adapter - adapter stopped, publication on topic {} discarded", topic.getTopic());
+            return;
         }
+        if(stripedPublisher != null)
+            stripedPublisher.submit(topicKey, () -> bufferOrDeliverOnDigitalTwinOutgoingTopic(topicKey, topic, payload, payloadCache));
+        else
+            bufferOrDeliverOnDigitalTwinOutgoingTopic(topicKey, topic, payload, payloadCache);
     }
 
     /**
-     * Subscribes the MQTT client to the specified Digital Twin incoming topic.
-     * Upon receiving a message, it invokes the corresponding function to publish a Digital Action Wldt Event.
+     * Buffers a message while disconnected or resuming, otherwise publishes it and waits for its delivery, see
+     * {@link #publishOnDigitalTwinOutgoingTopic(String, DigitalTwinOutgoingTopic, String, PublishedPayloadCache)}.
+     *
+     * @param topicKey The key (property or event key) associated with the outgoing topic.
+     * @param topic   The Digital Twin outgoing topic to publish the message on.
+     * @param payload The message payload to be published.
+     * @param payloadCache The cache of the published payloads of the topic, or null.
+     */
+    private void bufferOrDeliverOnDigitalTwinOutgoingTopic(String topicKey, DigitalTwinOutgoingTopic<?> topic, String payload, PublishedPayloadCache payloadCache){
+        // While disconnected or resuming, the publication is buffered and replayed by the reconnect manager
+        if(reconnectManager != null && reconnectManager.buffer(topicKey, topic, payload, payloadCache, topic instanceof PropertyOutgoingTopic))
+            return;
+        deliverOnDigitalTwinOutgoingTopic(topicKey, topic, payload, payloadCache);
+    }
+
+    /**
+     * Publishes a message on the specified Digital Twin outgoing topic and waits for its delivery, see
+     * {@link #publishOnDigitalTwinOutgoingTopic(String, DigitalTwinOutgoingTopic, String, PublishedPayloadCache)}.
      *
-     * @param topic The Digital Twin incoming topic to subscribe to.
+     * @param topicKey The key (property or event key) associated with the outgoing topic.
+     * @param topic   The Digital Twin outgoing topic to publish the message on.
+     * @param payload The message payload to be published.
+     * @param payloadCache The cache of the published payloads of the topic, or null.
      */
-    private void subscribeClientToDigitalTwinIncomingTopic(DigitalTwinIncomingTopic topic) {
+    private void deliverOnDigitalTwinOutgoingTopic(String topicKey, DigitalTwinOutgoingTopic<?> topic, String payload, PublishedPayloadCache payloadCache){
         try {
-            mqttClient.subscribe(topic.getTopic(), topic.getQos(), (t, msg) ->{
-                logger.info("MQTT Digital Adapter -receive message on topic: {}", t);
-                //TODO: evaluate improvement
-                new Thread(() -> {
-                    try {
-                        publishDigitalActionWldtEvent(topic.applySubscribeFunction(new String(msg.getPayload())));
-                    } catch (EventBusException e) {
-                        e.printStackTrace();
-                    }
-                }).start();
+            // The payload array is recycled only if the client releases it once delivered, see PayloadBufferSlot
+            boolean reusablePayload = mqttClient.isPayloadReusableAfterDelivery();
+            int payloadLength = Utf8PayloadEncoder.encodedLength(payload);
+            byte[] payloadBytes = reusablePayload ? topic.getPayloadBufferSlot().acquire(payloadLength) : new byte[payloadLength];
+            Utf8PayloadEncoder.encode(payload, payloadBytes);
+            if(payloadCache != null && getConfiguration().getDuplicatePayloadSuppressionFlag() && payloadCache.isDuplicate(topicKey, payloadBytes)){
+                if(reusablePayload)
+                    topic.getPayloadBufferSlot().release(payloadBytes);
+                metrics.recordDuplicateSuppressed(topicKey);
+                return;
+            }
+            if(publishPacer != null)
+                publishPacer.acquire();
+            Object jfrEvent = MqttDigitalAdapterFlightRecorder.beginPublish();
+            long publishStart = System.nanoTime();
+            MqttDigitalAdapterDeliveryToken deliveryToken = mqttClient.publish(topic, payloadBytes);
+            long publishEnd = System.nanoTime();
+            metrics.recordPublish(topicKey, payloadBytes.length, publishEnd - publishStart);
+            metrics.recordQueueDepth(mqttClient.getInFlightMessageCount());
+            deliveryToken.waitForCompletion();
+            long ackRtt = System.nanoTime() - publishEnd;
+            metrics.recordPublishAck(topicKey, ackRtt);
+            if(publishPacer != null)
+                publishPacer.onAck(ackRtt);
+            // The cache takes the delivered array and hands back the replaced one
+            byte[] releasedPayload = payloadCache != null ? payloadCache.update(topicKey, payloadBytes) : payloadBytes;
+            if(reusablePayload && releasedPayload != null)
+                topic.getPayloadBufferSlot().release(releasedPayload);
+            MqttDigitalAdapterFlightRecorder.commitPublish(jfrEvent, topic.getTopic(), payloadBytes.length, topic.getQos());
+            hotPathLogger.logPublished(topic.getTopic(), payload);
+        } catch (MqttDigitalAdapterClientException e) {
+            metrics.recordPublishFailure(topicKey);
+            if(publishPacer != null)
+                publishPacer.onFailure();
+            hotPathLogger.logFailure(topic.getTopic(), "publishing the message", e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Schedules the summaries of the aggregated property topics of a routing table, each one at the slide interval
+     * of its policy, and enables the age trigger of its batched property topics. Invoked holding the
+     * reconfiguration lock.
+     *
+     * @param table The routing table.
+     */
+    private void schedulePublications(TopicRoutingTable table) {
+        Map<PropertyOutgoingTopic<?>, WindowAggregator> aggregators = table.getAggregators();
+        List<PropertySampleBatcher> batchers = table.getBatchers();
+        windowSummaryTasks = new ArrayList<>(aggregators.size());
+        if(aggregators.isEmpty() && batchers.isEmpty())
+            return;
+        if(publishScheduler == null)
+            publishScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "mqtt-digital-adapter-scheduler-" + getId());
+                thread.setDaemon(true);
+                return thread;
             });
-            logger.info("MQTT Digital Adapter - MQTT client subscribed to topic: {}", topic.getTopic());
-        } catch (MqttException e) {
-            e.printStackTrace();
+        aggregators.forEach((outgoingTopic, aggregator) -> {
+            long slideMs = aggregator.getPolicy().getSlideMs();
+            windowSummaryTasks.add(publishScheduler.scheduleAtFixedRate(() -> publishWindowSummary(aggregator, outgoingTopic), slideMs, slideMs, TimeUnit.MILLISECONDS));
+        });
+        batchers.forEach(batcher -> batcher.start(publishScheduler));
+    }
+
+    /**
+     * Closes the current pane of an aggregated property topic and publishes the summary of its window on the topic.
+     *
+     * @param aggregator The aggregator of the topic.
+     * @param outgoingTopic The aggregated topic.
+     */
+    private void publishWindowSummary(WindowAggregator aggregator, PropertyOutgoingTopic<?> outgoingTopic) {
+        try {
+            WindowSummary summary = aggregator.slide(System.currentTimeMillis());
+            if(summary == null)
+                return;
+            String propertyKey = aggregator.getPropertyKey();
+            long serializationStart = System.nanoTime();
+            String payload = aggregator.getPolicy().getSummarySerializer().serialize(summary);
+            metrics.recordSerialization(propertyKey, System.nanoTime() - serializationStart);
+            publishOnDigitalTwinOutgoingTopic(propertyKey, outgoingTopic, payload, getPayloadCache(propertyKey, outgoingTopic));
+        } catch (RuntimeException e) {
+            // Thrown by a custom serializer, the next windows are published anyway
+            logger.error("MQTT Digital Adapter - error publishing the window summary of property {}: {}", aggregator.getPropertyKey(), e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Encodes a complete sample batch of a property topic and publishes it on the topic.
+     *
+     * @param batch The sample batch.
+     * @param outgoingTopic The batched topic.
+     * @param batchPolicy The batch policy of the topic.
+     */
+    private void publishSampleBatch(SampleBatch batch, PropertyOutgoingTopic<?> outgoingTopic, SampleBatchPolicy batchPolicy) {
+        String propertyKey = batch.getPropertyKey();
+        try {
+            long serializationStart = System.nanoTime();
+            String payload = batchPolicy.getEncoder().encode(batch);
+            metrics.recordSerialization(propertyKey, System.nanoTime() - serializationStart);
+            publishOnDigitalTwinOutgoingTopic(propertyKey, outgoingTopic, payload, getPayloadCache(propertyKey, outgoingTopic));
+        } catch (RuntimeException e) {
+            // Thrown by a custom encoder, the next batches are published anyway
+            logger.error("MQTT Digital Adapter - error publishing a sample batch of property {}: {}", propertyKey, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Gets the published payload cache if the topic is the primary topic of the property, whose payloads are cached.
+     *
+     * @param propertyKey The property key.
+     * @param outgoingTopic The property topic.
+     * @return The published payload cache, or null.
+     */
+    private PublishedPayloadCache getPayloadCache(String propertyKey, PropertyOutgoingTopic<?> outgoingTopic) {
+        return routing.getPrimaryPropertyTopic(propertyKey) == outgoingTopic ? publishedPayloadCache : null;
+    }
+
+    /**
+     * Connects to the broker, subscribes to the incoming topics and notifies the binding of the adapter to the DT.
+     * Connection, subscription and startup times are reported to the configured metrics.
+     *
+     * @param startupStart The start time of the adapter in nanoseconds.
+     */
+    private void startAdapter(long startupStart) {
+        try {
+            if(mqttClient == null)
+                createMqttClient();
+        } catch (MqttDigitalAdapterClientException e) {
+            logger.error("MQTT Digital Adapter - error creating the MQTT client: {}", e.getLocalizedMessage());
+            notifyDigitalAdapterUnBound(e.getMessage());
+            return;
         }
+        boolean persistentSession = getConfiguration().getPersistentSessionFlag();
+        if(persistentSession && isInMemoryPersistence())
+            logger.warn("MQTT Digital Adapter - persistent session with in-memory persistence, in-flight messages are lost on restart");
+        synchronized (reconfigurationLock) {
+            if(!started)
+                return;
+            incomingSubscriptions = createIncomingTopicSubscriptions(routing);
+            if(persistentSession) {
+                mqttClient.setSessionListeners(incomingSubscriptions);
+                if(sessionSubscriptionStore == null)
+                    sessionSubscriptionStore = createSessionSubscriptionStore();
+            }
+            if(reconnectManager != null) {
+                reconnectManager.setSubscriptions(incomingSubscriptions);
+                // Resumed by a reconnection if the startup fails to connect
+                List<MqttTopic> sessionTopics = persistentSession ? sessionSubscriptionStore.getSubscribedTopics() : null;
+                if(sessionTopics != null)
+                    reconnectManager.setSessionSubscriptions(createSessionTopicSubscriptions(sessionTopics, incomingSubscriptions));
+            }
+        }
+        if(reconnectManager != null)
+            mqttClient.setConnectionListener(reconnectManager::onConnectionLost);
+        boolean connected = connectToMqttBroker();
+        synchronized (reconfigurationLock) {
+            if(!started) {
+                // Stopped while connecting, the stop does not wait for the startup anymore
+                logger.info("MQTT Digital Adapter - adapter stopped during the startup");
+                disconnectStoppedClient(connected);
+                return;
+            }
+            // The subscriptions may have been reconfigured while connecting
+            Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions = incomingSubscriptions;
+            if(!connected) {
+                // The reconnect manager subscribes to the incoming topics once connected
+                if(reconnectManager != null)
+                    reconnectManager.onConnectFailed();
+                incomingTopicsSubscribed = reconnectManager != null;
+            }
+            else {
+                incomingTopicsSubscribed = subscribeClientToIncomingTopics(getSessionTopics(), subscriptions);
+                if(incomingTopicsSubscribed && reconnectManager != null)
+                    reconnectManager.setSessionSubscriptions(subscriptions);
+            }
+        }
+        notifyDigitalAdapterBound();
+        metrics.recordStartup(System.nanoTime() - startupStart);
+    }
+
+    /**
+     * Disconnects the MQTT client connected by a startup that completed after the adapter has been stopped.
+     *
+     * @param connected True if the startup connected the client.
+     */
+    private void disconnectStoppedClient(boolean connected) {
+        if(!connected)
+            return;
+        try {
+            mqttClient.disconnect();
+        } catch (MqttDigitalAdapterClientException e) {
+            logger.error("MQTT Digital Adapter - error disconnecting the client of a stopped adapter: {}", e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Checks whether the in-flight messages of the MQTT client are kept in memory only.
+     *
+     * @return True if the configured persistence of the protocol version in use is in-memory, false otherwise.
+     */
+    private boolean isInMemoryPersistence() {
+        if(getConfiguration().getLoopbackBroker() != null)
+            return false;
+        if(getConfiguration().getProtocolVersion() == MqttProtocolVersion.MQTT_5)
+            return getConfiguration().getMqttV5Persistence() instanceof org.eclipse.paho.mqttv5.client.persist.MemoryPersistence;
+        return getConfiguration().getPersistence() instanceof MemoryPersistence;
+    }
+
+    /**
+     * Creates the MQTT client with the client id resolved for the adapter and its DT.
+     *
+     * @throws MqttDigitalAdapterClientException If the client cannot be created.
+     */
+    private void createMqttClient() throws MqttDigitalAdapterClientException {
+        mqttClient = MqttDigitalAdapterClientFactory.createClient(getConfiguration(), getConfiguration().getClientId(getDigitalTwinId(), getId()));
+    }
+
+    /**
+     * Creates the listeners of the Digital Twin incoming action topics and, if enabled, of the state request topic.
+     * All the action topics are included, or only the currently subscribed ones with the dynamic action subscriptions.
+     *
+     * @param table The routing table with the action topics.
+     * @return The listeners by incoming topic.
+     */
+    private Map<MqttTopic, MqttDigitalAdapterMessageListener> createIncomingTopicSubscriptions(TopicRoutingTable table) {
+        Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions = new LinkedHashMap<>();
+        Collection<ActionIncomingTopic<?>> actionTopics = dynamicSubscriptions != null ?
+                dynamicSubscriptions.getSubscribedTopics() : table.getActionTopics();
+        actionTopics.forEach(topic -> subscriptions.put(topic, createActionMessageListener(topic.getTopic())));
+        StateRequestIncomingTopic stateRequestTopic = getConfiguration().getStateRequestTopic();
+        if(stateRequestTopic != null)
+            subscriptions.put(stateRequestTopic, createStateRequestMessageListener(stateRequestTopic));
+        return subscriptions;
+    }
+
+    /**
+     * Gets the topics still subscribed in the broker session once connected. A new session is recorded as such, and
+     * a resumed session whose subscriptions are unknown is subscribed again with all the incoming topics.
+     *
+     * @return The topics subscribed in the broker session, empty if the session has not been resumed.
+     */
+    private List<MqttTopic> getSessionTopics() {
+        if(!getConfiguration().getPersistentSessionFlag())
+            return Collections.emptyList();
+        if(!mqttClient.isSessionPresent()) {
+            sessionSubscriptionStore.clear();
+            return Collections.emptyList();
+        }
+        List<MqttTopic> sessionTopics = sessionSubscriptionStore.getSubscribedTopics();
+        if(sessionTopics == null) {
+            logger.warn("MQTT Digital Adapter - MQTT client resumed session with unknown subscriptions, subscribing again to all the incoming topics");
+            sessionTopics = Collections.emptyList();
+        }
+        metrics.recordSessionResumed(sessionTopics.size());
+        logger.info("MQTT Digital Adapter - MQTT client resumed session with {} subscriptions", sessionTopics.size());
+        return sessionTopics;
+    }
+
+    /**
+     * Unsubscribes the MQTT client from the topics of the broker session no longer incoming topics and subscribes it
+     * to the incoming topics missing from the session, or whose QoS level changed, with a single multi-topic
+     * SUBSCRIBE.
+     *
+     * @param sessionTopics The topics subscribed in the broker session.
+     * @param subscriptions The listeners by incoming topic.
+     * @return True if subscribed, false if the subscription failed.
+     */
+    private boolean subscribeClientToIncomingTopics(List<MqttTopic> sessionTopics, Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) {
+        SubscriptionDiff<MqttTopic> diff = SubscriptionDiff.between(sessionTopics, subscriptions.keySet());
+        if(!diff.getUnsubscribed().isEmpty()) {
+            try {
+                mqttClient.unsubscribe(diff.getUnsubscribed());
+                recordSessionUnsubscribed(diff.getUnsubscribed());
+                diff.getUnsubscribed().forEach(topic -> logger.info("MQTT Digital Adapter - MQTT client unsubscribed from topic: {}", topic.getTopic()));
+            } catch (MqttDigitalAdapterClientException e) {
+                // Their messages are ignored, since no action topic matches their filter
+                logger.error("MQTT Digital Adapter - error unsubscribing from the removed incoming topics: {}", e.getLocalizedMessage());
+            }
+        }
+        if(diff.getSubscribed().isEmpty())
+            return true;
+        Map<MqttTopic, MqttDigitalAdapterMessageListener> added = new LinkedHashMap<>();
+        diff.getSubscribed().forEach(topic -> added.put(topic, subscriptions.get(topic)));
+        try {
+            long subscribeStart = System.nanoTime();
+            mqttClient.subscribe(added);
+            metrics.recordSubscribe(added.size(), System.nanoTime() - subscribeStart);
+            recordSessionSubscribed(added.keySet());
+            added.keySet().forEach(topic -> logger.info("MQTT Digital Adapter - MQTT client subscribed to topic: {}", topic.getTopic()));
+            return true;
+        } catch (MqttDigitalAdapterClientException e) {
+            logger.error("MQTT Digital Adapter - error subscribing to the incoming topics: {}", e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Creates the store of the topics subscribed in the persistent broker session, stored in the persistence directory
+     * with a file based persistence, in memory otherwise.
+     *
+     * @return The session subscription store.
+     */
+    private SessionSubscriptionStore createSessionSubscriptionStore() {
+        String directory = getConfiguration().getPersistenceDirectory();
+        if(directory == null || getConfiguration().getLoopbackBroker() != null)
+            return new SessionSubscriptionStore();
+        return new SessionSubscriptionStore(directory, getConfiguration().getClientId(getDigitalTwinId(), getId()),
+                getConfiguration().getBrokerConnectionString());
+    }
+
+    /**
+     * Associates the topics subscribed in the broker session with the listener of the incoming topic with the same
+     * filter, or with the listener of an action topic if no longer incoming.
+     *
+     * @param sessionTopics The topics subscribed in the broker session.
+     * @param subscriptions The listeners by incoming topic.
+     * @return The listeners by topic subscribed in the broker session.
+     */
+    private Map<MqttTopic, MqttDigitalAdapterMessageListener> createSessionTopicSubscriptions(List<MqttTopic> sessionTopics, Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) {
+        Map<String, MqttDigitalAdapterMessageListener> listeners = new HashMap<>();
+        subscriptions.forEach((topic, listener) -> listeners.put(topic.getTopic(), listener));
+        Map<MqttTopic, MqttDigitalAdapterMessageListener> sessionSubscriptions = new LinkedHashMap<>();
+        sessionTopics.forEach(topic -> sessionSubscriptions.put(topic, listeners.getOrDefault(topic.getTopic(), createActionMessageListener(topic.getTopic()))));
+        return sessionSubscriptions;
+    }
+
+    /**
+     * Records the topics subscribed in the persistent broker session, if any.
+     *
+     * @param topics The subscribed topics.
+     */
+    private void recordSessionSubscribed(Collection<? extends MqttTopic> topics) {
+        if(getConfiguration().getPersistentSessionFlag() && sessionSubscriptionStore != null)
+            sessionSubscriptionStore.subscribed(topics);
+    }
+
+    /**
+     * Records the topics unsubscribed from the persistent broker session, if any.
+     *
+     * @param topics The unsubscribed topics.
+     */
+    private void recordSessionUnsubscribed(Collection<? extends MqttTopic> topics) {
+        if(getConfiguration().getPersistentSessionFlag() && sessionSubscriptionStore != null)
+            sessionSubscriptionStore.unsubscribed(topics);
+    }
+
+    /**
+     * Creates the listener of a Digital Twin incoming action topic.
+     * Upon receiving a message, it invokes the corresponding function to publish a Digital Action Wldt Event.
+     * The receive to dispatch latency is reported to the configured metrics.
+     *
+     * @param topicFilter The topic filter of the Digital Twin incoming action topic.
+     * @return The message listener.
+     */
+    private MqttDigitalAdapterMessageListener createActionMessageListener(String topicFilter) {
+        return (t, payload) -> {
+            long receivedAt = System.nanoTime();
+            // Resolved at each message, so the topic keeps its subscription when reconfigured with the same filter and QoS
+            ActionIncomingTopic<?> topic = routing.getActionTopic(topicFilter);
+            if(topic == null)
+                return;
+            hotPathLogger.logMessageReceived(t);
+            //TODO: evaluate improvement
+            new Thread(() -> {
+                try {
+                    DigitalActionWldtEvent<?> actionEvent = topic.applySubscribeFunction(new String(payload));
+                    Object jfrEvent = MqttDigitalAdapterFlightRecorder.beginActionDispatch();
+                    publishDigitalActionWldtEvent(actionEvent);
+                    MqttDigitalAdapterFlightRecorder.commitActionDispatch(jfrEvent, t, payload.length, topic.getQos());
+                    metrics.recordActionDispatch(topic.getActionKey(), System.nanoTime() - receivedAt);
+                } catch (EventBusException e) {
+                    metrics.recordActionFailure(topic.getActionKey());
+                    hotPathLogger.logFailure(t, "dispatching the action", e.getLocalizedMessage());
+                }
+            }).start();
+        };
+    }
+
+    /**
+     * Creates the listener of the state request topic. Requests are answered by a `StateRequestHandler` on the
+     * state response topic with the payloads of the published payload cache.
+     *
+     * @param topic The state request topic.
+     * @return The message listener.
+     */
+    private MqttDigitalAdapterMessageListener createStateRequestMessageListener(StateRequestIncomingTopic topic) {
+        StateRequestHandler handler = new StateRequestHandler(getId(), publishedPayloadCache, topic, getConfiguration().getStateResponseTopic(),
+                (responseTopic, payload) -> {
+                    // Cached responses are shared, the array is copied if the client hands it over to the subscribers
+                    mqttClient.publish(responseTopic, mqttClient.isPayloadReusableAfterDelivery() ? payload : payload.clone()).waitForCompletion();
+                    logger.debug("MQTT Digital Adapter - MQTT client published state response of {} bytes on topic: {}", payload.length, responseTopic.getTopic());
+                });
+        stateRequestHandler = handler;
+        return (t, payload) -> {
+            hotPathLogger.logMessageReceived(t);
+            handler.onRequest(payload);
+        };
+    }
+
+    /**
+     * Creates the operations performed by the reconnect manager on the MQTT client: reconnection, rate limited
+     * resubscription and replay of the buffered publications.
+     *
+     * @return The resumption handler.
+     */
+    private ReconnectManager.ResumptionHandler createResumptionHandler() {
+        return new ReconnectManager.ResumptionHandler() {
+            @Override
+            public boolean connect() throws MqttDigitalAdapterClientException {
+                long connectStart = System.nanoTime();
+                try {
+                    mqttClient.connect();
+                } catch (MqttDigitalAdapterClientException e) {
+                    metrics.recordConnectFailure();
+                    throw e;
+                }
+                metrics.recordConnect(System.nanoTime() - connectStart);
+                logger.info("MQTT Digital Adapter - MQTT client reconnected to broker - session present: {}", mqttClient.isSessionPresent());
+                if(!getConfiguration().getPersistentSessionFlag())
+                    return false;
+                if(!mqttClient.isSessionPresent())
+                    sessionSubscriptionStore.clear();
+                return mqttClient.isSessionPresent();
+            }
+
+            @Override
+            public void subscribe(Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) throws MqttDigitalAdapterClientException {
+                long subscribeStart = System.nanoTime();
+                mqttClient.subscribe(subscriptions);
+                metrics.recordSubscribe(subscriptions.size(), System.nanoTime() - subscribeStart);
+                recordSessionSubscribed(subscriptions.keySet());
+            }
+
+            @Override
+            public void unsubscribe(Collection<MqttTopic> topics) throws MqttDigitalAdapterClientException {
+                mqttClient.unsubscribe(topics);
+                recordSessionUnsubscribed(topics);
+            }
+
+            @Override
+            public void publish(BufferedPublication publication) {
+                deliverOnDigitalTwinOutgoingTopic(publication.getTopicKey(), publication.getTopic(), publication.getPayload(), publication.getPayloadCache());
+            }
+
+            @Override
+            public void onReconnectFailed(int attempts) {
+                notifyDigitalAdapterUnBound("Unable to reconnect to the MQTT broker after " + attempts + " attempts");
+            }
+        };
     }
 
     /**
      * Connects the MQTT client to the configured broker using the provided connection options.
      * Logs information about the successful connection.
+     *
+     * @return True if connected, false if the connection failed.
      */
-    private void connectToMqttBroker(){
+    private boolean connectToMqttBroker(){
         try {
-            mqttClient.connect(getConfiguration().getConnectOptions());
-            logger.info("MQTT Digital Adapter - MQTT client connected to broker - clientId: {}", getConfiguration().getClientId());
-        } catch (MqttException e) {
-            e.printStackTrace();
+            long connectStart = System.nanoTime();
+            mqttClient.connect();
+            metrics.recordConnect(System.nanoTime() - connectStart);
+            logger.info("MQTT Digital Adapter - MQTT client connected to broker - clientId: {} protocol: {} session present: {}", getConfiguration().getClientId(getDigitalTwinId(), getId()), mqttClient.getProtocolVersion(), mqttClient.isSessionPresent());
+            return true;
+        } catch (MqttDigitalAdapterClientException e) {
+            metrics.recordConnectFailure();
+            logger.error("MQTT Digital Adapter - error connecting to the broker: {}", e.getLocalizedMessage());
+            return false;
         }
     }
 }
@@ -1,14 +1,36 @@
 package it.wldt.adapter.mqtt.digital;
 
+import it.wldt.adapter.mqtt.digital.client.MqttProtocolVersion;
 import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+import it.wldt.adapter.mqtt.digital.aggregation.WindowAggregationPolicy;
+import it.wldt.adapter.mqtt.digital.batch.SampleBatchPolicy;
+import it.wldt.adapter.mqtt.digital.logging.HotPathLoggingPolicy;
+import it.wldt.adapter.mqtt.digital.pacing.AdaptivePacingPolicy;
+import it.wldt.adapter.mqtt.digital.reconnect.ReconnectPolicy;
+import it.wldt.adapter.mqtt.digital.serialization.ParallelSerializationPolicy;
+import it.wldt.adapter.mqtt.digital.stripe.StripedPublishingPolicy;
+import it.wldt.adapter.mqtt.digital.structure.StructurePublishingPolicy;
+import it.wldt.adapter.mqtt.digital.subscription.DynamicSubscriptionPolicy;
+import it.wldt.adapter.mqtt.digital.tls.TlsPolicy;
+import it.wldt.adapter.mqtt.digital.loopback.LoopbackMqttBroker;
+import it.wldt.adapter.mqtt.digital.metrics.MqttDigitalAdapterMetrics;
+import it.wldt.adapter.mqtt.digital.metrics.NoOpMqttDigitalAdapterMetrics;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
 import it.wldt.adapter.mqtt.digital.topic.incoming.ActionIncomingTopic;
+import it.wldt.adapter.mqtt.digital.topic.incoming.StateRequestIncomingTopic;
 import it.wldt.adapter.mqtt.digital.topic.outgoing.EventNotificationOutgoingTopic;
 import it.wldt.adapter.mqtt.digital.topic.outgoing.PropertyOutgoingTopic;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.StateResponseOutgoingTopic;
 import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
+import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
 
 /**
  * Configuration class for the MQTT Digital Adapter. It holds the necessary parameters for connecting to an MQTT broker
@@ -18,6 +40,13 @@ import java.util.*;
  */
 public class MqttDigitalAdapterConfiguration {
 
+    /**
+     * MQTT 5 session expiry interval value meaning that the session does not expire.
+     */
+    private static final long MQTT_V5_SESSION_NEVER_EXPIRES = 0xFFFFFFFFL;
+
+    static final String CLIENT_ID_PREFIX = "wldt.mqtt.digital.adapter.client.";
+
     /**
      * The `brokerAddress` represents the address of the MQTT broker to which the MQTT Digital Adapter will connect.
      */
@@ -43,6 +72,19 @@ public class MqttDigitalAdapterConfiguration {
      */
     private final String clientId;
 
+    /**
+     * The `generatedClientIdFlag` tells whether the `clientId` has been generated instead of being provided.
+     */
+    private final boolean generatedClientIdFlag;
+
+    /**
+     * The `persistentSessionFlag` makes the adapter resume its broker session across restarts and reconnections:
+     * a stable client id is derived from the DT and adapter ids (unless provided), the clean session flag is
+     * disabled and, when the broker reports a present session, only the incoming topics added or removed since the
+     * subscriptions stored with the session are subscribed or unsubscribed. Default is false.
+     */
+    private boolean persistentSessionFlag = false;
+
     /**
      * The `cleanSessionFlag` is a boolean flag indicating whether a clean session should be used for the MQTT connection.
      * If set to true, the client and server discard any previous session state, starting with a clean slate.
@@ -61,6 +103,71 @@ public class MqttDigitalAdapterConfiguration {
      */
     private MqttClientPersistence persistence = new MemoryPersistence();
 
+    /**
+     * The `mqttV5Persistence` is the persistence used by the MQTT 5 client (`MqttProtocolVersion.MQTT_5`).
+     * Default is an in-memory persistence mechanism.
+     */
+    private org.eclipse.paho.mqttv5.client.MqttClientPersistence mqttV5Persistence = new org.eclipse.paho.mqttv5.client.persist.MemoryPersistence();
+
+    /**
+     * The `persistenceDirectory` is the directory of the file based persistence of both clients, or null if the
+     * persistence is not file based.
+     */
+    private String persistenceDirectory;
+
+    /**
+     * The `protocolVersion` selects the MQTT protocol version, and therefore the client library, used by the adapter.
+     * Default is MQTT 3.1.1.
+     */
+    private MqttProtocolVersion protocolVersion = MqttProtocolVersion.MQTT_3_1_1;
+
+    /**
+     * The `metrics` receives the measurements taken by the adapter on its publish and subscribe paths.
+     * Default is a no-op implementation.
+     */
+    private MqttDigitalAdapterMetrics metrics = NoOpMqttDigitalAdapterMetrics.INSTANCE;
+
+    /**
+     * The `hotPathLoggingPolicy` controls level, sampling, rate cap, payload truncation and periodic summaries of the
+     * per-message log lines written by the adapter.
+     */
+    private HotPathLoggingPolicy hotPathLoggingPolicy = HotPathLoggingPolicy.defaultPolicy();
+
+    /**
+     * The `loopbackBroker` is the optional in-process broker used instead of the network broker, delivering the
+     * messages directly to the subscribers of the same JVM. Default is null (network broker).
+     */
+    private LoopbackMqttBroker loopbackBroker;
+
+    /**
+     * The `publishedPayloadCacheFlag` enables the cache of the last payload published on each property topic,
+     * queried through the adapter without serializing the DT state again. Default is true.
+     */
+    private boolean publishedPayloadCacheFlag = true;
+
+    /**
+     * The `duplicatePayloadSuppressionFlag` skips the publication of a property payload byte-identical to the last
+     * one published on the same topic. It requires the published payload cache. Default is false.
+     */
+    private boolean duplicatePayloadSuppressionFlag = false;
+
+    /**
+     * The `asyncStartupFlag` makes the adapter connect and subscribe on a dedicated thread when started, notifying
+     * its binding to the DT once completed, instead of blocking the DT engine startup. Default is false.
+     */
+    private boolean asyncStartupFlag = false;
+
+    /**
+     * The `stateRequestTopic` is the optional topic on which consumers request the current property values, answered
+     * by the adapter on the `stateResponseTopic` from the published payload cache. Default is null (disabled).
+     */
+    private StateRequestIncomingTopic stateRequestTopic;
+
+    /**
+     * The `stateResponseTopic` is the topic on which the adapter answers the requests received on the
+     * `stateRequestTopic`. Default is null (disabled).
+     */
+    private StateResponseOutgoingTopic stateResponseTopic;
 
     /**
      * The `automaticReconnectFlag` is a boolean flag indicating whether the MQTT client should attempt to
@@ -68,24 +175,93 @@ public class MqttDigitalAdapterConfiguration {
      */
     private boolean automaticReconnectFlag = true;
 
+    /**
+     * The `reconnectPolicy` controls the jittered backoff of the reconnection attempts and the rate limited
+     * resumption following a reconnection. When set, it replaces the automatic reconnect of the MQTT client.
+     * Default is null (automatic reconnect of the MQTT client, according to the `automaticReconnectFlag`).
+     */
+    private ReconnectPolicy reconnectPolicy;
+
+    /**
+     * The `publishPacingPolicy` controls the adaptive rate limit of the published messages, adjusted according to
+     * the acknowledgement round trip time and the failure rate. Default is null (no pacing).
+     */
+    private AdaptivePacingPolicy publishPacingPolicy;
+
+    /**
+     * The `tlsPolicy` configures the TLS transport to the broker, including the cipher suites and the resumption of
+     * the TLS session on reconnection. Default is null (plain TCP).
+     */
+    private TlsPolicy tlsPolicy;
+
+    /**
+     * The `parallelSerializationPolicy` enables the parallel serialization of the property updates of large state
+     * updates, published in the original order. Default is null (serialization on the calling thread).
+     */
+    private ParallelSerializationPolicy parallelSerializationPolicy;
+
+    /**
+     * The `dynamicSubscriptionPolicy` enables the dynamic action subscriptions, following the actions registered in
+     * the DT state. Default is null (all the action topics are subscribed at startup).
+     */
+    private DynamicSubscriptionPolicy dynamicSubscriptionPolicy;
+
+    /**
+     * The `structurePublishingPolicy` enables the publication of the structural changes of the DT state. Default is
+     * null (structural changes are not published).
+     */
+    private StructurePublishingPolicy structurePublishingPolicy;
+
+    /**
+     * The `stripedPublishingPolicy` enables the delivery of the publications on per-key ordered lanes, off the DT
+     * thread. Default is null (publications are delivered on the calling thread).
+     */
+    private StripedPublishingPolicy stripedPublishingPolicy;
+
     /**
      * The `propertyUpdateTopics` is a map that associates keys with instances of `PropertyOutgoingTopic`, representing
-     * the topics where updates to Digital Twin properties should be published.
+     * the topics where updates to Digital Twin properties should be published. It holds the primary (first added)
+     * topic of each key, whose payloads are the ones cached by the published payload cache.
+     */
+    private final Map<String, PropertyOutgoingTopic<?>> propertyUpdateTopics;
+
+    /**
+     * The `propertyUpdateTopicLists` is a map that associates keys with all their `PropertyOutgoingTopic`, in the
+     * order they have been added: each update of a property is published on all its topics.
      */
-    private final Map<String, PropertyOutgoingTopic<?>> propertyUpdateTopics = new HashMap<>();
+    private final Map<String, List<PropertyOutgoingTopic<?>>> propertyUpdateTopicLists;
+
+    /**
+     * The `propertyAggregationPolicies` is a map that associates property topics with the `WindowAggregationPolicy`
+     * applied to their values: a summary of each window is published on the topic instead of every update.
+     */
+    private final Map<PropertyOutgoingTopic<?>, WindowAggregationPolicy> propertyAggregationPolicies;
+
+    /**
+     * The `propertyBatchPolicies` is a map that associates property topics with the `SampleBatchPolicy` applied to
+     * their updates: batches of samples are published on the topic instead of every update.
+     */
+    private final Map<PropertyOutgoingTopic<?>, SampleBatchPolicy> propertyBatchPolicies;
 
 
     /**
      * The `eventNotificationTopics` is a map that associates keys with instances of `EventNotificationOutgoingTopic`,
-     * representing the topics where event notifications from the Digital Twin should be published.
+     * representing the topics where event notifications from the Digital Twin should be published. It holds the
+     * primary (first added) topic of each key.
      */
-    private final Map<String, EventNotificationOutgoingTopic<?>> eventNotificationTopics = new HashMap<>();
+    private final Map<String, EventNotificationOutgoingTopic<?>> eventNotificationTopics;
+
+    /**
+     * The `eventNotificationTopicLists` is a map that associates keys with all their `EventNotificationOutgoingTopic`,
+     * in the order they have been added: each notification of an event is published on all its topics.
+     */
+    private final Map<String, List<EventNotificationOutgoingTopic<?>>> eventNotificationTopicLists;
 
     /**
      * The `actionIncomingTopics` is a map that associates keys with instances of `ActionIncomingTopic`,
      * representing the topics where incoming actions for the Digital Twin should be subscribed to.
      */
-    private final Map<String, ActionIncomingTopic<?>> actionIncomingTopics = new HashMap<>();
+    private final Map<String, ActionIncomingTopic<?>> actionIncomingTopics;
 
 
     /**
@@ -96,9 +272,7 @@ public class MqttDigitalAdapterConfiguration {
      * @param clientId      The client identifier for the MQTT connection.
      */
     protected MqttDigitalAdapterConfiguration(String brokerAddress, Integer brokerPort, String clientId) {
-        this.brokerAddress = brokerAddress;
-        this.brokerPort = brokerPort;
-        this.clientId = clientId;
+        this(brokerAddress, brokerPort, clientId, false);
     }
 
     /**
@@ -109,7 +283,128 @@ public class MqttDigitalAdapterConfiguration {
      * @param brokerPort    The port of the MQTT broker.
      */
     protected MqttDigitalAdapterConfiguration(String brokerAddress, Integer brokerPort){
-        this(brokerAddress, brokerPort, "wldt.mqtt.digital.adapter.client."+new Random(System.currentTimeMillis()).nextInt());
+        this(brokerAddress, brokerPort, CLIENT_ID_PREFIX + new Random().nextInt(), true);
+    }
+
+    private MqttDigitalAdapterConfiguration(String brokerAddress, Integer brokerPort, String clientId, boolean generatedClientIdFlag) {
+        this.brokerAddress = brokerAddress;
+        this.brokerPort = brokerPort;
+        this.clientId = clientId;
+        this.generatedClientIdFlag = generatedClientIdFlag;
+        this.propertyUpdateTopics = new HashMap<>();
+        this.propertyUpdateTopicLists = new HashMap<>();
+        this.propertyAggregationPolicies = new IdentityHashMap<>();
+        this.propertyBatchPolicies = new IdentityHashMap<>();
+        this.eventNotificationTopics = new HashMap<>();
+        this.eventNotificationTopicLists = new HashMap<>();
+        this.actionIncomingTopics = new HashMap<>();
+    }
+
+    /**
+     * Constructs the configuration of a Digital Twin from a template configuration, sharing its settings, policies,
+     * metrics and loopback broker. The in-memory and file based client persistences are created again for the new
+     * client, while a custom persistence is shared.
+     * <p>
+     * With a topic binding, each topic whose MQTT topic is changed by the binding is copied on the bound MQTT topic,
+     * sharing the functions and delivery settings of the template topic, while the other topics are shared; the
+     * resulting topic maps are unmodifiable. Without a topic binding the topic maps of the template are shared as
+     * they are, so the template must not be modified anymore.
+     *
+     * @param template The template configuration.
+     * @param clientId The client identifier, or null to generate one.
+     * @param topicBinding The binding of the MQTT topics of the template, or null to share the template topics.
+     */
+    MqttDigitalAdapterConfiguration(MqttDigitalAdapterConfiguration template, String clientId, UnaryOperator<String> topicBinding) {
+        this.brokerAddress = template.brokerAddress;
+        this.brokerPort = template.brokerPort;
+        this.clientId = clientId != null ? clientId : CLIENT_ID_PREFIX + new Random().nextInt();
+        this.generatedClientIdFlag = template.generatedClientIdFlag;
+        this.username = template.username;
+        this.password = template.password;
+        this.persistentSessionFlag = template.persistentSessionFlag;
+        this.cleanSessionFlag = template.cleanSessionFlag;
+        this.connectionTimeout = template.connectionTimeout;
+        if (template.persistenceDirectory != null)
+            setFilePersistence(template.persistenceDirectory);
+        else {
+            this.persistence = template.persistence instanceof MemoryPersistence ? new MemoryPersistence() : template.persistence;
+            this.mqttV5Persistence = template.mqttV5Persistence instanceof org.eclipse.paho.mqttv5.client.persist.MemoryPersistence
+                    ? new org.eclipse.paho.mqttv5.client.persist.MemoryPersistence() : template.mqttV5Persistence;
+        }
+        this.protocolVersion = template.protocolVersion;
+        this.metrics = template.metrics;
+        this.hotPathLoggingPolicy = template.hotPathLoggingPolicy;
+        this.loopbackBroker = template.loopbackBroker;
+        this.publishedPayloadCacheFlag = template.publishedPayloadCacheFlag;
+        this.duplicatePayloadSuppressionFlag = template.duplicatePayloadSuppressionFlag;
+        this.asyncStartupFlag = template.asyncStartupFlag;
+        this.automaticReconnectFlag = template.automaticReconnectFlag;
+        this.reconnectPolicy = template.reconnectPolicy;
+        this.publishPacingPolicy = template.publishPacingPolicy;
+        this.tlsPolicy = template.tlsPolicy;
+        this.parallelSerializationPolicy = template.parallelSerializationPolicy;
+        this.dynamicSubscriptionPolicy = template.dynamicSubscriptionPolicy;
+        this.structurePublishingPolicy = template.structurePublishingPolicy;
+        this.stripedPublishingPolicy = template.stripedPublishingPolicy;
+        if (topicBinding == null) {
+            this.propertyUpdateTopics = template.propertyUpdateTopics;
+            this.propertyUpdateTopicLists = template.propertyUpdateTopicLists;
+            this.propertyAggregationPolicies = template.propertyAggregationPolicies;
+            this.propertyBatchPolicies = template.propertyBatchPolicies;
+            this.eventNotificationTopics = template.eventNotificationTopics;
+            this.eventNotificationTopicLists = template.eventNotificationTopicLists;
+            this.actionIncomingTopics = template.actionIncomingTopics;
+            this.stateRequestTopic = template.stateRequestTopic;
+            this.stateResponseTopic = template.stateResponseTopic;
+            return;
+        }
+        Map<PropertyOutgoingTopic<?>, PropertyOutgoingTopic<?>> boundPropertyTopics = bindTopics(template.propertyUpdateTopicLists.values(), topicBinding, PropertyOutgoingTopic::withTopic);
+        this.propertyUpdateTopics = bindTopicValues(template.propertyUpdateTopics, boundPropertyTopics);
+        this.propertyUpdateTopicLists = bindTopicLists(template.propertyUpdateTopicLists, boundPropertyTopics);
+        this.propertyAggregationPolicies = bindTopicKeys(template.propertyAggregationPolicies, boundPropertyTopics);
+        this.propertyBatchPolicies = bindTopicKeys(template.propertyBatchPolicies, boundPropertyTopics);
+        Map<EventNotificationOutgoingTopic<?>, EventNotificationOutgoingTopic<?>> boundEventTopics = bindTopics(template.eventNotificationTopicLists.values(), topicBinding, EventNotificationOutgoingTopic::withTopic);
+        this.eventNotificationTopics = bindTopicValues(template.eventNotificationTopics, boundEventTopics);
+        this.eventNotificationTopicLists = bindTopicLists(template.eventNotificationTopicLists, boundEventTopics);
+        Map<ActionIncomingTopic<?>, ActionIncomingTopic<?>> boundActionTopics = bindTopics(Collections.singleton(template.actionIncomingTopics.values()), topicBinding, ActionIncomingTopic::withTopic);
+        this.actionIncomingTopics = bindTopicValues(template.actionIncomingTopics, boundActionTopics);
+        this.stateRequestTopic = template.stateRequestTopic == null ? null : bindTopic(template.stateRequestTopic, topicBinding, StateRequestIncomingTopic::withTopic);
+        this.stateResponseTopic = template.stateResponseTopic == null ? null : bindTopic(template.stateResponseTopic, topicBinding, StateResponseOutgoingTopic::withTopic);
+    }
+
+    private static <T extends MqttTopic> T bindTopic(T topic, UnaryOperator<String> topicBinding, BiFunction<T, String, T> copyFunction) {
+        String boundTopic = topicBinding.apply(topic.getTopic());
+        return boundTopic.equals(topic.getTopic()) ? topic : copyFunction.apply(topic, boundTopic);
+    }
+
+    private static <T extends MqttTopic> Map<T, T> bindTopics(Collection<? extends Collection<T>> topicGroups, UnaryOperator<String> topicBinding, BiFunction<T, String, T> copyFunction) {
+        Map<T, T> boundTopics = new IdentityHashMap<>();
+        topicGroups.forEach(topics -> topics.forEach(topic -> boundTopics.put(topic, bindTopic(topic, topicBinding, copyFunction))));
+        return boundTopics;
+    }
+
+    private static <T> Map<String, T> bindTopicValues(Map<String, T> topics, Map<T, T> boundTopics) {
+        Map<String, T> boundTopicValues = new HashMap<>(topics.size() * 4 / 3 + 1);
+        topics.forEach((key, topic) -> boundTopicValues.put(key, boundTopics.get(topic)));
+        return Collections.unmodifiableMap(boundTopicValues);
+    }
+
+    private static <T> Map<String, List<T>> bindTopicLists(Map<String, List<T>> topicLists, Map<T, T> boundTopics) {
+        Map<String, List<T>> boundTopicLists = new HashMap<>(topicLists.size() * 4 / 3 + 1);
+        topicLists.forEach((key, topics) -> {
+            List<T> boundList = new ArrayList<>(topics.size());
+            topics.forEach(topic -> boundList.add(boundTopics.get(topic)));
+            boundTopicLists.put(key, topics.size() == 1 ? Collections.singletonList(boundList.get(0)) : Collections.unmodifiableList(boundList));
+        });
+        return Collections.unmodifiableMap(boundTopicLists);
+    }
+
+    private static <T, V> Map<T, V> bindTopicKeys(Map<T, V> topicPolicies, Map<T, T> boundTopics) {
+        if (topicPolicies.isEmpty())
+            return Collections.emptyMap();
+        Map<T, V> boundTopicPolicies = new IdentityHashMap<>(topicPolicies.size());
+        topicPolicies.forEach((topic, policy) -> boundTopicPolicies.put(boundTopics.get(topic), policy));
+        return Collections.unmodifiableMap(boundTopicPolicies);
     }
 
     /**
@@ -184,12 +479,63 @@ public class MqttDigitalAdapterConfiguration {
     }
 
     /**
-     * Gets the connection string for the MQTT broker.
+     * Checks whether the client identifier has been generated rather than provided.
+     *
+     * @return True if the client identifier is generated, false otherwise.
+     */
+    public boolean getGeneratedClientIdFlag() {
+        return generatedClientIdFlag;
+    }
+
+    /**
+     * Gets the client identifier used by an adapter. With the persistent session enabled and no client identifier
+     * provided, a stable identifier is derived from the DT and adapter ids so that the adapter finds its session
+     * again after a restart, otherwise the configured (or generated) client identifier is returned.
+     *
+     * @param digitalTwinId The id of the DT of the adapter, or null if not known yet.
+     * @param adapterId The id of the adapter.
+     * @return The client identifier.
+     */
+    public String getClientId(String digitalTwinId, String adapterId) {
+        if(!persistentSessionFlag || !generatedClientIdFlag)
+            return clientId;
+        return CLIENT_ID_PREFIX + (digitalTwinId == null ? "" : digitalTwinId + ".") + adapterId;
+    }
+
+    /**
+     * Gets the connection timeout of the MQTT connection.
+     *
+     * @return The connection timeout in seconds.
+     */
+    public Integer getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    /**
+     * Checks whether the MQTT connection starts with a clean session.
+     *
+     * @return True if a clean session is used, false otherwise.
+     */
+    public boolean getCleanSessionFlag() {
+        return cleanSessionFlag;
+    }
+
+    /**
+     * Checks whether the adapter resumes its broker session across restarts and reconnections.
+     *
+     * @return True if the persistent session is enabled, false otherwise.
+     */
+    public boolean getPersistentSessionFlag() {
+        return persistentSessionFlag;
+    }
+
+    /**
+     * Gets the connection string for the MQTT broker, with the {@code ssl} scheme if the TLS transport is configured.
      *
      * @return The broker connection string.
      */
     public String getBrokerConnectionString(){
-        return String.format("tcp://%s:%d", brokerAddress, brokerPort);
+        return String.format("%s://%s:%d", tlsPolicy != null ? "ssl" : "tcp", brokerAddress, brokerPort);
     }
 
     /**
@@ -201,6 +547,168 @@ public class MqttDigitalAdapterConfiguration {
         return persistence;
     }
 
+    /**
+     * Gets the MQTT client persistence used by the MQTT 5 client.
+     *
+     * @return The MQTT 5 client persistence.
+     */
+    public org.eclipse.paho.mqttv5.client.MqttClientPersistence getMqttV5Persistence() {
+        return mqttV5Persistence;
+    }
+
+    /**
+     * Gets the directory of the file based persistence of the clients.
+     *
+     * @return The persistence directory, or null if the persistence is not file based.
+     */
+    public String getPersistenceDirectory() {
+        return persistenceDirectory;
+    }
+
+    /**
+     * Gets the MQTT protocol version used by the adapter.
+     *
+     * @return The MQTT protocol version.
+     */
+    public MqttProtocolVersion getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    /**
+     * Gets the metrics receiving the measurements taken by the adapter.
+     *
+     * @return The adapter metrics.
+     */
+    public MqttDigitalAdapterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the policy applied to the per-message log lines written by the adapter.
+     *
+     * @return The hot path logging policy.
+     */
+    public HotPathLoggingPolicy getHotPathLoggingPolicy() {
+        return hotPathLoggingPolicy;
+    }
+
+    /**
+     * Gets the policy applied to reconnect to the broker and to resume the traffic once reconnected.
+     *
+     * @return The reconnect policy, or null if the automatic reconnect of the MQTT client is used.
+     */
+    public ReconnectPolicy getReconnectPolicy() {
+        return reconnectPolicy;
+    }
+
+    /**
+     * Gets the policy of the adaptive pacing of the published messages.
+     *
+     * @return The publish pacing policy, or null if the messages are not paced.
+     */
+    public AdaptivePacingPolicy getPublishPacingPolicy() {
+        return publishPacingPolicy;
+    }
+
+    /**
+     * Gets the policy of the TLS transport to the broker.
+     *
+     * @return The TLS policy, or null if the adapter connects over plain TCP.
+     */
+    public TlsPolicy getTlsPolicy() {
+        return tlsPolicy;
+    }
+
+    /**
+     * Gets the policy of the parallel serialization of large state updates.
+     *
+     * @return The parallel serialization policy, or null if the updates are serialized on the calling thread.
+     */
+    public ParallelSerializationPolicy getParallelSerializationPolicy() {
+        return parallelSerializationPolicy;
+    }
+
+    /**
+     * Gets the policy of the dynamic action subscriptions.
+     *
+     * @return The dynamic subscription policy, or null if all the action topics are subscribed at startup.
+     */
+    public DynamicSubscriptionPolicy getDynamicSubscriptionPolicy() {
+        return dynamicSubscriptionPolicy;
+    }
+
+    /**
+     * Gets the policy of the publication of the structural changes of the DT state.
+     *
+     * @return The structure publishing policy, or null if the structural changes are not published.
+     */
+    public StructurePublishingPolicy getStructurePublishingPolicy() {
+        return structurePublishingPolicy;
+    }
+
+    /**
+     * Gets the policy of the striped publisher.
+     *
+     * @return The striped publishing policy, or null if the publications are delivered on the calling thread.
+     */
+    public StripedPublishingPolicy getStripedPublishingPolicy() {
+        return stripedPublishingPolicy;
+    }
+
+    /**
+     * Gets the in-process broker used instead of the network broker.
+     *
+     * @return The loopback broker, or null if the adapter connects to the network broker.
+     */
+    public LoopbackMqttBroker getLoopbackBroker() {
+        return loopbackBroker;
+    }
+
+    /**
+     * Checks whether the cache of the last published property payloads is enabled.
+     *
+     * @return True if the cache is enabled, false otherwise.
+     */
+    public boolean getPublishedPayloadCacheFlag() {
+        return publishedPayloadCacheFlag;
+    }
+
+    /**
+     * Checks whether byte-identical duplicate property payloads are suppressed.
+     *
+     * @return True if duplicates are suppressed, false otherwise.
+     */
+    public boolean getDuplicatePayloadSuppressionFlag() {
+        return duplicatePayloadSuppressionFlag;
+    }
+
+    /**
+     * Checks whether the adapter connects and subscribes asynchronously when started.
+     *
+     * @return True if the startup is asynchronous, false otherwise.
+     */
+    public boolean getAsyncStartupFlag() {
+        return asyncStartupFlag;
+    }
+
+    /**
+     * Gets the topic on which consumers request the current property values.
+     *
+     * @return The state request topic, or null if state requests are disabled.
+     */
+    public StateRequestIncomingTopic getStateRequestTopic() {
+        return stateRequestTopic;
+    }
+
+    /**
+     * Gets the topic on which the adapter answers the state requests.
+     *
+     * @return The state response topic, or null if state requests are disabled.
+     */
+    public StateResponseOutgoingTopic getStateResponseTopic() {
+        return stateResponseTopic;
+    }
+
     /**
      * Gets the MQTT connection options.
      *
@@ -208,9 +716,13 @@ public class MqttDigitalAdapterConfiguration {
      */
     public MqttConnectOptions getConnectOptions(){
         MqttConnectOptions options = new MqttConnectOptions();
-        options.setAutomaticReconnect(automaticReconnectFlag);
+        options.setAutomaticReconnect(automaticReconnectFlag && reconnectPolicy == null);
         options.setCleanSession(cleanSessionFlag);
         options.setConnectionTimeout(connectionTimeout);
+        if(tlsPolicy != null){
+            options.setSocketFactory(tlsPolicy.getSocketFactory());
+            options.setHttpsHostnameVerificationEnabled(tlsPolicy.getHostnameVerificationFlag());
+        }
         if(username != null && !username.isEmpty() && password != null && !password.isEmpty()){
             options.setUserName(username);
             options.setPassword(password.toCharArray());
@@ -218,6 +730,30 @@ public class MqttDigitalAdapterConfiguration {
         return options;
     }
 
+    /**
+     * Gets the MQTT 5 connection options. A clean session is mapped on the MQTT 5 clean start flag, while a
+     * persistent session never expires on the broker.
+     *
+     * @return The MQTT 5 connection options.
+     */
+    public MqttConnectionOptions getMqttV5ConnectionOptions(){
+        MqttConnectionOptions options = new MqttConnectionOptions();
+        options.setAutomaticReconnect(automaticReconnectFlag && reconnectPolicy == null);
+        options.setCleanStart(cleanSessionFlag);
+        if(!cleanSessionFlag)
+            options.setSessionExpiryInterval(MQTT_V5_SESSION_NEVER_EXPIRES);
+        options.setConnectionTimeout(connectionTimeout);
+        if(tlsPolicy != null){
+            options.setSocketFactory(tlsPolicy.getSocketFactory());
+            options.setHttpsHostnameVerificationEnabled(tlsPolicy.getHostnameVerificationFlag());
+        }
+        if(username != null && !username.isEmpty() && password != null && !password.isEmpty()){
+            options.setUserName(username);
+            options.setPassword(password.getBytes(StandardCharsets.UTF_8));
+        }
+        return options;
+    }
+
     /**
      * Sets the connection timeout for the MQTT connection.
      *
@@ -236,6 +772,15 @@ public class MqttDigitalAdapterConfiguration {
         this.cleanSessionFlag = cleanSession;
     }
 
+    /**
+     * Sets whether the adapter resumes its broker session across restarts and reconnections.
+     *
+     * @param persistentSessionFlag The flag value.
+     */
+    protected void setPersistentSessionFlag(boolean persistentSessionFlag) {
+        this.persistentSessionFlag = persistentSessionFlag;
+    }
+
     /**
      * Sets the automatic reconnect flag for the MQTT connection.
      *
@@ -252,10 +797,169 @@ public class MqttDigitalAdapterConfiguration {
      */
     protected void setMqttClientPersistence(MqttClientPersistence persistence) {
         this.persistence = persistence;
+        this.persistenceDirectory = null;
+    }
+
+    /**
+     * Sets the MQTT client persistence used by the MQTT 5 client.
+     *
+     * @param mqttV5Persistence The MQTT 5 client persistence.
+     */
+    protected void setMqttV5ClientPersistence(org.eclipse.paho.mqttv5.client.MqttClientPersistence mqttV5Persistence) {
+        this.mqttV5Persistence = mqttV5Persistence;
+        this.persistenceDirectory = null;
+    }
+
+    /**
+     * Sets a file based persistence, stored in the given directory, for both the MQTT 3.1.1 and the MQTT 5 clients.
+     *
+     * @param directory The directory of the persistence files.
+     */
+    protected void setFilePersistence(String directory) {
+        this.persistence = new MqttDefaultFilePersistence(directory);
+        this.mqttV5Persistence = new org.eclipse.paho.mqttv5.client.persist.MqttDefaultFilePersistence(directory);
+        this.persistenceDirectory = directory;
+    }
+
+    /**
+     * Sets the MQTT protocol version used by the adapter.
+     *
+     * @param protocolVersion The MQTT protocol version.
+     */
+    protected void setProtocolVersion(MqttProtocolVersion protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    /**
+     * Sets the metrics receiving the measurements taken by the adapter.
+     *
+     * @param metrics The adapter metrics.
+     */
+    protected void setMetrics(MqttDigitalAdapterMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the policy applied to the per-message log lines written by the adapter.
+     *
+     * @param hotPathLoggingPolicy The hot path logging policy.
+     */
+    protected void setHotPathLoggingPolicy(HotPathLoggingPolicy hotPathLoggingPolicy) {
+        this.hotPathLoggingPolicy = hotPathLoggingPolicy;
+    }
+
+    /**
+     * Sets the policy applied to reconnect to the broker and to resume the traffic once reconnected.
+     *
+     * @param reconnectPolicy The reconnect policy.
+     */
+    protected void setReconnectPolicy(ReconnectPolicy reconnectPolicy) {
+        this.reconnectPolicy = reconnectPolicy;
+    }
+
+    /**
+     * Sets the policy of the adaptive pacing of the published messages.
+     *
+     * @param publishPacingPolicy The publish pacing policy.
+     */
+    protected void setPublishPacingPolicy(AdaptivePacingPolicy publishPacingPolicy) {
+        this.publishPacingPolicy = publishPacingPolicy;
+    }
+
+    /**
+     * Sets the policy of the TLS transport to the broker.
+     *
+     * @param tlsPolicy The TLS policy.
+     */
+    protected void setTlsPolicy(TlsPolicy tlsPolicy) {
+        this.tlsPolicy = tlsPolicy;
+    }
+
+    /**
+     * Sets the policy of the parallel serialization of large state updates.
+     *
+     * @param parallelSerializationPolicy The parallel serialization policy.
+     */
+    protected void setParallelSerializationPolicy(ParallelSerializationPolicy parallelSerializationPolicy) {
+        this.parallelSerializationPolicy = parallelSerializationPolicy;
+    }
+
+    /**
+     * Sets the policy of the dynamic action subscriptions.
+     *
+     * @param dynamicSubscriptionPolicy The dynamic subscription policy.
+     */
+    protected void setDynamicSubscriptionPolicy(DynamicSubscriptionPolicy dynamicSubscriptionPolicy) {
+        this.dynamicSubscriptionPolicy = dynamicSubscriptionPolicy;
+    }
+
+    /**
+     * Sets the policy of the publication of the structural changes of the DT state.
+     *
+     * @param structurePublishingPolicy The structure publishing policy.
+     */
+    protected void setStructurePublishingPolicy(StructurePublishingPolicy structurePublishingPolicy) {
+        this.structurePublishingPolicy = structurePublishingPolicy;
+    }
+
+    /**
+     * Sets the policy of the striped publisher.
+     *
+     * @param stripedPublishingPolicy The striped publishing policy.
+     */
+    protected void setStripedPublishingPolicy(StripedPublishingPolicy stripedPublishingPolicy) {
+        this.stripedPublishingPolicy = stripedPublishingPolicy;
+    }
+
+    /**
+     * Sets the in-process broker used instead of the network broker.
+     *
+     * @param loopbackBroker The loopback broker.
+     */
+    protected void setLoopbackBroker(LoopbackMqttBroker loopbackBroker) {
+        this.loopbackBroker = loopbackBroker;
+    }
+
+    /**
+     * Sets whether the cache of the last published property payloads is enabled.
+     *
+     * @param publishedPayloadCacheFlag The flag value.
+     */
+    protected void setPublishedPayloadCacheFlag(boolean publishedPayloadCacheFlag) {
+        this.publishedPayloadCacheFlag = publishedPayloadCacheFlag;
+    }
+
+    /**
+     * Sets whether byte-identical duplicate property payloads are suppressed.
+     *
+     * @param duplicatePayloadSuppressionFlag The flag value.
+     */
+    protected void setDuplicatePayloadSuppressionFlag(boolean duplicatePayloadSuppressionFlag) {
+        this.duplicatePayloadSuppressionFlag = duplicatePayloadSuppressionFlag;
     }
 
     /**
-     * Gets the map of property update topics associated with their keys.
+     * Sets whether the adapter connects and subscribes asynchronously when started.
+     *
+     * @param asyncStartupFlag The flag value.
+     */
+    protected void setAsyncStartupFlag(boolean asyncStartupFlag) {
+        this.asyncStartupFlag = asyncStartupFlag;
+    }
+
+    /**
+     * Sets the topics on which consumers request the current property values and the adapter answers them.
+     *
+     * @param stateRequestTopic The state request topic.
+     * @param stateResponseTopic The state response topic.
+     */
+    protected void setStateRequestTopics(StateRequestIncomingTopic stateRequestTopic, StateResponseOutgoingTopic stateResponseTopic) {
+        this.stateRequestTopic = stateRequestTopic;
+        this.stateResponseTopic = stateResponseTopic;
+    }
+
+    /**
+     * Gets the map of the primary property update topics associated with their keys.
      *
      * @return The map of property update topics.
      */
@@ -264,7 +968,55 @@ public class MqttDigitalAdapterConfiguration {
     }
 
     /**
-     * Gets the map of event notification topics associated with their keys.
+     * Gets all the property update topics of a key, the primary one first.
+     *
+     * @param propertyKey The property key.
+     * @return The property update topics, empty if none is configured for the key.
+     */
+    public List<PropertyOutgoingTopic<?>> getPropertyUpdateTopics(String propertyKey) {
+        return Collections.unmodifiableList(propertyUpdateTopicLists.getOrDefault(propertyKey, Collections.emptyList()));
+    }
+
+    /**
+     * Adds a property update topic to a key. A topic of the key with the same MQTT topic is replaced, otherwise the
+     * topic is appended to the ones of the key and becomes the primary one if it is the first.
+     *
+     * @param propertyKey The property key.
+     * @param topic The property update topic.
+     * @return The replaced topic, or null.
+     */
+    protected PropertyOutgoingTopic<?> addPropertyUpdateTopic(String propertyKey, PropertyOutgoingTopic<?> topic) {
+        PropertyOutgoingTopic<?> replaced = addTopic(propertyUpdateTopicLists.computeIfAbsent(propertyKey, key -> new ArrayList<>()), topic);
+        if (replaced == null)
+            propertyUpdateTopics.putIfAbsent(propertyKey, topic);
+        else {
+            propertyUpdateTopics.replace(propertyKey, replaced, topic);
+            propertyAggregationPolicies.remove(replaced);
+            propertyBatchPolicies.remove(replaced);
+        }
+        return replaced;
+    }
+
+    /**
+     * Gets the map of window aggregation policies associated with their property topics.
+     *
+     * @return The map of property aggregation policies.
+     */
+    public Map<PropertyOutgoingTopic<?>, WindowAggregationPolicy> getPropertyAggregationPolicies() {
+        return propertyAggregationPolicies;
+    }
+
+    /**
+     * Gets the map of sample batch policies associated with their property topics.
+     *
+     * @return The map of property batch policies.
+     */
+    public Map<PropertyOutgoingTopic<?>, SampleBatchPolicy> getPropertyBatchPolicies() {
+        return propertyBatchPolicies;
+    }
+
+    /**
+     * Gets the map of the primary event notification topics associated with their keys.
      *
      * @return The map of event notification topics.
      */
@@ -272,6 +1024,42 @@ public class MqttDigitalAdapterConfiguration {
         return eventNotificationTopics;
     }
 
+    /**
+     * Gets all the event notification topics of a key, the primary one first.
+     *
+     * @param eventKey The event key.
+     * @return The event notification topics, empty if none is configured for the key.
+     */
+    public List<EventNotificationOutgoingTopic<?>> getEventNotificationTopics(String eventKey) {
+        return Collections.unmodifiableList(eventNotificationTopicLists.getOrDefault(eventKey, Collections.emptyList()));
+    }
+
+    /**
+     * Adds an event notification topic to a key. A topic of the key with the same MQTT topic is replaced, otherwise
+     * the topic is appended to the ones of the key and becomes the primary one if it is the first.
+     *
+     * @param eventKey The event key.
+     * @param topic The event notification topic.
+     * @return The replaced topic, or null.
+     */
+    protected EventNotificationOutgoingTopic<?> addEventNotificationTopic(String eventKey, EventNotificationOutgoingTopic<?> topic) {
+        EventNotificationOutgoingTopic<?> replaced = addTopic(eventNotificationTopicLists.computeIfAbsent(eventKey, key -> new ArrayList<>()), topic);
+        if (replaced == null)
+            eventNotificationTopics.putIfAbsent(eventKey, topic);
+        else
+            eventNotificationTopics.replace(eventKey, replaced, topic);
+        return replaced;
+    }
+
+    private static <T extends MqttTopic> T addTopic(List<T> topics, T topic) {
+        for (int i = 0; i < topics.size(); i++) {
+            if (topics.get(i).getTopic().equals(topic.getTopic()))
+                return topics.set(i, topic);
+        }
+        topics.add(topic);
+        return null;
+    }
+
     /**
      * Gets the map of action incoming topics associated with their keys.
      *
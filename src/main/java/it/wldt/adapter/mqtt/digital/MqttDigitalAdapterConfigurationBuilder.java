@@ -1,12 +1,31 @@
 package it.wldt.adapter.mqtt.digital;
 
+import it.wldt.adapter.mqtt.digital.cache.PublishedPayload;
+import it.wldt.adapter.mqtt.digital.client.MqttProtocolVersion;
 import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+import it.wldt.adapter.mqtt.digital.aggregation.WindowAggregationPolicy;
+import it.wldt.adapter.mqtt.digital.batch.SampleBatchPolicy;
+import it.wldt.adapter.mqtt.digital.logging.HotPathLoggingPolicy;
+import it.wldt.adapter.mqtt.digital.pacing.AdaptivePacingPolicy;
+import it.wldt.adapter.mqtt.digital.reconnect.ReconnectPolicy;
+import it.wldt.adapter.mqtt.digital.serialization.ParallelSerializationPolicy;
+import it.wldt.adapter.mqtt.digital.stripe.StripedPublishingPolicy;
+import it.wldt.adapter.mqtt.digital.structure.StructurePublishingPolicy;
+import it.wldt.adapter.mqtt.digital.subscription.DynamicSubscriptionPolicy;
+import it.wldt.adapter.mqtt.digital.tls.TlsPolicy;
+import it.wldt.adapter.mqtt.digital.loopback.LoopbackMqttBroker;
+import it.wldt.adapter.mqtt.digital.metrics.MqttDigitalAdapterMetrics;
 import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
 import it.wldt.adapter.mqtt.digital.topic.incoming.ActionIncomingTopic;
+import it.wldt.adapter.mqtt.digital.topic.incoming.StateRequestIncomingTopic;
 import it.wldt.adapter.mqtt.digital.topic.outgoing.EventNotificationOutgoingTopic;
 import it.wldt.adapter.mqtt.digital.topic.outgoing.PropertyOutgoingTopic;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.StateResponseOutgoingTopic;
 import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 
 /**
@@ -23,6 +42,17 @@ public class MqttDigitalAdapterConfigurationBuilder {
      */
     private final MqttDigitalAdapterConfiguration configuration;
 
+    /**
+     * The last added property topic of each key, the one the per-topic settings (aggregation, batching, message
+     * expiry) are applied to.
+     */
+    private final Map<String, PropertyOutgoingTopic<?>> lastPropertyTopics = new HashMap<>();
+
+    /**
+     * The last added event notification topic of each key, the one the per-topic settings are applied to.
+     */
+    private final Map<String, EventNotificationOutgoingTopic<?>> lastEventTopics = new HashMap<>();
+
     /**
      * Constructs a new instance of the `MqttDigitalAdapterConfigurationBuilder` with the specified broker address
      * and broker port. It initializes the configuration with default values.
@@ -33,7 +63,7 @@ public class MqttDigitalAdapterConfigurationBuilder {
      *                                                    port is not a positive number.
      */
     public MqttDigitalAdapterConfigurationBuilder(String brokerAddress, Integer brokerPort) throws MqttDigitalAdapterConfigurationException {
-        if(!isValid(brokerAddress) || isValid(brokerPort))
+        if(!isValid(brokerAddress) || !isValid(brokerPort))
             throw new MqttDigitalAdapterConfigurationException("Broker Address cannot be empty string or null and Broker Port must be a positive number");
         configuration = new MqttDigitalAdapterConfiguration(brokerAddress, brokerPort);
     }
@@ -49,15 +79,19 @@ public class MqttDigitalAdapterConfigurationBuilder {
      *                                                    or the broker port is not a positive number.
      */
     public MqttDigitalAdapterConfigurationBuilder(String brokerAddress, Integer brokerPort, String clientId) throws MqttDigitalAdapterConfigurationException {
-        if(!isValid(brokerAddress) || isValid(brokerPort) || !isValid(clientId))
+        if(!isValid(brokerAddress) || !isValid(brokerPort) || !isValid(clientId))
             throw new MqttDigitalAdapterConfigurationException("Broker Address and Client Id cannot be empty string or null and Broker Port must be a positive number");
-        configuration = new MqttDigitalAdapterConfiguration(brokerAddress, brokerPort);
+        configuration = new MqttDigitalAdapterConfiguration(brokerAddress, brokerPort, clientId);
     }
 
     /**
      * Adds a property update topic to the MQTT Digital Adapter configuration. The property is associated with a specified
      * key, MQTT topic, Quality of Service (QoS) level, and a function to convert the property value to its MQTT payload.
      *
+     * Several topics can be added for the same key (e.g. a raw, an aggregated and a legacy topic): each update of the
+     * property is published on all of them, serialized once for the topics sharing the same function instance. A
+     * topic with the same MQTT topic of one already added for the key replaces it.
+     *
      * @param <T> The type of the property value.
      * @param propertyKey The key associated with the property.
      * @param topic The MQTT topic for property updates.
@@ -71,8 +105,7 @@ public class MqttDigitalAdapterConfigurationBuilder {
                                                                        MqttQosLevel qosLevel,
                                                                        Function<T, String> propertyToPayloadFunction) throws MqttDigitalAdapterConfigurationException {
         checkTopic(propertyKey, topic, propertyToPayloadFunction);
-        this.configuration.getPropertyUpdateTopics().put(propertyKey, new PropertyOutgoingTopic<>(topic, qosLevel, propertyToPayloadFunction));
-        return this;
+        return addPropertyTopic(propertyKey, new PropertyOutgoingTopic<>(topic, qosLevel, propertyToPayloadFunction));
     }
 
     /**
@@ -94,7 +127,76 @@ public class MqttDigitalAdapterConfigurationBuilder {
                                                                        boolean isRetained,
                                                                        Function<T, String> propertyToPayloadFunction) throws MqttDigitalAdapterConfigurationException {
         checkTopic(propertyKey, topic, propertyToPayloadFunction);
-        this.configuration.getPropertyUpdateTopics().put(propertyKey, new PropertyOutgoingTopic<>(topic, qosLevel, isRetained, propertyToPayloadFunction));
+        return addPropertyTopic(propertyKey, new PropertyOutgoingTopic<>(topic, qosLevel, isRetained, propertyToPayloadFunction));
+    }
+
+    private MqttDigitalAdapterConfigurationBuilder addPropertyTopic(String propertyKey, PropertyOutgoingTopic<?> outgoingTopic) {
+        this.configuration.addPropertyUpdateTopic(propertyKey, outgoingTopic);
+        this.lastPropertyTopics.put(propertyKey, outgoingTopic);
+        return this;
+    }
+
+    /**
+     * Adds a property update topic whose values are aggregated over time windows: a summary of each window, converted
+     * by the serializer of the policy, is published on the topic instead of every update of the property. The values
+     * of the property must be numbers, other values are discarded.
+     *
+     * @param propertyKey The key associated with the property.
+     * @param topic The MQTT topic for the property summaries.
+     * @param qosLevel The Quality of Service (QoS) level for the MQTT topic.
+     * @param aggregationPolicy The window aggregation policy.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the key, topic, or aggregation policy is invalid.
+     */
+    public MqttDigitalAdapterConfigurationBuilder addPropertyTopic(String propertyKey,
+                                                                   String topic,
+                                                                   MqttQosLevel qosLevel,
+                                                                   WindowAggregationPolicy aggregationPolicy) throws MqttDigitalAdapterConfigurationException {
+        addPropertyTopic(propertyKey, topic, qosLevel, String::valueOf);
+        return setPropertyTopicAggregation(propertyKey, aggregationPolicy);
+    }
+
+    /**
+     * Aggregates the values of the last added property topic of a key over time windows, see
+     * {@link #addPropertyTopic(String, String, MqttQosLevel, WindowAggregationPolicy)}.
+     *
+     * @param propertyKey The key associated with the property.
+     * @param aggregationPolicy The window aggregation policy.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the property topic does not exist, is batched or the
+     * policy is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setPropertyTopicAggregation(String propertyKey, WindowAggregationPolicy aggregationPolicy) throws MqttDigitalAdapterConfigurationException {
+        PropertyOutgoingTopic<?> outgoingTopic = this.lastPropertyTopics.get(propertyKey);
+        if(outgoingTopic == null)
+            throw new MqttDigitalAdapterConfigurationException(String.format("No topic configured for key: %s", propertyKey));
+        if(this.configuration.getPropertyBatchPolicies().containsKey(outgoingTopic))
+            throw new MqttDigitalAdapterConfigurationException(String.format("Property topic already batched for key: %s", propertyKey));
+        if(aggregationPolicy == null) throw new MqttDigitalAdapterConfigurationException("WindowAggregationPolicy cannot be null");
+        this.configuration.getPropertyAggregationPolicies().put(outgoingTopic, aggregationPolicy);
+        return this;
+    }
+
+    /**
+     * Batches the updates of the last added property topic of a key: the (timestamp, value) samples of the property are
+     * collected and published on the topic as a single message, converted by the encoder of the policy, when the batch
+     * reaches the maximum number of samples or its first sample reaches the maximum age. Numeric values are batched
+     * as they are, other values are converted by the publish function of the topic.
+     *
+     * @param propertyKey The key associated with the property.
+     * @param batchPolicy The sample batch policy.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the property topic does not exist, is aggregated or
+     * the policy is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setPropertyTopicBatching(String propertyKey, SampleBatchPolicy batchPolicy) throws MqttDigitalAdapterConfigurationException {
+        PropertyOutgoingTopic<?> outgoingTopic = this.lastPropertyTopics.get(propertyKey);
+        if(outgoingTopic == null)
+            throw new MqttDigitalAdapterConfigurationException(String.format("No topic configured for key: %s", propertyKey));
+        if(this.configuration.getPropertyAggregationPolicies().containsKey(outgoingTopic))
+            throw new MqttDigitalAdapterConfigurationException(String.format("Property topic already aggregated for key: %s", propertyKey));
+        if(batchPolicy == null) throw new MqttDigitalAdapterConfigurationException("SampleBatchPolicy cannot be null");
+        this.configuration.getPropertyBatchPolicies().put(outgoingTopic, batchPolicy);
         return this;
     }
 
@@ -102,6 +204,10 @@ public class MqttDigitalAdapterConfigurationBuilder {
      * Adds an event notification topic to the MQTT Digital Adapter configuration. The event is associated with a specified
      * key, MQTT topic, Quality of Service (QoS) level, and a function to convert the event to its MQTT payload.
      *
+     * Several topics can be added for the same key: each notification of the event is published on all of them,
+     * serialized once for the topics sharing the same function instance. A topic with the same MQTT topic of one
+     * already added for the key replaces it.
+     *
      * @param <T> The type of the event value.
      * @param eventKey The key associated with the event.
      * @param topic The MQTT topic for event notifications.
@@ -115,8 +221,7 @@ public class MqttDigitalAdapterConfigurationBuilder {
                                                                                 MqttQosLevel qosLevel,
                                                                                 Function<T, String> eventToPayloadFunction) throws  MqttDigitalAdapterConfigurationException{
         checkTopic(eventKey, topic, eventToPayloadFunction);
-        this.configuration.getEventNotificationTopics().put(eventKey, new EventNotificationOutgoingTopic<>(topic, qosLevel, eventToPayloadFunction));
-        return this;
+        return addEventNotificationTopic(eventKey, new EventNotificationOutgoingTopic<>(topic, qosLevel, eventToPayloadFunction));
     }
 
     /**
@@ -138,7 +243,12 @@ public class MqttDigitalAdapterConfigurationBuilder {
                                                                                 boolean isRetained,
                                                                                 Function<T, String> eventToPayloadFunction) throws  MqttDigitalAdapterConfigurationException{
         checkTopic(eventKey, topic, eventToPayloadFunction);
-        this.configuration.getEventNotificationTopics().put(eventKey, new EventNotificationOutgoingTopic<>(topic, qosLevel, isRetained, eventToPayloadFunction));
+        return addEventNotificationTopic(eventKey, new EventNotificationOutgoingTopic<>(topic, qosLevel, isRetained, eventToPayloadFunction));
+    }
+
+    private MqttDigitalAdapterConfigurationBuilder addEventNotificationTopic(String eventKey, EventNotificationOutgoingTopic<?> outgoingTopic) {
+        this.configuration.addEventNotificationTopic(eventKey, outgoingTopic);
+        this.lastEventTopics.put(eventKey, outgoingTopic);
         return this;
     }
 
@@ -161,6 +271,28 @@ public class MqttDigitalAdapterConfigurationBuilder {
         return this;
     }
 
+    /**
+     * Adds an action topic to the MQTT Digital Adapter configuration subscribed with the given Quality of Service
+     * (QoS) level, e.g. QoS 1 to receive the actions published while the adapter is offline with a persistent session.
+     *
+     * @param <T> The type of the action value.
+     * @param actionKey The key associated with the action.
+     * @param topic The MQTT topic for incoming actions.
+     * @param qosLevel The Quality of Service (QoS) level of the subscription.
+     * @param payloadToActionFunction The function to convert the MQTT payload to an action value.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the key, topic, QoS level or payload function is invalid.
+     */
+    public <T> MqttDigitalAdapterConfigurationBuilder addActionTopic(String actionKey,
+                                                                     String topic,
+                                                                     MqttQosLevel qosLevel,
+                                                                     Function<String, T> payloadToActionFunction) throws MqttDigitalAdapterConfigurationException {
+        checkTopic(actionKey, topic, payloadToActionFunction);
+        if(qosLevel == null) throw new MqttDigitalAdapterConfigurationException("QoS level cannot be null");
+        this.configuration.getActionIncomingTopics().put(actionKey, new ActionIncomingTopic<>(topic, qosLevel, actionKey, payloadToActionFunction));
+        return this;
+    }
+
     /**
      * Sets the connection timeout in seconds for the MQTT client in the MQTT Digital Adapter configuration.
      *
@@ -169,7 +301,7 @@ public class MqttDigitalAdapterConfigurationBuilder {
      * @throws MqttDigitalAdapterConfigurationException Thrown when the connection timeout is not a positive number.
      */
     public MqttDigitalAdapterConfigurationBuilder setConnectionTimeout(Integer connectionTimeout) throws MqttDigitalAdapterConfigurationException {
-        if(isValid(connectionTimeout)) throw new MqttDigitalAdapterConfigurationException("Connection Timeout must be a positive number");
+        if(!isValid(connectionTimeout)) throw new MqttDigitalAdapterConfigurationException("Connection Timeout must be a positive number");
         this.configuration.setConnectionTimeout(connectionTimeout);
         return this;
     }
@@ -198,6 +330,148 @@ public class MqttDigitalAdapterConfigurationBuilder {
         return this;
     }
 
+    /**
+     * Sets the policy applied to reconnect to the broker, replacing the automatic reconnect of the MQTT client.
+     * Reconnection attempts are delayed by an exponential backoff with full jitter and, once reconnected, the
+     * resubscription and the replay of the publications buffered while disconnected are rate limited by a warm-up
+     * ramp, see `ReconnectPolicy` for the defaults.
+     *
+     * @param reconnectPolicy The reconnect policy.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the policy is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setReconnectPolicy(ReconnectPolicy reconnectPolicy) throws MqttDigitalAdapterConfigurationException {
+        if(reconnectPolicy == null) throw new MqttDigitalAdapterConfigurationException("ReconnectPolicy cannot be null");
+        this.configuration.setReconnectPolicy(reconnectPolicy);
+        return this;
+    }
+
+    /**
+     * Enables the adaptive pacing of the published messages: publications are spaced according to a rate limit that
+     * an AIMD controller lowers when the acknowledgement round trip time or the failure rate exceed their targets and
+     * raises while the broker keeps up, within the bounds of the policy. See `AdaptivePacingPolicy` for the defaults.
+     *
+     * @param publishPacingPolicy The publish pacing policy.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the policy is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setPublishPacingPolicy(AdaptivePacingPolicy publishPacingPolicy) throws MqttDigitalAdapterConfigurationException {
+        if(publishPacingPolicy == null) throw new MqttDigitalAdapterConfigurationException("AdaptivePacingPolicy cannot be null");
+        this.configuration.setPublishPacingPolicy(publishPacingPolicy);
+        return this;
+    }
+
+    /**
+     * Connects to the broker over TLS ({@code ssl://} URL) with the sockets created by the SSL context of the policy.
+     * The TLS session is cached and resumed on reconnection unless disabled by the policy, so reconnecting adapters
+     * perform an abbreviated handshake. See `TlsPolicy` for the defaults.
+     *
+     * @param tlsPolicy The TLS policy.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the policy is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setTlsPolicy(TlsPolicy tlsPolicy) throws MqttDigitalAdapterConfigurationException {
+        if(tlsPolicy == null) throw new MqttDigitalAdapterConfigurationException("TlsPolicy cannot be null");
+        this.configuration.setTlsPolicy(tlsPolicy);
+        return this;
+    }
+
+    /**
+     * Serializes the property updates of large state updates (at least as many changes as the threshold of the
+     * policy) in parallel on a bounded fork-join pool and publishes them in the original order of the changes. The
+     * publish functions of the property topics must be thread safe. See `ParallelSerializationPolicy` for the defaults.
+     *
+     * @param parallelSerializationPolicy The parallel serialization policy.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the policy is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setParallelSerializationPolicy(ParallelSerializationPolicy parallelSerializationPolicy) throws MqttDigitalAdapterConfigurationException {
+        if(parallelSerializationPolicy == null) throw new MqttDigitalAdapterConfigurationException("ParallelSerializationPolicy cannot be null");
+        this.configuration.setParallelSerializationPolicy(parallelSerializationPolicy);
+        return this;
+    }
+
+    /**
+     * Subscribes the action topics only while their actions are registered in the DT state, instead of subscribing
+     * all of them at startup. The actions of the DT state are registered on synchronization, and the actions added
+     * and removed by the following state updates are subscribed and unsubscribed after the debounce time of the
+     * policy, in batched SUBSCRIBE and UNSUBSCRIBE requests. See `DynamicSubscriptionPolicy` for the defaults.
+     *
+     * @param dynamicSubscriptionPolicy The dynamic subscription policy.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the policy is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setDynamicSubscriptionPolicy(DynamicSubscriptionPolicy dynamicSubscriptionPolicy) throws MqttDigitalAdapterConfigurationException {
+        if(dynamicSubscriptionPolicy == null) throw new MqttDigitalAdapterConfigurationException("DynamicSubscriptionPolicy cannot be null");
+        this.configuration.setDynamicSubscriptionPolicy(dynamicSubscriptionPolicy);
+        return this;
+    }
+
+    /**
+     * Publishes the structural changes of the DT state (actions enabled, disabled and updated, events registered,
+     * unregistered and updated, properties created and deleted) as a single structure diff message per state update
+     * on the `state/structure/diff` topic and, if enabled by the policy, on the default topics of the
+     * `DigitalTwinOutgoingTopicFactory`. The whole structure is published when the DT is synchronized.
+     *
+     * @param structurePublishingPolicy The structure publishing policy.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the policy is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setStructurePublishingPolicy(StructurePublishingPolicy structurePublishingPolicy) throws MqttDigitalAdapterConfigurationException {
+        if(structurePublishingPolicy == null) throw new MqttDigitalAdapterConfigurationException("StructurePublishingPolicy cannot be null");
+        this.configuration.setStructurePublishingPolicy(structurePublishingPolicy);
+        return this;
+    }
+
+    /**
+     * Delivers the publications off the DT thread on a fixed number of lanes, each one drained by a single thread.
+     * The lane of a publication is chosen by hashing its topic key (property, event or resource key), so the
+     * publications of the same key keep their order while the ones of different keys are delivered in parallel.
+     * The DT thread waits when the lane of a publication is full. See `StripedPublishingPolicy` for the defaults.
+     *
+     * @param stripedPublishingPolicy The striped publishing policy.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the policy is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setStripedPublishingPolicy(StripedPublishingPolicy stripedPublishingPolicy) throws MqttDigitalAdapterConfigurationException {
+        if(stripedPublishingPolicy == null) throw new MqttDigitalAdapterConfigurationException("StripedPublishingPolicy cannot be null");
+        this.configuration.setStripedPublishingPolicy(stripedPublishingPolicy);
+        return this;
+    }
+
+    /**
+     * Enables or disables the persistent session (disabled by default). When enabled, the clean session flag is
+     * disabled, a stable client id is derived from the DT and adapter ids (unless a client id has been provided to the
+     * builder) and, when the broker reports a present session on connection, the messages queued by the broker while
+     * the adapter was offline are delivered right after the connection. The subscriptions of the session are stored
+     * next to it, in the persistence directory with `setFilePersistence` or in memory otherwise, so that only the
+     * incoming topics added or removed since the previous connection are subscribed or unsubscribed. The persistent
+     * session should be paired with a durable client persistence (see `setFilePersistence`) to keep the in-flight QoS
+     * 1 and 2 messages and the subscriptions of the session across restarts.
+     *
+     * @param persistentSession The flag value.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setPersistentSessionFlag(boolean persistentSession) {
+        this.configuration.setPersistentSessionFlag(persistentSession);
+        this.configuration.setCleanSessionFlag(!persistentSession);
+        return this;
+    }
+
+    /**
+     * Sets a file based persistence of the in-flight messages, stored in the given directory, for both the MQTT
+     * 3.1.1 and the MQTT 5 clients.
+     *
+     * @param directory The directory of the persistence files.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the directory is empty or null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setFilePersistence(String directory) throws MqttDigitalAdapterConfigurationException {
+        if(!isValid(directory)) throw new MqttDigitalAdapterConfigurationException("Persistence directory cannot be empty string or null");
+        this.configuration.setFilePersistence(directory);
+        return this;
+    }
+
     /**
      * Sets the MQTT client persistence in the MQTT Digital Adapter configuration.
      *
@@ -211,6 +485,191 @@ public class MqttDigitalAdapterConfigurationBuilder {
         return this;
     }
 
+    /**
+     * Sets the MQTT protocol version used by the MQTT Digital Adapter. `MqttProtocolVersion.MQTT_5` enables automatic
+     * topic aliases on outgoing topics (within the limit announced by the broker) and per-topic message expiry.
+     *
+     * @param protocolVersion The MQTT protocol version.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the protocol version is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setProtocolVersion(MqttProtocolVersion protocolVersion) throws MqttDigitalAdapterConfigurationException {
+        if(protocolVersion == null) throw new MqttDigitalAdapterConfigurationException("MqttProtocolVersion cannot be null");
+        this.configuration.setProtocolVersion(protocolVersion);
+        return this;
+    }
+
+    /**
+     * Sets the MQTT client persistence used when the adapter works with `MqttProtocolVersion.MQTT_5`.
+     *
+     * @param persistence The MQTT 5 client persistence implementation.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the persistence is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setMqttV5ClientPersistence(org.eclipse.paho.mqttv5.client.MqttClientPersistence persistence) throws MqttDigitalAdapterConfigurationException {
+        if(persistence == null) throw new MqttDigitalAdapterConfigurationException("MqttClientPersistence cannot be null");
+        this.configuration.setMqttV5ClientPersistence(persistence);
+        return this;
+    }
+
+    /**
+     * Sets the metrics receiving the measurements taken by the MQTT Digital Adapter on its publish and subscribe
+     * paths (e.g. `JmxMqttDigitalAdapterMetrics`). By default measurements are discarded.
+     *
+     * @param metrics The adapter metrics implementation.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the metrics are null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setMetrics(MqttDigitalAdapterMetrics metrics) throws MqttDigitalAdapterConfigurationException {
+        if(metrics == null) throw new MqttDigitalAdapterConfigurationException("MqttDigitalAdapterMetrics cannot be null");
+        this.configuration.setMetrics(metrics);
+        return this;
+    }
+
+    /**
+     * Sets the policy applied to the per-message log lines (published messages, received events and actions)
+     * written by the MQTT Digital Adapter, see `HotPathLoggingPolicy` for the defaults.
+     *
+     * @param hotPathLoggingPolicy The hot path logging policy.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the policy is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setHotPathLoggingPolicy(HotPathLoggingPolicy hotPathLoggingPolicy) throws MqttDigitalAdapterConfigurationException {
+        if(hotPathLoggingPolicy == null) throw new MqttDigitalAdapterConfigurationException("HotPathLoggingPolicy cannot be null");
+        this.configuration.setHotPathLoggingPolicy(hotPathLoggingPolicy);
+        return this;
+    }
+
+    /**
+     * Sets an in-process `LoopbackMqttBroker` used instead of the network broker: outgoing messages are delivered
+     * directly to the subscribers of the same JVM and actions can be published locally on the broker. The broker
+     * address and port are ignored.
+     *
+     * @param loopbackBroker The loopback broker shared with the local publishers and subscribers.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the broker is null.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setLoopbackBroker(LoopbackMqttBroker loopbackBroker) throws MqttDigitalAdapterConfigurationException {
+        if(loopbackBroker == null) throw new MqttDigitalAdapterConfigurationException("LoopbackMqttBroker cannot be null");
+        this.configuration.setLoopbackBroker(loopbackBroker);
+        return this;
+    }
+
+    /**
+     * Enables or disables the cache of the last payload published on each property topic (enabled by default).
+     * The cached payloads can be queried through `MqttDigitalAdapter.getPublishedPayload` without serializing
+     * the DT state again, and are required by the duplicate payload suppression.
+     *
+     * @param publishedPayloadCache The flag value.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setPublishedPayloadCacheFlag(boolean publishedPayloadCache) {
+        this.configuration.setPublishedPayloadCacheFlag(publishedPayloadCache);
+        return this;
+    }
+
+    /**
+     * Enables or disables the suppression of property payloads byte-identical to the last one published on the same
+     * topic (disabled by default), e.g. to avoid network writes for unchanged serialized values.
+     *
+     * @param duplicatePayloadSuppression The flag value.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setDuplicatePayloadSuppressionFlag(boolean duplicatePayloadSuppression) {
+        this.configuration.setDuplicatePayloadSuppressionFlag(duplicatePayloadSuppression);
+        return this;
+    }
+
+    /**
+     * Enables or disables the asynchronous startup (disabled by default). When enabled, the adapter connects to the
+     * broker and subscribes to the incoming topics on a dedicated thread and notifies its binding to the DT once
+     * completed, so that the startup of many adapters and DTs is not serialized on the broker round trips.
+     *
+     * @param asyncStartup The flag value.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setAsyncStartupFlag(boolean asyncStartup) {
+        this.configuration.setAsyncStartupFlag(asyncStartup);
+        return this;
+    }
+
+    /**
+     * Enables the state request topic: the adapter subscribes to the request topic and answers each request on the
+     * response topic with the last payloads published for the requested properties, served from the published
+     * payload cache. A request payload can be empty or `*` (all the properties), a JSON array of property keys or
+     * a comma separated list of property keys. The response is a JSON object with the topic, payload and timestamp
+     * of each requested property already published.
+     *
+     * @param requestTopic The MQTT topic for incoming state requests.
+     * @param responseTopic The MQTT topic for state responses.
+     * @param qosLevel The Quality of Service (QoS) level of both topics.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when a topic or the QoS level is invalid.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setStateRequestTopic(String requestTopic,
+                                                                       String responseTopic,
+                                                                       MqttQosLevel qosLevel) throws MqttDigitalAdapterConfigurationException {
+        return setStateRequestTopic(requestTopic, responseTopic, qosLevel,
+                StateRequestIncomingTopic.DEFAULT_REQUEST_FUNCTION, StateResponseOutgoingTopic.DEFAULT_RESPONSE_FUNCTION);
+    }
+
+    /**
+     * Enables the state request topic with custom functions to convert a request payload into the requested property
+     * keys (an empty set meaning all the properties) and the published payloads into the response payload.
+     *
+     * @param requestTopic The MQTT topic for incoming state requests.
+     * @param responseTopic The MQTT topic for state responses.
+     * @param qosLevel The Quality of Service (QoS) level of both topics.
+     * @param requestToPropertyKeysFunction The function to convert a request payload into the requested property keys.
+     * @param publishedPayloadsToResponseFunction The function to convert the published payloads by property key into the response payload.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when a topic, the QoS level or a function is invalid.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setStateRequestTopic(String requestTopic,
+                                                                       String responseTopic,
+                                                                       MqttQosLevel qosLevel,
+                                                                       Function<String, Set<String>> requestToPropertyKeysFunction,
+                                                                       Function<Map<String, PublishedPayload>, String> publishedPayloadsToResponseFunction) throws MqttDigitalAdapterConfigurationException {
+        if(!isValid(requestTopic) || !isValid(responseTopic) || qosLevel == null
+                || requestToPropertyKeysFunction == null || publishedPayloadsToResponseFunction == null)
+            throw new MqttDigitalAdapterConfigurationException("State request and response topics cannot be empty or null and QoS level and functions cannot be null");
+        this.configuration.setStateRequestTopics(
+                new StateRequestIncomingTopic(requestTopic, qosLevel, requestToPropertyKeysFunction),
+                new StateResponseOutgoingTopic(responseTopic, qosLevel, publishedPayloadsToResponseFunction));
+        return this;
+    }
+
+    /**
+     * Sets the message expiry interval of the last added property topic of a key. The broker discards the messages that
+     * have not been delivered to a subscriber within the interval. Applied only with `MqttProtocolVersion.MQTT_5`.
+     *
+     * @param propertyKey The key associated with the property.
+     * @param messageExpiryInterval The message expiry interval in seconds. Must be a positive number.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the property topic does not exist or the interval is not a positive number.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setPropertyTopicMessageExpiryInterval(String propertyKey, long messageExpiryInterval) throws MqttDigitalAdapterConfigurationException {
+        checkMessageExpiryInterval(propertyKey, this.lastPropertyTopics.containsKey(propertyKey), messageExpiryInterval);
+        this.lastPropertyTopics.get(propertyKey).setMessageExpiryInterval(messageExpiryInterval);
+        return this;
+    }
+
+    /**
+     * Sets the message expiry interval of the last added event notification topic of a key. The broker discards the
+     * messages that have not been delivered to a subscriber within the interval. Applied only with
+     * `MqttProtocolVersion.MQTT_5`.
+     *
+     * @param eventKey The key associated with the event.
+     * @param messageExpiryInterval The message expiry interval in seconds. Must be a positive number.
+     * @return The updated `MqttDigitalAdapterConfigurationBuilder`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the event topic does not exist or the interval is not a positive number.
+     */
+    public MqttDigitalAdapterConfigurationBuilder setEventNotificationTopicMessageExpiryInterval(String eventKey, long messageExpiryInterval) throws MqttDigitalAdapterConfigurationException {
+        checkMessageExpiryInterval(eventKey, this.lastEventTopics.containsKey(eventKey), messageExpiryInterval);
+        this.lastEventTopics.get(eventKey).setMessageExpiryInterval(messageExpiryInterval);
+        return this;
+    }
+
     /**
      * Builds and returns an instance of `MqttDigitalAdapterConfiguration`. Before building, it checks whether the
      * configuration contains any MqttTopics (action topics, event notification topics, or property update topics). If no
@@ -225,9 +684,32 @@ public class MqttDigitalAdapterConfigurationBuilder {
                 && this.configuration.getPropertyUpdateTopics().isEmpty())
             throw new MqttDigitalAdapterConfigurationException("Cannot build a MqttDigitalAdapterConfiguration without MqttTopics");
 
+        if(this.configuration.getDuplicatePayloadSuppressionFlag() && !this.configuration.getPublishedPayloadCacheFlag())
+            throw new MqttDigitalAdapterConfigurationException("Duplicate payload suppression requires the published payload cache");
+
+        if(this.configuration.getPersistentSessionFlag() && this.configuration.getCleanSessionFlag())
+            throw new MqttDigitalAdapterConfigurationException("The persistent session cannot be used with the clean session flag");
+
+        if(this.configuration.getStateRequestTopic() != null && !this.configuration.getPublishedPayloadCacheFlag())
+            throw new MqttDigitalAdapterConfigurationException("The state request topic requires the published payload cache");
+
         return this.configuration;
     }
 
+    /**
+     * Builds a configuration template shared by a fleet of Digital Twins that differ only by their id, after the
+     * checks of `build`. The `{id}` placeholder in the topics and in the client id is replaced by the id of each
+     * Digital Twin when the template is bound to it (see `MqttDigitalAdapterConfigurationTemplate`).
+     *
+     * @return An instance of `MqttDigitalAdapterConfigurationTemplate`.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the configuration is not valid, the client id is
+     *                                                    neither generated nor contains the placeholder, or the client
+     *                                                    persistence is a custom one.
+     */
+    public MqttDigitalAdapterConfigurationTemplate buildTemplate() throws MqttDigitalAdapterConfigurationException {
+        return new MqttDigitalAdapterConfigurationTemplate(build());
+    }
+
 
     /**
      * Checks if a key, topic, and function combination is valid. Throws an exception if the key or topic is empty or null,
@@ -243,6 +725,21 @@ public class MqttDigitalAdapterConfigurationBuilder {
             throw new MqttDigitalAdapterConfigurationException("Key and Topic cannot be empty or null and function cannot be null");
     }
 
+    /**
+     * Checks that a message expiry interval refers to an existing topic and is a positive number.
+     *
+     * @param key The key of the topic.
+     * @param isTopicPresent Whether a topic is associated with the key.
+     * @param messageExpiryInterval The message expiry interval in seconds.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the topic does not exist or the interval is not a positive number.
+     */
+    private void checkMessageExpiryInterval(String key, boolean isTopicPresent, long messageExpiryInterval) throws MqttDigitalAdapterConfigurationException {
+        if(!isTopicPresent)
+            throw new MqttDigitalAdapterConfigurationException(String.format("No topic configured for key: %s", key));
+        if(messageExpiryInterval <= 0)
+            throw new MqttDigitalAdapterConfigurationException("Message Expiry Interval must be a positive number");
+    }
+
     /**
      * Checks if a parameter is a valid non-empty string.
      *
@@ -259,7 +756,7 @@ public class MqttDigitalAdapterConfigurationBuilder {
      * @param param The integer parameter to check.
      * @return `true` if the parameter is a valid positive number, otherwise `false`.
      */
-    private boolean isValid(int param){
-        return param <= 0;
+    private boolean isValid(Integer param){
+        return param != null && param > 0;
     }
 }
@@ -0,0 +1,141 @@
+package it.wldt.adapter.mqtt.digital;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Configuration shared by a fleet of Digital Twins that differ only by their id. The template is built once with the
+ * `MqttDigitalAdapterConfigurationBuilder` (see `buildTemplate`), using the `{id}` placeholder in the topics and in
+ * the client id, and it is bound to the id of each Digital Twin to get the configuration of its adapter.
+ * <p>
+ * The bound configurations share the settings, policies, metrics and loopback broker of the template, as well as the
+ * conversion functions of all the topics. Only the topics containing the placeholder are copied for each Digital
+ * Twin, each distinct topic string being built once per Digital Twin from the interned segments of the template,
+ * while the topics without the placeholder are shared; when no topic contains the placeholder the topic maps
+ * themselves are shared. The in-memory and file based client persistences are created again for each Digital Twin.
+ * <p>
+ * Since all the adapters of the fleet connect to the broker at the same time, the client id must either be generated
+ * or contain the placeholder, and the client persistence cannot be a custom instance. A generated client id is
+ * derived from the id of each Digital Twin rather than drawn at random, so the client ids of a large fleet never
+ * collide.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class MqttDigitalAdapterConfigurationTemplate {
+
+    /**
+     * Placeholder replaced by the id of the Digital Twin in the topics and in the client id
+     */
+    public static final String ID_PLACEHOLDER = "{id}";
+
+    /**
+     * The template configuration, whose topic maps are no longer modifiable
+     */
+    private final MqttDigitalAdapterConfiguration configuration;
+
+    /**
+     * The interned segments around the placeholder of each topic containing it
+     */
+    private final Map<String, String[]> topicPatterns = new HashMap<>();
+
+    /**
+     * The interned segments around the placeholder of the client id, or null if the client id is generated from the
+     * id of each Digital Twin
+     */
+    private final String[] clientIdPattern;
+
+    /**
+     * Constructs a template from a configuration, which must not be modified anymore.
+     *
+     * @param configuration The template configuration, whose topics may contain the placeholder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the client id is neither generated nor contains
+     *                                                    the placeholder, or the client persistence is a custom one.
+     */
+    protected MqttDigitalAdapterConfigurationTemplate(MqttDigitalAdapterConfiguration configuration) throws MqttDigitalAdapterConfigurationException {
+        if(configuration.getClientId().contains(ID_PLACEHOLDER))
+            this.clientIdPattern = split(configuration.getClientId());
+        else if(configuration.getGeneratedClientIdFlag())
+            this.clientIdPattern = null;
+        else
+            throw new MqttDigitalAdapterConfigurationException("The client id of a configuration template must be generated or contain the " + ID_PLACEHOLDER + " placeholder");
+        if(configuration.getPersistenceDirectory() == null
+                && (!(configuration.getPersistence() instanceof MemoryPersistence)
+                || !(configuration.getMqttV5Persistence() instanceof org.eclipse.paho.mqttv5.client.persist.MemoryPersistence)))
+            throw new MqttDigitalAdapterConfigurationException("A custom client persistence cannot be shared by the Digital Twins of a configuration template");
+        this.configuration = new MqttDigitalAdapterConfiguration(configuration, configuration.getClientId(), topic -> topic);
+        for (MqttTopic topic : getTopics(this.configuration))
+            if (topic.getTopic().contains(ID_PLACEHOLDER))
+                topicPatterns.computeIfAbsent(topic.getTopic(), MqttDigitalAdapterConfigurationTemplate::split);
+    }
+
+    /**
+     * Gets the configuration of the adapter of a Digital Twin, replacing the placeholder with its id.
+     *
+     * @param digitalTwinId The id of the Digital Twin.
+     * @return The configuration of the adapter of the Digital Twin.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the id is empty or null or contains an MQTT
+     *                                                    wildcard or level separator.
+     */
+    public MqttDigitalAdapterConfiguration bind(String digitalTwinId) throws MqttDigitalAdapterConfigurationException {
+        if(digitalTwinId == null || digitalTwinId.isEmpty() || digitalTwinId.contains("+") || digitalTwinId.contains("#") || digitalTwinId.contains("/"))
+            throw new MqttDigitalAdapterConfigurationException("Digital Twin id cannot be empty or null and cannot contain MQTT wildcards or level separators");
+        String clientId = clientIdPattern == null ?
+                MqttDigitalAdapterConfiguration.CLIENT_ID_PREFIX + digitalTwinId : join(clientIdPattern, digitalTwinId);
+        if(topicPatterns.isEmpty())
+            return new MqttDigitalAdapterConfiguration(configuration, clientId, null);
+        Map<String, String> boundTopics = new HashMap<>(topicPatterns.size() * 4 / 3 + 1);
+        topicPatterns.forEach((topic, pattern) -> boundTopics.put(topic, join(pattern, digitalTwinId)));
+        return new MqttDigitalAdapterConfiguration(configuration, clientId, topic -> boundTopics.getOrDefault(topic, topic));
+    }
+
+    /**
+     * Gets the topics of the template containing the placeholder.
+     *
+     * @return The MQTT topics bound to the id of each Digital Twin.
+     */
+    public Set<String> getBoundTopics() {
+        return Collections.unmodifiableSet(topicPatterns.keySet());
+    }
+
+    private static List<MqttTopic> getTopics(MqttDigitalAdapterConfiguration configuration) {
+        List<MqttTopic> topics = new ArrayList<>();
+        configuration.getPropertyUpdateTopics().keySet().forEach(key -> topics.addAll(configuration.getPropertyUpdateTopics(key)));
+        configuration.getEventNotificationTopics().keySet().forEach(key -> topics.addAll(configuration.getEventNotificationTopics(key)));
+        topics.addAll(configuration.getActionIncomingTopics().values());
+        if (configuration.getStateRequestTopic() != null)
+            topics.add(configuration.getStateRequestTopic());
+        if (configuration.getStateResponseTopic() != null)
+            topics.add(configuration.getStateResponseTopic());
+        return topics;
+    }
+
+    private static String[] split(String value) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int index;
+        while ((index = value.indexOf(ID_PLACEHOLDER, start)) >= 0) {
+            segments.add(value.substring(start, index).intern());
+            start = index + ID_PLACEHOLDER.length();
+        }
+        segments.add(value.substring(start).intern());
+        return segments.toArray(new String[0]);
+    }
+
+    private static String join(String[] segments, String digitalTwinId) {
+        int length = digitalTwinId.length() * (segments.length - 1);
+        for (String segment : segments)
+            length += segment.length();
+        StringBuilder value = new StringBuilder(length).append(segments[0]);
+        for (int i = 1; i < segments.length; i++)
+            value.append(digitalTwinId).append(segments[i]);
+        return value.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package it.wldt.adapter.mqtt.digital.aggregation;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Policy aggregating the values of a numeric property over time windows: instead of publishing every update of the
+ * property, the MQTT Digital Adapter publishes a summary of each window on the property topic. Instances are created
+ * through the {@link WindowAggregationPolicyBuilder}.
+ *
+ * <ul>
+ *   <li>{@code windowType}: tumbling or sliding windows (default tumbling)</li>
+ *   <li>{@code windowSizeMs}: duration of a window (default 1 s)</li>
+ *   <li>{@code slideMs}: interval between the summaries of a sliding window, the window size must be a multiple of it (default equal to the window size)</li>
+ *   <li>{@code statistics}: statistics published in the summaries (default min, max, avg, count and last)</li>
+ *   <li>{@code summarySerializer}: converts a summary into the published payload (default {@link WindowSummarySerializer#JSON})</li>
+ * </ul>
+ *
+ * Windows without any value are not published.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class WindowAggregationPolicy {
+
+    private WindowType windowType = WindowType.TUMBLING;
+
+    private long windowSizeMs = 1000;
+
+    private long slideMs = 1000;
+
+    private Set<WindowStatistic> statistics = Collections.unmodifiableSet(EnumSet.of(
+            WindowStatistic.MIN, WindowStatistic.MAX, WindowStatistic.AVG, WindowStatistic.COUNT, WindowStatistic.LAST));
+
+    private WindowSummarySerializer summarySerializer = WindowSummarySerializer.JSON;
+
+    protected WindowAggregationPolicy() {
+    }
+
+    /**
+     * Creates a builder for the window aggregation policy, initialized with the default values.
+     *
+     * @return A builder instance.
+     */
+    public static WindowAggregationPolicyBuilder builder() {
+        return new WindowAggregationPolicyBuilder();
+    }
+
+    /**
+     * Gets the number of panes a window is made of, i.e. the window size divided by the slide interval.
+     *
+     * @return The number of panes, 1 for tumbling windows.
+     */
+    public int getPaneCount() {
+        return (int) (windowSizeMs / slideMs);
+    }
+
+    public WindowType getWindowType() {
+        return windowType;
+    }
+
+    public long getWindowSizeMs() {
+        return windowSizeMs;
+    }
+
+    public long getSlideMs() {
+        return slideMs;
+    }
+
+    public Set<WindowStatistic> getStatistics() {
+        return statistics;
+    }
+
+    public WindowSummarySerializer getSummarySerializer() {
+        return summarySerializer;
+    }
+
+    protected void setWindowType(WindowType windowType) {
+        this.windowType = windowType;
+    }
+
+    protected void setWindowSizeMs(long windowSizeMs) {
+        this.windowSizeMs = windowSizeMs;
+    }
+
+    protected void setSlideMs(long slideMs) {
+        this.slideMs = slideMs;
+    }
+
+    protected void setStatistics(Set<WindowStatistic> statistics) {
+        this.statistics = statistics;
+    }
+
+    protected void setSummarySerializer(WindowSummarySerializer summarySerializer) {
+        this.summarySerializer = summarySerializer;
+    }
+
+    @Override
+    public String toString() {
+        return "WindowAggregationPolicy{" +
+                "windowType=" + windowType +
+                ", windowSizeMs=" + windowSizeMs +
+                ", slideMs=" + slideMs +
+                ", statistics=" + statistics +
+                '}';
+    }
+}
@@ -0,0 +1,90 @@
+package it.wldt.adapter.mqtt.digital.aggregation;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+
+/**
+ * Fluent builder of {@link WindowAggregationPolicy} instances.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class WindowAggregationPolicyBuilder {
+
+    private final WindowAggregationPolicy policy = new WindowAggregationPolicy();
+
+    private Long slideMs = null;
+
+    /**
+     * Uses tumbling windows: a summary is published at the end of each window.
+     *
+     * @param windowSizeMs The window size in milliseconds. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the window size is not a positive number.
+     */
+    public WindowAggregationPolicyBuilder setTumblingWindow(long windowSizeMs) throws MqttDigitalAdapterConfigurationException {
+        if(windowSizeMs <= 0) throw new MqttDigitalAdapterConfigurationException("Window Size must be a positive number");
+        policy.setWindowType(WindowType.TUMBLING);
+        policy.setWindowSizeMs(windowSizeMs);
+        slideMs = windowSizeMs;
+        return this;
+    }
+
+    /**
+     * Uses sliding windows: a summary of the last window is published every slide interval.
+     *
+     * @param windowSizeMs The window size in milliseconds. Must be a positive multiple of the slide interval.
+     * @param slideMs The slide interval in milliseconds. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the slide interval is not a positive number or the
+     * window size is not a multiple of it.
+     */
+    public WindowAggregationPolicyBuilder setSlidingWindow(long windowSizeMs, long slideMs) throws MqttDigitalAdapterConfigurationException {
+        if(slideMs <= 0) throw new MqttDigitalAdapterConfigurationException("Slide must be a positive number");
+        if(windowSizeMs <= 0 || windowSizeMs % slideMs != 0) throw new MqttDigitalAdapterConfigurationException("Window Size must be a positive multiple of the Slide");
+        policy.setWindowType(WindowType.SLIDING);
+        policy.setWindowSizeMs(windowSizeMs);
+        this.slideMs = slideMs;
+        return this;
+    }
+
+    /**
+     * Sets the statistics published in the summaries.
+     *
+     * @param first The first statistic.
+     * @param others The other statistics.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when a statistic is null.
+     */
+    public WindowAggregationPolicyBuilder setStatistics(WindowStatistic first, WindowStatistic... others) throws MqttDigitalAdapterConfigurationException {
+        if(first == null) throw new MqttDigitalAdapterConfigurationException("Statistics cannot be null");
+        for(WindowStatistic statistic : others)
+            if(statistic == null) throw new MqttDigitalAdapterConfigurationException("Statistics cannot be null");
+        policy.setStatistics(Collections.unmodifiableSet(EnumSet.of(first, others)));
+        return this;
+    }
+
+    /**
+     * Sets the serializer converting a summary into the published payload.
+     *
+     * @param summarySerializer The summary serializer.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the serializer is null.
+     */
+    public WindowAggregationPolicyBuilder setSummarySerializer(WindowSummarySerializer summarySerializer) throws MqttDigitalAdapterConfigurationException {
+        if(summarySerializer == null) throw new MqttDigitalAdapterConfigurationException("Summary Serializer cannot be null");
+        policy.setSummarySerializer(summarySerializer);
+        return this;
+    }
+
+    /**
+     * Builds the window aggregation policy.
+     *
+     * @return The window aggregation policy.
+     */
+    public WindowAggregationPolicy build() {
+        policy.setSlideMs(slideMs != null ? slideMs : policy.getWindowSizeMs());
+        return policy;
+    }
+}
@@ -0,0 +1,106 @@
+package it.wldt.adapter.mqtt.digital.aggregation;
+
+/**
+ * Incrementally aggregates the values of a property according to a {@link WindowAggregationPolicy}, without
+ * buffering the values.
+ * <p>
+ * A window is split in panes as long as the slide interval (a single pane for tumbling windows). Each pane keeps
+ * count, sum, min and max of its values in primitive arrays, so adding a value costs a few comparisons and a summary
+ * only combines the panes of the window. The current pane is closed at each slide by {@link #slide(long)}, invoked
+ * every slide interval by the adapter.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class WindowAggregator {
+
+    private final String propertyKey;
+
+    private final WindowAggregationPolicy policy;
+
+    private final long[] counts;
+
+    private final double[] sums;
+
+    private final double[] mins;
+
+    private final double[] maxs;
+
+    // Index of the pane receiving the values
+    private int currentPane = 0;
+
+    private double last = Double.NaN;
+
+    /**
+     * Constructs the aggregator of a property.
+     *
+     * @param propertyKey The property key.
+     * @param policy The window aggregation policy.
+     */
+    public WindowAggregator(String propertyKey, WindowAggregationPolicy policy) {
+        this.propertyKey = propertyKey;
+        this.policy = policy;
+        int paneCount = policy.getPaneCount();
+        this.counts = new long[paneCount];
+        this.sums = new double[paneCount];
+        this.mins = new double[paneCount];
+        this.maxs = new double[paneCount];
+        for (int i = 0; i < paneCount; i++)
+            resetPane(i);
+    }
+
+    public String getPropertyKey() {
+        return propertyKey;
+    }
+
+    public WindowAggregationPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Adds a value to the current pane.
+     *
+     * @param value The property value.
+     */
+    public synchronized void add(double value) {
+        int pane = currentPane;
+        counts[pane]++;
+        sums[pane] += value;
+        if (value < mins[pane])
+            mins[pane] = value;
+        if (value > maxs[pane])
+            maxs[pane] = value;
+        last = value;
+    }
+
+    /**
+     * Closes the current pane and summarizes the window ending with it. The oldest pane of the window is then reset
+     * to receive the next values.
+     *
+     * @param now The current time in milliseconds since the epoch, i.e. the end of the window.
+     * @return The summary of the window, or null if no value has been received in the window.
+     */
+    public synchronized WindowSummary slide(long now) {
+        long count = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            sum += sums[i];
+            min = Math.min(min, mins[i]);
+            max = Math.max(max, maxs[i]);
+        }
+        currentPane = (currentPane + 1) % counts.length;
+        resetPane(currentPane);
+        if (count == 0)
+            return null;
+        return new WindowSummary(propertyKey, policy.getStatistics(), now - policy.getWindowSizeMs(), now, count, min, max, sum, last);
+    }
+
+    private void resetPane(int pane) {
+        counts[pane] = 0;
+        sums[pane] = 0;
+        mins[pane] = Double.POSITIVE_INFINITY;
+        maxs[pane] = Double.NEGATIVE_INFINITY;
+    }
+}
@@ -0,0 +1,21 @@
+package it.wldt.adapter.mqtt.digital.aggregation;
+
+/**
+ * Statistics computed over the values of a property received in a time window.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public enum WindowStatistic {
+
+    MIN,
+
+    MAX,
+
+    AVG,
+
+    SUM,
+
+    COUNT,
+
+    LAST
+}
@@ -0,0 +1,128 @@
+package it.wldt.adapter.mqtt.digital.aggregation;
+
+import java.util.Set;
+
+/**
+ * Statistics of the values of a property received in a time window, produced by a {@link WindowAggregator} and
+ * converted into the published payload by a {@link WindowSummarySerializer}. Only the statistics configured on the
+ * {@link WindowAggregationPolicy} are meant to be published, see {@link #getStatistics()}.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class WindowSummary {
+
+    private final String propertyKey;
+
+    private final Set<WindowStatistic> statistics;
+
+    private final long windowStart;
+
+    private final long windowEnd;
+
+    private final long count;
+
+    private final double min;
+
+    private final double max;
+
+    private final double sum;
+
+    private final double last;
+
+    /**
+     * Constructs a window summary.
+     *
+     * @param propertyKey The property key.
+     * @param statistics The statistics to publish.
+     * @param windowStart The start of the window, in milliseconds since the epoch.
+     * @param windowEnd The end of the window, in milliseconds since the epoch.
+     * @param count The number of values received in the window.
+     * @param min The minimum value.
+     * @param max The maximum value.
+     * @param sum The sum of the values.
+     * @param last The last received value.
+     */
+    public WindowSummary(String propertyKey, Set<WindowStatistic> statistics, long windowStart, long windowEnd,
+                         long count, double min, double max, double sum, double last) {
+        this.propertyKey = propertyKey;
+        this.statistics = statistics;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+        this.last = last;
+    }
+
+    public String getPropertyKey() {
+        return propertyKey;
+    }
+
+    public Set<WindowStatistic> getStatistics() {
+        return statistics;
+    }
+
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    public long getWindowEnd() {
+        return windowEnd;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getAvg() {
+        return sum / count;
+    }
+
+    public double getLast() {
+        return last;
+    }
+
+    /**
+     * Gets the value of a statistic.
+     *
+     * @param statistic The statistic.
+     * @return The value of the statistic.
+     */
+    public double get(WindowStatistic statistic) {
+        switch (statistic) {
+            case MIN: return min;
+            case MAX: return max;
+            case AVG: return getAvg();
+            case SUM: return sum;
+            case COUNT: return count;
+            default: return last;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WindowSummary{" +
+                "propertyKey='" + propertyKey + '\'' +
+                ", windowStart=" + windowStart +
+                ", windowEnd=" + windowEnd +
+                ", count=" + count +
+                ", min=" + min +
+                ", max=" + max +
+                ", sum=" + sum +
+                ", last=" + last +
+                '}';
+    }
+}
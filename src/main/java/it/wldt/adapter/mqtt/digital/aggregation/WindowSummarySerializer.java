@@ -0,0 +1,42 @@
+package it.wldt.adapter.mqtt.digital.aggregation;
+
+import com.google.gson.JsonObject;
+
+import java.util.Locale;
+
+/**
+ * Converts the {@link WindowSummary} of a property into the payload published on the property topic.
+ *
+ * The default serializer produces a JSON object with the window bounds and the configured statistics, e.g.
+ * {@code {"start":1700000000000,"end":1700000001000,"min":18.5,"max":21.0,"avg":19.7,"count":1000,"last":20.1}}.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+@FunctionalInterface
+public interface WindowSummarySerializer {
+
+    /**
+     * Default serializer, see the interface description for the produced payload.
+     */
+    WindowSummarySerializer JSON = summary -> {
+        JsonObject json = new JsonObject();
+        json.addProperty("start", summary.getWindowStart());
+        json.addProperty("end", summary.getWindowEnd());
+        for (WindowStatistic statistic : summary.getStatistics()) {
+            String name = statistic.name().toLowerCase(Locale.ROOT);
+            if (statistic == WindowStatistic.COUNT)
+                json.addProperty(name, summary.getCount());
+            else
+                json.addProperty(name, summary.get(statistic));
+        }
+        return json.toString();
+    };
+
+    /**
+     * Converts a window summary into a payload.
+     *
+     * @param summary The window summary.
+     * @return The payload.
+     */
+    String serialize(WindowSummary summary);
+}
@@ -0,0 +1,19 @@
+package it.wldt.adapter.mqtt.digital.aggregation;
+
+/**
+ * Types of the time windows over which the values of a property are aggregated.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public enum WindowType {
+
+    /**
+     * Consecutive non overlapping windows, a summary is published at the end of each window
+     */
+    TUMBLING,
+
+    /**
+     * Overlapping windows advancing by a slide interval, a summary of the last window is published at each slide
+     */
+    SLIDING
+}
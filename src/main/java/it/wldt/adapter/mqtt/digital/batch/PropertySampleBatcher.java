@@ -0,0 +1,138 @@
+package it.wldt.adapter.mqtt.digital.batch;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects the samples of a property according to a {@link SampleBatchPolicy} and hands each complete batch to a
+ * publisher.
+ * <p>
+ * A batch is complete when it reaches the maximum number of samples, in which case it is published on the thread
+ * adding the last sample, or when its first sample reaches the maximum age, in which case it is published on the
+ * scheduler thread: the age check is scheduled once per batch, when its first sample is added.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class PropertySampleBatcher {
+
+    private final String propertyKey;
+
+    private final SampleBatchPolicy policy;
+
+    private final Consumer<SampleBatch> publisher;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    // Guarded by this
+    private SampleBatch currentBatch;
+
+    // Guarded by this, incremented for each batch so that the age check of a published batch is ignored
+    private long generation = 0;
+
+    /**
+     * Constructs the batcher of a property.
+     *
+     * @param propertyKey The property key.
+     * @param policy The sample batch policy.
+     * @param publisher Publishes the complete batches.
+     */
+    public PropertySampleBatcher(String propertyKey, SampleBatchPolicy policy, Consumer<SampleBatch> publisher) {
+        this.propertyKey = propertyKey;
+        this.policy = policy;
+        this.publisher = publisher;
+        this.currentBatch = new SampleBatch(propertyKey, policy.getMaxSamples());
+    }
+
+    public String getPropertyKey() {
+        return propertyKey;
+    }
+
+    public SampleBatchPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Enables the age trigger, scheduling the age checks of the next batches on the provided scheduler.
+     *
+     * @param scheduler The scheduler.
+     */
+    public void start(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Adds a numeric sample, publishing the batch if complete.
+     *
+     * @param timestamp The sample time in milliseconds since the epoch.
+     * @param value The sample value.
+     */
+    public void add(long timestamp, double value) {
+        SampleBatch completeBatch;
+        synchronized (this) {
+            onAdd();
+            currentBatch.add(timestamp, value);
+            completeBatch = currentBatch.isFull() ? swap() : null;
+        }
+        if (completeBatch != null)
+            publisher.accept(completeBatch);
+    }
+
+    /**
+     * Adds a non numeric sample, publishing the batch if complete.
+     *
+     * @param timestamp The sample time in milliseconds since the epoch.
+     * @param textValue The sample value converted by the publish function of the property topic.
+     */
+    public void add(long timestamp, String textValue) {
+        SampleBatch completeBatch;
+        synchronized (this) {
+            onAdd();
+            currentBatch.add(timestamp, textValue);
+            completeBatch = currentBatch.isFull() ? swap() : null;
+        }
+        if (completeBatch != null)
+            publisher.accept(completeBatch);
+    }
+
+    /**
+     * Publishes the pending samples, if any.
+     */
+    public void flush() {
+        SampleBatch pendingBatch;
+        synchronized (this) {
+            pendingBatch = currentBatch.size() > 0 ? swap() : null;
+        }
+        if (pendingBatch != null)
+            publisher.accept(pendingBatch);
+    }
+
+    private void onAdd() {
+        ScheduledExecutorService scheduler = this.scheduler;
+        if (currentBatch.size() > 0 || scheduler == null)
+            return;
+        long batchGeneration = generation;
+        try {
+            scheduler.schedule(() -> flushAged(batchGeneration), policy.getMaxAgeMs(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The adapter is stopping, the pending samples are flushed by the adapter
+        }
+    }
+
+    private void flushAged(long batchGeneration) {
+        SampleBatch agedBatch;
+        synchronized (this) {
+            agedBatch = generation == batchGeneration && currentBatch.size() > 0 ? swap() : null;
+        }
+        if (agedBatch != null)
+            publisher.accept(agedBatch);
+    }
+
+    private SampleBatch swap() {
+        SampleBatch batch = currentBatch;
+        currentBatch = new SampleBatch(propertyKey, policy.getMaxSamples());
+        generation++;
+        return batch;
+    }
+}
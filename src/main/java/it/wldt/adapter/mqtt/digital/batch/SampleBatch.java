@@ -0,0 +1,98 @@
+package it.wldt.adapter.mqtt.digital.batch;
+
+/**
+ * Samples of a property collected by a {@link PropertySampleBatcher} and published as a single message, stored in
+ * columns: the timestamps and the numeric values in primitive arrays and, only if some sample is not numeric, the
+ * textual values (produced by the publish function of the property topic) in a string array.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class SampleBatch {
+
+    private final String propertyKey;
+
+    private final long[] timestamps;
+
+    private final double[] values;
+
+    private String[] textValues;
+
+    private int size = 0;
+
+    /**
+     * Constructs an empty batch.
+     *
+     * @param propertyKey The property key.
+     * @param capacity The maximum number of samples.
+     */
+    SampleBatch(String propertyKey, int capacity) {
+        this.propertyKey = propertyKey;
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Adds a numeric sample.
+     *
+     * @param timestamp The sample time in milliseconds since the epoch.
+     * @param value The sample value.
+     */
+    void add(long timestamp, double value) {
+        timestamps[size] = timestamp;
+        values[size++] = value;
+    }
+
+    /**
+     * Adds a non numeric sample.
+     *
+     * @param timestamp The sample time in milliseconds since the epoch.
+     * @param textValue The sample value converted by the publish function of the property topic.
+     */
+    void add(long timestamp, String textValue) {
+        if (textValues == null)
+            textValues = new String[timestamps.length];
+        textValues[size] = textValue;
+        timestamps[size] = timestamp;
+        values[size++] = Double.NaN;
+    }
+
+    boolean isFull() {
+        return size == timestamps.length;
+    }
+
+    public String getPropertyKey() {
+        return propertyKey;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tells whether all the samples of the batch are numeric.
+     *
+     * @return True if all the values are available through {@link #getValue(int)}.
+     */
+    public boolean isNumeric() {
+        return textValues == null;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Gets the textual value of a sample: the value converted by the publish function for a non numeric sample, the
+     * number formatted as a string otherwise.
+     *
+     * @param index The sample index.
+     * @return The textual value.
+     */
+    public String getTextValue(int index) {
+        return textValues != null && textValues[index] != null ? textValues[index] : String.valueOf(values[index]);
+    }
+}
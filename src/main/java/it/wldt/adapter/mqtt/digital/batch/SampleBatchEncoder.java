@@ -0,0 +1,91 @@
+package it.wldt.adapter.mqtt.digital.batch;
+
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Converts a {@link SampleBatch} into the payload published on the property topic.
+ *
+ * The default encoder produces a columnar JSON object with delta encoded timestamps and, for numeric batches, values
+ * scaled by {@code 10^scale} and delta encoded as integers, e.g. the samples (1700000000000, 20.5),
+ * (1700000000010, 20.6) and (1700000000021, 20.4) with scale 1 are encoded as
+ * {@code {"count":3,"t0":1700000000000,"dt":[10,11],"scale":1,"v0":205,"dv":[1,-2]}}. Batches containing non numeric
+ * samples carry their textual values instead, e.g. {@code {"count":2,"t0":1700000000000,"dt":[10],"values":["ON","OFF"]}}.
+ * The same plain encoding is used for the numeric batches containing values that cannot be delta encoded, i.e. NaN,
+ * infinite values or values whose scaled integers or deltas overflow a long.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+@FunctionalInterface
+public interface SampleBatchEncoder {
+
+    /**
+     * Delta encoder keeping 3 decimal digits of the numeric values
+     */
+    SampleBatchEncoder DELTA_JSON = deltaJson(3);
+
+    /**
+     * Creates the default delta encoder, see the interface description for the produced payload.
+     *
+     * @param scale The number of decimal digits of the numeric values kept by the encoding.
+     * @return The delta encoder.
+     */
+    static SampleBatchEncoder deltaJson(int scale) {
+        double multiplier = Math.pow(10, scale);
+        return batch -> {
+            int size = batch.size();
+            StringBuilder json = new StringBuilder(32 + size * 8);
+            json.append("{\"count\":").append(size);
+            if (size > 0) {
+                json.append(",\"t0\":").append(batch.getTimestamp(0)).append(",\"dt\":[");
+                for (int i = 1; i < size; i++) {
+                    if (i > 1)
+                        json.append(',');
+                    json.append(batch.getTimestamp(i) - batch.getTimestamp(i - 1));
+                }
+                json.append(']');
+                long[] scaled = batch.isNumeric() ? new long[size] : null;
+                for (int i = 0; scaled != null && i < size; i++) {
+                    double value = batch.getValue(i) * multiplier;
+                    // NaN, infinite and out of range values fall back to the plain encoding of the batch
+                    if (Math.abs(value) < 0x1p63)
+                        scaled[i] = Math.round(value);
+                    else
+                        scaled = null;
+                }
+                try {
+                    for (int i = size - 1; scaled != null && i > 0; i--)
+                        scaled[i] = Math.subtractExact(scaled[i], scaled[i - 1]);
+                } catch (ArithmeticException e) {
+                    scaled = null;
+                }
+                if (scaled != null) {
+                    json.append(",\"scale\":").append(scale).append(",\"v0\":").append(scaled[0]).append(",\"dv\":[");
+                    for (int i = 1; i < size; i++) {
+                        if (i > 1)
+                            json.append(',');
+                        json.append(scaled[i]);
+                    }
+                    json.append(']');
+                }
+                else {
+                    json.append(",\"values\":[");
+                    for (int i = 0; i < size; i++) {
+                        if (i > 0)
+                            json.append(',');
+                        json.append(new JsonPrimitive(batch.getTextValue(i)));
+                    }
+                    json.append(']');
+                }
+            }
+            return json.append('}').toString();
+        };
+    }
+
+    /**
+     * Converts a batch into a payload.
+     *
+     * @param batch The sample batch.
+     * @return The payload.
+     */
+    String encode(SampleBatch batch);
+}
@@ -0,0 +1,69 @@
+package it.wldt.adapter.mqtt.digital.batch;
+
+/**
+ * Policy batching the updates of a property: instead of publishing every update, the MQTT Digital Adapter collects
+ * the (timestamp, value) samples of the property in a {@link SampleBatch} and publishes them as a single message on
+ * the property topic. Instances are created through the {@link SampleBatchPolicyBuilder}.
+ *
+ * <ul>
+ *   <li>{@code maxSamples}: number of samples triggering the publication of the batch (default 100)</li>
+ *   <li>{@code maxAgeMs}: age of the first sample triggering the publication of the batch (default 1 s)</li>
+ *   <li>{@code encoder}: converts a batch into the published payload (default {@link SampleBatchEncoder#DELTA_JSON})</li>
+ * </ul>
+ *
+ * The pending samples are published when the adapter stops.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class SampleBatchPolicy {
+
+    private int maxSamples = 100;
+
+    private long maxAgeMs = 1000;
+
+    private SampleBatchEncoder encoder = SampleBatchEncoder.DELTA_JSON;
+
+    protected SampleBatchPolicy() {
+    }
+
+    /**
+     * Creates a builder for the sample batch policy, initialized with the default values.
+     *
+     * @return A builder instance.
+     */
+    public static SampleBatchPolicyBuilder builder() {
+        return new SampleBatchPolicyBuilder();
+    }
+
+    public int getMaxSamples() {
+        return maxSamples;
+    }
+
+    public long getMaxAgeMs() {
+        return maxAgeMs;
+    }
+
+    public SampleBatchEncoder getEncoder() {
+        return encoder;
+    }
+
+    protected void setMaxSamples(int maxSamples) {
+        this.maxSamples = maxSamples;
+    }
+
+    protected void setMaxAgeMs(long maxAgeMs) {
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    protected void setEncoder(SampleBatchEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    @Override
+    public String toString() {
+        return "SampleBatchPolicy{" +
+                "maxSamples=" + maxSamples +
+                ", maxAgeMs=" + maxAgeMs +
+                '}';
+    }
+}
@@ -0,0 +1,61 @@
+package it.wldt.adapter.mqtt.digital.batch;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+
+/**
+ * Fluent builder of {@link SampleBatchPolicy} instances.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class SampleBatchPolicyBuilder {
+
+    private final SampleBatchPolicy policy = new SampleBatchPolicy();
+
+    /**
+     * Sets the number of samples triggering the publication of a batch.
+     *
+     * @param maxSamples The maximum number of samples of a batch. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the number of samples is not a positive number.
+     */
+    public SampleBatchPolicyBuilder setMaxSamples(int maxSamples) throws MqttDigitalAdapterConfigurationException {
+        if(maxSamples <= 0) throw new MqttDigitalAdapterConfigurationException("Max Samples must be a positive number");
+        policy.setMaxSamples(maxSamples);
+        return this;
+    }
+
+    /**
+     * Sets the age of the first sample triggering the publication of a batch.
+     *
+     * @param maxAgeMs The maximum age in milliseconds. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the age is not a positive number.
+     */
+    public SampleBatchPolicyBuilder setMaxAgeMs(long maxAgeMs) throws MqttDigitalAdapterConfigurationException {
+        if(maxAgeMs <= 0) throw new MqttDigitalAdapterConfigurationException("Max Age must be a positive number");
+        policy.setMaxAgeMs(maxAgeMs);
+        return this;
+    }
+
+    /**
+     * Sets the encoder converting a batch into the published payload.
+     *
+     * @param encoder The batch encoder, e.g. {@link SampleBatchEncoder#deltaJson(int)}.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the encoder is null.
+     */
+    public SampleBatchPolicyBuilder setEncoder(SampleBatchEncoder encoder) throws MqttDigitalAdapterConfigurationException {
+        if(encoder == null) throw new MqttDigitalAdapterConfigurationException("Encoder cannot be null");
+        policy.setEncoder(encoder);
+        return this;
+    }
+
+    /**
+     * Builds the sample batch policy.
+     *
+     * @return The sample batch policy.
+     */
+    public SampleBatchPolicy build() {
+        return policy;
+    }
+}
@@ -0,0 +1,43 @@
+package it.wldt.adapter.mqtt.digital.buffer;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single slot recycler of the payload array of an outgoing topic. Since the payloads published on the same topic
+ * usually have a stable size (e.g. numeric telemetry), the array of the last completed publication is kept and reused
+ * when the next payload has the same encoded length, so that steady state publications do not allocate a new array.
+ * <p>
+ * Ownership rules: an array returned by {@link #acquire(int)} is owned by the caller, which must hand it back with
+ * {@link #release(byte[])} only once no one else can read it anymore, i.e. after the delivery of the message has been
+ * successfully completed by a client that does not retain the payload. Arrays whose delivery failed or that may be
+ * retained (e.g. by in-process subscribers) must not be released and are left to the garbage collector.
+ * Concurrent callers never share an array: a slot being used by another publication is seen as empty.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class PayloadBufferSlot {
+
+    private final AtomicReference<byte[]> buffer = new AtomicReference<>();
+
+    /**
+     * Takes the recycled array if it has the requested length, otherwise allocates a new one.
+     *
+     * @param length The required length in bytes.
+     * @return An array of exactly the requested length, owned by the caller.
+     */
+    public byte[] acquire(int length) {
+        byte[] recycled = buffer.getAndSet(null);
+        if (recycled != null && recycled.length == length)
+            return recycled;
+        return new byte[length];
+    }
+
+    /**
+     * Hands back an array that is no longer in use, to be reused by the next publication.
+     *
+     * @param payload The array previously acquired from this slot.
+     */
+    public void release(byte[] payload) {
+        buffer.set(payload);
+    }
+}
@@ -0,0 +1,77 @@
+package it.wldt.adapter.mqtt.digital.buffer;
+
+/**
+ * UTF-8 encoder writing the payloads computed by the publish functions directly into a caller provided byte array,
+ * without the intermediate encoder, buffer and array allocations of {@link String#getBytes}. Unpaired surrogates are
+ * encoded as {@code '?'}, like the JDK encoder does.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public final class Utf8PayloadEncoder {
+
+    private static final byte REPLACEMENT = '?';
+
+    private Utf8PayloadEncoder() {
+    }
+
+    /**
+     * Computes the number of bytes of the UTF-8 encoding of the value.
+     *
+     * @param value The value to encode.
+     * @return The encoded length in bytes.
+     */
+    public static int encodedLength(CharSequence value) {
+        int length = value.length();
+        int encodedLength = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80)
+                continue;
+            if (c < 0x800)
+                encodedLength += 1;
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                // 4 bytes for 2 chars
+                encodedLength += 2;
+                i++;
+            } else if (Character.isSurrogate(c))
+                continue;
+            else
+                encodedLength += 2;
+        }
+        return encodedLength;
+    }
+
+    /**
+     * Encodes the value in UTF-8 into the target array, that must be at least {@link #encodedLength} bytes long.
+     *
+     * @param value The value to encode.
+     * @param target The target array.
+     * @return The number of written bytes.
+     */
+    public static int encode(CharSequence value, byte[] target) {
+        int length = value.length();
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80)
+                target[position++] = (byte) c;
+            else if (c < 0x800) {
+                target[position++] = (byte) (0xC0 | (c >> 6));
+                target[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                target[position++] = (byte) (0xF0 | (codePoint >> 18));
+                target[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                target[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                target[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c))
+                target[position++] = REPLACEMENT;
+            else {
+                target[position++] = (byte) (0xE0 | (c >> 12));
+                target[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                target[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,91 @@
+package it.wldt.adapter.mqtt.digital.cache;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Immutable snapshot of the last payload published by the MQTT Digital Adapter on a property topic.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class PublishedPayload {
+
+    private final String key;
+
+    private final String topic;
+
+    private final byte[] payload;
+
+    private final long timestamp;
+
+    PublishedPayload(String key, String topic, byte[] payload, long timestamp) {
+        this.key = key;
+        this.topic = topic;
+        this.payload = payload;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets the property key.
+     *
+     * @return The property key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the MQTT topic the payload has been published on.
+     *
+     * @return The MQTT topic.
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Gets a copy of the published payload bytes.
+     *
+     * @return The payload bytes.
+     */
+    public byte[] getPayload() {
+        return payload.clone();
+    }
+
+    /**
+     * Gets the published payload decoded as UTF-8.
+     *
+     * @return The payload string.
+     */
+    public String getPayloadAsString() {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the size of the published payload.
+     *
+     * @return The payload size in bytes.
+     */
+    public int getPayloadSize() {
+        return payload.length;
+    }
+
+    /**
+     * Gets the time of the publication.
+     *
+     * @return The publication time in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("PublishedPayload{");
+        sb.append("key='").append(key).append('\'');
+        sb.append(", topic='").append(topic).append('\'');
+        sb.append(", payloadSize=").append(payload.length);
+        sb.append(", timestamp=").append(timestamp);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,158 @@
+package it.wldt.adapter.mqtt.digital.cache;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the last payload bytes published on each property topic of an MQTT Digital Adapter. It is bounded to one
+ * entry per configured property key and it is used to suppress byte-identical duplicate publications and to
+ * answer local queries on the published state without serializing the DT state again.
+ * <p>
+ * Ownership rules: the cache takes the ownership of the arrays passed to {@link #update}, that must not be modified
+ * afterwards, and gives back the array of the replaced payload, which is no longer read by the cache and can be
+ * recycled by the caller. Queries always return copies, so they never observe a recycled array.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class PublishedPayloadCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Creates a cache for the given property keys and topics.
+     *
+     * @param topicsByKey The MQTT topic of each cached property key.
+     */
+    public PublishedPayloadCache(Map<String, String> topicsByKey) {
+        topicsByKey.forEach((key, topic) -> entries.put(key, new Entry(key, topic)));
+    }
+
+    /**
+     * Updates the cached property keys and topics: the entries of the removed keys and of the keys whose topic
+     * changed are discarded, while the ones of the unchanged keys keep their payloads.
+     *
+     * @param topicsByKey The MQTT topic of each cached property key.
+     */
+    public void setTopics(Map<String, String> topicsByKey) {
+        entries.keySet().retainAll(topicsByKey.keySet());
+        topicsByKey.forEach((key, topic) -> {
+            Entry entry = entries.get(key);
+            if (entry == null || !entry.topic.equals(topic))
+                entries.put(key, new Entry(key, topic));
+        });
+        version.incrementAndGet();
+    }
+
+    /**
+     * Checks whether the payload is byte-identical to the last one published for the key.
+     *
+     * @param key The property key.
+     * @param payload The candidate payload.
+     * @return {@code true} if the same payload has already been published.
+     */
+    public boolean isDuplicate(String key, byte[] payload) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.matches(payload);
+    }
+
+    /**
+     * Stores the payload published for the key.
+     *
+     * @param key The property key.
+     * @param payload The published payload, owned by the cache from now on.
+     * @return The array of the replaced payload, released to the caller, or {@code null}.
+     */
+    public byte[] update(String key, byte[] payload) {
+        Entry entry = entries.get(key);
+        if (entry == null)
+            return null;
+        byte[] previous = entry.swap(payload);
+        version.incrementAndGet();
+        return previous;
+    }
+
+    /**
+     * Gets the version of the cache, incremented at each update, to detect whether any payload changed.
+     *
+     * @return The cache version.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Gets the last payload published for the key.
+     *
+     * @param key The property key.
+     * @return The published payload, empty if nothing has been published for the key.
+     */
+    public Optional<PublishedPayload> get(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? Optional.empty() : Optional.ofNullable(entry.snapshot());
+    }
+
+    /**
+     * Gets the last payloads published for the given keys.
+     *
+     * @param keys The property keys.
+     * @return The published payloads by property key, only for the keys already published.
+     */
+    public Map<String, PublishedPayload> getAll(Collection<String> keys) {
+        Map<String, PublishedPayload> publishedPayloads = new HashMap<>();
+        for (String key : keys)
+            get(key).ifPresent(publishedPayload -> publishedPayloads.put(key, publishedPayload));
+        return publishedPayloads;
+    }
+
+    /**
+     * Gets the last payloads published for all the keys.
+     *
+     * @return The published payloads by property key, only for the keys already published.
+     */
+    public Map<String, PublishedPayload> getAll() {
+        Map<String, PublishedPayload> publishedPayloads = new HashMap<>();
+        entries.forEach((key, entry) -> {
+            PublishedPayload publishedPayload = entry.snapshot();
+            if (publishedPayload != null)
+                publishedPayloads.put(key, publishedPayload);
+        });
+        return publishedPayloads;
+    }
+
+    /**
+     * Last published payload of a single key
+     */
+    private static class Entry {
+
+        private final String key;
+
+        private final String topic;
+
+        private byte[] payload;
+
+        private long timestamp;
+
+        private Entry(String key, String topic) {
+            this.key = key;
+            this.topic = topic;
+        }
+
+        private synchronized boolean matches(byte[] candidate) {
+            return payload != null && Arrays.equals(payload, candidate);
+        }
+
+        private synchronized byte[] swap(byte[] newPayload) {
+            byte[] previous = payload;
+            payload = newPayload;
+            timestamp = System.currentTimeMillis();
+            return previous;
+        }
+
+        private synchronized PublishedPayload snapshot() {
+            return payload == null ? null : new PublishedPayload(key, topic, payload.clone(), timestamp);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package it.wldt.adapter.mqtt.digital.cache;
+
+import it.wldt.adapter.mqtt.digital.topic.incoming.StateRequestIncomingTopic;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.StateResponseOutgoingTopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the state requests received by an MQTT Digital Adapter from its {@link PublishedPayloadCache}.
+ * <p>
+ * Requests are answered on a dedicated thread. Identical requests (same set of property keys) received while one of
+ * them is waiting to be served are coalesced into a single response, since all the requesters receive it on the
+ * shared response topic. Serialized responses are cached by key set and reused as long as no property payload has
+ * been published in the meantime, so polling consumers do not cause any serialization.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class StateRequestHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StateRequestHandler.class);
+
+    private static final int MAX_CACHED_RESPONSES = 64;
+
+    /**
+     * Publishes a serialized response on the response topic
+     */
+    @FunctionalInterface
+    public interface ResponsePublisher {
+        void publish(StateResponseOutgoingTopic topic, byte[] payload) throws Exception;
+    }
+
+    private final PublishedPayloadCache publishedPayloadCache;
+
+    private final StateRequestIncomingTopic requestTopic;
+
+    private final StateResponseOutgoingTopic responseTopic;
+
+    private final ResponsePublisher responsePublisher;
+
+    private final Set<Set<String>> pendingRequests = ConcurrentHashMap.newKeySet();
+
+    // Accessed only by the executor thread
+    private final Map<Set<String>, CachedResponse> cachedResponses = new LinkedHashMap<Set<String>, CachedResponse>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Set<String>, CachedResponse> eldest) {
+            return size() > MAX_CACHED_RESPONSES;
+        }
+    };
+
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a {@code StateRequestHandler} serving the requests from the given cache.
+     *
+     * @param name The name of the handler thread, e.g. the adapter id.
+     * @param publishedPayloadCache The cache of the published property payloads.
+     * @param requestTopic The state request topic.
+     * @param responseTopic The state response topic.
+     * @param responsePublisher The publisher of the serialized responses.
+     */
+    public StateRequestHandler(String name,
+                               PublishedPayloadCache publishedPayloadCache,
+                               StateRequestIncomingTopic requestTopic,
+                               StateResponseOutgoingTopic responseTopic,
+                               ResponsePublisher responsePublisher) {
+        this.publishedPayloadCache = publishedPayloadCache;
+        this.requestTopic = requestTopic;
+        this.responseTopic = responseTopic;
+        this.responsePublisher = responsePublisher;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "mqtt-digital-adapter-state-requests-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Handles a request received on the request topic.
+     *
+     * @param payload The request payload.
+     */
+    public void onRequest(byte[] payload) {
+        Set<String> propertyKeys;
+        try {
+            propertyKeys = requestTopic.applyRequestFunction(new String(payload, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            logger.error("Invalid state request on topic {}: {}", requestTopic.getTopic(), e.getLocalizedMessage());
+            return;
+        }
+        // Coalesce with an identical request not served yet
+        if (pendingRequests.add(propertyKeys))
+            executor.execute(() -> serve(propertyKeys));
+    }
+
+    /**
+     * Stops serving the requests.
+     */
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void serve(Set<String> propertyKeys) {
+        // Requests received from now on are served with a new response
+        pendingRequests.remove(propertyKeys);
+        try {
+            long version = publishedPayloadCache.getVersion();
+            CachedResponse cachedResponse = cachedResponses.get(propertyKeys);
+            if (cachedResponse == null || cachedResponse.version != version) {
+                Map<String, PublishedPayload> publishedPayloads = propertyKeys.isEmpty() ?
+                        publishedPayloadCache.getAll() : publishedPayloadCache.getAll(propertyKeys);
+                cachedResponse = new CachedResponse(version, responseTopic.applyResponseFunction(publishedPayloads).getBytes(StandardCharsets.UTF_8));
+                cachedResponses.put(propertyKeys, cachedResponse);
+            }
+            responsePublisher.publish(responseTopic, cachedResponse.payload);
+        } catch (Exception e) {
+            logger.error("Error answering state request {} on topic {}: {}", propertyKeys, responseTopic.getTopic(), e.getLocalizedMessage());
+        }
+    }
+
+    private static class CachedResponse {
+
+        private final long version;
+
+        private final byte[] payload;
+
+        private CachedResponse(long version, byte[] payload) {
+            this.version = version;
+            this.payload = payload;
+        }
+    }
+}
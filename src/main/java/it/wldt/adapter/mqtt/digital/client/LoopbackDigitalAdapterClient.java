@@ -0,0 +1,100 @@
+package it.wldt.adapter.mqtt.digital.client;
+
+import it.wldt.adapter.mqtt.digital.MqttDigitalAdapterConfiguration;
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterClientException;
+import it.wldt.adapter.mqtt.digital.loopback.LoopbackMqttBroker;
+import it.wldt.adapter.mqtt.digital.loopback.LoopbackSubscription;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link MqttDigitalAdapterClient} implementation publishing and subscribing on an in-process
+ * {@link LoopbackMqttBroker} instead of a network broker. Deliveries are synchronous, so the returned tokens are
+ * always completed. The subscriptions of the client are removed when it disconnects.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class LoopbackDigitalAdapterClient implements MqttDigitalAdapterClient {
+
+    private static final MqttDigitalAdapterDeliveryToken DELIVERED_TOKEN = () -> { };
+
+    private final MqttDigitalAdapterConfiguration configuration;
+
+    private final LoopbackMqttBroker broker;
+
+    private final List<LoopbackSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private volatile boolean connected = false;
+
+    /**
+     * Creates the client on the loopback broker of the provided configuration.
+     *
+     * @param configuration The MQTT Digital Adapter configuration.
+     */
+    public LoopbackDigitalAdapterClient(MqttDigitalAdapterConfiguration configuration) {
+        this.configuration = configuration;
+        this.broker = configuration.getLoopbackBroker();
+    }
+
+    @Override
+    public void connect() {
+        connected = true;
+    }
+
+    @Override
+    public void disconnect() {
+        connected = false;
+        subscriptions.forEach(LoopbackSubscription::unsubscribe);
+        subscriptions.clear();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public MqttDigitalAdapterDeliveryToken publish(MqttTopic topic, byte[] payload) throws MqttDigitalAdapterClientException {
+        if (!connected)
+            throw new MqttDigitalAdapterClientException("Error publishing on topic: " + topic.getTopic() + ", client is not connected");
+        try {
+            broker.publish(topic.getTopic(), payload, topic.getQos(), topic.isRetained(), topic.getMessageExpiryInterval());
+            return DELIVERED_TOKEN;
+        } catch (IllegalArgumentException e) {
+            throw new MqttDigitalAdapterClientException("Error publishing on topic: " + topic.getTopic(), e);
+        }
+    }
+
+    @Override
+    public int getInFlightMessageCount() {
+        return 0;
+    }
+
+    @Override
+    public void subscribe(MqttTopic topic, MqttDigitalAdapterMessageListener listener) throws MqttDigitalAdapterClientException {
+        if (!connected)
+            throw new MqttDigitalAdapterClientException("Error subscribing to topic: " + topic.getTopic() + ", client is not connected");
+        try {
+            subscriptions.add(broker.subscribe(topic.getTopic(), topic.getQos(), listener));
+        } catch (IllegalArgumentException e) {
+            throw new MqttDigitalAdapterClientException("Error subscribing to topic: " + topic.getTopic(), e);
+        }
+    }
+
+    @Override
+    public void unsubscribe(MqttTopic topic) {
+        for (LoopbackSubscription subscription : subscriptions) {
+            if (subscription.getTopicFilter().equals(topic.getTopic())) {
+                subscription.unsubscribe();
+                subscriptions.remove(subscription);
+            }
+        }
+    }
+
+    @Override
+    public MqttProtocolVersion getProtocolVersion() {
+        return configuration.getProtocolVersion();
+    }
+}
@@ -0,0 +1,150 @@
+package it.wldt.adapter.mqtt.digital.client;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterClientException;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Protocol independent view of the MQTT client used by the {@code MqttDigitalAdapter}. Implementations wrap a
+ * specific client library (e.g. Paho mqttv3 or mqttv5) and translate the adapter topics into the
+ * corresponding publish and subscribe operations.
+ *
+ * @see MqttProtocolVersion
+ * @see MqttDigitalAdapterClientFactory
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public interface MqttDigitalAdapterClient {
+
+    /**
+     * Connects the client to the configured broker.
+     *
+     * @throws MqttDigitalAdapterClientException If the connection cannot be established.
+     */
+    void connect() throws MqttDigitalAdapterClientException;
+
+    /**
+     * Disconnects the client from the broker.
+     *
+     * @throws MqttDigitalAdapterClientException If the disconnection fails.
+     */
+    void disconnect() throws MqttDigitalAdapterClientException;
+
+    /**
+     * Checks whether the client is currently connected to the broker.
+     *
+     * @return {@code true} if connected, {@code false} otherwise.
+     */
+    boolean isConnected();
+
+    /**
+     * Publishes a payload on the given topic using its QoS, retained flag and, when supported by the protocol,
+     * its message expiry interval. The method returns once the message has been handed over to the client,
+     * the returned token allows to wait for its delivery.
+     *
+     * @param topic   The target topic.
+     * @param payload The message payload.
+     * @return The token tracking the delivery of the message.
+     * @throws MqttDigitalAdapterClientException If the message cannot be published.
+     */
+    MqttDigitalAdapterDeliveryToken publish(MqttTopic topic, byte[] payload) throws MqttDigitalAdapterClientException;
+
+    /**
+     * Gets the number of messages handed over to the client whose delivery is not yet completed.
+     *
+     * @return The number of in-flight messages.
+     */
+    int getInFlightMessageCount();
+
+    /**
+     * Tells whether the caller regains the ownership of a payload array once its delivery token has completed
+     * successfully, so that the array can be reused for the next publications. Clients that may keep a reference
+     * to the array after the delivery (e.g. handing it to in-process subscribers) must return {@code false}.
+     *
+     * @return {@code true} if the payload can be reused after a successful delivery, {@code false} by default.
+     */
+    default boolean isPayloadReusableAfterDelivery() {
+        return false;
+    }
+
+    /**
+     * Subscribes to the given topic using its QoS level.
+     *
+     * @param topic    The topic to subscribe to.
+     * @param listener The listener notified for each received message.
+     * @throws MqttDigitalAdapterClientException If the subscription fails.
+     */
+    void subscribe(MqttTopic topic, MqttDigitalAdapterMessageListener listener) throws MqttDigitalAdapterClientException;
+
+    /**
+     * Subscribes to all the given topics, each one with its QoS level and listener. Implementations backed by a
+     * network client send a single SUBSCRIBE packet and wait for a single SUBACK, instead of a round trip for each
+     * topic. The default implementation subscribes to the topics one at a time.
+     *
+     * @param subscriptions The listeners by topic to subscribe to.
+     * @throws MqttDigitalAdapterClientException If the subscription fails or is rejected by the broker for any topic.
+     */
+    default void subscribe(Map<? extends MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) throws MqttDigitalAdapterClientException {
+        for (Map.Entry<? extends MqttTopic, MqttDigitalAdapterMessageListener> subscription : subscriptions.entrySet())
+            subscribe(subscription.getKey(), subscription.getValue());
+    }
+
+    /**
+     * Unsubscribes from the given topic, no more messages are delivered to its listener.
+     *
+     * @param topic The topic to unsubscribe from.
+     * @throws MqttDigitalAdapterClientException If the unsubscription fails.
+     */
+    void unsubscribe(MqttTopic topic) throws MqttDigitalAdapterClientException;
+
+    /**
+     * Unsubscribes from all the given topics. Implementations backed by a network client send a single UNSUBSCRIBE
+     * packet and wait for a single UNSUBACK. The default implementation unsubscribes from the topics one at a time.
+     *
+     * @param topics The topics to unsubscribe from.
+     * @throws MqttDigitalAdapterClientException If the unsubscription fails for any topic.
+     */
+    default void unsubscribe(Collection<? extends MqttTopic> topics) throws MqttDigitalAdapterClientException {
+        for (MqttTopic topic : topics)
+            unsubscribe(topic);
+    }
+
+    /**
+     * Registers the listeners of the subscriptions that may be stored in the broker session of the client, so that
+     * their messages are delivered even if the subscriptions are not sent again on the connection (see
+     * {@link #isSessionPresent()}). Must be invoked before connecting, and again whenever the subscriptions change. The default implementation does nothing since
+     * sessions are not resumed.
+     *
+     * @param subscriptions The listeners by subscribed topic.
+     */
+    default void setSessionListeners(Map<? extends MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) {
+    }
+
+    /**
+     * Tells whether the broker reported a session present on the last connection, i.e. the subscriptions of the
+     * previous connections are still active.
+     *
+     * @return {@code true} if the session has been resumed, {@code false} by default.
+     */
+    default boolean isSessionPresent() {
+        return false;
+    }
+
+    /**
+     * Registers the listener notified when the connection with the broker is lost. The default implementation does
+     * nothing since the connection of the client cannot be lost.
+     *
+     * @param connectionListener The connection listener.
+     */
+    default void setConnectionListener(MqttDigitalAdapterConnectionListener connectionListener) {
+    }
+
+    /**
+     * Gets the MQTT protocol version spoken by the client.
+     *
+     * @return The protocol version.
+     */
+    MqttProtocolVersion getProtocolVersion();
+}
@@ -0,0 +1,49 @@
+package it.wldt.adapter.mqtt.digital.client;
+
+import it.wldt.adapter.mqtt.digital.MqttDigitalAdapterConfiguration;
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterClientException;
+
+/**
+ * Factory class creating the {@link MqttDigitalAdapterClient} matching the protocol version selected in the
+ * {@link MqttDigitalAdapterConfiguration}, or a {@link LoopbackDigitalAdapterClient} when an in-process broker is
+ * configured.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class MqttDigitalAdapterClientFactory {
+
+    private MqttDigitalAdapterClientFactory() {
+    }
+
+    /**
+     * Creates the MQTT client for the provided configuration.
+     *
+     * @param configuration The MQTT Digital Adapter configuration.
+     * @return The MQTT client.
+     * @throws MqttDigitalAdapterClientException If the client cannot be created.
+     */
+    public static MqttDigitalAdapterClient createClient(MqttDigitalAdapterConfiguration configuration) throws MqttDigitalAdapterClientException {
+        return createClient(configuration, configuration.getClientId());
+    }
+
+    /**
+     * Creates the MQTT client for the provided configuration using the given client id, e.g. the one resolved for
+     * an adapter by {@link MqttDigitalAdapterConfiguration#getClientId(String, String)}.
+     *
+     * @param configuration The MQTT Digital Adapter configuration.
+     * @param clientId The client id.
+     * @return The MQTT client.
+     * @throws MqttDigitalAdapterClientException If the client cannot be created.
+     */
+    public static MqttDigitalAdapterClient createClient(MqttDigitalAdapterConfiguration configuration, String clientId) throws MqttDigitalAdapterClientException {
+        if (configuration.getLoopbackBroker() != null)
+            return new LoopbackDigitalAdapterClient(configuration);
+        switch (configuration.getProtocolVersion()) {
+            case MQTT_5:
+                return new MqttV5DigitalAdapterClient(configuration, clientId);
+            case MQTT_3_1_1:
+            default:
+                return new MqttV3DigitalAdapterClient(configuration, clientId);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package it.wldt.adapter.mqtt.digital.client;
+
+/**
+ * Listener notified by an {@link MqttDigitalAdapterClient} when the connection with the broker is lost.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+@FunctionalInterface
+public interface MqttDigitalAdapterConnectionListener {
+
+    /**
+     * Invoked on the client callback thread when the connection with the broker is lost. A disconnection requested
+     * through {@link MqttDigitalAdapterClient#disconnect()} is not notified.
+     *
+     * @param cause The cause of the connection loss, {@code null} if unknown.
+     */
+    void onConnectionLost(Throwable cause);
+}
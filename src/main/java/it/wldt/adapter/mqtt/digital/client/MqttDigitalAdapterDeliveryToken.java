@@ -0,0 +1,20 @@
+package it.wldt.adapter.mqtt.digital.client;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterClientException;
+
+/**
+ * Token returned by {@link MqttDigitalAdapterClient#publish} to track the delivery of a published message.
+ * For QoS 0 the message is delivered once written to the network, for QoS 1 and 2 once acknowledged by the broker.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+@FunctionalInterface
+public interface MqttDigitalAdapterDeliveryToken {
+
+    /**
+     * Blocks until the delivery of the message is completed.
+     *
+     * @throws MqttDigitalAdapterClientException If the delivery fails.
+     */
+    void waitForCompletion() throws MqttDigitalAdapterClientException;
+}
@@ -0,0 +1,18 @@
+package it.wldt.adapter.mqtt.digital.client;
+
+/**
+ * Listener notified by an {@link MqttDigitalAdapterClient} when a message is received on a subscribed topic.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+@FunctionalInterface
+public interface MqttDigitalAdapterMessageListener {
+
+    /**
+     * Invoked when a message arrives on a subscribed topic.
+     *
+     * @param topic   The topic on which the message has been received.
+     * @param payload The raw message payload.
+     */
+    void onMessage(String topic, byte[] payload);
+}
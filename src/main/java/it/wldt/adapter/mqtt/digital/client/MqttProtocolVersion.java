@@ -0,0 +1,24 @@
+package it.wldt.adapter.mqtt.digital.client;
+
+/**
+ * Enumeration of the MQTT protocol versions supported by the MQTT Digital Adapter.
+ *
+ * <ul>
+ *   <li>{@link #MQTT_3_1_1}: MQTT 3.1.1 through the Eclipse Paho mqttv3 client (default)</li>
+ *   <li>{@link #MQTT_5}: MQTT 5 through the Eclipse Paho mqttv5 client, enabling topic aliases and message expiry</li>
+ * </ul>
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public enum MqttProtocolVersion {
+
+    /**
+     * MQTT version 3.1.1
+     */
+    MQTT_3_1_1,
+
+    /**
+     * MQTT version 5
+     */
+    MQTT_5
+}
@@ -0,0 +1,217 @@
+package it.wldt.adapter.mqtt.digital.client;
+
+import it.wldt.adapter.mqtt.digital.MqttDigitalAdapterConfiguration;
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterClientException;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * {@link MqttDigitalAdapterClient} implementation based on the Eclipse Paho mqttv3 client (MQTT 3.1.1).
+ * Message expiry intervals configured on the topics are ignored since they are not supported by the protocol.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class MqttV3DigitalAdapterClient implements MqttDigitalAdapterClient {
+
+    private static final int SUBSCRIPTION_FAILURE = 0x80;
+
+    private final MqttDigitalAdapterConfiguration configuration;
+
+    private final MqttAsyncClient mqttClient;
+
+    private final SessionMessageListeners sessionListeners = new SessionMessageListeners();
+
+    private volatile boolean sessionPresent = false;
+
+    private volatile MqttDigitalAdapterConnectionListener connectionListener = null;
+
+    /**
+     * Creates the client using the broker connection details and the client id of the provided configuration.
+     *
+     * @param configuration The MQTT Digital Adapter configuration.
+     * @throws MqttDigitalAdapterClientException If the Paho client cannot be created.
+     */
+    public MqttV3DigitalAdapterClient(MqttDigitalAdapterConfiguration configuration) throws MqttDigitalAdapterClientException {
+        this(configuration, configuration.getClientId());
+    }
+
+    /**
+     * Creates the client using the broker connection details of the provided configuration and the given client id.
+     *
+     * @param configuration The MQTT Digital Adapter configuration.
+     * @param clientId The client id.
+     * @throws MqttDigitalAdapterClientException If the Paho client cannot be created.
+     */
+    public MqttV3DigitalAdapterClient(MqttDigitalAdapterConfiguration configuration, String clientId) throws MqttDigitalAdapterClientException {
+        this.configuration = configuration;
+        try {
+            this.mqttClient = new MqttAsyncClient(configuration.getBrokerConnectionString(),
+                    clientId,
+                    configuration.getPersistence());
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error creating MQTT 3.1.1 client", e);
+        }
+        // Messages not matching a listener registered by a subscribe are delivered to the client callback
+        this.mqttClient.setCallback(new MqttCallback() {
+            @Override
+            public void connectionLost(Throwable cause) {
+                MqttDigitalAdapterConnectionListener listener = connectionListener;
+                if (listener != null)
+                    listener.onConnectionLost(cause);
+            }
+
+            @Override
+            public void messageArrived(String topic, MqttMessage message) {
+                sessionListeners.onMessage(topic, message.getPayload());
+            }
+
+            @Override
+            public void deliveryComplete(IMqttDeliveryToken token) {
+            }
+        });
+    }
+
+    @Override
+    public void connect() throws MqttDigitalAdapterClientException {
+        try {
+            IMqttToken token = mqttClient.connect(configuration.getConnectOptions());
+            token.waitForCompletion();
+            sessionPresent = token.getSessionPresent();
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error connecting to the MQTT broker", e);
+        }
+    }
+
+    @Override
+    public void disconnect() throws MqttDigitalAdapterClientException {
+        try {
+            mqttClient.disconnect().waitForCompletion();
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error disconnecting from the MQTT broker", e);
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return mqttClient.isConnected();
+    }
+
+    @Override
+    public MqttDigitalAdapterDeliveryToken publish(MqttTopic topic, byte[] payload) throws MqttDigitalAdapterClientException {
+        try {
+            MqttMessage msg = new MqttMessage(payload);
+            msg.setQos(topic.getQos());
+            msg.setRetained(topic.isRetained());
+            IMqttDeliveryToken token = mqttClient.publish(topic.getTopic(), msg);
+            return () -> {
+                try {
+                    token.waitForCompletion();
+                } catch (MqttException e) {
+                    throw new MqttDigitalAdapterClientException("Error delivering message on topic: " + topic.getTopic(), e);
+                }
+            };
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error publishing on topic: " + topic.getTopic(), e);
+        }
+    }
+
+    @Override
+    public int getInFlightMessageCount() {
+        return mqttClient.getInFlightMessageCount();
+    }
+
+    /**
+     * Paho drops its references to the message, and therefore to the payload, once the delivery is completed.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean isPayloadReusableAfterDelivery() {
+        return true;
+    }
+
+    @Override
+    public void subscribe(MqttTopic topic, MqttDigitalAdapterMessageListener listener) throws MqttDigitalAdapterClientException {
+        try {
+            mqttClient.subscribe(topic.getTopic(), topic.getQos(), (t, msg) -> listener.onMessage(t, msg.getPayload())).waitForCompletion();
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error subscribing to topic: " + topic.getTopic(), e);
+        }
+    }
+
+    @Override
+    public void subscribe(Map<? extends MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) throws MqttDigitalAdapterClientException {
+        if (subscriptions.isEmpty())
+            return;
+        String[] topicFilters = new String[subscriptions.size()];
+        int[] qos = new int[subscriptions.size()];
+        IMqttMessageListener[] messageListeners = new IMqttMessageListener[subscriptions.size()];
+        int i = 0;
+        for (Map.Entry<? extends MqttTopic, MqttDigitalAdapterMessageListener> subscription : subscriptions.entrySet()) {
+            MqttDigitalAdapterMessageListener listener = subscription.getValue();
+            topicFilters[i] = subscription.getKey().getTopic();
+            qos[i] = subscription.getKey().getQos();
+            messageListeners[i++] = (t, msg) -> listener.onMessage(t, msg.getPayload());
+        }
+        try {
+            IMqttToken token = mqttClient.subscribe(topicFilters, qos, messageListeners);
+            token.waitForCompletion();
+            int[] grantedQos = token.getGrantedQos();
+            for (i = 0; i < grantedQos.length && i < topicFilters.length; i++)
+                if (grantedQos[i] == SUBSCRIPTION_FAILURE)
+                    throw new MqttDigitalAdapterClientException("Subscription rejected by the broker for topic: " + topicFilters[i]);
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error subscribing to " + topicFilters.length + " topics", e);
+        }
+    }
+
+    @Override
+    public void unsubscribe(MqttTopic topic) throws MqttDigitalAdapterClientException {
+        unsubscribe(Collections.singletonList(topic));
+    }
+
+    @Override
+    public void unsubscribe(Collection<? extends MqttTopic> topics) throws MqttDigitalAdapterClientException {
+        if (topics.isEmpty())
+            return;
+        String[] topicFilters = topics.stream().map(MqttTopic::getTopic).toArray(String[]::new);
+        for (String topicFilter : topicFilters)
+            sessionListeners.remove(topicFilter);
+        try {
+            IMqttToken token = mqttClient.unsubscribe(topicFilters);
+            token.waitForCompletion();
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error unsubscribing from " + topicFilters.length + " topics", e);
+        }
+    }
+
+    @Override
+    public void setSessionListeners(Map<? extends MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) {
+        sessionListeners.set(subscriptions);
+    }
+
+    @Override
+    public void setConnectionListener(MqttDigitalAdapterConnectionListener connectionListener) {
+        this.connectionListener = connectionListener;
+    }
+
+    @Override
+    public boolean isSessionPresent() {
+        return sessionPresent;
+    }
+
+    @Override
+    public MqttProtocolVersion getProtocolVersion() {
+        return MqttProtocolVersion.MQTT_3_1_1;
+    }
+}
@@ -0,0 +1,271 @@
+package it.wldt.adapter.mqtt.digital.client;
+
+import it.wldt.adapter.mqtt.digital.MqttDigitalAdapterConfiguration;
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterClientException;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+import org.eclipse.paho.mqttv5.client.IMqttMessageListener;
+import org.eclipse.paho.mqttv5.client.IMqttToken;
+import org.eclipse.paho.mqttv5.client.MqttAsyncClient;
+import org.eclipse.paho.mqttv5.client.MqttCallback;
+import org.eclipse.paho.mqttv5.client.MqttDisconnectResponse;
+import org.eclipse.paho.mqttv5.common.MqttException;
+import org.eclipse.paho.mqttv5.common.MqttMessage;
+import org.eclipse.paho.mqttv5.common.MqttSubscription;
+import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * {@link MqttDigitalAdapterClient} implementation based on the Eclipse Paho mqttv5 client (MQTT 5).
+ *
+ * Outgoing topic aliases are assigned automatically by the Paho client on the first publish of each topic, up to
+ * the Topic Alias Maximum announced by the broker in the CONNACK, and are reset on every new connection.
+ * Subsequent publishes on an aliased topic only carry the two bytes alias instead of the full topic string.
+ * The message expiry interval of each topic, when configured, is attached to every published message.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class MqttV5DigitalAdapterClient implements MqttDigitalAdapterClient {
+
+    private final static Logger logger = LoggerFactory.getLogger(MqttV5DigitalAdapterClient.class);
+
+    private static final int SUBSCRIPTION_FAILURE = 0x80;
+
+    private final MqttDigitalAdapterConfiguration configuration;
+
+    private final MqttAsyncClient mqttClient;
+
+    private final SessionMessageListeners sessionListeners = new SessionMessageListeners();
+
+    private volatile boolean sessionPresent = false;
+
+    private volatile MqttDigitalAdapterConnectionListener connectionListener = null;
+
+    /**
+     * Topic Alias Maximum announced by the broker on the last connection (0 if aliases are not supported)
+     */
+    private volatile int topicAliasMaximum = 0;
+
+    /**
+     * Creates the client using the broker connection details and the client id of the provided configuration.
+     *
+     * @param configuration The MQTT Digital Adapter configuration.
+     * @throws MqttDigitalAdapterClientException If the Paho client cannot be created.
+     */
+    public MqttV5DigitalAdapterClient(MqttDigitalAdapterConfiguration configuration) throws MqttDigitalAdapterClientException {
+        this(configuration, configuration.getClientId());
+    }
+
+    /**
+     * Creates the client using the broker connection details of the provided configuration and the given client id.
+     *
+     * @param configuration The MQTT Digital Adapter configuration.
+     * @param clientId The client id.
+     * @throws MqttDigitalAdapterClientException If the Paho client cannot be created.
+     */
+    public MqttV5DigitalAdapterClient(MqttDigitalAdapterConfiguration configuration, String clientId) throws MqttDigitalAdapterClientException {
+        this.configuration = configuration;
+        try {
+            this.mqttClient = new MqttAsyncClient(configuration.getBrokerConnectionString(),
+                    clientId,
+                    configuration.getMqttV5Persistence());
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error creating MQTT 5 client", e);
+        }
+        // Messages not matching a listener registered by a subscribe are delivered to the client callback
+        this.mqttClient.setCallback(new MqttCallback() {
+            @Override
+            public void disconnected(MqttDisconnectResponse disconnectResponse) {
+                MqttDigitalAdapterConnectionListener listener = connectionListener;
+                if (listener != null)
+                    listener.onConnectionLost(disconnectResponse.getException());
+            }
+
+            @Override
+            public void mqttErrorOccurred(MqttException exception) {
+            }
+
+            @Override
+            public void messageArrived(String topic, MqttMessage message) {
+                sessionListeners.onMessage(topic, message.getPayload());
+            }
+
+            @Override
+            public void deliveryComplete(IMqttToken token) {
+            }
+
+            @Override
+            public void connectComplete(boolean reconnect, String serverURI) {
+            }
+
+            @Override
+            public void authPacketArrived(int reasonCode, MqttProperties properties) {
+            }
+        });
+    }
+
+    @Override
+    public void connect() throws MqttDigitalAdapterClientException {
+        try {
+            IMqttToken token = mqttClient.connect(configuration.getMqttV5ConnectionOptions());
+            token.waitForCompletion();
+            sessionPresent = token.getSessionPresent();
+            MqttProperties connAckProperties = token.getResponseProperties();
+            if(connAckProperties != null && connAckProperties.getTopicAliasMaximum() != null)
+                topicAliasMaximum = connAckProperties.getTopicAliasMaximum();
+            else
+                topicAliasMaximum = 0;
+            logger.debug("MQTT 5 client connected - topic alias maximum: {}", topicAliasMaximum);
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error connecting to the MQTT broker", e);
+        }
+    }
+
+    @Override
+    public void disconnect() throws MqttDigitalAdapterClientException {
+        try {
+            mqttClient.disconnect().waitForCompletion();
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error disconnecting from the MQTT broker", e);
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return mqttClient.isConnected();
+    }
+
+    @Override
+    public MqttDigitalAdapterDeliveryToken publish(MqttTopic topic, byte[] payload) throws MqttDigitalAdapterClientException {
+        try {
+            MqttMessage msg = new MqttMessage(payload);
+            msg.setQos(topic.getQos());
+            msg.setRetained(topic.isRetained());
+            if(topic.getMessageExpiryInterval() != null) {
+                MqttProperties properties = new MqttProperties();
+                properties.setMessageExpiryInterval(topic.getMessageExpiryInterval());
+                msg.setProperties(properties);
+            }
+            IMqttToken token = mqttClient.publish(topic.getTopic(), msg);
+            return () -> {
+                try {
+                    token.waitForCompletion();
+                } catch (MqttException e) {
+                    throw new MqttDigitalAdapterClientException("Error delivering message on topic: " + topic.getTopic(), e);
+                }
+            };
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error publishing on topic: " + topic.getTopic(), e);
+        }
+    }
+
+    @Override
+    public int getInFlightMessageCount() {
+        return mqttClient.getInFlightMessageCount();
+    }
+
+    /**
+     * Paho drops its references to the message, and therefore to the payload, once the delivery is completed.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean isPayloadReusableAfterDelivery() {
+        return true;
+    }
+
+    @Override
+    public void subscribe(MqttTopic topic, MqttDigitalAdapterMessageListener listener) throws MqttDigitalAdapterClientException {
+        try {
+            mqttClient.subscribe(new MqttSubscription[]{ new MqttSubscription(topic.getTopic(), topic.getQos()) },
+                    null,
+                    null,
+                    new IMqttMessageListener[]{ (t, msg) -> listener.onMessage(t, msg.getPayload()) },
+                    new MqttProperties()).waitForCompletion();
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error subscribing to topic: " + topic.getTopic(), e);
+        }
+    }
+
+    @Override
+    public void subscribe(Map<? extends MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) throws MqttDigitalAdapterClientException {
+        if (subscriptions.isEmpty())
+            return;
+        MqttSubscription[] mqttSubscriptions = new MqttSubscription[subscriptions.size()];
+        IMqttMessageListener[] messageListeners = new IMqttMessageListener[subscriptions.size()];
+        int i = 0;
+        for (Map.Entry<? extends MqttTopic, MqttDigitalAdapterMessageListener> subscription : subscriptions.entrySet()) {
+            MqttDigitalAdapterMessageListener listener = subscription.getValue();
+            mqttSubscriptions[i] = new MqttSubscription(subscription.getKey().getTopic(), subscription.getKey().getQos());
+            messageListeners[i++] = (t, msg) -> listener.onMessage(t, msg.getPayload());
+        }
+        try {
+            IMqttToken token = mqttClient.subscribe(mqttSubscriptions, null, null, messageListeners, new MqttProperties());
+            token.waitForCompletion();
+            int[] reasonCodes = token.getReasonCodes();
+            for (i = 0; reasonCodes != null && i < reasonCodes.length && i < mqttSubscriptions.length; i++)
+                if (reasonCodes[i] >= SUBSCRIPTION_FAILURE)
+                    throw new MqttDigitalAdapterClientException("Subscription rejected by the broker for topic: " + mqttSubscriptions[i].getTopic() + ", reason code: " + reasonCodes[i]);
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error subscribing to " + mqttSubscriptions.length + " topics", e);
+        }
+    }
+
+    @Override
+    public void unsubscribe(MqttTopic topic) throws MqttDigitalAdapterClientException {
+        unsubscribe(Collections.singletonList(topic));
+    }
+
+    @Override
+    public void unsubscribe(Collection<? extends MqttTopic> topics) throws MqttDigitalAdapterClientException {
+        if (topics.isEmpty())
+            return;
+        String[] topicFilters = topics.stream().map(MqttTopic::getTopic).toArray(String[]::new);
+        for (String topicFilter : topicFilters)
+            sessionListeners.remove(topicFilter);
+        try {
+            IMqttToken token = mqttClient.unsubscribe(topicFilters);
+            token.waitForCompletion();
+            int[] reasonCodes = token.getReasonCodes();
+            for (int i = 0; reasonCodes != null && i < reasonCodes.length && i < topicFilters.length; i++)
+                if (reasonCodes[i] >= SUBSCRIPTION_FAILURE)
+                    throw new MqttDigitalAdapterClientException("Unsubscription rejected by the broker for topic: " + topicFilters[i] + ", reason code: " + reasonCodes[i]);
+        } catch (MqttException e) {
+            throw new MqttDigitalAdapterClientException("Error unsubscribing from " + topicFilters.length + " topics", e);
+        }
+    }
+
+    @Override
+    public void setSessionListeners(Map<? extends MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) {
+        sessionListeners.set(subscriptions);
+    }
+
+    @Override
+    public void setConnectionListener(MqttDigitalAdapterConnectionListener connectionListener) {
+        this.connectionListener = connectionListener;
+    }
+
+    @Override
+    public boolean isSessionPresent() {
+        return sessionPresent;
+    }
+
+    @Override
+    public MqttProtocolVersion getProtocolVersion() {
+        return MqttProtocolVersion.MQTT_5;
+    }
+
+    /**
+     * Gets the Topic Alias Maximum announced by the broker on the last connection, i.e. the maximum number of
+     * outgoing topics that are published using an alias.
+     *
+     * @return The topic alias maximum, 0 if the broker does not support topic aliases.
+     */
+    public int getTopicAliasMaximum() {
+        return topicAliasMaximum;
+    }
+}
@@ -0,0 +1,59 @@
+package it.wldt.adapter.mqtt.digital.client;
+
+import it.wldt.adapter.mqtt.digital.loopback.LoopbackTopicMatcher;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Listeners of the subscriptions stored in a persistent broker session. The Paho clients register a listener only
+ * when subscribing, so the messages of the subscriptions resumed from a present session (including the ones queued
+ * by the broker while the client was offline and delivered right after the connection) reach the client callback
+ * and are dispatched here by topic filter.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+class SessionMessageListeners {
+
+    private final Map<String, MqttDigitalAdapterMessageListener> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * Replaces the registered listeners. The listeners of the topics still subscribed are never missing, so the
+     * listeners can be replaced while messages are being dispatched.
+     *
+     * @param subscriptions The listeners by subscribed topic.
+     */
+    void set(Map<? extends MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) {
+        Set<String> topicFilters = new HashSet<>();
+        subscriptions.forEach((topic, listener) -> {
+            listeners.put(topic.getTopic(), listener);
+            topicFilters.add(topic.getTopic());
+        });
+        listeners.keySet().retainAll(topicFilters);
+    }
+
+    /**
+     * Removes the listener of an unsubscribed topic.
+     *
+     * @param topicFilter The topic filter.
+     */
+    void remove(String topicFilter) {
+        listeners.remove(topicFilter);
+    }
+
+    /**
+     * Dispatches a message to the listeners whose topic filter matches the topic of the message.
+     *
+     * @param topic The topic of the message.
+     * @param payload The message payload.
+     */
+    void onMessage(String topic, byte[] payload) {
+        listeners.forEach((topicFilter, listener) -> {
+            if (LoopbackTopicMatcher.matches(topicFilter, topic))
+                listener.onMessage(topic, payload);
+        });
+    }
+}
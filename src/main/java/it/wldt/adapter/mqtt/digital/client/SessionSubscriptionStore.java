@@ -0,0 +1,166 @@
+package it.wldt.adapter.mqtt.digital.client;
+
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Topic filters and QoS levels subscribed in the persistent broker session of a client, so that a resumed session
+ * is updated with the subscriptions added and removed since the previous connection instead of being subscribed
+ * again. With a file based persistence the subscriptions are stored next to the session, in a file of the
+ * persistence directory named after the client id and the broker, and survive the restarts of the JVM, otherwise
+ * they are kept in memory.
+ * <p>
+ * The subscriptions are unknown until the first connection of a store without a file, or if the file cannot be
+ * read or written: the resumed session is then subscribed again with all the topics. A topic is recorded only once
+ * its subscription succeeded, and kept until its unsubscription succeeded, so a stored topic is never missing from
+ * the broker session.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class SessionSubscriptionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionSubscriptionStore.class);
+
+    /**
+     * The extension of the files storing the subscriptions in the persistence directory.
+     */
+    public static final String FILE_EXTENSION = ".subscriptions";
+
+    private final Path file;
+
+    // Guarded by this, the QoS levels by topic filter, null while unknown
+    private Map<String, Integer> subscriptions;
+
+    /**
+     * Creates a store keeping the subscriptions in memory.
+     */
+    public SessionSubscriptionStore() {
+        this.file = null;
+    }
+
+    /**
+     * Creates a store keeping the subscriptions in a file of the persistence directory, loading the ones stored by
+     * the previous connections.
+     *
+     * @param directory The persistence directory of the client.
+     * @param clientId The client id.
+     * @param serverUri The URI of the broker.
+     */
+    public SessionSubscriptionStore(String directory, String clientId, String serverUri) {
+        this.file = Paths.get(directory, (clientId + "-" + serverUri).replaceAll("[^A-Za-z0-9._-]", "_") + FILE_EXTENSION);
+        this.subscriptions = load();
+    }
+
+    /**
+     * Gets the topics subscribed in the broker session.
+     *
+     * @return The subscribed topics, with their QoS level, or null if unknown.
+     */
+    public synchronized List<MqttTopic> getSubscribedTopics() {
+        if (subscriptions == null)
+            return null;
+        List<MqttTopic> topics = new ArrayList<>();
+        subscriptions.forEach((topicFilter, qos) -> topics.add(new MqttTopic(topicFilter, MqttQosLevel.values()[qos])));
+        return topics;
+    }
+
+    /**
+     * Records a new broker session, without subscriptions.
+     */
+    public synchronized void clear() {
+        subscriptions = new LinkedHashMap<>();
+        save();
+    }
+
+    /**
+     * Records the subscription of topics, replacing the QoS level of the filters already subscribed.
+     *
+     * @param topics The subscribed topics.
+     */
+    public synchronized void subscribed(Collection<? extends MqttTopic> topics) {
+        if (topics.isEmpty())
+            return;
+        // The subscriptions not recorded are subscribed again on resumption, so they are safely left out
+        if (subscriptions == null)
+            subscriptions = new LinkedHashMap<>();
+        topics.forEach(topic -> subscriptions.put(topic.getTopic(), topic.getQos()));
+        save();
+    }
+
+    /**
+     * Records the unsubscription of topics.
+     *
+     * @param topics The unsubscribed topics.
+     */
+    public synchronized void unsubscribed(Collection<? extends MqttTopic> topics) {
+        if (subscriptions == null || topics.isEmpty())
+            return;
+        topics.forEach(topic -> subscriptions.remove(topic.getTopic()));
+        save();
+    }
+
+    private Map<String, Integer> load() {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.error("MQTT Digital Adapter - error reading the session subscriptions {}: {}", file, e.getLocalizedMessage());
+            return null;
+        }
+        Map<String, Integer> loaded = new LinkedHashMap<>();
+        for (String topicFilter : properties.stringPropertyNames()) {
+            try {
+                int qos = Integer.parseInt(properties.getProperty(topicFilter));
+                if (qos < 0 || qos >= MqttQosLevel.values().length)
+                    return null;
+                loaded.put(topicFilter, qos);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return loaded;
+    }
+
+    private void save() {
+        if (file == null)
+            return;
+        Properties properties = new Properties();
+        subscriptions.forEach((topicFilter, qos) -> properties.setProperty(topicFilter, String.valueOf(qos)));
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = Files.newOutputStream(temporaryFile)) {
+                properties.store(out, null);
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("MQTT Digital Adapter - error writing the session subscriptions {}: {}", file, e.getLocalizedMessage());
+            // An outdated file could omit a subscription removed and added again, so the subscriptions become unknown
+            subscriptions = null;
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException deleteError) {
+                logger.error("MQTT Digital Adapter - error deleting the session subscriptions {}: {}", file, deleteError.getLocalizedMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package it.wldt.adapter.mqtt.digital.exception;
+
+/**
+ * Exception raised by an {@code MqttDigitalAdapterClient} when an operation on the underlying MQTT client
+ * (connection, publish, subscription) fails. The original client exception is preserved as the cause.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class MqttDigitalAdapterClientException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public MqttDigitalAdapterClientException(String message) {
+        super(message);
+    }
+
+    public MqttDigitalAdapterClientException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
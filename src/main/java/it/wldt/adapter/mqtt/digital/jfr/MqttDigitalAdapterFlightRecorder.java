@@ -0,0 +1,100 @@
+package it.wldt.adapter.mqtt.digital.jfr;
+
+/**
+ * Entry point used by the MQTT Digital Adapter to emit Java Flight Recorder events for publish, serialization,
+ * action decoding and action dispatch.
+ *
+ * This is the Java 8 implementation of the class and does nothing: every {@code begin} method returns {@code null}
+ * and every {@code commit} method returns immediately. The library jar is a multi-release jar whose Java 11+
+ * version of this class (under {@code META-INF/versions/11}) emits {@code jdk.jfr} events when the corresponding
+ * event type is enabled in the running recording.
+ *
+ * Usage: {@code Object event = beginPublish(); ... commitPublish(event, topic, payloadSize, qos);}
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public final class MqttDigitalAdapterFlightRecorder {
+
+    private MqttDigitalAdapterFlightRecorder() {
+    }
+
+    /**
+     * Begins a publish event.
+     *
+     * @return The event in progress, {@code null} if the event is disabled.
+     */
+    public static Object beginPublish() {
+        return null;
+    }
+
+    /**
+     * Ends and commits a publish event.
+     *
+     * @param event       The event returned by {@link #beginPublish()}.
+     * @param topic       The MQTT topic.
+     * @param payloadSize The payload size in bytes.
+     * @param qos         The MQTT QoS level.
+     */
+    public static void commitPublish(Object event, String topic, int payloadSize, int qos) {
+    }
+
+    /**
+     * Begins a serialization (publish function) event.
+     *
+     * @return The event in progress, {@code null} if the event is disabled.
+     */
+    public static Object beginSerialize() {
+        return null;
+    }
+
+    /**
+     * Ends and commits a serialization (publish function) event.
+     *
+     * @param event         The event returned by {@link #beginSerialize()}.
+     * @param topic         The MQTT topic.
+     * @param payloadLength The serialized payload length in characters.
+     * @param qos           The MQTT QoS level.
+     */
+    public static void commitSerialize(Object event, String topic, int payloadLength, int qos) {
+    }
+
+    /**
+     * Begins an action decoding (subscribe function) event.
+     *
+     * @return The event in progress, {@code null} if the event is disabled.
+     */
+    public static Object beginActionDecode() {
+        return null;
+    }
+
+    /**
+     * Ends and commits an action decoding (subscribe function) event.
+     *
+     * @param event         The event returned by {@link #beginActionDecode()}.
+     * @param topic         The MQTT topic.
+     * @param payloadLength The received payload length in characters.
+     * @param qos           The MQTT QoS level.
+     */
+    public static void commitActionDecode(Object event, String topic, int payloadLength, int qos) {
+    }
+
+    /**
+     * Begins an action dispatch event.
+     *
+     * @return The event in progress, {@code null} if the event is disabled.
+     */
+    public static Object beginActionDispatch() {
+        return null;
+    }
+
+    /**
+     * Ends and commits an action dispatch event.
+     *
+     * @param event       The event returned by {@link #beginActionDispatch()}.
+     * @param topic       The MQTT topic.
+     * @param payloadSize The received payload size in bytes.
+     * @param qos         The MQTT QoS level.
+     */
+    public static void commitActionDispatch(Object event, String topic, int payloadSize, int qos) {
+    }
+}
@@ -0,0 +1,218 @@
+package it.wldt.adapter.mqtt.digital.logging;
+
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logger for the per-message lines of the MQTT Digital Adapter hot paths, applying a {@link HotPathLoggingPolicy}.
+ * Each message is counted for the periodic summary, then it is written only if the policy level is enabled,
+ * it is selected by the sampling and it does not exceed the per-topic rate cap. The summary lines of all the adapters
+ * are written by a single shared daemon thread.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class HotPathLogger {
+
+    private static final long RATE_WINDOW_MS = 1000;
+
+    private final Logger logger;
+
+    private final String name;
+
+    private final HotPathLoggingPolicy policy;
+
+    private final Map<String, TopicLogState> topicStates = new ConcurrentHashMap<>();
+
+    private final Map<String, TopicLogState> failureStates = new ConcurrentHashMap<>();
+
+    private static ScheduledExecutorService summaryExecutor;
+
+    private ScheduledFuture<?> summaryTask;
+
+    private long lastSummaryNanos;
+
+    /**
+     * Creates a hot path logger.
+     *
+     * @param logger The underlying logger.
+     * @param name   The name used in the summary lines (e.g. the adapter id).
+     * @param policy The logging policy.
+     */
+    public HotPathLogger(Logger logger, String name, HotPathLoggingPolicy policy) {
+        this.logger = logger;
+        this.name = name;
+        this.policy = policy;
+    }
+
+    /**
+     * Logs a message published on a topic.
+     *
+     * @param topic   The topic.
+     * @param payload The published payload.
+     */
+    public void logPublished(String topic, String payload) {
+        if (shouldLog(topic))
+            write("MQTT Digital Adapter - MQTT client published message: {} on topic: {}", formatPayload(payload), topic);
+    }
+
+    /**
+     * Logs a received event notification.
+     *
+     * @param eventKey The event key.
+     */
+    public void logEventNotificationReceived(String eventKey) {
+        if (shouldLog(eventKey))
+            write("MQTT Digital Adapter({}) - received event: {}", name, eventKey);
+    }
+
+    /**
+     * Logs a message received on an incoming topic.
+     *
+     * @param topic The topic.
+     */
+    public void logMessageReceived(String topic) {
+        if (shouldLog(topic))
+            write("MQTT Digital Adapter({}) - received message on topic: {}", name, topic);
+    }
+
+    /**
+     * Logs a failure on a topic at error level, regardless of the policy level and sampling. Failures are capped per
+     * topic like the other lines, so that an unreachable broker does not flood the log.
+     *
+     * @param topic The topic.
+     * @param what  The failed operation (e.g. "publishing the message").
+     * @param error The error message.
+     */
+    public void logFailure(String topic, String what, String error) {
+        TopicLogState state = failureStates.get(topic);
+        if (state == null)
+            state = failureStates.computeIfAbsent(topic, t -> new TopicLogState());
+        if (policy.getMaxMessagesPerSecond() <= 0 || state.tryAcquire(System.currentTimeMillis(), policy.getMaxMessagesPerSecond()))
+            logger.error("MQTT Digital Adapter({}) - error {} on topic {}: {}", name, what, topic, error);
+    }
+
+    /**
+     * Starts the periodic summary lines, if enabled by the policy.
+     */
+    public synchronized void start() {
+        if (policy.getSummaryIntervalMs() <= 0 || summaryTask != null)
+            return;
+        lastSummaryNanos = System.nanoTime();
+        summaryTask = getSummaryExecutor().scheduleAtFixedRate(this::logSummary, policy.getSummaryIntervalMs(), policy.getSummaryIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic summary lines.
+     */
+    public synchronized void stop() {
+        if (summaryTask != null) {
+            summaryTask.cancel(false);
+            summaryTask = null;
+        }
+    }
+
+    private static synchronized ScheduledExecutorService getSummaryExecutor() {
+        if (summaryExecutor == null)
+            summaryExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "mqtt-digital-adapter-log-summary");
+                thread.setDaemon(true);
+                return thread;
+            });
+        return summaryExecutor;
+    }
+
+    /**
+     * Writes a summary line with the message rate of each topic since the previous summary.
+     */
+    void logSummary() {
+        long now = System.nanoTime();
+        double elapsedSeconds = Math.max(1, now - lastSummaryNanos) / 1_000_000_000.0;
+        lastSummaryNanos = now;
+        StringBuilder summary = new StringBuilder();
+        topicStates.forEach((topic, state) -> {
+            long count = state.intervalCount.sumThenReset();
+            long suppressed = state.intervalSuppressed.sumThenReset();
+            if (count == 0)
+                return;
+            if (summary.length() > 0)
+                summary.append(", ");
+            summary.append(String.format("%s=%.2f msg/s (%d msgs, %d not logged)", topic, count / elapsedSeconds, count, suppressed));
+        });
+        if (summary.length() > 0)
+            logger.info("MQTT Digital Adapter({}) - hot path summary over {} s: {}", name, String.format("%.1f", elapsedSeconds), summary);
+    }
+
+    private boolean shouldLog(String topic) {
+        TopicLogState state = topicStates.get(topic);
+        if (state == null)
+            state = topicStates.computeIfAbsent(topic, t -> new TopicLogState());
+        state.intervalCount.increment();
+        if (isLevelEnabled()
+                && (policy.getSamplingRate() <= 1 || state.seen.getAndIncrement() % policy.getSamplingRate() == 0)
+                && (policy.getMaxMessagesPerSecond() <= 0 || state.tryAcquire(System.currentTimeMillis(), policy.getMaxMessagesPerSecond())))
+            return true;
+        state.intervalSuppressed.increment();
+        return false;
+    }
+
+    private String formatPayload(String payload) {
+        int maxLength = policy.getMaxPayloadLength();
+        if (payload == null || maxLength == HotPathLoggingPolicy.NO_PAYLOAD_TRUNCATION || payload.length() <= maxLength)
+            return payload;
+        if (maxLength == 0)
+            return "<" + payload.length() + " chars>";
+        return payload.substring(0, maxLength) + "...(" + payload.length() + " chars)";
+    }
+
+    private boolean isLevelEnabled() {
+        switch (policy.getLevel()) {
+            case ERROR: return logger.isErrorEnabled();
+            case WARN: return logger.isWarnEnabled();
+            case INFO: return logger.isInfoEnabled();
+            case DEBUG: return logger.isDebugEnabled();
+            default: return logger.isTraceEnabled();
+        }
+    }
+
+    private void write(String format, Object first, Object second) {
+        switch (policy.getLevel()) {
+            case ERROR: logger.error(format, first, second); break;
+            case WARN: logger.warn(format, first, second); break;
+            case INFO: logger.info(format, first, second); break;
+            case DEBUG: logger.debug(format, first, second); break;
+            default: logger.trace(format, first, second);
+        }
+    }
+
+    /**
+     * Logging state of a single topic
+     */
+    private static class TopicLogState {
+
+        private final AtomicLong seen = new AtomicLong();
+
+        private final AtomicLong windowStartMs = new AtomicLong();
+
+        private final AtomicInteger windowCount = new AtomicInteger();
+
+        private final LongAdder intervalCount = new LongAdder();
+
+        private final LongAdder intervalSuppressed = new LongAdder();
+
+        private boolean tryAcquire(long nowMs, int maxPerWindow) {
+            long start = windowStartMs.get();
+            if (nowMs - start >= RATE_WINDOW_MS && windowStartMs.compareAndSet(start, nowMs))
+                windowCount.set(0);
+            return windowCount.incrementAndGet() <= maxPerWindow;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package it.wldt.adapter.mqtt.digital.logging;
+
+import org.slf4j.event.Level;
+
+/**
+ * Policy controlling how the MQTT Digital Adapter logs the messages flowing on its hot paths (published messages,
+ * received event notifications and received action messages). Instances are created through the
+ * {@link HotPathLoggingPolicyBuilder}.
+ *
+ * <ul>
+ *   <li>{@code level}: level used for per-message log lines (default DEBUG)</li>
+ *   <li>{@code samplingRate}: only 1 message every N on the same topic is logged (default 1, i.e. all)</li>
+ *   <li>{@code maxMessagesPerSecond}: maximum number of per-message log lines per topic and second (default 0, unlimited)</li>
+ *   <li>{@code maxPayloadLength}: payloads longer than this number of characters are truncated (default 256, -1 disables truncation, 0 omits payloads)</li>
+ *   <li>{@code summaryIntervalMs}: period of the INFO summary lines with the message rate of each topic (default 0, disabled)</li>
+ * </ul>
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class HotPathLoggingPolicy {
+
+    /**
+     * Value of {@code maxPayloadLength} disabling payload truncation
+     */
+    public static final int NO_PAYLOAD_TRUNCATION = -1;
+
+    private Level level = Level.DEBUG;
+
+    private int samplingRate = 1;
+
+    private int maxMessagesPerSecond = 0;
+
+    private int maxPayloadLength = 256;
+
+    private long summaryIntervalMs = 0;
+
+    protected HotPathLoggingPolicy() {
+    }
+
+    /**
+     * Creates a builder for the hot path logging policy, initialized with the default values.
+     *
+     * @return A builder instance.
+     */
+    public static HotPathLoggingPolicyBuilder builder() {
+        return new HotPathLoggingPolicyBuilder();
+    }
+
+    /**
+     * Creates the default hot path logging policy.
+     *
+     * @return The default policy.
+     */
+    public static HotPathLoggingPolicy defaultPolicy() {
+        return new HotPathLoggingPolicy();
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public int getSamplingRate() {
+        return samplingRate;
+    }
+
+    public int getMaxMessagesPerSecond() {
+        return maxMessagesPerSecond;
+    }
+
+    public int getMaxPayloadLength() {
+        return maxPayloadLength;
+    }
+
+    public long getSummaryIntervalMs() {
+        return summaryIntervalMs;
+    }
+
+    protected void setLevel(Level level) {
+        this.level = level;
+    }
+
+    protected void setSamplingRate(int samplingRate) {
+        this.samplingRate = samplingRate;
+    }
+
+    protected void setMaxMessagesPerSecond(int maxMessagesPerSecond) {
+        this.maxMessagesPerSecond = maxMessagesPerSecond;
+    }
+
+    protected void setMaxPayloadLength(int maxPayloadLength) {
+        this.maxPayloadLength = maxPayloadLength;
+    }
+
+    protected void setSummaryIntervalMs(long summaryIntervalMs) {
+        this.summaryIntervalMs = summaryIntervalMs;
+    }
+
+    @Override
+    public String toString() {
+        return "HotPathLoggingPolicy{" +
+                "level=" + level +
+                ", samplingRate=" + samplingRate +
+                ", maxMessagesPerSecond=" + maxMessagesPerSecond +
+                ", maxPayloadLength=" + maxPayloadLength +
+                ", summaryIntervalMs=" + summaryIntervalMs +
+                '}';
+    }
+}
@@ -0,0 +1,89 @@
+package it.wldt.adapter.mqtt.digital.logging;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+import org.slf4j.event.Level;
+
+/**
+ * Fluent builder of {@link HotPathLoggingPolicy} instances.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class HotPathLoggingPolicyBuilder {
+
+    private final HotPathLoggingPolicy policy = new HotPathLoggingPolicy();
+
+    /**
+     * Sets the level used for per-message log lines.
+     *
+     * @param level The log level.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the level is null.
+     */
+    public HotPathLoggingPolicyBuilder setLevel(Level level) throws MqttDigitalAdapterConfigurationException {
+        if(level == null) throw new MqttDigitalAdapterConfigurationException("Log Level cannot be null");
+        policy.setLevel(level);
+        return this;
+    }
+
+    /**
+     * Sets the sampling rate: only 1 message every {@code samplingRate} messages on the same topic is logged.
+     *
+     * @param samplingRate The sampling rate. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the sampling rate is not a positive number.
+     */
+    public HotPathLoggingPolicyBuilder setSamplingRate(int samplingRate) throws MqttDigitalAdapterConfigurationException {
+        if(samplingRate <= 0) throw new MqttDigitalAdapterConfigurationException("Sampling Rate must be a positive number");
+        policy.setSamplingRate(samplingRate);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of per-message log lines written for each topic in a second.
+     *
+     * @param maxMessagesPerSecond The rate cap, 0 for no cap.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the rate cap is negative.
+     */
+    public HotPathLoggingPolicyBuilder setMaxMessagesPerSecond(int maxMessagesPerSecond) throws MqttDigitalAdapterConfigurationException {
+        if(maxMessagesPerSecond < 0) throw new MqttDigitalAdapterConfigurationException("Max Messages Per Second cannot be negative");
+        policy.setMaxMessagesPerSecond(maxMessagesPerSecond);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of payload characters written in a log line.
+     *
+     * @param maxPayloadLength The maximum payload length, 0 to omit payloads or
+     *                         {@link HotPathLoggingPolicy#NO_PAYLOAD_TRUNCATION} to log them entirely.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the length is lower than -1.
+     */
+    public HotPathLoggingPolicyBuilder setMaxPayloadLength(int maxPayloadLength) throws MqttDigitalAdapterConfigurationException {
+        if(maxPayloadLength < HotPathLoggingPolicy.NO_PAYLOAD_TRUNCATION) throw new MqttDigitalAdapterConfigurationException("Max Payload Length must be -1 (no truncation) or a non negative number");
+        policy.setMaxPayloadLength(maxPayloadLength);
+        return this;
+    }
+
+    /**
+     * Sets the period of the INFO summary lines reporting the message rate of each topic.
+     *
+     * @param summaryIntervalMs The summary period in milliseconds, 0 to disable summaries.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the period is negative.
+     */
+    public HotPathLoggingPolicyBuilder setSummaryIntervalMs(long summaryIntervalMs) throws MqttDigitalAdapterConfigurationException {
+        if(summaryIntervalMs < 0) throw new MqttDigitalAdapterConfigurationException("Summary Interval cannot be negative");
+        policy.setSummaryIntervalMs(summaryIntervalMs);
+        return this;
+    }
+
+    /**
+     * Builds the hot path logging policy.
+     *
+     * @return The hot path logging policy.
+     */
+    public HotPathLoggingPolicy build() {
+        return policy;
+    }
+}
@@ -0,0 +1,158 @@
+package it.wldt.adapter.mqtt.digital.loopback;
+
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterMessageListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process MQTT broker delivering the messages published by the MQTT Digital Adapters and by the local
+ * applications of the same JVM directly to the local subscribers, without any network or broker round trip.
+ * It can be used to feed colocated consumers (e.g. analytics running next to the `DigitalTwinEngine`) and as a
+ * zero-network test harness.
+ * <p>
+ * The broker follows the MQTT semantics that apply to an in-process delivery:
+ * <ul>
+ *   <li>topic filters with single level ({@code +}) and multi level ({@code #}) wildcards, see {@link LoopbackTopicMatcher};</li>
+ *   <li>the QoS of each delivery is the minimum between the QoS of the message and the one of the subscription.
+ *   Messages are delivered synchronously on the publishing thread, in publishing order, so QoS 1 and 2 deliveries
+ *   are completed when {@link #publish} returns. Failures of QoS 0 listeners are ignored (at most once) while
+ *   failures of QoS 1 and 2 listeners are logged;</li>
+ *   <li>the last retained message of each topic is delivered to new matching subscriptions, an empty retained
+ *   payload removes it and a message expiry interval (seconds) discards it once elapsed.</li>
+ * </ul>
+ * Listeners must return quickly since they run on the publishing thread, and must not modify the payload array
+ * that is shared among all the subscribers of a message.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class LoopbackMqttBroker {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoopbackMqttBroker.class);
+
+    private final List<LoopbackSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final Map<String, RetainedMessage> retainedMessages = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribes a listener to the topics matching the filter.
+     *
+     * @param topicFilter The topic filter, possibly containing wildcards.
+     * @param qos The maximum QoS level of the deliveries (0, 1 or 2).
+     * @param listener The listener notified for each matching message.
+     * @return The subscription, used to unsubscribe.
+     * @throws IllegalArgumentException If the topic filter or the QoS level are not valid.
+     */
+    public LoopbackSubscription subscribe(String topicFilter, int qos, MqttDigitalAdapterMessageListener listener) {
+        if (!LoopbackTopicMatcher.isValidTopicFilter(topicFilter))
+            throw new IllegalArgumentException("Invalid topic filter: " + topicFilter);
+        checkQos(qos);
+        if (listener == null)
+            throw new IllegalArgumentException("Listener cannot be null");
+
+        LoopbackSubscription subscription = new LoopbackSubscription(this, topicFilter, qos, listener);
+        subscriptions.add(subscription);
+
+        long now = System.currentTimeMillis();
+        retainedMessages.forEach((topic, retainedMessage) -> {
+            if (retainedMessage.isExpired(now))
+                retainedMessages.remove(topic, retainedMessage);
+            else if (LoopbackTopicMatcher.matches(topicFilter, topic))
+                deliver(subscription, topic, retainedMessage.payload, Math.min(qos, retainedMessage.qos));
+        });
+
+        return subscription;
+    }
+
+    void unsubscribe(LoopbackSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    /**
+     * Publishes a message to the subscriptions matching its topic.
+     *
+     * @param topic The topic name.
+     * @param payload The message payload, shared among the subscribers.
+     * @param qos The QoS level of the message (0, 1 or 2).
+     * @param retained The retained flag.
+     * @throws IllegalArgumentException If the topic name or the QoS level are not valid.
+     */
+    public void publish(String topic, byte[] payload, int qos, boolean retained) {
+        publish(topic, payload, qos, retained, null);
+    }
+
+    /**
+     * Publishes a message to the subscriptions matching its topic.
+     *
+     * @param topic The topic name.
+     * @param payload The message payload, shared among the subscribers.
+     * @param qos The QoS level of the message (0, 1 or 2).
+     * @param retained The retained flag.
+     * @param messageExpiryInterval The lifetime in seconds of the retained message, or {@code null} if it does not expire.
+     * @throws IllegalArgumentException If the topic name or the QoS level are not valid.
+     */
+    public void publish(String topic, byte[] payload, int qos, boolean retained, Long messageExpiryInterval) {
+        if (!LoopbackTopicMatcher.isValidTopicName(topic))
+            throw new IllegalArgumentException("Invalid topic name: " + topic);
+        checkQos(qos);
+
+        if (retained) {
+            if (payload.length == 0)
+                retainedMessages.remove(topic);
+            else
+                retainedMessages.put(topic, new RetainedMessage(payload, qos, messageExpiryInterval == null ? Long.MAX_VALUE :
+                        System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(messageExpiryInterval)));
+        }
+
+        for (LoopbackSubscription subscription : subscriptions)
+            if (LoopbackTopicMatcher.matches(subscription.getTopicFilter(), topic))
+                deliver(subscription, topic, payload, Math.min(qos, subscription.getQos()));
+    }
+
+    /**
+     * Gets the number of active subscriptions.
+     *
+     * @return The number of subscriptions.
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    private void deliver(LoopbackSubscription subscription, String topic, byte[] payload, int qos) {
+        try {
+            subscription.getListener().onMessage(topic, payload);
+        } catch (Exception e) {
+            if (qos > 0)
+                logger.error("Error delivering QoS {} message on {} to subscription {}: {}", qos, topic, subscription.getTopicFilter(), e.getLocalizedMessage());
+        }
+    }
+
+    private static void checkQos(int qos) {
+        if (qos < 0 || qos > 2)
+            throw new IllegalArgumentException("Invalid QoS level: " + qos);
+    }
+
+    private static class RetainedMessage {
+
+        private final byte[] payload;
+
+        private final int qos;
+
+        private final long expiresAt;
+
+        private RetainedMessage(byte[] payload, int qos, long expiresAt) {
+            this.payload = payload;
+            this.qos = qos;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
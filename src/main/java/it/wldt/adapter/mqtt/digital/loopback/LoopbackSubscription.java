@@ -0,0 +1,46 @@
+package it.wldt.adapter.mqtt.digital.loopback;
+
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterMessageListener;
+
+/**
+ * Subscription registered on a {@link LoopbackMqttBroker}, delivering the messages published on the topics matching
+ * its filter to the associated listener with the granted QoS level.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class LoopbackSubscription {
+
+    private final LoopbackMqttBroker broker;
+
+    private final String topicFilter;
+
+    private final int qos;
+
+    private final MqttDigitalAdapterMessageListener listener;
+
+    LoopbackSubscription(LoopbackMqttBroker broker, String topicFilter, int qos, MqttDigitalAdapterMessageListener listener) {
+        this.broker = broker;
+        this.topicFilter = topicFilter;
+        this.qos = qos;
+        this.listener = listener;
+    }
+
+    public String getTopicFilter() {
+        return topicFilter;
+    }
+
+    public int getQos() {
+        return qos;
+    }
+
+    MqttDigitalAdapterMessageListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Removes the subscription from the broker, no more messages are delivered to its listener.
+     */
+    public void unsubscribe() {
+        broker.unsubscribe(this);
+    }
+}
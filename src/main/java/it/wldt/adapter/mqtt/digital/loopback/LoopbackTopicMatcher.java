@@ -0,0 +1,97 @@
+package it.wldt.adapter.mqtt.digital.loopback;
+
+/**
+ * MQTT topic name and topic filter rules applied by the {@link LoopbackMqttBroker}: single level ({@code +}) and
+ * multi level ({@code #}) wildcards, and topics starting with {@code $} not matched by filters starting with a
+ * wildcard.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public final class LoopbackTopicMatcher {
+
+    private static final char LEVEL_SEPARATOR = '/';
+
+    private static final String SINGLE_LEVEL_WILDCARD = "+";
+
+    private static final String MULTI_LEVEL_WILDCARD = "#";
+
+    private LoopbackTopicMatcher() {
+    }
+
+    /**
+     * Checks whether the topic name can be used to publish a message: not empty and without wildcards.
+     *
+     * @param topic The topic name.
+     * @return {@code true} if the topic name is valid.
+     */
+    public static boolean isValidTopicName(String topic) {
+        return topic != null && !topic.isEmpty() && topic.indexOf('+') < 0 && topic.indexOf('#') < 0;
+    }
+
+    /**
+     * Checks whether the topic filter is valid: not empty, wildcards occupying a whole level and the multi level
+     * wildcard used only as last level.
+     *
+     * @param topicFilter The topic filter.
+     * @return {@code true} if the topic filter is valid.
+     */
+    public static boolean isValidTopicFilter(String topicFilter) {
+        if (topicFilter == null || topicFilter.isEmpty())
+            return false;
+        String[] levels = topicFilter.split(String.valueOf(LEVEL_SEPARATOR), -1);
+        for (int i = 0; i < levels.length; i++) {
+            String level = levels[i];
+            if (level.equals(MULTI_LEVEL_WILDCARD) && i != levels.length - 1)
+                return false;
+            if (level.length() > 1 && (level.indexOf('+') >= 0 || level.indexOf('#') >= 0))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the topic name matches the topic filter.
+     *
+     * @param topicFilter The topic filter, possibly containing wildcards.
+     * @param topic The topic name.
+     * @return {@code true} if the topic matches the filter.
+     */
+    public static boolean matches(String topicFilter, String topic) {
+        if (topic.startsWith("$") && (topicFilter.startsWith(SINGLE_LEVEL_WILDCARD) || topicFilter.startsWith(MULTI_LEVEL_WILDCARD)))
+            return false;
+
+        int filterIndex = 0;
+        int topicIndex = 0;
+        while (filterIndex < topicFilter.length()) {
+            int filterLevelEnd = levelEnd(topicFilter, filterIndex);
+            int filterLevelLength = filterLevelEnd - filterIndex;
+
+            // '#' matches the parent level and any number of child levels
+            if (filterLevelLength == 1 && topicFilter.charAt(filterIndex) == '#')
+                return true;
+
+            if (topicIndex > topic.length())
+                return false;
+
+            int topicLevelEnd = levelEnd(topic, topicIndex);
+            boolean singleLevelWildcard = filterLevelLength == 1 && topicFilter.charAt(filterIndex) == '+';
+            if (!singleLevelWildcard && (topicLevelEnd - topicIndex != filterLevelLength
+                    || !topicFilter.regionMatches(filterIndex, topic, topicIndex, filterLevelLength)))
+                return false;
+
+            filterIndex = filterLevelEnd + 1;
+            topicIndex = topicLevelEnd + 1;
+
+            // Filter ending with "/#" also matches the parent level (e.g. "a/#" matches "a")
+            if (filterIndex < topicFilter.length() && topicIndex > topic.length()
+                    && topicFilter.length() - filterIndex == 1 && topicFilter.charAt(filterIndex) == '#')
+                return true;
+        }
+        return topicIndex > topic.length();
+    }
+
+    private static int levelEnd(String value, int levelStart) {
+        int separator = value.indexOf(LEVEL_SEPARATOR, levelStart);
+        return separator < 0 ? value.length() : separator;
+    }
+}
@@ -0,0 +1,413 @@
+package it.wldt.adapter.mqtt.digital.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link MqttDigitalAdapterMetrics} implementation exposing the collected measurements as MXBeans on the platform
+ * MBean server. An adapter wide MBean is registered as
+ * {@code it.wldt.adapter.mqtt.digital:type=MqttDigitalAdapter,name=<name>} and one MBean for each topic key is
+ * lazily registered on its first measurement as
+ * {@code it.wldt.adapter.mqtt.digital:type=MqttDigitalAdapter,name=<name>,topicKey=<key>}.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class JmxMqttDigitalAdapterMetrics implements MqttDigitalAdapterMetrics, MqttDigitalAdapterMetricsMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(JmxMqttDigitalAdapterMetrics.class);
+
+    private static final String DOMAIN = "it.wldt.adapter.mqtt.digital";
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    private final String name;
+
+    private final Map<String, MqttTopicMetrics> topicMetrics = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    private final LongAdder publishFailures = new LongAdder();
+
+    private final LongAdder actionFailures = new LongAdder();
+
+    private final LongAdder connectFailures = new LongAdder();
+
+    private final AtomicInteger subscribedTopics = new AtomicInteger();
+
+    private final LongAdder resumedSessions = new LongAdder();
+
+    private final LatencyHistogram connectLatency = new LatencyHistogram();
+
+    private final LatencyHistogram subscribeLatency = new LatencyHistogram();
+
+    private final LatencyHistogram startupLatency = new LatencyHistogram();
+
+    private final LongAdder connectionLosses = new LongAdder();
+
+    private final LongAdder reconnects = new LongAdder();
+
+    private final LongAdder reconnectAttempts = new LongAdder();
+
+    private final LongAdder droppedBacklogPublications = new LongAdder();
+
+    private final LongAdder replayedPublications = new LongAdder();
+
+    private final LatencyHistogram reconnectDowntime = new LatencyHistogram();
+
+    private final LatencyHistogram resumptionLatency = new LatencyHistogram();
+
+    private volatile double publishRateLimit = 0;
+
+    private volatile long pacingAckRtt = 0;
+
+    private volatile double pacingFailureRate = 0;
+
+    private final LongAdder pacingIncreases = new LongAdder();
+
+    private final LongAdder pacingDecreases = new LongAdder();
+
+    private final LatencyHistogram pacingDelay = new LatencyHistogram();
+
+    // Last depth of each lane of the striped publisher, grown to the highest reported lane
+    private volatile AtomicIntegerArray laneDepths = new AtomicIntegerArray(0);
+
+    private final AtomicInteger maxLaneDepth = new AtomicInteger();
+
+    /**
+     * Creates the metrics and registers the adapter wide MBean.
+     *
+     * @param name The name identifying the metrics in JMX, typically the adapter id.
+     */
+    public JmxMqttDigitalAdapterMetrics(String name) {
+        this.name = name;
+        register(adapterObjectName(), this);
+    }
+
+    @Override
+    public void recordSerialization(String topicKey, long durationNanos) {
+        getTopicMetrics(topicKey).recordSerialization(durationNanos);
+    }
+
+    @Override
+    public void recordPublish(String topicKey, int payloadSize, long durationNanos) {
+        getTopicMetrics(topicKey).recordPublish(payloadSize, durationNanos);
+    }
+
+    @Override
+    public void recordPublishAck(String topicKey, long durationNanos) {
+        getTopicMetrics(topicKey).recordPublishAck(durationNanos);
+    }
+
+    @Override
+    public void recordPublishFailure(String topicKey) {
+        publishFailures.increment();
+        getTopicMetrics(topicKey).recordPublishFailure();
+    }
+
+    @Override
+    public void recordDuplicateSuppressed(String topicKey) {
+        getTopicMetrics(topicKey).recordDuplicateSuppressed();
+    }
+
+    @Override
+    public void recordQueueDepth(int depth) {
+        queueDepth.set(depth);
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    @Override
+    public void recordActionDispatch(String actionKey, long durationNanos) {
+        getTopicMetrics(actionKey).recordActionDispatch(durationNanos);
+    }
+
+    @Override
+    public void recordActionFailure(String actionKey) {
+        actionFailures.increment();
+        getTopicMetrics(actionKey).recordActionFailure();
+    }
+
+    @Override
+    public void recordConnect(long durationNanos) {
+        connectLatency.record(durationNanos);
+    }
+
+    @Override
+    public void recordConnectFailure() {
+        connectFailures.increment();
+    }
+
+    @Override
+    public void recordSubscribe(int topicCount, long durationNanos) {
+        subscribedTopics.set(topicCount);
+        subscribeLatency.record(durationNanos);
+    }
+
+    @Override
+    public void recordSessionResumed(int topicCount) {
+        subscribedTopics.set(topicCount);
+        resumedSessions.increment();
+    }
+
+    @Override
+    public void recordStartup(long durationNanos) {
+        startupLatency.record(durationNanos);
+    }
+
+    @Override
+    public void recordConnectionLost() {
+        connectionLosses.increment();
+    }
+
+    @Override
+    public void recordReconnect(int attempts, long downtimeNanos) {
+        reconnects.increment();
+        reconnectAttempts.add(attempts);
+        reconnectDowntime.record(downtimeNanos);
+    }
+
+    @Override
+    public void recordBacklogDropped() {
+        droppedBacklogPublications.increment();
+    }
+
+    @Override
+    public void recordResumption(int replayedPublications, long durationNanos) {
+        this.replayedPublications.add(replayedPublications);
+        resumptionLatency.record(durationNanos);
+    }
+
+    @Override
+    public void recordPacingDelay(long delayNanos) {
+        pacingDelay.record(delayNanos);
+    }
+
+    @Override
+    public void recordPacingAdjustment(double previousRateLimit, double rateLimit, long ackRttNanos, double failureRate) {
+        publishRateLimit = rateLimit;
+        pacingAckRtt = ackRttNanos;
+        pacingFailureRate = failureRate;
+        if (rateLimit > previousRateLimit)
+            pacingIncreases.increment();
+        else if (rateLimit < previousRateLimit)
+            pacingDecreases.increment();
+    }
+
+    @Override
+    public void recordLaneDepth(int laneIndex, int laneDepth) {
+        AtomicIntegerArray depths = laneDepths;
+        if (laneIndex >= depths.length()) {
+            synchronized (this) {
+                depths = laneDepths;
+                if (laneIndex >= depths.length()) {
+                    AtomicIntegerArray grown = new AtomicIntegerArray(laneIndex + 1);
+                    for (int i = 0; i < depths.length(); i++)
+                        grown.set(i, depths.get(i));
+                    laneDepths = depths = grown;
+                }
+            }
+        }
+        depths.set(laneIndex, laneDepth);
+        maxLaneDepth.accumulateAndGet(laneDepth, Math::max);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    @Override
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    @Override
+    public long getPublishFailures() {
+        return publishFailures.sum();
+    }
+
+    @Override
+    public long getActionFailures() {
+        return actionFailures.sum();
+    }
+
+    @Override
+    public long getConnectFailures() {
+        return connectFailures.sum();
+    }
+
+    @Override
+    public int getSubscribedTopics() {
+        return subscribedTopics.get();
+    }
+
+    @Override
+    public long getResumedSessions() {
+        return resumedSessions.sum();
+    }
+
+    @Override
+    public LatencySnapshot getConnectLatency() {
+        return connectLatency.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getSubscribeLatency() {
+        return subscribeLatency.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getStartupLatency() {
+        return startupLatency.snapshot();
+    }
+
+    @Override
+    public long getConnectionLosses() {
+        return connectionLosses.sum();
+    }
+
+    @Override
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    @Override
+    public long getReconnectAttempts() {
+        return reconnectAttempts.sum();
+    }
+
+    @Override
+    public long getDroppedBacklogPublications() {
+        return droppedBacklogPublications.sum();
+    }
+
+    @Override
+    public long getReplayedPublications() {
+        return replayedPublications.sum();
+    }
+
+    @Override
+    public LatencySnapshot getReconnectDowntime() {
+        return reconnectDowntime.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getResumptionLatency() {
+        return resumptionLatency.snapshot();
+    }
+
+    @Override
+    public double getPublishRateLimit() {
+        return publishRateLimit;
+    }
+
+    @Override
+    public long getPacingAckRtt() {
+        return pacingAckRtt;
+    }
+
+    @Override
+    public double getPacingFailureRate() {
+        return pacingFailureRate;
+    }
+
+    @Override
+    public long getPacingIncreases() {
+        return pacingIncreases.sum();
+    }
+
+    @Override
+    public long getPacingDecreases() {
+        return pacingDecreases.sum();
+    }
+
+    @Override
+    public LatencySnapshot getPacingDelay() {
+        return pacingDelay.snapshot();
+    }
+
+    @Override
+    public int[] getLaneDepths() {
+        AtomicIntegerArray depths = laneDepths;
+        int[] snapshot = new int[depths.length()];
+        for (int i = 0; i < snapshot.length; i++)
+            snapshot[i] = depths.get(i);
+        return snapshot;
+    }
+
+    @Override
+    public int getMaxLaneDepth() {
+        return maxLaneDepth.get();
+    }
+
+    /**
+     * Gets the metrics collected for a topic key.
+     *
+     * @param topicKey The topic key.
+     * @return The topic metrics, registered on JMX on the first access.
+     */
+    public MqttTopicMetrics getTopicMetrics(String topicKey) {
+        MqttTopicMetrics metrics = topicMetrics.get(topicKey);
+        if (metrics != null)
+            return metrics;
+        return topicMetrics.computeIfAbsent(topicKey, key -> {
+            MqttTopicMetrics created = new MqttTopicMetrics(key);
+            register(topicObjectName(key), created);
+            return created;
+        });
+    }
+
+    /**
+     * Unregisters all the MBeans created by this instance.
+     */
+    public void unregister() {
+        topicMetrics.keySet().forEach(key -> unregister(topicObjectName(key)));
+        unregister(adapterObjectName());
+    }
+
+    private ObjectName adapterObjectName() {
+        return objectName(String.format("%s:type=MqttDigitalAdapter,name=%s", DOMAIN, ObjectName.quote(name)));
+    }
+
+    private ObjectName topicObjectName(String topicKey) {
+        return objectName(String.format("%s:type=MqttDigitalAdapter,name=%s,topicKey=%s", DOMAIN, ObjectName.quote(name), ObjectName.quote(topicKey)));
+    }
+
+    private ObjectName objectName(String value) {
+        try {
+            return new ObjectName(value);
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Invalid JMX ObjectName: " + value, e);
+        }
+    }
+
+    private void register(ObjectName objectName, Object mBean) {
+        try {
+            if (mBeanServer.isRegistered(objectName))
+                mBeanServer.unregisterMBean(objectName);
+            mBeanServer.registerMBean(mBean, objectName);
+        } catch (JMException e) {
+            logger.warn("Error registering MBean {}: {}", objectName, e.getMessage());
+        }
+    }
+
+    private void unregister(ObjectName objectName) {
+        try {
+            if (mBeanServer.isRegistered(objectName))
+                mBeanServer.unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.warn("Error unregistering MBean {}: {}", objectName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package it.wldt.adapter.mqtt.digital.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power of two buckets (bucket {@code i} holds values in {@code [2^(i-1), 2^i)}
+ * nanoseconds, bucket 0 holds 0). Recording is wait-free and allocation-free, percentiles are approximated by the upper bound of
+ * the bucket containing them, i.e. within a factor of two of the exact value.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     *
+     * @param valueNanos The value in nanoseconds, negative values are recorded as 0.
+     */
+    public void record(long valueNanos) {
+        long value = Math.max(0, valueNanos);
+        buckets.incrementAndGet(BUCKET_COUNT - Long.numberOfLeadingZeros(value));
+        count.increment();
+        sum.add(value);
+        long currentMax;
+        while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+            // retry
+        }
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The number of recorded values.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     *
+     * @return The mean in nanoseconds, 0 if no value has been recorded.
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Gets the maximum recorded value.
+     *
+     * @return The maximum in nanoseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets an approximation of the requested percentile.
+     *
+     * @param percentile The percentile in the range (0, 100].
+     * @return The upper bound in nanoseconds of the bucket holding the percentile, 0 if no value has been recorded.
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0)
+            return 0;
+        long target = (long) Math.ceil(total * percentile / 100.0);
+        long accumulated = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            accumulated += snapshot[i];
+            if (accumulated >= target)
+                return Math.min((1L << i) - 1, getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Creates an immutable snapshot of the histogram statistics.
+     *
+     * @return The histogram snapshot.
+     */
+    public LatencySnapshot snapshot() {
+        return new LatencySnapshot(getCount(), getMean(), getPercentile(50), getPercentile(99), getPercentile(99.9), getMax());
+    }
+}
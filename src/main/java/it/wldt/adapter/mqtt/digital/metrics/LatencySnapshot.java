@@ -0,0 +1,63 @@
+package it.wldt.adapter.mqtt.digital.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Immutable snapshot of a {@link LatencyHistogram}. Exposed through JMX as composite data.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class LatencySnapshot {
+
+    private final long count;
+
+    private final double meanNanos;
+
+    private final long p50Nanos;
+
+    private final long p99Nanos;
+
+    private final long p999Nanos;
+
+    private final long maxNanos;
+
+    @ConstructorProperties({"count", "meanNanos", "p50Nanos", "p99Nanos", "p999Nanos", "maxNanos"})
+    public LatencySnapshot(long count, double meanNanos, long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+        this.count = count;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanNanos() {
+        return meanNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencySnapshot{count=%d, mean=%.0fns, p50=%dns, p99=%dns, p999=%dns, max=%dns}",
+                count, meanNanos, p50Nanos, p99Nanos, p999Nanos, maxNanos);
+    }
+}
@@ -0,0 +1,185 @@
+package it.wldt.adapter.mqtt.digital.metrics;
+
+/**
+ * Service Provider Interface used by the {@code MqttDigitalAdapter} to report measurements taken on its publish and
+ * subscribe hot paths. Topic keys are the property, event or action keys used in the adapter configuration.
+ * Implementations are invoked on the adapter threads and must be thread-safe and non-blocking. Every method is a
+ * no-op by default, so implementations override only the measurements they collect.
+ *
+ * @see NoOpMqttDigitalAdapterMetrics
+ * @see JmxMqttDigitalAdapterMetrics
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public interface MqttDigitalAdapterMetrics {
+
+    /**
+     * Records the time spent serializing a DT state component into a message payload.
+     *
+     * @param topicKey      The key of the outgoing topic.
+     * @param durationNanos The serialization time in nanoseconds.
+     */
+    default void recordSerialization(String topicKey, long durationNanos) {
+    }
+
+    /**
+     * Records the time spent handing over a message to the MQTT client.
+     *
+     * @param topicKey      The key of the outgoing topic.
+     * @param payloadSize   The payload size in bytes.
+     * @param durationNanos The publish time in nanoseconds.
+     */
+    default void recordPublish(String topicKey, int payloadSize, long durationNanos) {
+    }
+
+    /**
+     * Records the time elapsed between the hand over of a message to the MQTT client and its delivery
+     * (network write for QoS 0, broker acknowledgement for QoS 1 and 2).
+     *
+     * @param topicKey      The key of the outgoing topic.
+     * @param durationNanos The acknowledgement time in nanoseconds.
+     */
+    default void recordPublishAck(String topicKey, long durationNanos) {
+    }
+
+    /**
+     * Records a failed publish.
+     *
+     * @param topicKey The key of the outgoing topic.
+     */
+    default void recordPublishFailure(String topicKey) {
+    }
+
+    /**
+     * Records a publish skipped because the payload was byte-identical to the last one published on the topic.
+     *
+     * @param topicKey The key of the outgoing topic.
+     */
+    default void recordDuplicateSuppressed(String topicKey) {
+    }
+
+    /**
+     * Records the number of messages handed over to the MQTT client and not yet delivered.
+     *
+     * @param queueDepth The number of in-flight messages.
+     */
+    default void recordQueueDepth(int queueDepth) {
+    }
+
+    /**
+     * Records the time elapsed between the reception of an action message and the dispatch of the corresponding
+     * Digital Action event to the DT.
+     *
+     * @param actionKey     The key of the action.
+     * @param durationNanos The receive to dispatch time in nanoseconds.
+     */
+    default void recordActionDispatch(String actionKey, long durationNanos) {
+    }
+
+    /**
+     * Records an action message that could not be dispatched to the DT.
+     *
+     * @param actionKey The key of the action.
+     */
+    default void recordActionFailure(String actionKey) {
+    }
+
+    /**
+     * Records the time spent establishing the connection with the broker.
+     *
+     * @param durationNanos The connection time in nanoseconds.
+     */
+    default void recordConnect(long durationNanos) {
+    }
+
+    /**
+     * Records a failed connection attempt.
+     */
+    default void recordConnectFailure() {
+    }
+
+    /**
+     * Records the time spent subscribing to the incoming topics.
+     *
+     * @param topicCount    The number of subscribed topics.
+     * @param durationNanos The subscription time in nanoseconds.
+     */
+    default void recordSubscribe(int topicCount, long durationNanos) {
+    }
+
+    /**
+     * Records a connection resuming a persistent broker session, whose stored subscriptions are not sent again.
+     *
+     * @param topicCount The number of subscriptions stored with the session, 0 if unknown.
+     */
+    default void recordSessionResumed(int topicCount) {
+    }
+
+    /**
+     * Records the time elapsed between the start of the adapter and its bound notification to the DT.
+     *
+     * @param durationNanos The startup time in nanoseconds.
+     */
+    default void recordStartup(long durationNanos) {
+    }
+
+    /**
+     * Records the loss of the connection with the broker.
+     */
+    default void recordConnectionLost() {
+    }
+
+    /**
+     * Records a successful reconnection to the broker.
+     *
+     * @param attempts      The number of connection attempts, including the successful one.
+     * @param downtimeNanos The time elapsed since the connection loss in nanoseconds.
+     */
+    default void recordReconnect(int attempts, long downtimeNanos) {
+    }
+
+    /**
+     * Records a publication buffered while disconnected and dropped because the backlog is full.
+     */
+    default void recordBacklogDropped() {
+    }
+
+    /**
+     * Records the end of the resumption following a reconnection, i.e. of the rate limited resubscription and
+     * replay of the backlog.
+     *
+     * @param replayedPublications The number of publications replayed from the backlog.
+     * @param durationNanos        The resumption time in nanoseconds.
+     */
+    default void recordResumption(int replayedPublications, long durationNanos) {
+    }
+
+    /**
+     * Records the time a publication waited for its slot of the adaptive publish rate limit.
+     *
+     * @param delayNanos The pacing delay in nanoseconds.
+     */
+    default void recordPacingDelay(long delayNanos) {
+    }
+
+    /**
+     * Records an adjustment of the adaptive publish rate limit, together with the measurements of the interval that
+     * determined it.
+     *
+     * @param previousRateLimit The rate limit before the adjustment, in messages per second.
+     * @param rateLimit         The rate limit after the adjustment, in messages per second.
+     * @param ackRttNanos       The average acknowledgement round trip time of the interval in nanoseconds.
+     * @param failureRate       The ratio of failed publications of the interval.
+     */
+    default void recordPacingAdjustment(double previousRateLimit, double rateLimit, long ackRttNanos, double failureRate) {
+    }
+
+    /**
+     * Records the number of publications waiting on a lane of the striped publisher, after a submission.
+     *
+     * @param laneIndex The lane index.
+     * @param laneDepth The number of waiting publications.
+     */
+    default void recordLaneDepth(int laneIndex, int laneDepth) {
+    }
+}
@@ -0,0 +1,59 @@
+package it.wldt.adapter.mqtt.digital.metrics;
+
+/**
+ * JMX view of the adapter wide measurements collected by the {@link JmxMqttDigitalAdapterMetrics}.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public interface MqttDigitalAdapterMetricsMXBean {
+
+    int getQueueDepth();
+
+    int getMaxQueueDepth();
+
+    long getPublishFailures();
+
+    long getActionFailures();
+
+    long getConnectFailures();
+
+    int getSubscribedTopics();
+
+    long getResumedSessions();
+
+    LatencySnapshot getConnectLatency();
+
+    LatencySnapshot getSubscribeLatency();
+
+    LatencySnapshot getStartupLatency();
+
+    long getConnectionLosses();
+
+    long getReconnects();
+
+    long getReconnectAttempts();
+
+    long getDroppedBacklogPublications();
+
+    long getReplayedPublications();
+
+    LatencySnapshot getReconnectDowntime();
+
+    LatencySnapshot getResumptionLatency();
+
+    double getPublishRateLimit();
+
+    long getPacingAckRtt();
+
+    double getPacingFailureRate();
+
+    long getPacingIncreases();
+
+    long getPacingDecreases();
+
+    LatencySnapshot getPacingDelay();
+
+    int[] getLaneDepths();
+
+    int getMaxLaneDepth();
+}
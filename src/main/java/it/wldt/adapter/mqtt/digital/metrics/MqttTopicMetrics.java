@@ -0,0 +1,115 @@
+package it.wldt.adapter.mqtt.digital.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms collected for a single topic key by the {@link JmxMqttDigitalAdapterMetrics}.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class MqttTopicMetrics implements MqttTopicMetricsMXBean {
+
+    private final String topicKey;
+
+    private final LongAdder publishedMessages = new LongAdder();
+
+    private final LongAdder publishedBytes = new LongAdder();
+
+    private final LongAdder publishFailures = new LongAdder();
+
+    private final LongAdder actionFailures = new LongAdder();
+
+    private final LongAdder suppressedDuplicates = new LongAdder();
+
+    private final LatencyHistogram serializationLatency = new LatencyHistogram();
+
+    private final LatencyHistogram publishLatency = new LatencyHistogram();
+
+    private final LatencyHistogram ackLatency = new LatencyHistogram();
+
+    private final LatencyHistogram actionDispatchLatency = new LatencyHistogram();
+
+    public MqttTopicMetrics(String topicKey) {
+        this.topicKey = topicKey;
+    }
+
+    void recordSerialization(long durationNanos) {
+        serializationLatency.record(durationNanos);
+    }
+
+    void recordPublish(int payloadSize, long durationNanos) {
+        publishedMessages.increment();
+        publishedBytes.add(payloadSize);
+        publishLatency.record(durationNanos);
+    }
+
+    void recordPublishAck(long durationNanos) {
+        ackLatency.record(durationNanos);
+    }
+
+    void recordPublishFailure() {
+        publishFailures.increment();
+    }
+
+    void recordDuplicateSuppressed() {
+        suppressedDuplicates.increment();
+    }
+
+    void recordActionDispatch(long durationNanos) {
+        actionDispatchLatency.record(durationNanos);
+    }
+
+    void recordActionFailure() {
+        actionFailures.increment();
+    }
+
+    @Override
+    public String getTopicKey() {
+        return topicKey;
+    }
+
+    @Override
+    public long getPublishedMessages() {
+        return publishedMessages.sum();
+    }
+
+    @Override
+    public long getPublishedBytes() {
+        return publishedBytes.sum();
+    }
+
+    @Override
+    public long getPublishFailures() {
+        return publishFailures.sum();
+    }
+
+    @Override
+    public long getActionFailures() {
+        return actionFailures.sum();
+    }
+
+    @Override
+    public long getSuppressedDuplicates() {
+        return suppressedDuplicates.sum();
+    }
+
+    @Override
+    public LatencySnapshot getSerializationLatency() {
+        return serializationLatency.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getPublishLatency() {
+        return publishLatency.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getAckLatency() {
+        return ackLatency.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getActionDispatchLatency() {
+        return actionDispatchLatency.snapshot();
+    }
+}
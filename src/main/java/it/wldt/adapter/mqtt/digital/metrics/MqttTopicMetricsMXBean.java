@@ -0,0 +1,29 @@
+package it.wldt.adapter.mqtt.digital.metrics;
+
+/**
+ * JMX view of the measurements collected for a single topic key (property, event or action key).
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public interface MqttTopicMetricsMXBean {
+
+    String getTopicKey();
+
+    long getPublishedMessages();
+
+    long getPublishedBytes();
+
+    long getPublishFailures();
+
+    long getActionFailures();
+
+    long getSuppressedDuplicates();
+
+    LatencySnapshot getSerializationLatency();
+
+    LatencySnapshot getPublishLatency();
+
+    LatencySnapshot getAckLatency();
+
+    LatencySnapshot getActionDispatchLatency();
+}
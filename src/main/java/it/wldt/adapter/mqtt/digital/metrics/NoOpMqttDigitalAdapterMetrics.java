@@ -0,0 +1,18 @@
+package it.wldt.adapter.mqtt.digital.metrics;
+
+/**
+ * Default {@link MqttDigitalAdapterMetrics} implementation discarding every measurement, relying on the no-op
+ * default methods of the interface.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public final class NoOpMqttDigitalAdapterMetrics implements MqttDigitalAdapterMetrics {
+
+    /**
+     * Shared instance
+     */
+    public static final NoOpMqttDigitalAdapterMetrics INSTANCE = new NoOpMqttDigitalAdapterMetrics();
+
+    private NoOpMqttDigitalAdapterMetrics() {
+    }
+}
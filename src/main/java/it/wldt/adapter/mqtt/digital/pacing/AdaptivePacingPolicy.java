@@ -0,0 +1,141 @@
+package it.wldt.adapter.mqtt.digital.pacing;
+
+/**
+ * Policy of the adaptive pacing of the messages published by the MQTT Digital Adapter. Instances are created through
+ * the {@link AdaptivePacingPolicyBuilder}.
+ * <p>
+ * Publications are spaced according to a rate limit adjusted by an AIMD (additive increase, multiplicative decrease)
+ * controller: at the end of each adjustment interval, if the average acknowledgement round trip time exceeded the
+ * target or the failure rate exceeded the maximum, the limit is multiplied by the decrease factor, otherwise, if the
+ * limit actually delayed some publication, it is increased by the additive increase. The limit always stays within
+ * the configured bounds.
+ *
+ * <ul>
+ *   <li>{@code initialRate}: rate limit when the adapter starts, in messages per second (default 1000)</li>
+ *   <li>{@code minRate} and {@code maxRate}: bounds of the rate limit (default 10 and 10000)</li>
+ *   <li>{@code additiveIncrease}: messages per second added to the limit after a healthy interval (default 50)</li>
+ *   <li>{@code decreaseFactor}: factor applied to the limit after a congested interval (default 0.5)</li>
+ *   <li>{@code targetAckRttMs}: average acknowledgement round trip time above which the broker is congested (default 100 ms)</li>
+ *   <li>{@code maxFailureRate}: ratio of failed publications above which the broker is congested (default 0.01)</li>
+ *   <li>{@code adjustmentIntervalMs}: interval between two adjustments of the limit (default 1 s)</li>
+ * </ul>
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class AdaptivePacingPolicy {
+
+    private double initialRate = 1000;
+
+    private double minRate = 10;
+
+    private double maxRate = 10000;
+
+    private double additiveIncrease = 50;
+
+    private double decreaseFactor = 0.5;
+
+    private long targetAckRttMs = 100;
+
+    private double maxFailureRate = 0.01;
+
+    private long adjustmentIntervalMs = 1000;
+
+    protected AdaptivePacingPolicy() {
+    }
+
+    /**
+     * Creates a builder for the adaptive pacing policy, initialized with the default values.
+     *
+     * @return A builder instance.
+     */
+    public static AdaptivePacingPolicyBuilder builder() {
+        return new AdaptivePacingPolicyBuilder();
+    }
+
+    /**
+     * Creates the default adaptive pacing policy.
+     *
+     * @return The default policy.
+     */
+    public static AdaptivePacingPolicy defaultPolicy() {
+        return new AdaptivePacingPolicy();
+    }
+
+    public double getInitialRate() {
+        return initialRate;
+    }
+
+    public double getMinRate() {
+        return minRate;
+    }
+
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    public double getAdditiveIncrease() {
+        return additiveIncrease;
+    }
+
+    public double getDecreaseFactor() {
+        return decreaseFactor;
+    }
+
+    public long getTargetAckRttMs() {
+        return targetAckRttMs;
+    }
+
+    public double getMaxFailureRate() {
+        return maxFailureRate;
+    }
+
+    public long getAdjustmentIntervalMs() {
+        return adjustmentIntervalMs;
+    }
+
+    protected void setInitialRate(double initialRate) {
+        this.initialRate = initialRate;
+    }
+
+    protected void setMinRate(double minRate) {
+        this.minRate = minRate;
+    }
+
+    protected void setMaxRate(double maxRate) {
+        this.maxRate = maxRate;
+    }
+
+    protected void setAdditiveIncrease(double additiveIncrease) {
+        this.additiveIncrease = additiveIncrease;
+    }
+
+    protected void setDecreaseFactor(double decreaseFactor) {
+        this.decreaseFactor = decreaseFactor;
+    }
+
+    protected void setTargetAckRttMs(long targetAckRttMs) {
+        this.targetAckRttMs = targetAckRttMs;
+    }
+
+    protected void setMaxFailureRate(double maxFailureRate) {
+        this.maxFailureRate = maxFailureRate;
+    }
+
+    protected void setAdjustmentIntervalMs(long adjustmentIntervalMs) {
+        this.adjustmentIntervalMs = adjustmentIntervalMs;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptivePacingPolicy{" +
+                "initialRate=" + initialRate +
+                ", minRate=" + minRate +
+                ", maxRate=" + maxRate +
+                ", additiveIncrease=" + additiveIncrease +
+                ", decreaseFactor=" + decreaseFactor +
+                ", targetAckRttMs=" + targetAckRttMs +
+                ", maxFailureRate=" + maxFailureRate +
+                ", adjustmentIntervalMs=" + adjustmentIntervalMs +
+                '}';
+    }
+}
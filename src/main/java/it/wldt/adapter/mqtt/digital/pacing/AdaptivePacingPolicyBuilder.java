@@ -0,0 +1,105 @@
+package it.wldt.adapter.mqtt.digital.pacing;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+
+/**
+ * Fluent builder of {@link AdaptivePacingPolicy} instances.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class AdaptivePacingPolicyBuilder {
+
+    private final AdaptivePacingPolicy policy = new AdaptivePacingPolicy();
+
+    /**
+     * Sets the bounds of the rate limit and its initial value.
+     *
+     * @param minRate The minimum rate limit in messages per second. Must be a positive number.
+     * @param initialRate The initial rate limit in messages per second. Must be within the bounds.
+     * @param maxRate The maximum rate limit in messages per second. Must not be lower than the minimum.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the minimum is not positive or the rates are not ordered.
+     */
+    public AdaptivePacingPolicyBuilder setRates(double minRate, double initialRate, double maxRate) throws MqttDigitalAdapterConfigurationException {
+        if(!(minRate > 0)) throw new MqttDigitalAdapterConfigurationException("Min Rate must be a positive number");
+        if(!(minRate <= initialRate && initialRate <= maxRate)) throw new MqttDigitalAdapterConfigurationException("Initial Rate must be between Min Rate and Max Rate");
+        policy.setMinRate(minRate);
+        policy.setInitialRate(initialRate);
+        policy.setMaxRate(maxRate);
+        return this;
+    }
+
+    /**
+     * Sets the messages per second added to the rate limit after a healthy adjustment interval.
+     *
+     * @param additiveIncrease The additive increase. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the increase is not a positive number.
+     */
+    public AdaptivePacingPolicyBuilder setAdditiveIncrease(double additiveIncrease) throws MqttDigitalAdapterConfigurationException {
+        if(!(additiveIncrease > 0)) throw new MqttDigitalAdapterConfigurationException("Additive Increase must be a positive number");
+        policy.setAdditiveIncrease(additiveIncrease);
+        return this;
+    }
+
+    /**
+     * Sets the factor applied to the rate limit after a congested adjustment interval.
+     *
+     * @param decreaseFactor The multiplicative decrease factor. Must be greater than 0 and lower than 1.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the factor is not in (0, 1).
+     */
+    public AdaptivePacingPolicyBuilder setDecreaseFactor(double decreaseFactor) throws MqttDigitalAdapterConfigurationException {
+        if(!(decreaseFactor > 0 && decreaseFactor < 1)) throw new MqttDigitalAdapterConfigurationException("Decrease Factor must be greater than 0 and lower than 1");
+        policy.setDecreaseFactor(decreaseFactor);
+        return this;
+    }
+
+    /**
+     * Sets the average acknowledgement round trip time above which the broker is considered congested.
+     *
+     * @param targetAckRttMs The target round trip time in milliseconds. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the round trip time is not a positive number.
+     */
+    public AdaptivePacingPolicyBuilder setTargetAckRttMs(long targetAckRttMs) throws MqttDigitalAdapterConfigurationException {
+        if(targetAckRttMs <= 0) throw new MqttDigitalAdapterConfigurationException("Target Ack RTT must be a positive number");
+        policy.setTargetAckRttMs(targetAckRttMs);
+        return this;
+    }
+
+    /**
+     * Sets the ratio of failed publications above which the broker is considered congested.
+     *
+     * @param maxFailureRate The maximum failure rate, between 0 and 1.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the rate is not between 0 and 1.
+     */
+    public AdaptivePacingPolicyBuilder setMaxFailureRate(double maxFailureRate) throws MqttDigitalAdapterConfigurationException {
+        if(!(maxFailureRate >= 0 && maxFailureRate <= 1)) throw new MqttDigitalAdapterConfigurationException("Max Failure Rate must be between 0 and 1");
+        policy.setMaxFailureRate(maxFailureRate);
+        return this;
+    }
+
+    /**
+     * Sets the interval between two adjustments of the rate limit.
+     *
+     * @param adjustmentIntervalMs The adjustment interval in milliseconds. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the interval is not a positive number.
+     */
+    public AdaptivePacingPolicyBuilder setAdjustmentIntervalMs(long adjustmentIntervalMs) throws MqttDigitalAdapterConfigurationException {
+        if(adjustmentIntervalMs <= 0) throw new MqttDigitalAdapterConfigurationException("Adjustment Interval must be a positive number");
+        policy.setAdjustmentIntervalMs(adjustmentIntervalMs);
+        return this;
+    }
+
+    /**
+     * Builds the adaptive pacing policy.
+     *
+     * @return The adaptive pacing policy.
+     */
+    public AdaptivePacingPolicy build() {
+        return policy;
+    }
+}
@@ -0,0 +1,137 @@
+package it.wldt.adapter.mqtt.digital.pacing;
+
+import it.wldt.adapter.mqtt.digital.metrics.MqttDigitalAdapterMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces the messages published by the MQTT Digital Adapter according to an {@link AdaptivePacingPolicy}.
+ * <p>
+ * Each publication reserves the next slot of the current rate limit and the publishing thread waits until its slot,
+ * so the limit applies across all the publishing threads. Acknowledgements and failures are accumulated over the
+ * adjustment interval; the first one received after the end of the interval adjusts the limit (AIMD) and reports the
+ * controller state to the metrics.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class AdaptivePublishPacer {
+
+    private final AdaptivePacingPolicy policy;
+
+    private final MqttDigitalAdapterMetrics metrics;
+
+    private final long adjustmentIntervalNanos;
+
+    private final long targetAckRttNanos;
+
+    // Guarded by this
+    private double rateLimit;
+
+    private long slotNanos;
+
+    private long nextSlot;
+
+    private long intervalStart;
+
+    private long acks;
+
+    private long failures;
+
+    private long ackRttSum;
+
+    private boolean limited;
+
+    /**
+     * Constructs a pacer starting at the initial rate of the policy.
+     *
+     * @param policy The adaptive pacing policy.
+     * @param metrics The metrics receiving the controller state.
+     */
+    public AdaptivePublishPacer(AdaptivePacingPolicy policy, MqttDigitalAdapterMetrics metrics) {
+        this.policy = policy;
+        this.metrics = metrics;
+        this.adjustmentIntervalNanos = TimeUnit.MILLISECONDS.toNanos(policy.getAdjustmentIntervalMs());
+        this.targetAckRttNanos = TimeUnit.MILLISECONDS.toNanos(policy.getTargetAckRttMs());
+        this.intervalStart = System.nanoTime();
+        this.nextSlot = intervalStart;
+        setRateLimit(policy.getInitialRate());
+        metrics.recordPacingAdjustment(rateLimit, rateLimit, 0, 0);
+    }
+
+    /**
+     * Waits for the next publication slot. If the thread is interrupted while waiting, it returns immediately with
+     * the interrupt flag set.
+     */
+    public void acquire() {
+        long delay;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSlot);
+            nextSlot = slot + slotNanos;
+            delay = slot - now;
+            if (delay > 0)
+                limited = true;
+        }
+        if (delay > 0) {
+            metrics.recordPacingDelay(delay);
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Records the acknowledgement of a publication.
+     *
+     * @param ackRttNanos The time elapsed between the publication and its acknowledgement in nanoseconds.
+     */
+    public synchronized void onAck(long ackRttNanos) {
+        acks++;
+        ackRttSum += ackRttNanos;
+        adjustIfIntervalElapsed();
+    }
+
+    /**
+     * Records a failed publication.
+     */
+    public synchronized void onFailure() {
+        failures++;
+        adjustIfIntervalElapsed();
+    }
+
+    /**
+     * Gets the current rate limit.
+     *
+     * @return The rate limit in messages per second.
+     */
+    public synchronized double getRateLimit() {
+        return rateLimit;
+    }
+
+    private void adjustIfIntervalElapsed() {
+        long now = System.nanoTime();
+        if (now - intervalStart < adjustmentIntervalNanos)
+            return;
+        long avgAckRtt = acks == 0 ? 0 : ackRttSum / acks;
+        double failureRate = (double) failures / (acks + failures);
+        double previousRateLimit = rateLimit;
+        if (avgAckRtt > targetAckRttNanos || failureRate > policy.getMaxFailureRate())
+            setRateLimit(Math.max(policy.getMinRate(), rateLimit * policy.getDecreaseFactor()));
+        else if (limited)
+            // The limit is raised only if it is actually slowing down the publications
+            setRateLimit(Math.min(policy.getMaxRate(), rateLimit + policy.getAdditiveIncrease()));
+        metrics.recordPacingAdjustment(previousRateLimit, rateLimit, avgAckRtt, failureRate);
+        intervalStart = now;
+        acks = 0;
+        failures = 0;
+        ackRttSum = 0;
+        limited = false;
+    }
+
+    private void setRateLimit(double rateLimit) {
+        this.rateLimit = rateLimit;
+        this.slotNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rateLimit);
+    }
+}
@@ -0,0 +1,52 @@
+package it.wldt.adapter.mqtt.digital.reconnect;
+
+import it.wldt.adapter.mqtt.digital.cache.PublishedPayloadCache;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.DigitalTwinOutgoingTopic;
+
+/**
+ * Publication requested while the MQTT Digital Adapter is disconnected from the broker, buffered by the
+ * {@link ReconnectManager} and replayed once reconnected.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class BufferedPublication {
+
+    private final String topicKey;
+
+    private final DigitalTwinOutgoingTopic<?> topic;
+
+    private final String payload;
+
+    private final PublishedPayloadCache payloadCache;
+
+    /**
+     * Constructs a buffered publication.
+     *
+     * @param topicKey The key (property or event key) associated with the outgoing topic.
+     * @param topic The outgoing topic.
+     * @param payload The serialized payload.
+     * @param payloadCache The cache of the published payloads of the topic, or null.
+     */
+    public BufferedPublication(String topicKey, DigitalTwinOutgoingTopic<?> topic, String payload, PublishedPayloadCache payloadCache) {
+        this.topicKey = topicKey;
+        this.topic = topic;
+        this.payload = payload;
+        this.payloadCache = payloadCache;
+    }
+
+    public String getTopicKey() {
+        return topicKey;
+    }
+
+    public DigitalTwinOutgoingTopic<?> getTopic() {
+        return topic;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public PublishedPayloadCache getPayloadCache() {
+        return payloadCache;
+    }
+}
@@ -0,0 +1,462 @@
+package it.wldt.adapter.mqtt.digital.reconnect;
+
+import it.wldt.adapter.mqtt.digital.cache.PublishedPayloadCache;
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterMessageListener;
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterClientException;
+import it.wldt.adapter.mqtt.digital.metrics.MqttDigitalAdapterMetrics;
+import it.wldt.adapter.mqtt.digital.routing.SubscriptionDiff;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.DigitalTwinOutgoingTopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Reconnects an MQTT Digital Adapter to the broker according to a {@link ReconnectPolicy}.
+ * <p>
+ * When the connection is lost (or cannot be established at startup) the attempts are scheduled on a dedicated thread
+ * with an exponential backoff and full jitter. The publications requested in the meantime are buffered in a
+ * {@link ResumptionBacklog}. Once reconnected, the incoming topics are subscribed again in batches and the backlog is
+ * replayed, both rate limited by the warm-up ramp of the policy. New publications keep being buffered until the
+ * backlog is drained, preserving their order.
+ * <p>
+ * The changes of the incoming topics requested while disconnected or resuming are applied by the manager: when the
+ * broker resumed the session, only the difference between the topics subscribed in the session and the current ones
+ * is unsubscribed and subscribed, otherwise all the current topics are subscribed. The topics changed while resuming
+ * are updated before the next publication of the backlog. The subscriptions that fail are retried with the backoff of
+ * the policy once the backlog is replayed, the manager applying the changes of the incoming topics until they succeed.
+ * <p>
+ * The manager reconnects only between {@link #start()} and {@link #stop()}, and it can be started again after being
+ * stopped, e.g. when the adapter is restarted with its DT.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class ReconnectManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconnectManager.class);
+
+    /**
+     * Operations performed by the manager on the MQTT client of the adapter
+     */
+    public interface ResumptionHandler {
+
+        /**
+         * Connects the MQTT client to the broker.
+         *
+         * @return True if the broker resumed the session, i.e. the subscriptions are still active.
+         * @throws MqttDigitalAdapterClientException If the connection cannot be established.
+         */
+        boolean connect() throws MqttDigitalAdapterClientException;
+
+        /**
+         * Subscribes the MQTT client to a batch of incoming topics.
+         *
+         * @param subscriptions The listeners by incoming topic.
+         * @throws MqttDigitalAdapterClientException If the subscription fails.
+         */
+        void subscribe(Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) throws MqttDigitalAdapterClientException;
+
+        /**
+         * Unsubscribes the MQTT client from incoming topics.
+         *
+         * @param topics The incoming topics.
+         * @throws MqttDigitalAdapterClientException If the unsubscription fails.
+         */
+        void unsubscribe(Collection<MqttTopic> topics) throws MqttDigitalAdapterClientException;
+
+        /**
+         * Publishes a buffered publication.
+         *
+         * @param publication The publication.
+         */
+        void publish(BufferedPublication publication);
+
+        /**
+         * Notifies that the manager gave up reconnecting after the maximum number of attempts.
+         *
+         * @param attempts The number of failed attempts.
+         */
+        void onReconnectFailed(int attempts);
+    }
+
+    private enum State { CONNECTED, RECONNECTING, RESUMING, STOPPED }
+
+    private final String name;
+
+    private final ReconnectPolicy policy;
+
+    private final MqttDigitalAdapterMetrics metrics;
+
+    private final ResumptionHandler handler;
+
+    // Created by each start, guarded by lock
+    private ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+
+    // Guarded by lock, read without it on the publish path
+    private volatile State state = State.STOPPED;
+
+    // Guarded by lock
+    private final ResumptionBacklog backlog;
+
+    // Guarded by lock, the incoming topics to subscribe
+    private Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions = Collections.emptyMap();
+
+    // Guarded by lock, the incoming topics subscribed in the broker session
+    private Map<MqttTopic, MqttDigitalAdapterMessageListener> sessionSubscriptions = Collections.emptyMap();
+
+    // Guarded by lock, true while connected with subscriptions to retry
+    private boolean subscriptionRetryPending = false;
+
+    // Accessed only by the executor thread
+    private int attempts;
+
+    private long disconnectedAt;
+
+    /**
+     * Constructs a {@code ReconnectManager}.
+     *
+     * @param name The name of the reconnection thread, e.g. the adapter id.
+     * @param policy The reconnect policy.
+     * @param metrics The metrics of the adapter.
+     * @param handler The operations on the MQTT client of the adapter.
+     */
+    public ReconnectManager(String name, ReconnectPolicy policy, MqttDigitalAdapterMetrics metrics, ResumptionHandler handler) {
+        this.name = name;
+        this.policy = policy;
+        this.metrics = metrics;
+        this.handler = handler;
+        this.backlog = new ResumptionBacklog(policy.getBacklogCapacity());
+    }
+
+    /**
+     * Starts the manager, assuming the adapter is connecting or connected, with a new reconnection thread.
+     */
+    public void start() {
+        synchronized (lock) {
+            if (state != State.STOPPED)
+                return;
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "mqtt-digital-adapter-reconnect-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            state = State.CONNECTED;
+        }
+    }
+
+    /**
+     * Sets the incoming topics to subscribe, subscribed by the manager if disconnected or resuming.
+     *
+     * @param subscriptions The listeners by incoming topic, not modified afterwards.
+     * @return True if the manager applies the change, once reconnected or with the failed subscriptions it retries,
+     * false if the adapter has to apply it.
+     */
+    public boolean setSubscriptions(Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) {
+        synchronized (lock) {
+            this.subscriptions = subscriptions;
+            return state == State.RECONNECTING || state == State.RESUMING || subscriptionRetryPending;
+        }
+    }
+
+    /**
+     * Sets the incoming topics subscribed by the adapter in the broker session while connected, i.e. the topics still
+     * subscribed if the session is resumed after a reconnection.
+     *
+     * @param sessionSubscriptions The listeners by incoming topic, not modified afterwards.
+     */
+    public void setSessionSubscriptions(Map<MqttTopic, MqttDigitalAdapterMessageListener> sessionSubscriptions) {
+        synchronized (lock) {
+            // While reconnecting or retrying the subscriptions of the session are tracked by the manager
+            if (state == State.CONNECTED && !subscriptionRetryPending)
+                this.sessionSubscriptions = sessionSubscriptions;
+        }
+    }
+
+    /**
+     * Handles the loss of the connection with the broker, starting the reconnection.
+     *
+     * @param cause The cause of the connection loss, or null.
+     */
+    public void onConnectionLost(Throwable cause) {
+        if (startReconnection()) {
+            metrics.recordConnectionLost();
+            logger.warn("MQTT Digital Adapter {} - connection lost: {}", name, cause != null ? cause.getLocalizedMessage() : "unknown cause");
+        }
+    }
+
+    /**
+     * Handles a failed connection at startup, starting the reconnection.
+     */
+    public void onConnectFailed() {
+        startReconnection();
+    }
+
+    /**
+     * Buffers a publication if the adapter is disconnected or still resuming after a reconnection.
+     *
+     * @param topicKey The key (property or event key) associated with the outgoing topic.
+     * @param topic The outgoing topic.
+     * @param payload The serialized payload.
+     * @param payloadCache The cache of the published payloads of the topic, or null.
+     * @param latestOnly True if the publication replaces the buffered one of the same topic (properties).
+     * @return True if the publication has been buffered, false if it has to be published directly.
+     */
+    public boolean buffer(String topicKey, DigitalTwinOutgoingTopic<?> topic, String payload, PublishedPayloadCache payloadCache, boolean latestOnly) {
+        if (state == State.CONNECTED)
+            return false;
+        synchronized (lock) {
+            if (state == State.CONNECTED || state == State.STOPPED)
+                return false;
+            if (backlog.add(new BufferedPublication(topicKey, topic, payload, payloadCache), latestOnly) != null)
+                metrics.recordBacklogDropped();
+            return true;
+        }
+    }
+
+    /**
+     * Stops reconnecting and discards the buffered publications, until the manager is started again.
+     */
+    public void stop() {
+        ScheduledExecutorService stoppedExecutor;
+        synchronized (lock) {
+            state = State.STOPPED;
+            backlog.clear();
+            sessionSubscriptions = Collections.emptyMap();
+            subscriptionRetryPending = false;
+            stoppedExecutor = executor;
+            executor = null;
+        }
+        if (stoppedExecutor != null)
+            stoppedExecutor.shutdownNow();
+    }
+
+    private boolean startReconnection() {
+        ScheduledExecutorService reconnectionExecutor;
+        synchronized (lock) {
+            if (state == State.RECONNECTING || state == State.STOPPED)
+                return false;
+            state = State.RECONNECTING;
+            // The resumption subscribes the topics still to retry
+            subscriptionRetryPending = false;
+            reconnectionExecutor = executor;
+        }
+        reconnectionExecutor.execute(() -> {
+            attempts = 0;
+            disconnectedAt = System.nanoTime();
+            scheduleAttempt();
+        });
+        return true;
+    }
+
+    private void scheduleAttempt() {
+        attempts++;
+        long delayMs = policy.getDelayMillis(attempts);
+        logger.info("MQTT Digital Adapter {} - reconnection attempt {} in {} ms", name, attempts, delayMs);
+        synchronized (lock) {
+            if (state == State.RECONNECTING)
+                executor.schedule(this::attempt, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void attempt() {
+        if (state != State.RECONNECTING)
+            return;
+        boolean sessionPresent;
+        try {
+            sessionPresent = handler.connect();
+        } catch (MqttDigitalAdapterClientException e) {
+            if (policy.getMaxAttempts() != ReconnectPolicy.UNLIMITED_ATTEMPTS && attempts >= policy.getMaxAttempts()) {
+                logger.error("MQTT Digital Adapter {} - giving up reconnecting after {} attempts", name, attempts);
+                synchronized (lock) {
+                    state = State.STOPPED;
+                    backlog.clear();
+                }
+                handler.onReconnectFailed(attempts);
+            }
+            else
+                scheduleAttempt();
+            return;
+        }
+        synchronized (lock) {
+            if (state != State.RECONNECTING)
+                return;
+            state = State.RESUMING;
+        }
+        metrics.recordReconnect(attempts, System.nanoTime() - disconnectedAt);
+        try {
+            resume(sessionPresent);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void resume(boolean sessionPresent) throws InterruptedException {
+        long resumeStart = System.nanoTime();
+        ResumptionRateLimiter rateLimiter = new ResumptionRateLimiter(policy);
+        Map<MqttTopic, MqttDigitalAdapterMessageListener> session;
+        synchronized (lock) {
+            session = sessionPresent ? sessionSubscriptions : Collections.emptyMap();
+        }
+        Map<MqttTopic, MqttDigitalAdapterMessageListener> subscribed = null;
+        int replayed = 0;
+        while (true) {
+            Map<MqttTopic, MqttDigitalAdapterMessageListener> changedSubscriptions = null;
+            BufferedPublication publication = null;
+            synchronized (lock) {
+                if (state != State.RESUMING)
+                    return;
+                if (subscriptions != subscribed)
+                    changedSubscriptions = subscriptions;
+                else {
+                    publication = backlog.poll();
+                    if (publication == null) {
+                        // From now on publications and subscription changes are performed directly, unless some
+                        // subscriptions failed and are retried
+                        sessionSubscriptions = session;
+                        state = State.CONNECTED;
+                        if (!SubscriptionDiff.between(session.keySet(), subscriptions.keySet()).isEmpty()) {
+                            subscriptionRetryPending = true;
+                            scheduleSubscriptionRetry(1);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (changedSubscriptions != null) {
+                session = updateSubscriptions(rateLimiter, State.RESUMING, session, changedSubscriptions);
+                if (session == null)
+                    return;
+                subscribed = changedSubscriptions;
+            }
+            else {
+                rateLimiter.acquire();
+                handler.publish(publication);
+                replayed++;
+            }
+        }
+        metrics.recordResumption(replayed, System.nanoTime() - resumeStart);
+        logger.info("MQTT Digital Adapter {} - resumed after {} attempts, session present: {}, replayed publications: {}", name, attempts, sessionPresent, replayed);
+    }
+
+    /**
+     * Schedules a retry of the failed subscriptions, with the backoff of the policy.
+     *
+     * @param retry The retry number, starting from 1.
+     */
+    private void scheduleSubscriptionRetry(int retry) {
+        long delayMs = policy.getDelayMillis(retry);
+        logger.warn("MQTT Digital Adapter {} - incoming topics not subscribed, retry {} in {} ms", name, retry, delayMs);
+        executor.schedule(() -> retrySubscriptions(retry), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies the difference between the topics subscribed in the session and the current ones while connected,
+     * scheduling a new retry until all the subscriptions succeed.
+     *
+     * @param retry The retry number, starting from 1.
+     */
+    private void retrySubscriptions(int retry) {
+        Map<MqttTopic, MqttDigitalAdapterMessageListener> session;
+        Map<MqttTopic, MqttDigitalAdapterMessageListener> target;
+        synchronized (lock) {
+            if (state != State.CONNECTED || !subscriptionRetryPending)
+                return;
+            session = sessionSubscriptions;
+            target = subscriptions;
+        }
+        Map<MqttTopic, MqttDigitalAdapterMessageListener> updated;
+        try {
+            updated = updateSubscriptions(null, State.CONNECTED, session, target);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        synchronized (lock) {
+            // Stopped, or reconnecting and resuming the subscriptions from scratch
+            if (updated == null || state != State.CONNECTED || !subscriptionRetryPending)
+                return;
+            sessionSubscriptions = updated;
+            if (SubscriptionDiff.between(updated.keySet(), subscriptions.keySet()).isEmpty()) {
+                subscriptionRetryPending = false;
+                logger.info("MQTT Digital Adapter {} - incoming topics subscribed after {} retries", name, retry);
+            }
+            // Topics changed since the retry are applied right away, failed ones after the next backoff
+            else if (target != subscriptions && SubscriptionDiff.between(updated.keySet(), target.keySet()).isEmpty())
+                executor.execute(() -> retrySubscriptions(retry));
+            else
+                scheduleSubscriptionRetry(retry + 1);
+        }
+    }
+
+    /**
+     * Unsubscribes the topics of the session no longer subscribed and subscribes the new ones in batches. The topics
+     * whose subscription fails are left out of the returned session, the ones whose unsubscription fails are kept.
+     *
+     * @param rateLimiter The rate limiter of the resumption, or null if not rate limited.
+     * @param expectedState The state of the manager, the update being interrupted when it changes.
+     * @param session The topics subscribed in the broker session.
+     * @param subscriptions The topics to subscribe.
+     * @return The topics subscribed in the broker session once updated, or null if the state of the manager changed.
+     * @throws InterruptedException If interrupted while rate limited.
+     */
+    private Map<MqttTopic, MqttDigitalAdapterMessageListener> updateSubscriptions(ResumptionRateLimiter rateLimiter, State expectedState,
+                                                                                  Map<MqttTopic, MqttDigitalAdapterMessageListener> session,
+                                                                                  Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) throws InterruptedException {
+        SubscriptionDiff<MqttTopic> diff = SubscriptionDiff.between(session.keySet(), subscriptions.keySet());
+        Map<MqttTopic, MqttDigitalAdapterMessageListener> updated = new LinkedHashMap<>(session);
+        if (!diff.getUnsubscribed().isEmpty()) {
+            if (rateLimiter != null)
+                rateLimiter.acquire();
+            if (state != expectedState)
+                return null;
+            try {
+                handler.unsubscribe(diff.getUnsubscribed());
+                updated.keySet().removeAll(diff.getUnsubscribed());
+            } catch (MqttDigitalAdapterClientException e) {
+                logger.error("MQTT Digital Adapter {} - error unsubscribing from {} topics: {}", name, diff.getUnsubscribed().size(), e.getLocalizedMessage());
+            }
+        }
+        List<MqttTopic> topics = diff.getSubscribed();
+        Map<MqttTopic, MqttDigitalAdapterMessageListener> batch = new LinkedHashMap<>();
+        for (int i = 0; i < topics.size(); i++) {
+            batch.put(topics.get(i), subscriptions.get(topics.get(i)));
+            if (batch.size() == policy.getResubscribeBatchSize() || i == topics.size() - 1) {
+                if (!resubscribe(rateLimiter, expectedState, batch))
+                    return null;
+                // A topic subscribed with a different QoS level replaces the session topic with the same filter
+                Set<String> filters = batch.keySet().stream().map(MqttTopic::getTopic).collect(Collectors.toSet());
+                updated.keySet().removeIf(topic -> filters.contains(topic.getTopic()));
+                updated.putAll(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        return updated;
+    }
+
+    private boolean resubscribe(ResumptionRateLimiter rateLimiter, State expectedState, Map<MqttTopic, MqttDigitalAdapterMessageListener> batch) throws InterruptedException {
+        if (rateLimiter != null)
+            rateLimiter.acquire();
+        if (state != expectedState)
+            return false;
+        try {
+            handler.subscribe(batch);
+        } catch (MqttDigitalAdapterClientException e) {
+            logger.error("MQTT Digital Adapter {} - error subscribing again to {} topics: {}", name, batch.size(), e.getLocalizedMessage());
+            // Not subscribed in the session, so retried once the backlog is replayed
+            batch.clear();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,187 @@
+package it.wldt.adapter.mqtt.digital.reconnect;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Policy controlling how the MQTT Digital Adapter reconnects to the broker after a connection loss and how it resumes
+ * its traffic once reconnected. Instances are created through the {@link ReconnectPolicyBuilder}.
+ * <p>
+ * Reconnection attempts are delayed by an exponential backoff with full jitter: the delay of the n-th attempt is drawn
+ * uniformly in {@code [0, min(maxDelayMs, initialDelayMs * multiplier^(n-1))]}, so that the adapters disconnected by
+ * the same broker restart spread their reconnections instead of reconnecting in lockstep. Once reconnected, the
+ * resubscription and the replay of the publications buffered while disconnected follow a warm-up ramp: the allowed
+ * rate grows linearly from {@code warmupInitialRate} to {@code resumeRate} operations per second during
+ * {@code warmupDurationMs}.
+ *
+ * <ul>
+ *   <li>{@code initialDelayMs}: upper bound of the delay of the first attempt (default 1 s)</li>
+ *   <li>{@code maxDelayMs}: maximum upper bound of the delay of an attempt (default 60 s)</li>
+ *   <li>{@code multiplier}: growth factor of the delay upper bound at each failed attempt (default 2)</li>
+ *   <li>{@code maxAttempts}: attempts after which the adapter gives up reconnecting (default 0, unlimited)</li>
+ *   <li>{@code warmupDurationMs}: duration of the resumption warm-up ramp (default 10 s, 0 disables the ramp)</li>
+ *   <li>{@code warmupInitialRate}: operations per second allowed when the warm-up starts (default 10)</li>
+ *   <li>{@code resumeRate}: operations per second allowed at the end of the warm-up (default 500)</li>
+ *   <li>{@code resubscribeBatchSize}: maximum number of topics of a single resubscription operation (default 50)</li>
+ *   <li>{@code backlogCapacity}: maximum number of event publications buffered while disconnected (default 1000)</li>
+ * </ul>
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class ReconnectPolicy {
+
+    /**
+     * Value of {@code maxAttempts} retrying forever
+     */
+    public static final int UNLIMITED_ATTEMPTS = 0;
+
+    private long initialDelayMs = 1000;
+
+    private long maxDelayMs = 60000;
+
+    private double multiplier = 2.0;
+
+    private int maxAttempts = UNLIMITED_ATTEMPTS;
+
+    private long warmupDurationMs = 10000;
+
+    private double warmupInitialRate = 10;
+
+    private double resumeRate = 500;
+
+    private int resubscribeBatchSize = 50;
+
+    private int backlogCapacity = 1000;
+
+    protected ReconnectPolicy() {
+    }
+
+    /**
+     * Creates a builder for the reconnect policy, initialized with the default values.
+     *
+     * @return A builder instance.
+     */
+    public static ReconnectPolicyBuilder builder() {
+        return new ReconnectPolicyBuilder();
+    }
+
+    /**
+     * Creates the default reconnect policy.
+     *
+     * @return The default policy.
+     */
+    public static ReconnectPolicy defaultPolicy() {
+        return new ReconnectPolicy();
+    }
+
+    /**
+     * Computes the delay of a reconnection attempt, drawing it uniformly between 0 and the exponential backoff
+     * bound of the attempt (full jitter).
+     *
+     * @param attempt The attempt number, starting from 1.
+     * @return The delay in milliseconds.
+     */
+    public long getDelayMillis(int attempt) {
+        double bound = initialDelayMs * Math.pow(multiplier, Math.max(0, attempt - 1));
+        long cappedBound = (long) Math.min(maxDelayMs, bound);
+        return cappedBound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cappedBound + 1);
+    }
+
+    /**
+     * Computes the operations per second allowed by the warm-up ramp.
+     *
+     * @param elapsedMs The time elapsed since the reconnection in milliseconds.
+     * @return The allowed rate.
+     */
+    public double getResumeRate(long elapsedMs) {
+        if (elapsedMs >= warmupDurationMs)
+            return resumeRate;
+        return warmupInitialRate + (resumeRate - warmupInitialRate) * elapsedMs / warmupDurationMs;
+    }
+
+    public long getInitialDelayMs() {
+        return initialDelayMs;
+    }
+
+    public long getMaxDelayMs() {
+        return maxDelayMs;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getWarmupDurationMs() {
+        return warmupDurationMs;
+    }
+
+    public double getWarmupInitialRate() {
+        return warmupInitialRate;
+    }
+
+    public double getResumeRate() {
+        return resumeRate;
+    }
+
+    public int getResubscribeBatchSize() {
+        return resubscribeBatchSize;
+    }
+
+    public int getBacklogCapacity() {
+        return backlogCapacity;
+    }
+
+    protected void setInitialDelayMs(long initialDelayMs) {
+        this.initialDelayMs = initialDelayMs;
+    }
+
+    protected void setMaxDelayMs(long maxDelayMs) {
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    protected void setMultiplier(double multiplier) {
+        this.multiplier = multiplier;
+    }
+
+    protected void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    protected void setWarmupDurationMs(long warmupDurationMs) {
+        this.warmupDurationMs = warmupDurationMs;
+    }
+
+    protected void setWarmupInitialRate(double warmupInitialRate) {
+        this.warmupInitialRate = warmupInitialRate;
+    }
+
+    protected void setResumeRate(double resumeRate) {
+        this.resumeRate = resumeRate;
+    }
+
+    protected void setResubscribeBatchSize(int resubscribeBatchSize) {
+        this.resubscribeBatchSize = resubscribeBatchSize;
+    }
+
+    protected void setBacklogCapacity(int backlogCapacity) {
+        this.backlogCapacity = backlogCapacity;
+    }
+
+    @Override
+    public String toString() {
+        return "ReconnectPolicy{" +
+                "initialDelayMs=" + initialDelayMs +
+                ", maxDelayMs=" + maxDelayMs +
+                ", multiplier=" + multiplier +
+                ", maxAttempts=" + maxAttempts +
+                ", warmupDurationMs=" + warmupDurationMs +
+                ", warmupInitialRate=" + warmupInitialRate +
+                ", resumeRate=" + resumeRate +
+                ", resubscribeBatchSize=" + resubscribeBatchSize +
+                ", backlogCapacity=" + backlogCapacity +
+                '}';
+    }
+}
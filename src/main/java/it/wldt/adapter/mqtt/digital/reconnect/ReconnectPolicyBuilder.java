@@ -0,0 +1,134 @@
+package it.wldt.adapter.mqtt.digital.reconnect;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+
+/**
+ * Fluent builder of {@link ReconnectPolicy} instances.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class ReconnectPolicyBuilder {
+
+    private final ReconnectPolicy policy = new ReconnectPolicy();
+
+    /**
+     * Sets the upper bound of the delay of the first reconnection attempt.
+     *
+     * @param initialDelayMs The initial delay bound in milliseconds. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the delay is not a positive number.
+     */
+    public ReconnectPolicyBuilder setInitialDelayMs(long initialDelayMs) throws MqttDigitalAdapterConfigurationException {
+        if(initialDelayMs <= 0) throw new MqttDigitalAdapterConfigurationException("Initial Delay must be a positive number");
+        policy.setInitialDelayMs(initialDelayMs);
+        return this;
+    }
+
+    /**
+     * Sets the maximum upper bound of the delay of a reconnection attempt.
+     *
+     * @param maxDelayMs The maximum delay bound in milliseconds. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the delay is not a positive number.
+     */
+    public ReconnectPolicyBuilder setMaxDelayMs(long maxDelayMs) throws MqttDigitalAdapterConfigurationException {
+        if(maxDelayMs <= 0) throw new MqttDigitalAdapterConfigurationException("Max Delay must be a positive number");
+        policy.setMaxDelayMs(maxDelayMs);
+        return this;
+    }
+
+    /**
+     * Sets the growth factor of the delay bound at each failed attempt.
+     *
+     * @param multiplier The backoff multiplier. Must be at least 1.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the multiplier is lower than 1.
+     */
+    public ReconnectPolicyBuilder setMultiplier(double multiplier) throws MqttDigitalAdapterConfigurationException {
+        if(!(multiplier >= 1.0)) throw new MqttDigitalAdapterConfigurationException("Multiplier must be at least 1");
+        policy.setMultiplier(multiplier);
+        return this;
+    }
+
+    /**
+     * Sets the number of failed attempts after which the adapter gives up reconnecting.
+     *
+     * @param maxAttempts The maximum number of attempts, {@link ReconnectPolicy#UNLIMITED_ATTEMPTS} to retry forever.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the number is negative.
+     */
+    public ReconnectPolicyBuilder setMaxAttempts(int maxAttempts) throws MqttDigitalAdapterConfigurationException {
+        if(maxAttempts < 0) throw new MqttDigitalAdapterConfigurationException("Max Attempts cannot be negative");
+        policy.setMaxAttempts(maxAttempts);
+        return this;
+    }
+
+    /**
+     * Sets the duration of the warm-up ramp following a reconnection.
+     *
+     * @param warmupDurationMs The warm-up duration in milliseconds, 0 to resume directly at the resume rate.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the duration is negative.
+     */
+    public ReconnectPolicyBuilder setWarmupDurationMs(long warmupDurationMs) throws MqttDigitalAdapterConfigurationException {
+        if(warmupDurationMs < 0) throw new MqttDigitalAdapterConfigurationException("Warm-up Duration cannot be negative");
+        policy.setWarmupDurationMs(warmupDurationMs);
+        return this;
+    }
+
+    /**
+     * Sets the rates of the warm-up ramp: resubscriptions and replayed publications start at {@code warmupInitialRate}
+     * operations per second and linearly reach {@code resumeRate} at the end of the warm-up.
+     *
+     * @param warmupInitialRate The operations per second allowed when the warm-up starts. Must be a positive number.
+     * @param resumeRate The operations per second allowed at the end of the warm-up. Must not be lower than the initial rate.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the rates are not positive or the resume rate is lower than the initial one.
+     */
+    public ReconnectPolicyBuilder setResumeRates(double warmupInitialRate, double resumeRate) throws MqttDigitalAdapterConfigurationException {
+        if(!(warmupInitialRate > 0)) throw new MqttDigitalAdapterConfigurationException("Warm-up Initial Rate must be a positive number");
+        if(!(resumeRate >= warmupInitialRate)) throw new MqttDigitalAdapterConfigurationException("Resume Rate cannot be lower than the Warm-up Initial Rate");
+        policy.setWarmupInitialRate(warmupInitialRate);
+        policy.setResumeRate(resumeRate);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of topics subscribed again by a single resubscription operation.
+     *
+     * @param resubscribeBatchSize The batch size. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the batch size is not a positive number.
+     */
+    public ReconnectPolicyBuilder setResubscribeBatchSize(int resubscribeBatchSize) throws MqttDigitalAdapterConfigurationException {
+        if(resubscribeBatchSize <= 0) throw new MqttDigitalAdapterConfigurationException("Resubscribe Batch Size must be a positive number");
+        policy.setResubscribeBatchSize(resubscribeBatchSize);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of event publications buffered while disconnected. Property publications are not
+     * counted since only the last one of each property is kept.
+     *
+     * @param backlogCapacity The backlog capacity, 0 to drop the events published while disconnected.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the capacity is negative.
+     */
+    public ReconnectPolicyBuilder setBacklogCapacity(int backlogCapacity) throws MqttDigitalAdapterConfigurationException {
+        if(backlogCapacity < 0) throw new MqttDigitalAdapterConfigurationException("Backlog Capacity cannot be negative");
+        policy.setBacklogCapacity(backlogCapacity);
+        return this;
+    }
+
+    /**
+     * Builds the reconnect policy.
+     *
+     * @return The reconnect policy.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the initial delay is greater than the max delay.
+     */
+    public ReconnectPolicy build() throws MqttDigitalAdapterConfigurationException {
+        if(policy.getInitialDelayMs() > policy.getMaxDelayMs())
+            throw new MqttDigitalAdapterConfigurationException("Initial Delay cannot be greater than the Max Delay");
+        return policy;
+    }
+}
@@ -0,0 +1,79 @@
+package it.wldt.adapter.mqtt.digital.reconnect;
+
+import it.wldt.adapter.mqtt.digital.topic.outgoing.DigitalTwinOutgoingTopic;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Publications buffered while disconnected. Only the last publication of each property topic is kept, since it carries
+ * the current value, while event publications are kept in order up to the configured capacity, dropping the oldest
+ * ones. Property publications are replayed first, so that the consumers receive the current state before the events.
+ * Not thread safe, guarded by the {@link ReconnectManager}.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+class ResumptionBacklog {
+
+    // Keyed by topic, since a property may be published on several topics
+    private final Map<DigitalTwinOutgoingTopic<?>, BufferedPublication> latestPublications = new LinkedHashMap<>();
+
+    private final Deque<BufferedPublication> publications = new ArrayDeque<>();
+
+    private final int capacity;
+
+    /**
+     * Constructs an empty backlog.
+     *
+     * @param capacity The maximum number of buffered event publications.
+     */
+    ResumptionBacklog(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds a publication to the backlog.
+     *
+     * @param publication The publication.
+     * @param latestOnly True if the publication replaces the buffered one of the same topic (properties).
+     * @return The publication dropped to make room for the added one, or null.
+     */
+    BufferedPublication add(BufferedPublication publication, boolean latestOnly) {
+        if (latestOnly) {
+            latestPublications.put(publication.getTopic(), publication);
+            return null;
+        }
+        if (capacity == 0)
+            return publication;
+        BufferedPublication dropped = publications.size() >= capacity ? publications.pollFirst() : null;
+        publications.addLast(publication);
+        return dropped;
+    }
+
+    /**
+     * Removes the next publication to replay.
+     *
+     * @return The publication, or null if the backlog is empty.
+     */
+    BufferedPublication poll() {
+        Iterator<BufferedPublication> iterator = latestPublications.values().iterator();
+        if (iterator.hasNext()) {
+            BufferedPublication publication = iterator.next();
+            iterator.remove();
+            return publication;
+        }
+        return publications.pollFirst();
+    }
+
+    int size() {
+        return latestPublications.size() + publications.size();
+    }
+
+    void clear() {
+        latestPublications.clear();
+        publications.clear();
+    }
+}
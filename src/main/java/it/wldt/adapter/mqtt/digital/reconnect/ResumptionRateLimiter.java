@@ -0,0 +1,46 @@
+package it.wldt.adapter.mqtt.digital.reconnect;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiter of the resumption following a reconnection, whose rate follows the warm-up ramp of a
+ * {@link ReconnectPolicy}. Each operation (a resubscription batch or a replayed publication) is spaced from the
+ * previous one by the inverse of the rate allowed when it is started. Not thread safe, used by the reconnection
+ * thread of the {@link ReconnectManager} only.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+class ResumptionRateLimiter {
+
+    private final ReconnectPolicy policy;
+
+    private final long start;
+
+    private long nextOperation;
+
+    /**
+     * Constructs a rate limiter whose warm-up starts now.
+     *
+     * @param policy The reconnect policy.
+     */
+    ResumptionRateLimiter(ReconnectPolicy policy) {
+        this.policy = policy;
+        this.start = System.nanoTime();
+        this.nextOperation = start;
+    }
+
+    /**
+     * Waits until the next operation is allowed.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    void acquire() throws InterruptedException {
+        long now = System.nanoTime();
+        if (nextOperation > now) {
+            TimeUnit.NANOSECONDS.sleep(nextOperation - now);
+            now = nextOperation;
+        }
+        double rate = policy.getResumeRate(TimeUnit.NANOSECONDS.toMillis(now - start));
+        nextOperation = now + (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+}
@@ -0,0 +1,83 @@
+package it.wldt.adapter.mqtt.digital.routing;
+
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Difference between the incoming topics subscribed by an MQTT Digital Adapter and the ones of a new configuration.
+ * Subscriptions are identified by topic filter and QoS level: a topic whose filter and QoS level are unchanged keeps
+ * its subscription, even if its conversion function changed, while a topic whose QoS level changed is only subscribed
+ * again: the new subscription replaces the existing one atomically, while unsubscribing it first would lose the
+ * messages published in between.
+ *
+ * @param <T> The type of the incoming topics.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class SubscriptionDiff<T extends MqttTopic> {
+
+    private final List<T> subscribed;
+
+    private final List<T> unsubscribed;
+
+    private SubscriptionDiff(List<T> subscribed, List<T> unsubscribed) {
+        this.subscribed = Collections.unmodifiableList(subscribed);
+        this.unsubscribed = Collections.unmodifiableList(unsubscribed);
+    }
+
+    /**
+     * Computes the subscriptions to change to move from the current topics to the next ones.
+     *
+     * @param <T> The type of the incoming topics.
+     * @param current The currently subscribed topics.
+     * @param next The topics to subscribe.
+     * @return The difference.
+     */
+    public static <T extends MqttTopic> SubscriptionDiff<T> between(Collection<? extends T> current, Collection<? extends T> next) {
+        Map<String, T> currentByFilter = new HashMap<>();
+        current.forEach(topic -> currentByFilter.put(topic.getTopic(), topic));
+        List<T> subscribed = new ArrayList<>();
+        for (T topic : next) {
+            T currentTopic = currentByFilter.remove(topic.getTopic());
+            if (currentTopic == null)
+                subscribed.add(topic);
+            else if (!currentTopic.getQos().equals(topic.getQos()))
+                subscribed.add(topic);
+        }
+        return new SubscriptionDiff<>(subscribed, new ArrayList<>(currentByFilter.values()));
+    }
+
+    /**
+     * Gets the topics to subscribe, including the ones subscribed with a different QoS level that replace their
+     * current subscription.
+     *
+     * @return The topics to subscribe.
+     */
+    public List<T> getSubscribed() {
+        return subscribed;
+    }
+
+    /**
+     * Gets the topics to unsubscribe, to be unsubscribed before subscribing the new ones.
+     *
+     * @return The topics to unsubscribe.
+     */
+    public List<T> getUnsubscribed() {
+        return unsubscribed;
+    }
+
+    /**
+     * Tells whether the subscriptions are unchanged.
+     *
+     * @return True if no topic has to be subscribed or unsubscribed.
+     */
+    public boolean isEmpty() {
+        return subscribed.isEmpty() && unsubscribed.isEmpty();
+    }
+}
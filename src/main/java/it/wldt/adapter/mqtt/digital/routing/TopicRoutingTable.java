@@ -0,0 +1,219 @@
+package it.wldt.adapter.mqtt.digital.routing;
+
+import it.wldt.adapter.mqtt.digital.MqttDigitalAdapterConfiguration;
+import it.wldt.adapter.mqtt.digital.aggregation.WindowAggregationPolicy;
+import it.wldt.adapter.mqtt.digital.aggregation.WindowAggregator;
+import it.wldt.adapter.mqtt.digital.batch.PropertySampleBatcher;
+import it.wldt.adapter.mqtt.digital.batch.SampleBatch;
+import it.wldt.adapter.mqtt.digital.batch.SampleBatchPolicy;
+import it.wldt.adapter.mqtt.digital.topic.incoming.ActionIncomingTopic;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.EventNotificationOutgoingTopic;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.OutgoingTopicFanOut;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.PropertyOutgoingTopic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the topics of an MQTT Digital Adapter: the outgoing topics of each property and event key,
+ * with the aggregators and batchers of the aggregated and batched property topics, and the incoming action topics by
+ * topic filter. The adapter reads the current table once per state update, event notification or received message,
+ * so a reconfiguration replaces the whole table atomically without blocking the traffic in flight, which completes
+ * on the table it started with.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class TopicRoutingTable {
+
+    /**
+     * Publishes the complete sample batches of a batched property topic
+     */
+    @FunctionalInterface
+    public interface SampleBatchPublisher {
+
+        /**
+         * Publishes a sample batch.
+         *
+         * @param batch The sample batch.
+         * @param outgoingTopic The batched topic.
+         * @param batchPolicy The batch policy of the topic.
+         */
+        void publish(SampleBatch batch, PropertyOutgoingTopic<?> outgoingTopic, SampleBatchPolicy batchPolicy);
+    }
+
+    private final Map<String, PropertyOutgoingTopic<?>> primaryPropertyTopics;
+
+    // Direct (neither aggregated nor batched) outgoing topics of each property and event key
+    private final Map<String, OutgoingTopicFanOut<PropertyOutgoingTopic<?>>> propertyFanOuts = new HashMap<>();
+
+    private final Map<String, OutgoingTopicFanOut<EventNotificationOutgoingTopic<?>>> eventFanOuts = new HashMap<>();
+
+    // Aggregators and batchers of each property key, by outgoing topic
+    private final Map<String, Map<PropertyOutgoingTopic<?>, WindowAggregator>> propertyAggregators = new HashMap<>();
+
+    private final Map<String, Map<PropertyOutgoingTopic<?>, PropertySampleBatcher>> propertyBatchers = new HashMap<>();
+
+    private final Map<String, ActionIncomingTopic<?>> actionTopics = new LinkedHashMap<>();
+
+    private final Map<String, ActionIncomingTopic<?>> actionTopicsByKey;
+
+    /**
+     * Creates the table of the topics of a configuration. Aggregated and batched property topics get a new
+     * aggregator or batcher, while the other ones are published directly, serializing each update once per distinct
+     * publish function.
+     *
+     * @param configuration The configuration.
+     * @param batchPublisher Publishes the sample batches of the batched property topics.
+     */
+    public TopicRoutingTable(MqttDigitalAdapterConfiguration configuration, SampleBatchPublisher batchPublisher) {
+        this.primaryPropertyTopics = Collections.unmodifiableMap(new HashMap<>(configuration.getPropertyUpdateTopics()));
+        for (String propertyKey : primaryPropertyTopics.keySet()) {
+            List<PropertyOutgoingTopic<?>> directTopics = new ArrayList<>();
+            for (PropertyOutgoingTopic<?> outgoingTopic : configuration.getPropertyUpdateTopics(propertyKey)) {
+                WindowAggregationPolicy aggregationPolicy = configuration.getPropertyAggregationPolicies().get(outgoingTopic);
+                SampleBatchPolicy batchPolicy = configuration.getPropertyBatchPolicies().get(outgoingTopic);
+                if (aggregationPolicy != null)
+                    propertyAggregators.computeIfAbsent(propertyKey, key -> new LinkedHashMap<>())
+                            .put(outgoingTopic, new WindowAggregator(propertyKey, aggregationPolicy));
+                else if (batchPolicy != null)
+                    propertyBatchers.computeIfAbsent(propertyKey, key -> new LinkedHashMap<>())
+                            .put(outgoingTopic, new PropertySampleBatcher(propertyKey, batchPolicy, batch -> batchPublisher.publish(batch, outgoingTopic, batchPolicy)));
+                else
+                    directTopics.add(outgoingTopic);
+            }
+            if (!directTopics.isEmpty())
+                propertyFanOuts.put(propertyKey, new OutgoingTopicFanOut<>(directTopics, primaryPropertyTopics.get(propertyKey)));
+        }
+        for (String eventKey : configuration.getEventNotificationTopics().keySet())
+            eventFanOuts.put(eventKey, new OutgoingTopicFanOut<>(configuration.getEventNotificationTopics(eventKey), configuration.getEventNotificationTopics().get(eventKey)));
+        configuration.getActionIncomingTopics().values().forEach(topic -> actionTopics.put(topic.getTopic(), topic));
+        this.actionTopicsByKey = Collections.unmodifiableMap(new HashMap<>(configuration.getActionIncomingTopics()));
+    }
+
+    /**
+     * Gets the primary topic of a property, whose payloads are cached by the published payload cache.
+     *
+     * @param propertyKey The property key.
+     * @return The primary topic, or null if the property has no topics.
+     */
+    public PropertyOutgoingTopic<?> getPrimaryPropertyTopic(String propertyKey) {
+        return primaryPropertyTopics.get(propertyKey);
+    }
+
+    /**
+     * Gets the MQTT topic of the primary topic of each property.
+     *
+     * @return The primary MQTT topics by property key.
+     */
+    public Map<String, String> getPrimaryPropertyTopicNames() {
+        Map<String, String> topicNames = new HashMap<>();
+        primaryPropertyTopics.forEach((key, topic) -> topicNames.put(key, topic.getTopic()));
+        return topicNames;
+    }
+
+    /**
+     * Gets the direct topics of a property.
+     *
+     * @param propertyKey The property key.
+     * @return The direct topics, or null if the property has none.
+     */
+    public OutgoingTopicFanOut<PropertyOutgoingTopic<?>> getPropertyFanOut(String propertyKey) {
+        return propertyFanOuts.get(propertyKey);
+    }
+
+    /**
+     * Gets the aggregators of the aggregated topics of a property.
+     *
+     * @param propertyKey The property key.
+     * @return The aggregators by topic, or null if the property has no aggregated topics.
+     */
+    public Map<PropertyOutgoingTopic<?>, WindowAggregator> getPropertyAggregators(String propertyKey) {
+        return propertyAggregators.get(propertyKey);
+    }
+
+    /**
+     * Gets the batchers of the batched topics of a property.
+     *
+     * @param propertyKey The property key.
+     * @return The batchers by topic, or null if the property has no batched topics.
+     */
+    public Map<PropertyOutgoingTopic<?>, PropertySampleBatcher> getPropertyBatchers(String propertyKey) {
+        return propertyBatchers.get(propertyKey);
+    }
+
+    /**
+     * Gets the aggregators of all the aggregated property topics.
+     *
+     * @return The aggregators by topic.
+     */
+    public Map<PropertyOutgoingTopic<?>, WindowAggregator> getAggregators() {
+        Map<PropertyOutgoingTopic<?>, WindowAggregator> aggregators = new LinkedHashMap<>();
+        propertyAggregators.values().forEach(aggregators::putAll);
+        return aggregators;
+    }
+
+    /**
+     * Gets the batchers of all the batched property topics.
+     *
+     * @return The batchers.
+     */
+    public List<PropertySampleBatcher> getBatchers() {
+        List<PropertySampleBatcher> batchers = new ArrayList<>();
+        propertyBatchers.values().forEach(topicBatchers -> batchers.addAll(topicBatchers.values()));
+        return batchers;
+    }
+
+    /**
+     * Gets the topics of an event.
+     *
+     * @param eventKey The event key.
+     * @return The event topics, or null if the event has none.
+     */
+    public OutgoingTopicFanOut<EventNotificationOutgoingTopic<?>> getEventFanOut(String eventKey) {
+        return eventFanOuts.get(eventKey);
+    }
+
+    /**
+     * Gets the keys of the events with at least a topic.
+     *
+     * @return The event keys.
+     */
+    public Set<String> getEventKeys() {
+        return Collections.unmodifiableSet(eventFanOuts.keySet());
+    }
+
+    /**
+     * Gets the action topic subscribed with a topic filter.
+     *
+     * @param topicFilter The topic filter.
+     * @return The action topic, or null if no action topic uses the filter.
+     */
+    public ActionIncomingTopic<?> getActionTopic(String topicFilter) {
+        return actionTopics.get(topicFilter);
+    }
+
+    /**
+     * Gets the topic of an action.
+     *
+     * @param actionKey The action key.
+     * @return The action topic, or null if the action has no topic.
+     */
+    public ActionIncomingTopic<?> getActionTopicByKey(String actionKey) {
+        return actionTopicsByKey.get(actionKey);
+    }
+
+    /**
+     * Gets the action topics.
+     *
+     * @return The action topics.
+     */
+    public Collection<ActionIncomingTopic<?>> getActionTopics() {
+        return Collections.unmodifiableCollection(actionTopics.values());
+    }
+}
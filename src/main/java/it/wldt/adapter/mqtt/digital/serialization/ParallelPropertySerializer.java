@@ -0,0 +1,132 @@
+package it.wldt.adapter.mqtt.digital.serialization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Serializes the updates of a large DT state update in parallel according to a {@link ParallelSerializationPolicy}
+ * and emits the payloads in the original order.
+ * <p>
+ * The updates are split in chunks serialized by tasks of a bounded fork-join pool. The calling thread joins the tasks
+ * in order and emits the payloads of each chunk as soon as it is serialized, so the publication of the first chunks
+ * overlaps with the serialization of the following ones.
+ * <p>
+ * The pool is shared by all the serializers with the same parallelism, so a gateway hosting many adapters does not
+ * start a pool per adapter. Its daemon threads are started on demand and exit when idle. The serializer uses the pool
+ * between {@link #start()} and {@link #shutdown()}, so it follows the restarts of the adapter. While stopped, the
+ * updates are serialized on the calling thread.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class ParallelPropertySerializer {
+
+    // Pools shared by the serializers, by parallelism
+    private static final Map<Integer, ForkJoinPool> sharedPools = new HashMap<>();
+
+    private final ParallelSerializationPolicy policy;
+
+    // The shared pool while started, null while stopped
+    private volatile ForkJoinPool pool;
+
+    /**
+     * Constructs the serializer, which uses the shared pool once started.
+     *
+     * @param policy The parallel serialization policy.
+     */
+    public ParallelPropertySerializer(ParallelSerializationPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Starts serializing the updates on the shared pool of the policy parallelism, creating it if needed.
+     */
+    public synchronized void start() {
+        if (pool == null)
+            pool = getSharedPool(policy.getParallelism());
+    }
+
+    private static synchronized ForkJoinPool getSharedPool(int parallelism) {
+        return sharedPools.computeIfAbsent(parallelism, p -> {
+            AtomicInteger threadCount = new AtomicInteger();
+            return new ForkJoinPool(p, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("mqtt-digital-adapter-serializer-" + p + "-" + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        });
+    }
+
+    public ParallelSerializationPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Tells whether a number of property updates is large enough to be serialized in parallel.
+     *
+     * @param updates The number of property updates.
+     * @return True if the number of updates reaches the threshold of the policy.
+     */
+    public boolean isParallel(int updates) {
+        return updates >= policy.getThreshold();
+    }
+
+    /**
+     * Serializes the updates in parallel and emits their payloads in order on the calling thread. If a serialization
+     * fails, the pending tasks are cancelled and the exception is thrown once the previous payloads have been emitted.
+     * While the serializer is stopped, the updates are serialized and emitted one by one on the calling thread.
+     *
+     * @param <T> The type of the updates.
+     * @param <R> The type of the payloads, e.g. the payloads of all the topics of an update.
+     * @param updates The updates.
+     * @param serializer Serializes an update, invoked concurrently.
+     * @param emitter Emits an update with its payload.
+     */
+    public <T, R> void serializeInOrder(List<T> updates, Function<T, R> serializer, BiConsumer<T, R> emitter) {
+        ForkJoinPool pool = this.pool;
+        if (pool == null) {
+            for (T update : updates)
+                emitter.accept(update, serializer.apply(update));
+            return;
+        }
+        int chunkSize = policy.getChunkSize();
+        List<ForkJoinTask<List<R>>> chunks = new ArrayList<>((updates.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < updates.size(); from += chunkSize) {
+            List<T> chunk = updates.subList(from, Math.min(from + chunkSize, updates.size()));
+            chunks.add(pool.submit(() -> {
+                List<R> payloads = new ArrayList<>(chunk.size());
+                for (T update : chunk)
+                    payloads.add(serializer.apply(update));
+                return payloads;
+            }));
+        }
+        for (int c = 0; c < chunks.size(); c++) {
+            List<R> payloads;
+            try {
+                payloads = chunks.get(c).join();
+            } catch (RuntimeException e) {
+                for (int pending = c + 1; pending < chunks.size(); pending++)
+                    chunks.get(pending).cancel(false);
+                throw e;
+            }
+            for (int i = 0; i < payloads.size(); i++)
+                emitter.accept(updates.get(c * chunkSize + i), payloads.get(i));
+        }
+    }
+
+    /**
+     * Stops using the shared pool, the serializations in progress being completed. The serializer can be started
+     * again.
+     */
+    public synchronized void shutdown() {
+        pool = null;
+    }
+}
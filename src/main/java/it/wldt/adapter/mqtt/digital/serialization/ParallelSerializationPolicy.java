@@ -0,0 +1,71 @@
+package it.wldt.adapter.mqtt.digital.serialization;
+
+/**
+ * Policy of the parallel serialization of large DT state updates: when a state update carries at least
+ * {@code threshold} property updates, the MQTT Digital Adapter serializes them in chunks on a fork-join pool shared by
+ * the adapters with the same parallelism and publishes them in the original order of the changes. Smaller updates are
+ * serialized on the calling thread. Instances are created through the {@link ParallelSerializationPolicyBuilder}.
+ *
+ * <ul>
+ *   <li>{@code parallelism}: number of threads of the shared serialization pool (default the available processors)</li>
+ *   <li>{@code threshold}: minimum number of property updates of a state update serialized in parallel (default 64)</li>
+ *   <li>{@code chunkSize}: number of property updates serialized by a single task (default 16)</li>
+ * </ul>
+ *
+ * The publish functions of the property topics are invoked concurrently and must be thread safe.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class ParallelSerializationPolicy {
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private int threshold = 64;
+
+    private int chunkSize = 16;
+
+    protected ParallelSerializationPolicy() {
+    }
+
+    /**
+     * Creates a builder for the parallel serialization policy, initialized with the default values.
+     *
+     * @return A builder instance.
+     */
+    public static ParallelSerializationPolicyBuilder builder() {
+        return new ParallelSerializationPolicyBuilder();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    protected void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    protected void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    protected void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelSerializationPolicy{" +
+                "parallelism=" + parallelism +
+                ", threshold=" + threshold +
+                ", chunkSize=" + chunkSize +
+                '}';
+    }
+}
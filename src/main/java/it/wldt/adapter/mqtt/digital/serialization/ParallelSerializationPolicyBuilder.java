@@ -0,0 +1,62 @@
+package it.wldt.adapter.mqtt.digital.serialization;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+
+/**
+ * Fluent builder of {@link ParallelSerializationPolicy} instances.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class ParallelSerializationPolicyBuilder {
+
+    private final ParallelSerializationPolicy policy = new ParallelSerializationPolicy();
+
+    /**
+     * Sets the number of threads of the serialization pool, shared by the adapters with the same parallelism.
+     *
+     * @param parallelism The number of threads. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the parallelism is not a positive number.
+     */
+    public ParallelSerializationPolicyBuilder setParallelism(int parallelism) throws MqttDigitalAdapterConfigurationException {
+        if(parallelism <= 0) throw new MqttDigitalAdapterConfigurationException("Parallelism must be a positive number");
+        policy.setParallelism(parallelism);
+        return this;
+    }
+
+    /**
+     * Sets the minimum number of property updates of a state update serialized in parallel.
+     *
+     * @param threshold The number of property updates. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the threshold is not a positive number.
+     */
+    public ParallelSerializationPolicyBuilder setThreshold(int threshold) throws MqttDigitalAdapterConfigurationException {
+        if(threshold <= 0) throw new MqttDigitalAdapterConfigurationException("Threshold must be a positive number");
+        policy.setThreshold(threshold);
+        return this;
+    }
+
+    /**
+     * Sets the number of property updates serialized by a single task: smaller chunks balance the load of expensive
+     * publish functions, larger ones reduce the scheduling overhead of cheap ones.
+     *
+     * @param chunkSize The number of property updates. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the chunk size is not a positive number.
+     */
+    public ParallelSerializationPolicyBuilder setChunkSize(int chunkSize) throws MqttDigitalAdapterConfigurationException {
+        if(chunkSize <= 0) throw new MqttDigitalAdapterConfigurationException("Chunk Size must be a positive number");
+        policy.setChunkSize(chunkSize);
+        return this;
+    }
+
+    /**
+     * Builds the parallel serialization policy.
+     *
+     * @return The parallel serialization policy.
+     */
+    public ParallelSerializationPolicy build() {
+        return policy;
+    }
+}
@@ -0,0 +1,214 @@
+package it.wldt.adapter.mqtt.digital.stripe;
+
+import it.wldt.adapter.mqtt.digital.metrics.MqttDigitalAdapterMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers the publications of an MQTT Digital Adapter on a fixed number of lanes, each one a bounded queue drained by
+ * a single thread. A publication is assigned to the lane of its topic key, so the publications of the same key are
+ * delivered one at a time in submission order, while the ones of keys on different lanes are delivered in parallel.
+ * <p>
+ * Submitting to a full lane waits for room, slowing down the submitting thread instead of dropping publications. The
+ * depth of a lane is reported to the metrics on each submission.
+ * <p>
+ * The lane threads run between {@link #start()} and {@link #shutdown()}, so the publisher follows the restarts of the
+ * adapter. Publications submitted while stopped are discarded.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class StripedPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripedPublisher.class);
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    // Interval of the checks for a shutdown while waiting for room on a full lane
+    private static final long SUBMIT_CHECK_MS = 100;
+
+    // Marks the end of a lane, queued after the pending publications on shutdown
+    private static final Runnable END_OF_LANE = () -> { };
+
+    private final String name;
+
+    private final StripedPublishingPolicy policy;
+
+    private final MqttDigitalAdapterMetrics metrics;
+
+    // Created by each start, null while stopped
+    private volatile Lane[] lanes;
+
+    /**
+     * Constructs a {@code StripedPublisher}, whose lane threads are started by {@link #start()}.
+     *
+     * @param name The name of the lane threads, e.g. the adapter id.
+     * @param policy The striped publishing policy.
+     * @param metrics The metrics receiving the lane depths.
+     */
+    public StripedPublisher(String name, StripedPublishingPolicy policy, MqttDigitalAdapterMetrics metrics) {
+        this.name = name;
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Creates the lanes and starts their threads, unless already started.
+     */
+    public synchronized void start() {
+        if(lanes != null)
+            return;
+        Lane[] startedLanes = new Lane[policy.getLaneCount()];
+        for (int i = 0; i < startedLanes.length; i++) {
+            startedLanes[i] = new Lane(policy.getLaneCapacity(), "mqtt-digital-adapter-publisher-" + name + "-" + i);
+            startedLanes[i].thread.start();
+        }
+        lanes = startedLanes;
+    }
+
+    /**
+     * Submits a publication to the lane of its topic key, waiting for room if the lane is full. Publications
+     * submitted while the publisher is stopped, or stopped while waiting for room, are discarded.
+     *
+     * @param topicKey The topic key of the publication.
+     * @param publication The publication, delivering the message.
+     */
+    public void submit(String topicKey, Runnable publication) {
+        Lane[] currentLanes = lanes;
+        if(currentLanes == null) {
+            logger.debug("Striped publisher stopped, publication discarded for key: {}", topicKey);
+            return;
+        }
+        int laneIndex = getLaneIndex(topicKey);
+        BlockingQueue<Runnable> queue = currentLanes[laneIndex].queue;
+        try {
+            while (!queue.offer(publication, SUBMIT_CHECK_MS, TimeUnit.MILLISECONDS)) {
+                if(lanes != currentLanes) {
+                    logger.debug("Striped publisher stopped, publication discarded for key: {}", topicKey);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for publisher lane {}, publication discarded for key: {}", laneIndex, topicKey);
+            return;
+        }
+        metrics.recordLaneDepth(laneIndex, queue.size());
+    }
+
+    /**
+     * Gets the lane of a topic key.
+     *
+     * @param topicKey The topic key.
+     * @return The lane index.
+     */
+    public int getLaneIndex(String topicKey) {
+        int hash = topicKey.hashCode();
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % policy.getLaneCount();
+    }
+
+    public int getLaneCount() {
+        return policy.getLaneCount();
+    }
+
+    /**
+     * Gets the number of publications waiting on a lane.
+     *
+     * @param laneIndex The lane index.
+     * @return The lane depth, 0 while stopped.
+     */
+    public int getLaneDepth(int laneIndex) {
+        Lane[] currentLanes = lanes;
+        return currentLanes == null ? 0 : currentLanes[laneIndex].queue.size();
+    }
+
+    /**
+     * Stops accepting publications and waits for the lanes to deliver the pending ones, up to a timeout. The lanes
+     * not drained in time are interrupted, discarding their pending publications.
+     */
+    public void shutdown() {
+        Lane[] stoppedLanes;
+        synchronized (this) {
+            stoppedLanes = lanes;
+            lanes = null;
+        }
+        if(stoppedLanes == null)
+            return;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT_MS);
+        boolean interrupted = false;
+        for (Lane lane : stoppedLanes) {
+            try {
+                if(interrupted || !lane.queue.offer(END_OF_LANE, remainingMillis(deadline), TimeUnit.MILLISECONDS))
+                    lane.close();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                lane.close();
+            }
+        }
+        for (Lane lane : stoppedLanes) {
+            try {
+                if(!interrupted)
+                    lane.thread.join(remainingMillis(deadline));
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if(lane.thread.isAlive()) {
+                logger.warn("Publisher lane {} not drained within {} ms, {} publications discarded", lane.thread.getName(), SHUTDOWN_TIMEOUT_MS, lane.queue.size());
+                lane.close();
+            }
+        }
+        if(interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private static long remainingMillis(long deadline) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    /**
+     * Queue of publications drained by a single thread
+     */
+    private static class Lane {
+
+        private final BlockingQueue<Runnable> queue;
+
+        private final Thread thread;
+
+        // Set when the lane is interrupted, so that it stops even if a publication swallowed the interruption
+        private volatile boolean closed = false;
+
+        private Lane(int capacity, String threadName) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this::drain, threadName);
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * Stops the lane after the publication being delivered, discarding the pending ones.
+         */
+        private void close() {
+            closed = true;
+            thread.interrupt();
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    Runnable publication = queue.take();
+                    if (publication == END_OF_LANE)
+                        return;
+                    try {
+                        publication.run();
+                    } catch (RuntimeException e) {
+                        logger.error("Unexpected error delivering a publication on {}", Thread.currentThread().getName(), e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
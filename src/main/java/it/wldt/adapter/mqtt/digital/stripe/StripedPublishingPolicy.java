@@ -0,0 +1,61 @@
+package it.wldt.adapter.mqtt.digital.stripe;
+
+/**
+ * Policy of the striped publisher: the publications are moved off the DT thread onto a fixed number of lanes, each one
+ * drained by a single thread. The lane of a publication is chosen by hashing its topic key, so the publications of the
+ * same key are delivered in order while the ones of different keys are delivered in parallel. Instances are created
+ * through the {@link StripedPublishingPolicyBuilder}.
+ *
+ * <ul>
+ *   <li>{@code laneCount}: number of lanes (default 2)</li>
+ *   <li>{@code laneCapacity}: maximum number of publications waiting on a lane, the DT thread waits when the lane of a
+ *   publication is full (default 1024)</li>
+ * </ul>
+ *
+ * Each adapter starts its own lane threads, so the default lane count is kept small: a fleet of adapters in the same
+ * JVM runs {@code laneCount} threads per adapter.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class StripedPublishingPolicy {
+
+    private int laneCount = 2;
+
+    private int laneCapacity = 1024;
+
+    protected StripedPublishingPolicy() {
+    }
+
+    /**
+     * Creates a builder for the striped publishing policy, initialized with the default values.
+     *
+     * @return A builder instance.
+     */
+    public static StripedPublishingPolicyBuilder builder() {
+        return new StripedPublishingPolicyBuilder();
+    }
+
+    public int getLaneCount() {
+        return laneCount;
+    }
+
+    public int getLaneCapacity() {
+        return laneCapacity;
+    }
+
+    protected void setLaneCount(int laneCount) {
+        this.laneCount = laneCount;
+    }
+
+    protected void setLaneCapacity(int laneCapacity) {
+        this.laneCapacity = laneCapacity;
+    }
+
+    @Override
+    public String toString() {
+        return "StripedPublishingPolicy{" +
+                "laneCount=" + laneCount +
+                ", laneCapacity=" + laneCapacity +
+                '}';
+    }
+}
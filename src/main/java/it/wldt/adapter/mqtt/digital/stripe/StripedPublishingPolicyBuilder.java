@@ -0,0 +1,48 @@
+package it.wldt.adapter.mqtt.digital.stripe;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+
+/**
+ * Fluent builder of {@link StripedPublishingPolicy} instances.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class StripedPublishingPolicyBuilder {
+
+    private final StripedPublishingPolicy policy = new StripedPublishingPolicy();
+
+    /**
+     * Sets the number of lanes, each one drained by its own thread started by every adapter using the policy.
+     *
+     * @param laneCount The number of lanes. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the lane count is not a positive number.
+     */
+    public StripedPublishingPolicyBuilder setLaneCount(int laneCount) throws MqttDigitalAdapterConfigurationException {
+        if(laneCount <= 0) throw new MqttDigitalAdapterConfigurationException("Lane Count must be a positive number");
+        policy.setLaneCount(laneCount);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of publications waiting on a lane.
+     *
+     * @param laneCapacity The lane capacity. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the lane capacity is not a positive number.
+     */
+    public StripedPublishingPolicyBuilder setLaneCapacity(int laneCapacity) throws MqttDigitalAdapterConfigurationException {
+        if(laneCapacity <= 0) throw new MqttDigitalAdapterConfigurationException("Lane Capacity must be a positive number");
+        policy.setLaneCapacity(laneCapacity);
+        return this;
+    }
+
+    /**
+     * Builds the striped publishing policy.
+     *
+     * @return The striped publishing policy.
+     */
+    public StripedPublishingPolicy build() {
+        return policy;
+    }
+}
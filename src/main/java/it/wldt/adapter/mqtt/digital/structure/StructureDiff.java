@@ -0,0 +1,77 @@
+package it.wldt.adapter.mqtt.digital.structure;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Structural changes of the DT state applied by a state update, published as a single message on the structure diff
+ * topic. Each change reports the resource type ({@code action}, {@code event} or {@code property}), its key and the
+ * operation, named after the suffix of the resource topic (e.g. {@code enabled}, {@code unregistered},
+ * {@code created}). The hashes of the structure before and after the changes let consumers detect a missed diff and
+ * read the whole structure again.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class StructureDiff {
+
+    /**
+     * Structural change of a single resource
+     */
+    public static class Change {
+
+        private final String resource;
+
+        private final String key;
+
+        private final String operation;
+
+        public Change(String resource, String key, String operation) {
+            this.resource = resource;
+            this.key = key;
+            this.operation = operation;
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+    }
+
+    private final String previousHash;
+
+    private final String hash;
+
+    private final List<Change> changes;
+
+    /**
+     * Constructs a structure diff.
+     *
+     * @param previousHash The hash of the structure before the changes.
+     * @param hash The hash of the structure after the changes.
+     * @param changes The structural changes, in the order of the state update.
+     */
+    public StructureDiff(String previousHash, String hash, List<Change> changes) {
+        this.previousHash = previousHash;
+        this.hash = hash;
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    public String getPreviousHash() {
+        return previousHash;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+}
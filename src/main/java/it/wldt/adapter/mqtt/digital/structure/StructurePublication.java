@@ -0,0 +1,42 @@
+package it.wldt.adapter.mqtt.digital.structure;
+
+import it.wldt.adapter.mqtt.digital.topic.outgoing.DigitalTwinOutgoingTopic;
+
+/**
+ * Message produced by the {@link StructureTracker} for a structural change, ready to be published.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class StructurePublication {
+
+    private final String topicKey;
+
+    private final DigitalTwinOutgoingTopic<?> topic;
+
+    private final String payload;
+
+    /**
+     * Constructs a structure publication.
+     *
+     * @param topicKey The key (resource key, or the structure key for the diff) associated with the topic.
+     * @param topic The outgoing topic.
+     * @param payload The serialized payload.
+     */
+    public StructurePublication(String topicKey, DigitalTwinOutgoingTopic<?> topic, String payload) {
+        this.topicKey = topicKey;
+        this.topic = topic;
+        this.payload = payload;
+    }
+
+    public String getTopicKey() {
+        return topicKey;
+    }
+
+    public DigitalTwinOutgoingTopic<?> getTopic() {
+        return topic;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,77 @@
+package it.wldt.adapter.mqtt.digital.structure;
+
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+
+/**
+ * Policy of the publication of the structural changes of the DT state: actions enabled, disabled and updated, events
+ * registered, unregistered and updated, properties created and deleted. Instances are created through the
+ * {@link StructurePublishingPolicyBuilder}.
+ *
+ * <ul>
+ *   <li>{@code qosLevel}: QoS level of the structural change messages (default QoS 0)</li>
+ *   <li>{@code resourceTopicsFlag}: publishes each changed resource on its topic of the
+ *   {@link it.wldt.adapter.mqtt.digital.topic.outgoing.DigitalTwinOutgoingTopicFactory}, e.g.
+ *   {@code state/actions/<key>/enabled} (default false)</li>
+ *   <li>{@code diffTopicFlag}: publishes a single structure diff message per state update on the
+ *   {@code state/structure/diff} topic (default true)</li>
+ * </ul>
+ *
+ * The diff message carries all the changes of a state update, so the per resource topics are disabled by default:
+ * enabling them multiplies the messages of a structural burst (e.g. the startup of a fleet of DTs) by the number of
+ * changed resources.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class StructurePublishingPolicy {
+
+    private MqttQosLevel qosLevel = MqttQosLevel.MQTT_QOS_0;
+
+    private boolean resourceTopicsFlag = false;
+
+    private boolean diffTopicFlag = true;
+
+    protected StructurePublishingPolicy() {
+    }
+
+    /**
+     * Creates a builder for the structure publishing policy, initialized with the default values.
+     *
+     * @return A builder instance.
+     */
+    public static StructurePublishingPolicyBuilder builder() {
+        return new StructurePublishingPolicyBuilder();
+    }
+
+    public MqttQosLevel getQosLevel() {
+        return qosLevel;
+    }
+
+    public boolean getResourceTopicsFlag() {
+        return resourceTopicsFlag;
+    }
+
+    public boolean getDiffTopicFlag() {
+        return diffTopicFlag;
+    }
+
+    protected void setQosLevel(MqttQosLevel qosLevel) {
+        this.qosLevel = qosLevel;
+    }
+
+    protected void setResourceTopicsFlag(boolean resourceTopicsFlag) {
+        this.resourceTopicsFlag = resourceTopicsFlag;
+    }
+
+    protected void setDiffTopicFlag(boolean diffTopicFlag) {
+        this.diffTopicFlag = diffTopicFlag;
+    }
+
+    @Override
+    public String toString() {
+        return "StructurePublishingPolicy{" +
+                "qosLevel=" + qosLevel +
+                ", resourceTopicsFlag=" + resourceTopicsFlag +
+                ", diffTopicFlag=" + diffTopicFlag +
+                '}';
+    }
+}
@@ -0,0 +1,63 @@
+package it.wldt.adapter.mqtt.digital.structure;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+
+/**
+ * Fluent builder of {@link StructurePublishingPolicy} instances.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class StructurePublishingPolicyBuilder {
+
+    private final StructurePublishingPolicy policy = new StructurePublishingPolicy();
+
+    /**
+     * Sets the QoS level of the structural change messages.
+     *
+     * @param qosLevel The QoS level.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the QoS level is null.
+     */
+    public StructurePublishingPolicyBuilder setQosLevel(MqttQosLevel qosLevel) throws MqttDigitalAdapterConfigurationException {
+        if(qosLevel == null) throw new MqttDigitalAdapterConfigurationException("QoS Level cannot be null");
+        policy.setQosLevel(qosLevel);
+        return this;
+    }
+
+    /**
+     * Enables or disables the publication of each changed resource on its own topic, in addition to the diff
+     * message. Disabled by default.
+     *
+     * @param resourceTopicsFlag True to publish the changed resources on their topics.
+     * @return The updated builder.
+     */
+    public StructurePublishingPolicyBuilder setResourceTopicsFlag(boolean resourceTopicsFlag) {
+        policy.setResourceTopicsFlag(resourceTopicsFlag);
+        return this;
+    }
+
+    /**
+     * Enables or disables the publication of the structure diff message of each state update.
+     *
+     * @param diffTopicFlag True to publish the structure diff messages.
+     * @return The updated builder.
+     */
+    public StructurePublishingPolicyBuilder setDiffTopicFlag(boolean diffTopicFlag) {
+        policy.setDiffTopicFlag(diffTopicFlag);
+        return this;
+    }
+
+    /**
+     * Builds the structure publishing policy.
+     *
+     * @return The structure publishing policy.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when both the resource topics and the diff topic are
+     * disabled.
+     */
+    public StructurePublishingPolicy build() throws MqttDigitalAdapterConfigurationException {
+        if(!policy.getResourceTopicsFlag() && !policy.getDiffTopicFlag())
+            throw new MqttDigitalAdapterConfigurationException("At least one of the resource topics and the diff topic must be enabled");
+        return policy;
+    }
+}
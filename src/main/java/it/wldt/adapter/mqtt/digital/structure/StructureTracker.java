@@ -0,0 +1,325 @@
+package it.wldt.adapter.mqtt.digital.structure;
+
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.DigitalTwinOutgoingTopic;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.DigitalTwinOutgoingTopicFactory;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.StructureDiffOutgoingTopic;
+import it.wldt.core.state.DigitalTwinStateAction;
+import it.wldt.core.state.DigitalTwinStateChange;
+import it.wldt.core.state.DigitalTwinStateEvent;
+import it.wldt.core.state.DigitalTwinStateProperty;
+import it.wldt.core.state.DigitalTwinStateResource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks the structure of the DT state (its actions, events and properties) and turns the structural changes of each
+ * state update into the messages to publish on the topics of the {@link DigitalTwinOutgoingTopicFactory}.
+ * <p>
+ * The changes of a state update are coalesced by resource: a resource added and removed by the same update produces
+ * no message, and a resource changed several times produces a single one. The structure hash is updated
+ * incrementally with the changes and cached, so a state update leaving the structure unchanged is skipped without
+ * comparing the resources nor building any message. Actions and events are compared through their serialized definition, which
+ * is also the payload of their messages, while properties are compared by key only, their values being published as
+ * property updates.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class StructureTracker {
+
+    public static final String STRUCTURE_TOPIC_KEY = "structure";
+
+    private static final String ACTION_RESOURCE = "action";
+    private static final String EVENT_RESOURCE = "event";
+    private static final String PROPERTY_RESOURCE = "property";
+
+    private static final String PROPERTY_DEFINITION = "";
+
+    private final StructurePublishingPolicy policy;
+
+    private final StructureDiffOutgoingTopic diffTopic;
+
+    // Guarded by this instance
+    private final Map<String, TrackedResource> resources = new HashMap<>();
+
+    private long structureHash = 0;
+
+    /**
+     * Constructs a {@code StructureTracker} with an empty structure.
+     *
+     * @param policy The structure publishing policy.
+     */
+    public StructureTracker(StructurePublishingPolicy policy) {
+        this.policy = policy;
+        this.diffTopic = DigitalTwinOutgoingTopicFactory.createDefaultStructureDiffTopic(policy.getQosLevel());
+    }
+
+    /**
+     * Replaces the tracked structure with the one of a synchronized DT state. The first synchronization reports all
+     * the resources of the state as added, the following ones only the differences with the tracked structure.
+     *
+     * @param properties The properties of the DT state.
+     * @param actions The actions of the DT state.
+     * @param events The events of the DT state.
+     * @return The messages to publish, empty if the structure is unchanged.
+     */
+    public synchronized List<StructurePublication> synchronize(List<DigitalTwinStateProperty<?>> properties,
+                                                               List<DigitalTwinStateAction> actions,
+                                                               List<DigitalTwinStateEvent> events) {
+        List<ResourceChange> changes = new ArrayList<>();
+        properties.forEach(property -> changes.add(new ResourceChange(PROPERTY_RESOURCE, property.getKey(), property, true)));
+        actions.forEach(action -> changes.add(new ResourceChange(ACTION_RESOURCE, action.getKey(), action, true)));
+        events.forEach(event -> changes.add(new ResourceChange(EVENT_RESOURCE, event.getKey(), event, true)));
+        Set<String> present = new HashSet<>();
+        changes.forEach(change -> present.add(change.getId()));
+        resources.forEach((id, tracked) -> {
+            if(!present.contains(id))
+                changes.add(new ResourceChange(tracked.resourceType, tracked.key, tracked.resource, false));
+        });
+        return apply(changes);
+    }
+
+    /**
+     * Applies the structural changes of a state update, ignoring the other ones.
+     *
+     * @param stateChanges The changes of the state update.
+     * @return The messages to publish, empty if the structure is unchanged.
+     */
+    public synchronized List<StructurePublication> update(List<DigitalTwinStateChange> stateChanges) {
+        List<ResourceChange> changes = null;
+        for (DigitalTwinStateChange stateChange : stateChanges) {
+            ResourceChange change = toResourceChange(stateChange);
+            if(change == null)
+                continue;
+            if(changes == null)
+                changes = new ArrayList<>();
+            changes.add(change);
+        }
+        return changes == null ? Collections.emptyList() : apply(changes);
+    }
+
+    /**
+     * Gets the hash of the tracked structure, as reported by the structure diffs.
+     *
+     * @return The structure hash.
+     */
+    public synchronized String getStructureHash() {
+        return Long.toHexString(structureHash);
+    }
+
+    /**
+     * Maps a state change to a structural change.
+     *
+     * @param stateChange The state change.
+     * @return The structural change, or null if the state change is not structural.
+     */
+    private ResourceChange toResourceChange(DigitalTwinStateChange stateChange) {
+        DigitalTwinStateChange.Operation operation = stateChange.getOperation();
+        DigitalTwinStateResource resource = stateChange.getResource();
+        boolean present;
+        if(operation == DigitalTwinStateChange.Operation.OPERATION_ADD || operation == DigitalTwinStateChange.Operation.OPERATION_UPDATE)
+            present = true;
+        else if(operation == DigitalTwinStateChange.Operation.OPERATION_REMOVE)
+            present = false;
+        else
+            return null;
+        switch (stateChange.getResourceType()) {
+            case ACTION:
+                return resource instanceof DigitalTwinStateAction ?
+                        new ResourceChange(ACTION_RESOURCE, ((DigitalTwinStateAction) resource).getKey(), resource, present) : null;
+            case EVENT:
+                return resource instanceof DigitalTwinStateEvent ?
+                        new ResourceChange(EVENT_RESOURCE, ((DigitalTwinStateEvent) resource).getKey(), resource, present) : null;
+            case PROPERTY:
+                // Property updates change the value, not the structure
+                return resource instanceof DigitalTwinStateProperty && operation != DigitalTwinStateChange.Operation.OPERATION_UPDATE ?
+                        new ResourceChange(PROPERTY_RESOURCE, ((DigitalTwinStateProperty<?>) resource).getKey(), resource, present) : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Applies structural changes to the tracked structure and creates the messages of the net changes.
+     *
+     * @param changes The structural changes, in order.
+     * @return The messages to publish, empty if the structure is unchanged.
+     */
+    private List<StructurePublication> apply(List<ResourceChange> changes) {
+        long previousHash = structureHash;
+        // Tracked resources before the changes, by resource id, null for the resources not tracked
+        Map<String, TrackedResource> previousResources = new LinkedHashMap<>();
+        for (ResourceChange change : changes) {
+            String id = change.getId();
+            TrackedResource previous = resources.get(id);
+            if(!previousResources.containsKey(id))
+                previousResources.put(id, previous);
+            if(previous != null) {
+                resources.remove(id);
+                structureHash -= previous.hash;
+            }
+            if(change.present) {
+                String definition = getDefinition(change.resourceType, change.key, change.resource);
+                TrackedResource next = new TrackedResource(change.resourceType, change.key, change.resource, definition, hash(id, definition));
+                resources.put(id, next);
+                structureHash += next.hash;
+            }
+        }
+        if(structureHash == previousHash)
+            return Collections.emptyList();
+
+        List<StructurePublication> publications = new ArrayList<>();
+        List<StructureDiff.Change> diffChanges = new ArrayList<>();
+        for (Map.Entry<String, TrackedResource> entry : previousResources.entrySet()) {
+            TrackedResource previous = entry.getValue();
+            TrackedResource next = resources.get(entry.getKey());
+            if(previous == null && next == null || previous != null && next != null && previous.definition.equals(next.definition))
+                continue;
+            TrackedResource changed = next != null ? next : previous;
+            String operation = getOperation(changed.resourceType, previous == null, next == null);
+            diffChanges.add(new StructureDiff.Change(changed.resourceType, changed.key, operation));
+            if(policy.getResourceTopicsFlag())
+                publications.add(createResourcePublication(changed, operation));
+        }
+        if(diffChanges.isEmpty())
+            return Collections.emptyList();
+        if(policy.getDiffTopicFlag()) {
+            StructureDiff diff = new StructureDiff(Long.toHexString(previousHash), Long.toHexString(structureHash), diffChanges);
+            publications.add(new StructurePublication(STRUCTURE_TOPIC_KEY, diffTopic, diffTopic.applyPublishFunction(diff)));
+        }
+        return publications;
+    }
+
+    private static String getOperation(String resourceType, boolean added, boolean removed) {
+        switch (resourceType) {
+            case ACTION_RESOURCE:
+                return added ? "enabled" : removed ? "disabled" : "updated";
+            case EVENT_RESOURCE:
+                return added ? "registered" : removed ? "unregistered" : "updated";
+            default:
+                return added ? "created" : "deleted";
+        }
+    }
+
+    /**
+     * Creates the message of a changed resource on its topic. Actions and events are published with their
+     * definition, properties are serialized by their topic.
+     *
+     * @param changed The resource after the change, or before it if removed.
+     * @param operation The operation, see {@link #getOperation(String, boolean, boolean)}.
+     * @return The publication.
+     */
+    private StructurePublication createResourcePublication(TrackedResource changed, String operation) {
+        MqttQosLevel qosLevel = policy.getQosLevel();
+        switch (changed.resourceType) {
+            case ACTION_RESOURCE:
+                return new StructurePublication(changed.key,
+                        operation.equals("enabled") ? DigitalTwinOutgoingTopicFactory.createDefaultActionEnabledTopic(changed.key, qosLevel) :
+                        operation.equals("disabled") ? DigitalTwinOutgoingTopicFactory.createDefaultActionDisabledTopic(changed.key, qosLevel) :
+                        DigitalTwinOutgoingTopicFactory.createDefaultActionUpdatedTopic(changed.key, qosLevel),
+                        changed.definition);
+            case EVENT_RESOURCE:
+                return new StructurePublication(changed.key,
+                        operation.equals("registered") ? DigitalTwinOutgoingTopicFactory.createDefaultEventRegisteredTopic(changed.key, qosLevel) :
+                        operation.equals("unregistered") ? DigitalTwinOutgoingTopicFactory.createDefaultEventUnregisteredTopic(changed.key, qosLevel) :
+                        DigitalTwinOutgoingTopicFactory.createDefaultEventUpdatedTopic(changed.key, qosLevel),
+                        changed.definition);
+            default:
+                DigitalTwinOutgoingTopic<DigitalTwinStateProperty<?>> topic = operation.equals("created") ?
+                        DigitalTwinOutgoingTopicFactory.createDefaultPropertyCreatedTopic(changed.key, qosLevel) :
+                        DigitalTwinOutgoingTopicFactory.createDefaultPropertyDeletedTopic(changed.key, qosLevel);
+                return new StructurePublication(changed.key, topic, topic.applyPublishFunction((DigitalTwinStateProperty<?>) changed.resource));
+        }
+    }
+
+    /**
+     * Gets the definition of a resource, compared to detect its updates: the serialized action or event, or a
+     * constant for the properties.
+     *
+     * @param resourceType The resource type.
+     * @param key The resource key.
+     * @param resource The resource.
+     * @return The definition.
+     */
+    private String getDefinition(String resourceType, String key, DigitalTwinStateResource resource) {
+        switch (resourceType) {
+            case ACTION_RESOURCE:
+                return DigitalTwinOutgoingTopicFactory.createDefaultActionEnabledTopic(key, policy.getQosLevel()).applyPublishFunction((DigitalTwinStateAction) resource);
+            case EVENT_RESOURCE:
+                return DigitalTwinOutgoingTopicFactory.createDefaultEventRegisteredTopic(key, policy.getQosLevel()).applyPublishFunction((DigitalTwinStateEvent) resource);
+            default:
+                return PROPERTY_DEFINITION;
+        }
+    }
+
+    /**
+     * Hashes a tracked resource. The structure hash is the sum of the hashes of its resources, so that it can be
+     * updated incrementally.
+     *
+     * @param id The resource id.
+     * @param definition The resource definition.
+     * @return The resource hash.
+     */
+    private static long hash(String id, String definition) {
+        long hash = id.hashCode() * 0x9E3779B97F4A7C15L + definition.hashCode();
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * Resource of the tracked structure
+     */
+    private static class TrackedResource {
+
+        private final String resourceType;
+
+        private final String key;
+
+        private final DigitalTwinStateResource resource;
+
+        private final String definition;
+
+        private final long hash;
+
+        private TrackedResource(String resourceType, String key, DigitalTwinStateResource resource, String definition, long hash) {
+            this.resourceType = resourceType;
+            this.key = key;
+            this.resource = resource;
+            this.definition = definition;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Structural change of a single resource
+     */
+    private static class ResourceChange {
+
+        private final String resourceType;
+
+        private final String key;
+
+        private final DigitalTwinStateResource resource;
+
+        private final boolean present;
+
+        private ResourceChange(String resourceType, String key, DigitalTwinStateResource resource, boolean present) {
+            this.resourceType = resourceType;
+            this.key = key;
+            this.resource = resource;
+            this.present = present;
+        }
+
+        private String getId() {
+            return resourceType + "/" + key;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package it.wldt.adapter.mqtt.digital.subscription;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterClientException;
+import it.wldt.adapter.mqtt.digital.routing.SubscriptionDiff;
+import it.wldt.adapter.mqtt.digital.topic.incoming.ActionIncomingTopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Keeps the action topics of an MQTT Digital Adapter subscribed only while their actions are registered in the DT
+ * state.
+ * <p>
+ * Registrations and removals are collected for the debounce time of the {@link DynamicSubscriptionPolicy}, starting
+ * from the first change, and then reconciled with a {@link SubscriptionRegistry} on a dedicated thread: an action
+ * registered and removed within the same debounce time is never subscribed, actions sharing a topic filter share a
+ * single subscription, and a filter released by an action and acquired by another one keeps its subscription. The
+ * resulting changes are handed over to the {@link SubscriptionHandler}, unsubscriptions first, in batches of at most
+ * the maximum batch size of the policy. The reconciled registry is kept only once the handler updated all the
+ * subscriptions: if an update fails, the registry is left unchanged and the reconciliation is retried after the
+ * debounce time, the handler ignoring the filters already subscribed or unsubscribed.
+ * <p>
+ * The subscription thread runs between {@link #start()} and {@link #stop()}, so the subscriptions follow the restarts
+ * of the adapter.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class DynamicActionSubscriptions {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamicActionSubscriptions.class);
+
+    /**
+     * Updates the subscriptions of the MQTT client
+     */
+    @FunctionalInterface
+    public interface SubscriptionHandler {
+
+        /**
+         * Unsubscribes and subscribes a batch of action topics.
+         *
+         * @param unsubscribed The topics to unsubscribe, unsubscribed first.
+         * @param subscribed The topics to subscribe.
+         * @throws MqttDigitalAdapterClientException If the subscriptions cannot be updated.
+         */
+        void update(List<ActionIncomingTopic<?>> unsubscribed, List<ActionIncomingTopic<?>> subscribed) throws MqttDigitalAdapterClientException;
+    }
+
+    private final DynamicSubscriptionPolicy policy;
+
+    private final Function<String, ActionIncomingTopic<?>> topicResolver;
+
+    private final SubscriptionHandler subscriptionHandler;
+
+    private final String name;
+
+    // Guarded by this instance, created by each start
+    private ScheduledExecutorService executor;
+
+    private final Set<String> registeredActionKeys = new HashSet<>();
+
+    private SubscriptionRegistry<ActionIncomingTopic<?>> registry = new SubscriptionRegistry<>();
+
+    private boolean flushScheduled = false;
+
+    /**
+     * Constructs a {@code DynamicActionSubscriptions} with no registered action.
+     *
+     * @param name The name of the subscription thread, e.g. the adapter id.
+     * @param policy The dynamic subscription policy.
+     * @param topicResolver Resolves the current topic of an action key, or null if the action has no topic.
+     * @param subscriptionHandler Updates the subscriptions of the MQTT client.
+     */
+    public DynamicActionSubscriptions(String name,
+                                      DynamicSubscriptionPolicy policy,
+                                      Function<String, ActionIncomingTopic<?>> topicResolver,
+                                      SubscriptionHandler subscriptionHandler) {
+        this.name = name;
+        this.policy = policy;
+        this.topicResolver = topicResolver;
+        this.subscriptionHandler = subscriptionHandler;
+    }
+
+    /**
+     * Starts the subscription thread, reconciling the changes discarded by a previous stop after the debounce time.
+     */
+    public synchronized void start() {
+        if(executor != null)
+            return;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mqtt-digital-adapter-subscriptions-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleFlush();
+    }
+
+    /**
+     * Registers actions of the DT state, whose topics are subscribed after the debounce time.
+     *
+     * @param actionKeys The action keys.
+     */
+    public synchronized void onActionsRegistered(Collection<String> actionKeys) {
+        if(registeredActionKeys.addAll(actionKeys))
+            scheduleFlush();
+    }
+
+    /**
+     * Removes an action of the DT state, whose topic is unsubscribed after the debounce time if no other registered
+     * action uses its topic filter.
+     *
+     * @param actionKey The action key.
+     */
+    public synchronized void onActionUnregistered(String actionKey) {
+        if(registeredActionKeys.remove(actionKey))
+            scheduleFlush();
+    }
+
+    /**
+     * Resolves again the topics of the registered actions, e.g. after a reconfiguration of the adapter, updating the
+     * subscriptions of the actions whose topic filter or QoS level changed after the debounce time.
+     */
+    public synchronized void refresh() {
+        scheduleFlush();
+    }
+
+    /**
+     * Gets the currently subscribed action topics, one for each topic filter.
+     *
+     * @return The subscribed topics.
+     */
+    public synchronized List<ActionIncomingTopic<?>> getSubscribedTopics() {
+        return registry.getSubscribedTopics();
+    }
+
+    /**
+     * Gets the number of registered actions using a topic filter.
+     *
+     * @param topicFilter The topic filter.
+     * @return The number of actions.
+     */
+    public synchronized int getReferenceCount(String topicFilter) {
+        return registry.getReferenceCount(topicFilter);
+    }
+
+    /**
+     * Stops the subscription thread, discarding the pending changes until started again.
+     */
+    public void stop() {
+        ScheduledExecutorService stoppedExecutor;
+        synchronized (this) {
+            stoppedExecutor = executor;
+            executor = null;
+            flushScheduled = false;
+        }
+        if(stoppedExecutor != null)
+            stoppedExecutor.shutdownNow();
+    }
+
+    private void scheduleFlush() {
+        if(flushScheduled)
+            return;
+        if(executor == null) {
+            logger.debug("Dynamic action subscriptions stopped, change reconciled once started");
+            return;
+        }
+        executor.schedule(this::flush, policy.getDebounceMs(), TimeUnit.MILLISECONDS);
+        flushScheduled = true;
+    }
+
+    /**
+     * Reconciles a copy of the registry with the registered actions, hands the resulting changes over to the handler
+     * and, once they are applied, replaces the registry with the copy.
+     */
+    private void flush() {
+        SubscriptionRegistry<ActionIncomingTopic<?>> registry;
+        SubscriptionDiff<ActionIncomingTopic<?>> diff;
+        synchronized (this) {
+            flushScheduled = false;
+            registry = new SubscriptionRegistry<>(this.registry);
+            List<ActionIncomingTopic<?>> released = new ArrayList<>();
+            List<ActionIncomingTopic<?>> acquired = new ArrayList<>();
+            for (String actionKey : new ArrayList<>(registry.getKeys())) {
+                ActionIncomingTopic<?> topic = registry.get(actionKey);
+                ActionIncomingTopic<?> currentTopic = registeredActionKeys.contains(actionKey) ? topicResolver.apply(actionKey) : null;
+                if(currentTopic != null && currentTopic.getTopic().equals(topic.getTopic()) && currentTopic.getQos().equals(topic.getQos()))
+                    continue;
+                ActionIncomingTopic<?> unsubscribed = registry.release(actionKey);
+                if(unsubscribed != null)
+                    released.add(unsubscribed);
+            }
+            for (String actionKey : registeredActionKeys) {
+                ActionIncomingTopic<?> topic;
+                if(registry.get(actionKey) != null || (topic = topicResolver.apply(actionKey)) == null)
+                    continue;
+                ActionIncomingTopic<?> subscribed = registry.acquire(actionKey, topic);
+                if(subscribed != null)
+                    acquired.add(subscribed);
+            }
+            // A filter released and acquired again with the same QoS level keeps its subscription
+            diff = SubscriptionDiff.between(released, acquired);
+        }
+        try {
+            int batchSize = policy.getMaxBatchSize();
+            List<ActionIncomingTopic<?>> unsubscribed = diff.getUnsubscribed();
+            for (int from = 0; from < unsubscribed.size(); from += batchSize)
+                subscriptionHandler.update(unsubscribed.subList(from, Math.min(from + batchSize, unsubscribed.size())), Collections.emptyList());
+            List<ActionIncomingTopic<?>> subscribed = diff.getSubscribed();
+            for (int from = 0; from < subscribed.size(); from += batchSize)
+                subscriptionHandler.update(Collections.emptyList(), subscribed.subList(from, Math.min(from + batchSize, subscribed.size())));
+        } catch (MqttDigitalAdapterClientException e) {
+            logger.error("Error updating the dynamic action subscriptions, retrying in {} ms: {}", policy.getDebounceMs(), e.getLocalizedMessage());
+            synchronized (this) {
+                scheduleFlush();
+            }
+            return;
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error updating the dynamic action subscriptions", e);
+            return;
+        }
+        synchronized (this) {
+            this.registry = registry;
+        }
+    }
+}
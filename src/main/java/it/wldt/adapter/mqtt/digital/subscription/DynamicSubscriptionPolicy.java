@@ -0,0 +1,58 @@
+package it.wldt.adapter.mqtt.digital.subscription;
+
+/**
+ * Policy of the dynamic action subscriptions: the MQTT Digital Adapter subscribes to the topic of an action only while
+ * the action is registered in the DT state, reacting to the ACTION additions and removals of the state updates. The
+ * changes are debounced and the resulting subscriptions and unsubscriptions are sent in batches. Instances are created
+ * through the {@link DynamicSubscriptionPolicyBuilder}.
+ *
+ * <ul>
+ *   <li>{@code debounceMs}: time the changes are collected for before updating the subscriptions, so that an action
+ *   added and removed within it is never subscribed (default 100 ms)</li>
+ *   <li>{@code maxBatchSize}: maximum number of topics of a single SUBSCRIBE or UNSUBSCRIBE (default 100)</li>
+ * </ul>
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class DynamicSubscriptionPolicy {
+
+    private long debounceMs = 100;
+
+    private int maxBatchSize = 100;
+
+    protected DynamicSubscriptionPolicy() {
+    }
+
+    /**
+     * Creates a builder for the dynamic subscription policy, initialized with the default values.
+     *
+     * @return A builder instance.
+     */
+    public static DynamicSubscriptionPolicyBuilder builder() {
+        return new DynamicSubscriptionPolicyBuilder();
+    }
+
+    public long getDebounceMs() {
+        return debounceMs;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    protected void setDebounceMs(long debounceMs) {
+        this.debounceMs = debounceMs;
+    }
+
+    protected void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public String toString() {
+        return "DynamicSubscriptionPolicy{" +
+                "debounceMs=" + debounceMs +
+                ", maxBatchSize=" + maxBatchSize +
+                '}';
+    }
+}
@@ -0,0 +1,49 @@
+package it.wldt.adapter.mqtt.digital.subscription;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+
+/**
+ * Fluent builder of {@link DynamicSubscriptionPolicy} instances.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class DynamicSubscriptionPolicyBuilder {
+
+    private final DynamicSubscriptionPolicy policy = new DynamicSubscriptionPolicy();
+
+    /**
+     * Sets the time the action changes are collected for before updating the subscriptions.
+     *
+     * @param debounceMs The debounce time in milliseconds. Must not be negative, 0 updates the subscriptions as soon
+     *                   as possible.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the debounce time is negative.
+     */
+    public DynamicSubscriptionPolicyBuilder setDebounceMs(long debounceMs) throws MqttDigitalAdapterConfigurationException {
+        if(debounceMs < 0) throw new MqttDigitalAdapterConfigurationException("Debounce time cannot be negative");
+        policy.setDebounceMs(debounceMs);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of topics of a single SUBSCRIBE or UNSUBSCRIBE.
+     *
+     * @param maxBatchSize The number of topics. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the batch size is not a positive number.
+     */
+    public DynamicSubscriptionPolicyBuilder setMaxBatchSize(int maxBatchSize) throws MqttDigitalAdapterConfigurationException {
+        if(maxBatchSize <= 0) throw new MqttDigitalAdapterConfigurationException("Max Batch Size must be a positive number");
+        policy.setMaxBatchSize(maxBatchSize);
+        return this;
+    }
+
+    /**
+     * Builds the dynamic subscription policy.
+     *
+     * @return The dynamic subscription policy.
+     */
+    public DynamicSubscriptionPolicy build() {
+        return policy;
+    }
+}
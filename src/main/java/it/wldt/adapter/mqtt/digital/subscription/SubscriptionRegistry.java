@@ -0,0 +1,121 @@
+package it.wldt.adapter.mqtt.digital.subscription;
+
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reference counted registry of the subscribed topics: each key (e.g. an action key) acquires the topic it needs, and
+ * a topic filter is subscribed when acquired by its first key and unsubscribed when released by its last one, so
+ * keys sharing a topic filter share a single subscription. Not thread safe.
+ *
+ * @param <T> The type of the subscribed topics.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+class SubscriptionRegistry<T extends MqttTopic> {
+
+    private final Map<String, T> topicsByKey = new HashMap<>();
+
+    private final Map<String, Reference<T>> referencesByFilter = new HashMap<>();
+
+    /**
+     * Constructs an empty registry.
+     */
+    SubscriptionRegistry() {
+    }
+
+    /**
+     * Constructs a copy of a registry, e.g. to apply changes that are kept only if the subscriptions are updated.
+     *
+     * @param registry The copied registry.
+     */
+    SubscriptionRegistry(SubscriptionRegistry<T> registry) {
+        topicsByKey.putAll(registry.topicsByKey);
+        registry.referencesByFilter.forEach((filter, reference) -> {
+            Reference<T> copy = new Reference<>(reference.subscribedTopic);
+            copy.count = reference.count;
+            referencesByFilter.put(filter, copy);
+        });
+    }
+
+    /**
+     * Acquires a topic for a key, which must not hold a topic already.
+     *
+     * @param key The key.
+     * @param topic The topic.
+     * @return The topic if it has to be subscribed, i.e. its filter was not acquired by any key, null otherwise.
+     */
+    T acquire(String key, T topic) {
+        topicsByKey.put(key, topic);
+        Reference<T> reference = referencesByFilter.computeIfAbsent(topic.getTopic(), filter -> new Reference<>(topic));
+        return ++reference.count == 1 ? topic : null;
+    }
+
+    /**
+     * Releases the topic of a key.
+     *
+     * @param key The key.
+     * @return The subscribed topic if it has to be unsubscribed, i.e. its filter is no longer acquired by any key,
+     * null otherwise.
+     */
+    T release(String key) {
+        T topic = topicsByKey.remove(key);
+        if (topic == null)
+            return null;
+        Reference<T> reference = referencesByFilter.get(topic.getTopic());
+        if (--reference.count > 0)
+            return null;
+        referencesByFilter.remove(topic.getTopic());
+        return reference.subscribedTopic;
+    }
+
+    /**
+     * Gets the topic acquired by a key.
+     *
+     * @param key The key.
+     * @return The topic, or null.
+     */
+    T get(String key) {
+        return topicsByKey.get(key);
+    }
+
+    Set<String> getKeys() {
+        return topicsByKey.keySet();
+    }
+
+    /**
+     * Gets the subscribed topics, one for each acquired filter.
+     *
+     * @return The subscribed topics.
+     */
+    List<T> getSubscribedTopics() {
+        List<T> topics = new ArrayList<>(referencesByFilter.size());
+        for (Reference<T> reference : referencesByFilter.values())
+            topics.add(reference.subscribedTopic);
+        return topics;
+    }
+
+    int getReferenceCount(String topicFilter) {
+        Reference<T> reference = referencesByFilter.get(topicFilter);
+        return reference == null ? 0 : reference.count;
+    }
+
+    /**
+     * Subscription of a topic filter with the number of keys acquiring it
+     */
+    private static class Reference<T> {
+
+        private final T subscribedTopic;
+
+        private int count;
+
+        private Reference(T subscribedTopic) {
+            this.subscribedTopic = subscribedTopic;
+        }
+    }
+}
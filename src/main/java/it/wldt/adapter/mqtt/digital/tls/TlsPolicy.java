@@ -0,0 +1,169 @@
+package it.wldt.adapter.mqtt.digital.tls;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import java.util.Arrays;
+
+/**
+ * Policy of the TLS transport of the MQTT Digital Adapter: when configured, the adapter connects to the broker on an
+ * {@code ssl://} URL with sockets created by the SSL context of the policy. Instances are created through the
+ * {@link TlsPolicyBuilder}.
+ *
+ * <ul>
+ *   <li>{@code sslContext}: SSL context creating the sockets (default a new TLS context with the JVM trust store)</li>
+ *   <li>{@code protocols}: enabled TLS protocols (default the ones of the SSL context)</li>
+ *   <li>{@code cipherSuites}: enabled cipher suites (default the ones of the SSL context)</li>
+ *   <li>{@code sessionResumptionFlag}: resume the cached TLS session on reconnection (default enabled)</li>
+ *   <li>{@code sessionCacheSize}: maximum number of client sessions cached by the SSL context created by the policy
+ *   (default 100)</li>
+ *   <li>{@code sessionTimeoutSeconds}: lifetime of the client sessions cached by the SSL context created by the policy
+ *   (default 24 hours)</li>
+ *   <li>{@code hostnameVerificationFlag}: verify the broker host name against its certificate (default enabled)</li>
+ * </ul>
+ *
+ * Resuming the session replaces the full handshake (certificate exchange and key agreement) of a reconnection with an
+ * abbreviated one, avoiding the CPU spike of a fleet of adapters reconnecting at the same time.
+ * <p>
+ * A custom SSL context may be shared with other clients, so its session cache is left untouched: the cache settings
+ * only apply to the contexts created by the policy, and disabling the resumption only invalidates the sessions
+ * created by the adapter.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class TlsPolicy {
+
+    private SSLContext sslContext;
+
+    private String[] protocols = null;
+
+    private String[] cipherSuites = null;
+
+    private boolean sessionResumptionFlag = true;
+
+    private int sessionCacheSize = 100;
+
+    private int sessionTimeoutSeconds = 86400;
+
+    private boolean hostnameVerificationFlag = true;
+
+    private boolean sslContextOwnedFlag = true;
+
+    private SSLSocketFactory socketFactory;
+
+    protected TlsPolicy() {
+    }
+
+    /**
+     * Creates a builder for the TLS policy, initialized with the default values.
+     *
+     * @return A builder instance.
+     */
+    public static TlsPolicyBuilder builder() {
+        return new TlsPolicyBuilder();
+    }
+
+    /**
+     * Gets the socket factory applying the policy, shared by all the connections so that they share the session cache.
+     *
+     * @return The socket factory.
+     */
+    public SSLSocketFactory getSocketFactory() {
+        return socketFactory;
+    }
+
+    public SSLContext getSslContext() {
+        return sslContext;
+    }
+
+    public String[] getProtocols() {
+        return protocols;
+    }
+
+    public String[] getCipherSuites() {
+        return cipherSuites;
+    }
+
+    public boolean getSessionResumptionFlag() {
+        return sessionResumptionFlag;
+    }
+
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    public int getSessionTimeoutSeconds() {
+        return sessionTimeoutSeconds;
+    }
+
+    public boolean getHostnameVerificationFlag() {
+        return hostnameVerificationFlag;
+    }
+
+    /**
+     * Gets whether the SSL context has been created by the policy, and thus its session cache is only used by the
+     * adapters sharing the policy.
+     *
+     * @return False if the SSL context is a custom one.
+     */
+    public boolean getSslContextOwnedFlag() {
+        return sslContextOwnedFlag;
+    }
+
+    protected void setSslContext(SSLContext sslContext) {
+        this.sslContext = sslContext;
+    }
+
+    protected void setProtocols(String[] protocols) {
+        this.protocols = protocols;
+    }
+
+    protected void setCipherSuites(String[] cipherSuites) {
+        this.cipherSuites = cipherSuites;
+    }
+
+    protected void setSessionResumptionFlag(boolean sessionResumptionFlag) {
+        this.sessionResumptionFlag = sessionResumptionFlag;
+    }
+
+    protected void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    protected void setSessionTimeoutSeconds(int sessionTimeoutSeconds) {
+        this.sessionTimeoutSeconds = sessionTimeoutSeconds;
+    }
+
+    protected void setHostnameVerificationFlag(boolean hostnameVerificationFlag) {
+        this.hostnameVerificationFlag = hostnameVerificationFlag;
+    }
+
+    protected void setSslContextOwnedFlag(boolean sslContextOwnedFlag) {
+        this.sslContextOwnedFlag = sslContextOwnedFlag;
+    }
+
+    /**
+     * Applies the session cache settings to the SSL context, if created by the policy, and creates the socket factory
+     * of the policy.
+     */
+    protected void initSocketFactory() {
+        if (sslContextOwnedFlag) {
+            sslContext.getClientSessionContext().setSessionCacheSize(sessionCacheSize);
+            sslContext.getClientSessionContext().setSessionTimeout(sessionTimeoutSeconds);
+        }
+        this.socketFactory = new TlsSocketFactory(this);
+    }
+
+    @Override
+    public String toString() {
+        return "TlsPolicy{" +
+                "sslContext=" + sslContext.getProtocol() +
+                ", protocols=" + Arrays.toString(protocols) +
+                ", cipherSuites=" + Arrays.toString(cipherSuites) +
+                ", sessionResumptionFlag=" + sessionResumptionFlag +
+                ", sessionCacheSize=" + sessionCacheSize +
+                ", sessionTimeoutSeconds=" + sessionTimeoutSeconds +
+                ", hostnameVerificationFlag=" + hostnameVerificationFlag +
+                ", sslContextOwnedFlag=" + sslContextOwnedFlag +
+                '}';
+    }
+}
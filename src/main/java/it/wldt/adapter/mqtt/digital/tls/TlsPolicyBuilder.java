@@ -0,0 +1,171 @@
+package it.wldt.adapter.mqtt.digital.tls;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.TrustManagerFactory;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fluent builder of {@link TlsPolicy} instances.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class TlsPolicyBuilder {
+
+    private static final String TLS_PROTOCOL = "TLS";
+
+    private final TlsPolicy policy = new TlsPolicy();
+
+    private boolean sessionCacheFlag = false;
+
+    /**
+     * Sets the SSL context creating the sockets, e.g. initialized with the key managers of a client certificate. The
+     * context may be shared with other clients, so its client session cache is configured by the caller and is never
+     * modified by the adapter.
+     *
+     * @param sslContext The initialized SSL context.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the SSL context is null.
+     */
+    public TlsPolicyBuilder setSslContext(SSLContext sslContext) throws MqttDigitalAdapterConfigurationException {
+        if(sslContext == null) throw new MqttDigitalAdapterConfigurationException("SSLContext cannot be null");
+        policy.setSslContext(sslContext);
+        policy.setSslContextOwnedFlag(false);
+        return this;
+    }
+
+    /**
+     * Uses a new SSL context trusting the certificates of a trust store, e.g. the one of a broker with a self-signed
+     * certificate.
+     *
+     * @param trustStore The trust store.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the trust store is null or the SSL context cannot
+     * be initialized with it.
+     */
+    public TlsPolicyBuilder setTrustStore(KeyStore trustStore) throws MqttDigitalAdapterConfigurationException {
+        if(trustStore == null) throw new MqttDigitalAdapterConfigurationException("Trust Store cannot be null");
+        try {
+            TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init(trustStore);
+            SSLContext sslContext = SSLContext.getInstance(TLS_PROTOCOL);
+            sslContext.init(null, trustManagerFactory.getTrustManagers(), null);
+            policy.setSslContext(sslContext);
+            policy.setSslContextOwnedFlag(true);
+        } catch (GeneralSecurityException e) {
+            throw new MqttDigitalAdapterConfigurationException(String.format("Error initializing the SSL context: %s", e.getMessage()));
+        }
+        return this;
+    }
+
+    /**
+     * Sets the enabled TLS protocols.
+     *
+     * @param protocols The protocols, e.g. TLSv1.3 and TLSv1.2. Must be supported by the SSL context.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when no protocol is provided.
+     */
+    public TlsPolicyBuilder setProtocols(String... protocols) throws MqttDigitalAdapterConfigurationException {
+        if(protocols == null || protocols.length == 0) throw new MqttDigitalAdapterConfigurationException("Protocols cannot be empty");
+        policy.setProtocols(protocols.clone());
+        return this;
+    }
+
+    /**
+     * Sets the enabled cipher suites, e.g. to restrict the handshake to the suites accelerated by the hardware.
+     *
+     * @param cipherSuites The cipher suites. Must be supported by the SSL context.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when no cipher suite is provided.
+     */
+    public TlsPolicyBuilder setCipherSuites(String... cipherSuites) throws MqttDigitalAdapterConfigurationException {
+        if(cipherSuites == null || cipherSuites.length == 0) throw new MqttDigitalAdapterConfigurationException("Cipher Suites cannot be empty");
+        policy.setCipherSuites(cipherSuites.clone());
+        return this;
+    }
+
+    /**
+     * Enables or disables the resumption of the cached TLS session on reconnection. When disabled, the sessions
+     * cached by the SSL context created by the policy are invalidated before each connection, so every connection
+     * performs a full handshake, while with a custom SSL context only the sessions created by the connections of the
+     * adapter are invalidated, so that they are never resumed, and the sessions cached by the other clients of the
+     * context are left untouched.
+     *
+     * @param sessionResumption The flag value.
+     * @return The updated builder.
+     */
+    public TlsPolicyBuilder setSessionResumption(boolean sessionResumption) {
+        policy.setSessionResumptionFlag(sessionResumption);
+        return this;
+    }
+
+    /**
+     * Sets the client session cache of the SSL context created by the policy. A custom SSL context keeps its own
+     * settings.
+     *
+     * @param sessionCacheSize The maximum number of cached sessions. Must be a positive number.
+     * @param sessionTimeoutSeconds The lifetime of a cached session in seconds. Must be a positive number.
+     * @return The updated builder.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the size or the timeout is not a positive number.
+     */
+    public TlsPolicyBuilder setSessionCache(int sessionCacheSize, int sessionTimeoutSeconds) throws MqttDigitalAdapterConfigurationException {
+        if(sessionCacheSize <= 0) throw new MqttDigitalAdapterConfigurationException("Session Cache Size must be a positive number");
+        if(sessionTimeoutSeconds <= 0) throw new MqttDigitalAdapterConfigurationException("Session Timeout must be a positive number");
+        policy.setSessionCacheSize(sessionCacheSize);
+        policy.setSessionTimeoutSeconds(sessionTimeoutSeconds);
+        this.sessionCacheFlag = true;
+        return this;
+    }
+
+    /**
+     * Enables or disables the verification of the broker host name against its certificate.
+     *
+     * @param hostnameVerification The flag value.
+     * @return The updated builder.
+     */
+    public TlsPolicyBuilder setHostnameVerification(boolean hostnameVerification) {
+        policy.setHostnameVerificationFlag(hostnameVerification);
+        return this;
+    }
+
+    /**
+     * Builds the TLS policy.
+     *
+     * @return The TLS policy.
+     * @throws MqttDigitalAdapterConfigurationException Thrown when the default SSL context cannot be created, a
+     * protocol or cipher suite is not supported by the SSL context, or the session cache is set for a custom SSL
+     * context.
+     */
+    public TlsPolicy build() throws MqttDigitalAdapterConfigurationException {
+        if(sessionCacheFlag && !policy.getSslContextOwnedFlag())
+            throw new MqttDigitalAdapterConfigurationException("Session Cache cannot be set for a custom SSLContext, configure its client session context instead");
+        if(policy.getSslContext() == null) {
+            try {
+                SSLContext sslContext = SSLContext.getInstance(TLS_PROTOCOL);
+                sslContext.init(null, null, null);
+                policy.setSslContext(sslContext);
+                policy.setSslContextOwnedFlag(true);
+            } catch (GeneralSecurityException e) {
+                throw new MqttDigitalAdapterConfigurationException(String.format("Error initializing the SSL context: %s", e.getMessage()));
+            }
+        }
+        SSLParameters supported = policy.getSslContext().getSupportedSSLParameters();
+        checkSupported("Protocol", policy.getProtocols(), supported.getProtocols());
+        checkSupported("Cipher Suite", policy.getCipherSuites(), supported.getCipherSuites());
+        policy.initSocketFactory();
+        return policy;
+    }
+
+    private static void checkSupported(String name, String[] values, String[] supportedValues) throws MqttDigitalAdapterConfigurationException {
+        if(values == null)
+            return;
+        List<String> supported = Arrays.asList(supportedValues);
+        for(String value : values)
+            if(!supported.contains(value)) throw new MqttDigitalAdapterConfigurationException(String.format("%s not supported: %s", name, value));
+    }
+}
@@ -0,0 +1,110 @@
+package it.wldt.adapter.mqtt.digital.tls;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Collections;
+
+/**
+ * Socket factory of the MQTT client applying a {@link TlsPolicy} to the sockets created by the SSL context of the
+ * policy: enabled protocols and cipher suites and, when the session resumption is disabled, the invalidation of the
+ * cached sessions so that every connection performs a full handshake. The whole client session cache is only
+ * invalidated for an SSL context created by the policy, while for a custom SSL context, possibly shared with other
+ * clients, only the sessions created by the handshakes of the adapter are invalidated, so that they are never resumed,
+ * while the sessions cached by the other clients are left untouched.
+ * <p>
+ * The same factory (and SSL context) is used for all the connections of an adapter, so a reconnection finds the
+ * session of the previous connection in the client session cache and resumes it with an abbreviated handshake.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+class TlsSocketFactory extends SSLSocketFactory {
+
+    private final TlsPolicy policy;
+
+    private final SSLSocketFactory delegate;
+
+    TlsSocketFactory(TlsPolicy policy) {
+        this.policy = policy;
+        this.delegate = policy.getSslContext().getSocketFactory();
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return policy.getCipherSuites() != null ? policy.getCipherSuites().clone() : delegate.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return delegate.getSupportedCipherSuites();
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+        return configure(delegate.createSocket());
+    }
+
+    @Override
+    public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+        return configure(delegate.createSocket(socket, host, port, autoClose));
+    }
+
+    @Override
+    public Socket createSocket(Socket socket, InputStream consumed, boolean autoClose) throws IOException {
+        return configure(delegate.createSocket(socket, consumed, autoClose));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return configure(delegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return configure(delegate.createSocket(host, port, localHost, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return configure(delegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+        return configure(delegate.createSocket(address, port, localAddress, localPort));
+    }
+
+    private Socket configure(Socket socket) {
+        SSLSocket sslSocket = (SSLSocket) socket;
+        if (policy.getProtocols() != null)
+            sslSocket.setEnabledProtocols(policy.getProtocols());
+        if (policy.getCipherSuites() != null)
+            sslSocket.setEnabledCipherSuites(policy.getCipherSuites());
+        if (!policy.getSessionResumptionFlag()) {
+            if (policy.getSslContextOwnedFlag())
+                invalidateSessions(policy.getSslContext());
+            else {
+                // A session resumed from the shared cache was created by another client and is left valid
+                long creationTime = System.currentTimeMillis();
+                sslSocket.addHandshakeCompletedListener(event -> {
+                    if (event.getSession().getCreationTime() >= creationTime)
+                        event.getSession().invalidate();
+                });
+            }
+        }
+        return sslSocket;
+    }
+
+    private static void invalidateSessions(SSLContext sslContext) {
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        for (byte[] sessionId : Collections.list(sessionContext.getIds())) {
+            if (sessionContext.getSession(sessionId) != null)
+                sessionContext.getSession(sessionId).invalidate();
+        }
+    }
+}
@@ -33,6 +33,11 @@ public class MqttTopic {
      */
     private boolean isRetained = false;
 
+    /**
+     * The message expiry interval in seconds (MQTT 5 only), null if messages never expire
+     */
+    private Long messageExpiryInterval = null;
+
     /**
      * Constructs an {@code MqttTopic} with the specified topic string.
      *
@@ -65,6 +70,20 @@ public class MqttTopic {
         this.isRetained = isRetained;
     }
 
+    /**
+     * Constructs an {@code MqttTopic} with the specified topic string and the QoS level, retained flag and message
+     * expiry interval of another topic.
+     *
+     * @param template The topic whose delivery settings are copied.
+     * @param topic    The string representing the MQTT topic.
+     */
+    protected MqttTopic(MqttTopic template, String topic) {
+        this.topic = topic;
+        this.qosLevel = template.qosLevel;
+        this.isRetained = template.isRetained;
+        this.messageExpiryInterval = template.messageExpiryInterval;
+    }
+
     /**
      * Gets the string representing the MQTT topic.
      *
@@ -109,4 +128,22 @@ public class MqttTopic {
     public void setRetained(boolean retained) {
         isRetained = retained;
     }
+
+    /**
+     * Gets the message expiry interval in seconds. It is applied only when the adapter uses MQTT 5.
+     *
+     * @return The message expiry interval, or {@code null} if messages published on the topic never expire.
+     */
+    public Long getMessageExpiryInterval() {
+        return messageExpiryInterval;
+    }
+
+    /**
+     * Sets the message expiry interval in seconds. It is applied only when the adapter uses MQTT 5.
+     *
+     * @param messageExpiryInterval The message expiry interval, or {@code null} to disable expiry.
+     */
+    public void setMessageExpiryInterval(Long messageExpiryInterval) {
+        this.messageExpiryInterval = messageExpiryInterval;
+    }
 }
@@ -1,6 +1,7 @@
 package it.wldt.adapter.mqtt.digital.topic.incoming;
 
 import it.wldt.adapter.digital.event.DigitalActionWldtEvent;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
 import it.wldt.exception.EventBusException;
 
 import java.util.function.Function;
@@ -24,6 +25,11 @@ import java.util.function.Function;
  */
 public class ActionIncomingTopic<T> extends DigitalTwinIncomingTopic{
 
+    /**
+     * The key of the action associated with this topic
+     */
+    private final String actionKey;
+
     /**
      * Constructs an {@code ActionIncomingTopic} with the specified topic, action key,
      * and function for converting message payloads to the associated action type.
@@ -33,7 +39,20 @@ public class ActionIncomingTopic<T> extends DigitalTwinIncomingTopic{
      * @param messageToAction A function to convert message payloads to the associated action type.
      */
     public ActionIncomingTopic(String topic, String actionKey,  Function<String, T> messageToAction) {
-        super(topic, messagePayload -> {
+        this(topic, MqttQosLevel.MQTT_QOS_0, actionKey, messageToAction);
+    }
+
+    /**
+     * Constructs an {@code ActionIncomingTopic} with the specified topic, subscription QoS level, action key,
+     * and function for converting message payloads to the associated action type.
+     *
+     * @param topic           The topic to subscribe to for incoming action messages.
+     * @param qosLevel        The Quality of Service (QoS) level of the subscription.
+     * @param actionKey       The key identifying the type of action associated with this topic.
+     * @param messageToAction A function to convert message payloads to the associated action type.
+     */
+    public ActionIncomingTopic(String topic, MqttQosLevel qosLevel, String actionKey, Function<String, T> messageToAction) {
+        super(topic, qosLevel, messagePayload -> {
             try {
                 return new DigitalActionWldtEvent<>(actionKey, messageToAction.apply(messagePayload));
             } catch (EventBusException e) {
@@ -41,5 +60,37 @@ public class ActionIncomingTopic<T> extends DigitalTwinIncomingTopic{
             }
             return null;
         });
+        this.actionKey = actionKey;
+    }
+
+    /**
+     * Constructs an {@code ActionIncomingTopic} with the specified topic, sharing the action key, the conversion
+     * function and the settings of another topic.
+     *
+     * @param template The topic whose action key, function and settings are shared.
+     * @param topic    The topic to subscribe to for incoming action messages.
+     */
+    protected ActionIncomingTopic(ActionIncomingTopic<T> template, String topic) {
+        super(template, topic);
+        this.actionKey = template.actionKey;
+    }
+
+    /**
+     * Creates a copy of this topic on another MQTT topic, sharing its action key, conversion function and settings.
+     *
+     * @param topic The topic of the copy.
+     * @return The copy of this topic.
+     */
+    public ActionIncomingTopic<T> withTopic(String topic) {
+        return new ActionIncomingTopic<>(this, topic);
+    }
+
+    /**
+     * Gets the key identifying the action associated with this topic.
+     *
+     * @return The action key.
+     */
+    public String getActionKey() {
+        return actionKey;
     }
 }
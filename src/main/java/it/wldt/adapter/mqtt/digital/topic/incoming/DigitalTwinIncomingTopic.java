@@ -1,5 +1,7 @@
 package it.wldt.adapter.mqtt.digital.topic.incoming;
 
+import it.wldt.adapter.mqtt.digital.jfr.MqttDigitalAdapterFlightRecorder;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
 import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
 import it.wldt.adapter.digital.event.DigitalActionWldtEvent;
 
@@ -35,6 +37,31 @@ public class DigitalTwinIncomingTopic extends MqttTopic {
         this.subscribeDigitalFunction = subscribeDigitalFunction;
     }
 
+    /**
+     * Constructs a {@code DigitalTwinIncomingTopic} with the specified topic, subscription QoS level
+     * and function for handling incoming digital twin messages.
+     *
+     * @param topic                    The topic to subscribe to for incoming digital twin messages.
+     * @param qosLevel                 The Quality of Service (QoS) level of the subscription.
+     * @param subscribeDigitalFunction The function to apply for handling incoming message payloads.
+     */
+    public DigitalTwinIncomingTopic(String topic, MqttQosLevel qosLevel, MqttSubscribeDigitalFunction subscribeDigitalFunction) {
+        super(topic, qosLevel);
+        this.subscribeDigitalFunction = subscribeDigitalFunction;
+    }
+
+    /**
+     * Constructs a {@code DigitalTwinIncomingTopic} with the specified topic, sharing the subscription function and
+     * the settings of another topic.
+     *
+     * @param template The topic whose function and settings are shared.
+     * @param topic    The topic to subscribe to for incoming digital twin messages.
+     */
+    protected DigitalTwinIncomingTopic(DigitalTwinIncomingTopic template, String topic) {
+        super(template, topic);
+        this.subscribeDigitalFunction = template.subscribeDigitalFunction;
+    }
+
     /**
      * Applies the subscription function to the provided message payload.
      * Converts the payload to a {@link DigitalActionWldtEvent} representing
@@ -46,6 +73,9 @@ public class DigitalTwinIncomingTopic extends MqttTopic {
      * @see DigitalActionWldtEvent
      */
     public DigitalActionWldtEvent<?> applySubscribeFunction(String messagePayload) {
-        return this.subscribeDigitalFunction.apply(messagePayload);
+        Object jfrEvent = MqttDigitalAdapterFlightRecorder.beginActionDecode();
+        DigitalActionWldtEvent<?> actionEvent = this.subscribeDigitalFunction.apply(messagePayload);
+        MqttDigitalAdapterFlightRecorder.commitActionDecode(jfrEvent, getTopic(), messagePayload == null ? 0 : messagePayload.length(), getQos());
+        return actionEvent;
     }
 }
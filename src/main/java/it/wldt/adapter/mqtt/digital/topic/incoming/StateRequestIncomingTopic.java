@@ -0,0 +1,94 @@
+package it.wldt.adapter.mqtt.digital.topic.incoming;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Represents the incoming topic on which consumers request the current property values of the Digital Twin.
+ * Unlike an {@link ActionIncomingTopic}, requests are not forwarded to the DT but answered by the MQTT Digital
+ * Adapter itself on the associated response topic, using the last published property payloads.
+ *
+ * The request payload is converted by the request function into the set of requested property keys, an empty set
+ * meaning all the properties. The default function accepts an empty payload or {@code *} (all the properties), a JSON
+ * array of keys (e.g. {@code ["energy","switch"]}) or a comma separated list of keys (e.g. {@code energy,switch}).
+ *
+ * @see MqttTopic
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class StateRequestIncomingTopic extends MqttTopic {
+
+    private static final Gson GSON = new Gson();
+
+    private static final String ALL_PROPERTIES = "*";
+
+    /**
+     * Default request function, see the class description for the accepted payloads.
+     */
+    public static final Function<String, Set<String>> DEFAULT_REQUEST_FUNCTION = StateRequestIncomingTopic::parseRequest;
+
+    private final Function<String, Set<String>> requestToPropertyKeys;
+
+    /**
+     * Constructs a {@code StateRequestIncomingTopic} with the specified topic, QoS level and function converting the
+     * request payload into the requested property keys.
+     *
+     * @param topic                 The topic to subscribe to for incoming state requests.
+     * @param qosLevel              The quality of service level of the subscription.
+     * @param requestToPropertyKeys The function converting a request payload into the requested property keys.
+     */
+    public StateRequestIncomingTopic(String topic, MqttQosLevel qosLevel, Function<String, Set<String>> requestToPropertyKeys) {
+        super(topic, qosLevel);
+        this.requestToPropertyKeys = requestToPropertyKeys;
+    }
+
+    /**
+     * Creates a copy of this topic on another MQTT topic, sharing its request function and settings.
+     *
+     * @param topic The topic of the copy.
+     * @return The copy of this topic.
+     */
+    public StateRequestIncomingTopic withTopic(String topic) {
+        return new StateRequestIncomingTopic(this, topic);
+    }
+
+    private StateRequestIncomingTopic(StateRequestIncomingTopic template, String topic) {
+        super(template, topic);
+        this.requestToPropertyKeys = template.requestToPropertyKeys;
+    }
+
+    /**
+     * Applies the request function to the provided message payload.
+     *
+     * @param messagePayload The payload of the incoming request.
+     * @return The requested property keys, empty for all the properties.
+     */
+    public Set<String> applyRequestFunction(String messagePayload) {
+        Set<String> propertyKeys = requestToPropertyKeys.apply(messagePayload);
+        return propertyKeys == null ? Collections.emptySet() : propertyKeys;
+    }
+
+    private static Set<String> parseRequest(String messagePayload) {
+        String request = messagePayload == null ? "" : messagePayload.trim();
+        if (request.isEmpty() || request.equals(ALL_PROPERTIES))
+            return Collections.emptySet();
+        if (request.startsWith("[")) {
+            try {
+                String[] keys = GSON.fromJson(request, String[].class);
+                return keys == null ? Collections.emptySet() : new TreeSet<>(Arrays.asList(keys));
+            } catch (JsonSyntaxException e) {
+                throw new IllegalArgumentException("Invalid state request: " + request, e);
+            }
+        }
+        Set<String> keys = new TreeSet<>();
+        for (String key : request.split(","))
+            if (!key.trim().isEmpty())
+                keys.add(key.trim());
+        return keys;
+    }
+}
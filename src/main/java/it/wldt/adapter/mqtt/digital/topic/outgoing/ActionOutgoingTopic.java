@@ -33,4 +33,16 @@ public class ActionOutgoingTopic extends DigitalTwinOutgoingTopic<DigitalTwinSta
     public ActionOutgoingTopic(String topic, MqttQosLevel qosLevel, MqttPublishDigitalFunction<DigitalTwinStateAction> publishDigitalFunction) {
         super(topic, qosLevel, publishDigitalFunction);
     }
+
+    /**
+     * Applies the publishing function to the provided digital twin state action.
+     * Converts the action into a message payload for publishing.
+     *
+     * @param digitalTwinStateComponent The digital twin state action to publish.
+     * @return The message payload for publishing.
+     */
+    @Override
+    public String applyPublishFunction(DigitalTwinStateAction digitalTwinStateComponent) {
+        return super.applyPublishFunction(digitalTwinStateComponent);
+    }
 }
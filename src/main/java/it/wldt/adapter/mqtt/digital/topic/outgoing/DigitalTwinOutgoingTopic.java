@@ -1,5 +1,7 @@
 package it.wldt.adapter.mqtt.digital.topic.outgoing;
 
+import it.wldt.adapter.mqtt.digital.buffer.PayloadBufferSlot;
+import it.wldt.adapter.mqtt.digital.jfr.MqttDigitalAdapterFlightRecorder;
 import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
 import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
 import it.wldt.core.state.DigitalTwinStateEventNotification;
@@ -27,6 +29,17 @@ import it.wldt.core.state.DigitalTwinStateProperty;
 public class DigitalTwinOutgoingTopic<T> extends MqttTopic {
     private final MqttPublishDigitalFunction<T> publishDigitalFunction;
 
+    /**
+     * Identifies the function producing the payloads: topics with the same key produce the same payload for the same
+     * component, so the adapter serializes it once for all of them
+     */
+    private final Object serializationKey;
+
+    /**
+     * Recycled payload array of the publications on this topic
+     */
+    private final PayloadBufferSlot payloadBufferSlot = new PayloadBufferSlot();
+
     /**
      * Constructs a {@code DigitalTwinOutgoingTopic} with the specified topic, QoS level,
      * and function for publishing digital twin state components.
@@ -36,8 +49,7 @@ public class DigitalTwinOutgoingTopic<T> extends MqttTopic {
      * @param publishDigitalFunction The function to apply for publishing digital twin state components.
      */
     public DigitalTwinOutgoingTopic(String topic, MqttQosLevel qosLevel, MqttPublishDigitalFunction<T> publishDigitalFunction) {
-        super(topic, qosLevel);
-        this.publishDigitalFunction = publishDigitalFunction;
+        this(topic, qosLevel, publishDigitalFunction, publishDigitalFunction);
     }
 
     /**
@@ -50,8 +62,71 @@ public class DigitalTwinOutgoingTopic<T> extends MqttTopic {
      * @param publishDigitalFunction The function to apply for publishing digital twin state components.
      */
     public DigitalTwinOutgoingTopic(String topic, MqttQosLevel qosLevel, boolean isRetained, MqttPublishDigitalFunction<T> publishDigitalFunction) {
+        this(topic, qosLevel, isRetained, publishDigitalFunction, publishDigitalFunction);
+    }
+
+    /**
+     * Constructs a {@code DigitalTwinOutgoingTopic} whose payloads are identified by a serialization key, e.g. the
+     * user function wrapped by the publishing function.
+     *
+     * @param topic                  The topic to publish outgoing messages to.
+     * @param qosLevel               The quality of service level for message delivery.
+     * @param publishDigitalFunction The function to apply for publishing digital twin state components.
+     * @param serializationKey       The key shared by the topics producing the same payloads.
+     */
+    protected DigitalTwinOutgoingTopic(String topic, MqttQosLevel qosLevel, MqttPublishDigitalFunction<T> publishDigitalFunction, Object serializationKey) {
+        super(topic, qosLevel);
+        this.publishDigitalFunction = publishDigitalFunction;
+        this.serializationKey = serializationKey;
+    }
+
+    /**
+     * Constructs a {@code DigitalTwinOutgoingTopic} whose payloads are identified by a serialization key, e.g. the
+     * user function wrapped by the publishing function.
+     *
+     * @param topic                  The topic to publish outgoing messages to.
+     * @param qosLevel               The quality of service level for message delivery.
+     * @param isRetained             The retained flag.
+     * @param publishDigitalFunction The function to apply for publishing digital twin state components.
+     * @param serializationKey       The key shared by the topics producing the same payloads.
+     */
+    protected DigitalTwinOutgoingTopic(String topic, MqttQosLevel qosLevel, boolean isRetained, MqttPublishDigitalFunction<T> publishDigitalFunction, Object serializationKey) {
         super(topic, qosLevel, isRetained);
         this.publishDigitalFunction = publishDigitalFunction;
+        this.serializationKey = serializationKey;
+    }
+
+    /**
+     * Constructs a {@code DigitalTwinOutgoingTopic} with the specified topic, sharing the publishing function, the
+     * serialization key and the settings of another topic. The copy recycles its own payload array.
+     *
+     * @param template The topic whose function, serialization key and settings are shared.
+     * @param topic    The topic to publish outgoing messages to.
+     */
+    protected DigitalTwinOutgoingTopic(DigitalTwinOutgoingTopic<T> template, String topic) {
+        super(template, topic);
+        this.publishDigitalFunction = template.publishDigitalFunction;
+        this.serializationKey = template.serializationKey;
+    }
+
+    /**
+     * Gets the key identifying the function producing the payloads of this topic: topics with the same key produce
+     * the same payload for the same component.
+     *
+     * @return The serialization key.
+     */
+    public Object getSerializationKey() {
+        return serializationKey;
+    }
+
+    /**
+     * Gets the slot recycling the payload array of the publications on this topic.
+     *
+     * @return The payload buffer slot.
+     * @see PayloadBufferSlot
+     */
+    public PayloadBufferSlot getPayloadBufferSlot() {
+        return payloadBufferSlot;
     }
 
     /**
@@ -64,7 +139,7 @@ public class DigitalTwinOutgoingTopic<T> extends MqttTopic {
      * @see DigitalTwinStateProperty
      */
     public String applyPublishFunction(DigitalTwinStateProperty<?> digitalTwinStateComponent){
-        return publishDigitalFunction.apply((T) digitalTwinStateComponent);
+        return applyPublishFunction((T) digitalTwinStateComponent);
     }
 
     /**
@@ -77,6 +152,20 @@ public class DigitalTwinOutgoingTopic<T> extends MqttTopic {
      * @see DigitalTwinStateEventNotification
      */
     public String applyPublishFunction(DigitalTwinStateEventNotification<?> digitalTwinStateComponent){
-        return publishDigitalFunction.apply((T) digitalTwinStateComponent);
+        return applyPublishFunction((T) digitalTwinStateComponent);
+    }
+
+    /**
+     * Applies the publishing function to the provided digital twin state component, emitting a serialization
+     * Flight Recorder event when enabled. Subclasses bound to a component type may expose it publicly.
+     *
+     * @param digitalTwinStateComponent The digital twin state component to publish.
+     * @return The message payload for publishing.
+     */
+    protected String applyPublishFunction(T digitalTwinStateComponent){
+        Object jfrEvent = MqttDigitalAdapterFlightRecorder.beginSerialize();
+        String payload = publishDigitalFunction.apply(digitalTwinStateComponent);
+        MqttDigitalAdapterFlightRecorder.commitSerialize(jfrEvent, getTopic(), payload == null ? 0 : payload.length(), getQos());
+        return payload;
     }
 }
@@ -1,6 +1,7 @@
 package it.wldt.adapter.mqtt.digital.topic.outgoing;
 
 import com.google.gson.Gson;
+import it.wldt.adapter.mqtt.digital.structure.StructureDiff;
 import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
 import it.wldt.core.state.DigitalTwinStateProperty;
 
@@ -12,9 +13,16 @@ import it.wldt.core.state.DigitalTwinStateProperty;
  * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
  */
 public class DigitalTwinOutgoingTopicFactory {
+
+    /**
+     * Gson instance shared by the default topics, Gson is thread-safe and expensive to create
+     */
+    private static final Gson GSON = new Gson();
+
     private static final String STATE_ACTIONS_PREFIX = "state/actions/";
     private static final String STATE_EVENTS_PREFIX = "state/events/";
     private static final String STATE_PROPERTIES_PREFIX = "state/properties/";
+    private static final String STATE_STRUCTURE_DIFF_TOPIC = "state/structure/diff";
 
     private static final String ENABLED_SUFFIX = "/enabled";
     private static final String DISABLED_SUFFIX = "/disabled";
@@ -37,7 +45,7 @@ public class DigitalTwinOutgoingTopicFactory {
     private static ActionOutgoingTopic createDefaultActionOutgoingTopic(String topic, MqttQosLevel qosLevel){
         return new ActionOutgoingTopic(topic,
                 qosLevel,
-                digitalTwinStateAction -> new Gson().toJson(digitalTwinStateAction));
+                digitalTwinStateAction -> GSON.toJson(digitalTwinStateAction));
     }
 
     /**
@@ -51,7 +59,7 @@ public class DigitalTwinOutgoingTopicFactory {
     private static EventOutgoingTopic createDefaultEventOutgoingTopic(String topic, MqttQosLevel qosLevel){
         return new EventOutgoingTopic(topic,
                 qosLevel,
-                digitalTwinStateEvent -> new Gson().toJson(digitalTwinStateEvent));
+                digitalTwinStateEvent -> GSON.toJson(digitalTwinStateEvent));
     }
 
     /**
@@ -66,7 +74,7 @@ public class DigitalTwinOutgoingTopicFactory {
     private static DigitalTwinOutgoingTopic<DigitalTwinStateProperty<?>> createDefaultPropertyOutgoingTopic(String topic, MqttQosLevel qosLevel){
         return new DigitalTwinOutgoingTopic<>(topic,
         qosLevel,
-        digitalTwinStateProperty -> new Gson().toJson(digitalTwinStateProperty));
+        digitalTwinStateProperty -> GSON.toJson(digitalTwinStateProperty));
     }
 
     /**
@@ -166,4 +174,18 @@ public class DigitalTwinOutgoingTopicFactory {
     public static DigitalTwinOutgoingTopic<DigitalTwinStateProperty<?>> createDefaultPropertyDeletedTopic(String propertyKey, MqttQosLevel qosLevel){
         return createDefaultPropertyOutgoingTopic(STATE_PROPERTIES_PREFIX+propertyKey+DELETED_SUFFIX, qosLevel);
     }
+
+    /**
+     * Creates a default outgoing topic for the structure diffs of the DT state.
+     *
+     * @param qosLevel The quality of service level for message delivery.
+     * @return A default structure diff outgoing topic.
+     * @see StructureDiffOutgoingTopic
+     * @see StructureDiff
+     */
+    public static StructureDiffOutgoingTopic createDefaultStructureDiffTopic(MqttQosLevel qosLevel){
+        return new StructureDiffOutgoingTopic(STATE_STRUCTURE_DIFF_TOPIC,
+                qosLevel,
+                structureDiff -> GSON.toJson(structureDiff));
+    }
 }
@@ -14,6 +14,9 @@ import java.util.function.Function;
  * digital twin state event notifications to a specified MQTT topic using the provided
  * {@link MqttQosLevel} and {@link Function} for converting the notification body to a string.
  *
+ * The conversion function is the serialization key of the topic, so the topics of the same key sharing the same
+ * function instance are serialized once for all of them.
+ *
  * @param <T> The generic type representing the body of the event notification.
  * @see DigitalTwinOutgoingTopic
  * @see MqttQosLevel
@@ -32,7 +35,7 @@ public class EventNotificationOutgoingTopic<T> extends DigitalTwinOutgoingTopic<
      * @param notificationBodyToString The function to apply for converting the notification body to a string.
      */
     public EventNotificationOutgoingTopic(String topic, MqttQosLevel qosLevel, Function<T, String> notificationBodyToString) {
-        super(topic, qosLevel, eventNotification -> notificationBodyToString.apply(eventNotification.getBody()));
+        super(topic, qosLevel, eventNotification -> notificationBodyToString.apply(eventNotification.getBody()), notificationBodyToString);
     }
 
     /**
@@ -45,6 +48,21 @@ public class EventNotificationOutgoingTopic<T> extends DigitalTwinOutgoingTopic<
      * @param notificationBodyToString The function to apply for converting the notification body to a string.
      */
     public EventNotificationOutgoingTopic(String topic, MqttQosLevel qosLevel, boolean isRetained, Function<T, String> notificationBodyToString) {
-        super(topic, qosLevel, isRetained, eventNotification -> notificationBodyToString.apply(eventNotification.getBody()));
+        super(topic, qosLevel, isRetained, eventNotification -> notificationBodyToString.apply(eventNotification.getBody()), notificationBodyToString);
+    }
+
+    /**
+     * Creates a copy of this topic on another MQTT topic, sharing its conversion function, serialization key and
+     * settings.
+     *
+     * @param topic The topic of the copy.
+     * @return The copy of this topic.
+     */
+    public EventNotificationOutgoingTopic<T> withTopic(String topic) {
+        return new EventNotificationOutgoingTopic<>(this, topic);
+    }
+
+    private EventNotificationOutgoingTopic(EventNotificationOutgoingTopic<T> template, String topic) {
+        super(template, topic);
     }
 }
@@ -26,4 +26,16 @@ public class EventOutgoingTopic extends DigitalTwinOutgoingTopic<DigitalTwinStat
     public EventOutgoingTopic(String topic, MqttQosLevel qosLevel, MqttPublishDigitalFunction<DigitalTwinStateEvent> publishDigitalFunction) {
         super(topic, qosLevel, publishDigitalFunction);
     }
+
+    /**
+     * Applies the publishing function to the provided digital twin state event.
+     * Converts the event into a message payload for publishing.
+     *
+     * @param digitalTwinStateComponent The digital twin state event to publish.
+     * @return The message payload for publishing.
+     */
+    @Override
+    public String applyPublishFunction(DigitalTwinStateEvent digitalTwinStateComponent) {
+        return super.applyPublishFunction(digitalTwinStateComponent);
+    }
 }
@@ -0,0 +1,83 @@
+package it.wldt.adapter.mqtt.digital.topic.outgoing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The outgoing topics of a property or event key, on which every update of the key is published. The payload of a
+ * topic is serialized only once for all the topics sharing its serialization key (see
+ * {@link DigitalTwinOutgoingTopic#getSerializationKey()}): each topic refers to the first topic of the fan-out with
+ * the same key, whose payload it reuses.
+ *
+ * @param <T> The type of the outgoing topics.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class OutgoingTopicFanOut<T extends DigitalTwinOutgoingTopic<?>> {
+
+    private final List<T> topics;
+
+    private final T primaryTopic;
+
+    // Index of the first topic with the same serialization key of each topic
+    private final int[] serializationSources;
+
+    /**
+     * Constructs the fan-out of a key.
+     *
+     * @param topics The outgoing topics, in publication order.
+     * @param primaryTopic The primary topic of the key, e.g. the one whose payloads are cached, or null.
+     */
+    public OutgoingTopicFanOut(List<T> topics, T primaryTopic) {
+        this.topics = Collections.unmodifiableList(new ArrayList<>(topics));
+        this.primaryTopic = primaryTopic;
+        this.serializationSources = new int[topics.size()];
+        for (int i = 0; i < topics.size(); i++) {
+            int source = i;
+            for (int j = 0; j < i; j++) {
+                if (topics.get(j).getSerializationKey() == topics.get(i).getSerializationKey()) {
+                    source = j;
+                    break;
+                }
+            }
+            serializationSources[i] = source;
+        }
+    }
+
+    public List<T> getTopics() {
+        return topics;
+    }
+
+    public int size() {
+        return topics.size();
+    }
+
+    public T get(int index) {
+        return topics.get(index);
+    }
+
+    /**
+     * Tells whether a topic is the primary topic of the key.
+     *
+     * @param index The topic index.
+     * @return True if the topic is the primary one.
+     */
+    public boolean isPrimary(int index) {
+        return topics.get(index) == primaryTopic;
+    }
+
+    /**
+     * Serializes a component for all the topics, once for each distinct serialization key.
+     *
+     * @param serializer Serializes the component for a topic.
+     * @return The payloads of the topics, by index.
+     */
+    public String[] serialize(Function<T, String> serializer) {
+        String[] payloads = new String[topics.size()];
+        for (int i = 0; i < payloads.length; i++)
+            payloads[i] = serializationSources[i] == i ? serializer.apply(topics.get(i)) : payloads[serializationSources[i]];
+        return payloads;
+    }
+}
@@ -14,6 +14,9 @@ import java.util.function.Function;
  * to a specified MQTT topic using the provided {@link MqttQosLevel} and {@link Function} for converting
  * the property value to a string.
  *
+ * The conversion function is the serialization key of the topic, so the topics of the same key sharing the same
+ * function instance are serialized once for all of them.
+ *
  * @param <T> The generic type representing the type of the property value.
  * @see DigitalTwinOutgoingTopic
  * @see MqttQosLevel
@@ -33,7 +36,7 @@ public class PropertyOutgoingTopic<T> extends DigitalTwinOutgoingTopic<DigitalTw
      * @param propertyValueToString The function to apply for converting the property value to a string.
      */
     public PropertyOutgoingTopic(String topic, MqttQosLevel qosLevel, Function<T, String> propertyValueToString) {
-        super(topic, qosLevel, dtStateProperty -> propertyValueToString.apply(dtStateProperty.getValue()));
+        super(topic, qosLevel, dtStateProperty -> propertyValueToString.apply(dtStateProperty.getValue()), propertyValueToString);
     }
 
     /**
@@ -46,6 +49,21 @@ public class PropertyOutgoingTopic<T> extends DigitalTwinOutgoingTopic<DigitalTw
      * @param propertyValueToString The function to apply for converting the property value to a string.
      */
     public PropertyOutgoingTopic(String topic, MqttQosLevel qosLevel, boolean isRetained, Function<T, String> propertyValueToString) {
-        super(topic, qosLevel, isRetained, dtStateProperty -> propertyValueToString.apply(dtStateProperty.getValue()));
+        super(topic, qosLevel, isRetained, dtStateProperty -> propertyValueToString.apply(dtStateProperty.getValue()), propertyValueToString);
+    }
+
+    /**
+     * Creates a copy of this topic on another MQTT topic, sharing its conversion function, serialization key and
+     * settings.
+     *
+     * @param topic The topic of the copy.
+     * @return The copy of this topic.
+     */
+    public PropertyOutgoingTopic<T> withTopic(String topic) {
+        return new PropertyOutgoingTopic<>(this, topic);
+    }
+
+    private PropertyOutgoingTopic(PropertyOutgoingTopic<T> template, String topic) {
+        super(template, topic);
     }
 }
@@ -0,0 +1,86 @@
+package it.wldt.adapter.mqtt.digital.topic.outgoing;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import it.wldt.adapter.mqtt.digital.cache.PublishedPayload;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Represents the outgoing topic on which the MQTT Digital Adapter answers the requests received on the
+ * {@code StateRequestIncomingTopic}. The response function converts the last published payloads of the requested
+ * properties into the response payload.
+ *
+ * The default function produces a JSON object with an entry for each property, e.g.
+ * {@code {"energy":{"topic":"dummy/properties/energy","payload":"19","timestamp":1700000000000}}}, where
+ * {@code payload} is the last published payload as a string.
+ *
+ * @see MqttTopic
+ * @see PublishedPayload
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class StateResponseOutgoingTopic extends MqttTopic {
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Default response function, see the class description for the produced payload.
+     */
+    public static final Function<Map<String, PublishedPayload>, String> DEFAULT_RESPONSE_FUNCTION = StateResponseOutgoingTopic::toJson;
+
+    private final Function<Map<String, PublishedPayload>, String> responseFunction;
+
+    /**
+     * Constructs a {@code StateResponseOutgoingTopic} with the specified topic, QoS level and function converting
+     * the published payloads into the response payload.
+     *
+     * @param topic            The topic to publish responses to.
+     * @param qosLevel         The quality of service level for message delivery.
+     * @param responseFunction The function converting the published payloads by property key into the response payload.
+     */
+    public StateResponseOutgoingTopic(String topic, MqttQosLevel qosLevel, Function<Map<String, PublishedPayload>, String> responseFunction) {
+        super(topic, qosLevel);
+        this.responseFunction = responseFunction;
+    }
+
+    /**
+     * Creates a copy of this topic on another MQTT topic, sharing its response function and settings.
+     *
+     * @param topic The topic of the copy.
+     * @return The copy of this topic.
+     */
+    public StateResponseOutgoingTopic withTopic(String topic) {
+        return new StateResponseOutgoingTopic(this, topic);
+    }
+
+    private StateResponseOutgoingTopic(StateResponseOutgoingTopic template, String topic) {
+        super(template, topic);
+        this.responseFunction = template.responseFunction;
+    }
+
+    /**
+     * Applies the response function to the provided published payloads.
+     *
+     * @param publishedPayloads The last published payloads by property key.
+     * @return The response payload.
+     */
+    public String applyResponseFunction(Map<String, PublishedPayload> publishedPayloads) {
+        return responseFunction.apply(publishedPayloads);
+    }
+
+    private static String toJson(Map<String, PublishedPayload> publishedPayloads) {
+        JsonObject response = new JsonObject();
+        publishedPayloads.forEach((key, publishedPayload) -> {
+            JsonObject property = new JsonObject();
+            property.addProperty("topic", publishedPayload.getTopic());
+            property.addProperty("payload", publishedPayload.getPayloadAsString());
+            property.addProperty("timestamp", publishedPayload.getTimestamp());
+            response.add(key, property);
+        });
+        return GSON.toJson(response);
+    }
+}
@@ -0,0 +1,42 @@
+package it.wldt.adapter.mqtt.digital.topic.outgoing;
+
+import it.wldt.adapter.mqtt.digital.structure.StructureDiff;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+
+/**
+ * Represents an outgoing topic for publishing the structural changes of the DT state.
+ * This class extends the {@link DigitalTwinOutgoingTopic} class and is specifically
+ * designed for handling the publishing of {@link StructureDiff} instances, one for
+ * each state update changing the structure.
+ *
+ * @see DigitalTwinOutgoingTopic
+ * @see StructureDiff
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public class StructureDiffOutgoingTopic extends DigitalTwinOutgoingTopic<StructureDiff> {
+
+    /**
+     * Constructs a {@code StructureDiffOutgoingTopic} with the specified topic, QoS level,
+     * and function for publishing structure diffs.
+     *
+     * @param topic                  The topic to publish the structure diffs to.
+     * @param qosLevel               The quality of service level for message delivery.
+     * @param publishDigitalFunction The function to apply for publishing structure diffs.
+     */
+    public StructureDiffOutgoingTopic(String topic, MqttQosLevel qosLevel, MqttPublishDigitalFunction<StructureDiff> publishDigitalFunction) {
+        super(topic, qosLevel, publishDigitalFunction);
+    }
+
+    /**
+     * Applies the publishing function to the provided structure diff.
+     * Converts the diff into a message payload for publishing.
+     *
+     * @param structureDiff The structure diff to publish.
+     * @return The message payload for publishing.
+     */
+    @Override
+    public String applyPublishFunction(StructureDiff structureDiff) {
+        return super.applyPublishFunction(structureDiff);
+    }
+}
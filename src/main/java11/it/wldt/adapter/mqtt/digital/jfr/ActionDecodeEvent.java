@@ -0,0 +1,16 @@
+package it.wldt.adapter.mqtt.digital.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Execution of the subscribe function of an incoming action topic.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+@Name("it.wldt.adapter.mqtt.digital.ActionDecode")
+@Label("MQTT Action Decoding")
+@Description("Execution of the subscribe function of an incoming action topic")
+class ActionDecodeEvent extends MqttDigitalAdapterEvent {
+}
@@ -0,0 +1,16 @@
+package it.wldt.adapter.mqtt.digital.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Publication of a Digital Action event towards the Digital Twin.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+@Name("it.wldt.adapter.mqtt.digital.ActionDispatch")
+@Label("MQTT Action Dispatch")
+@Description("Publication of a Digital Action event towards the Digital Twin")
+class ActionDispatchEvent extends MqttDigitalAdapterEvent {
+}
@@ -0,0 +1,29 @@
+package it.wldt.adapter.mqtt.digital.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base class of the Java Flight Recorder events emitted by the MQTT Digital Adapter.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+@Category({"WLDT", "MQTT Digital Adapter"})
+@StackTrace(false)
+abstract class MqttDigitalAdapterEvent extends Event {
+
+    @Label("Topic")
+    @Description("MQTT topic")
+    String topic;
+
+    @Label("Payload Size")
+    @Description("Payload size, in bytes for publish and dispatch events, in characters for serialize and decode events")
+    int payloadSize;
+
+    @Label("QoS")
+    @Description("MQTT QoS level")
+    int qos;
+}
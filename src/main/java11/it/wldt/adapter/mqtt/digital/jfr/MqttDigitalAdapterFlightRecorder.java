@@ -0,0 +1,76 @@
+package it.wldt.adapter.mqtt.digital.jfr;
+
+import jdk.jfr.EventType;
+
+/**
+ * Java 11+ implementation of the entry point used by the MQTT Digital Adapter to emit Java Flight Recorder events.
+ * Events are allocated and timed only when their type is enabled in a running recording, otherwise the
+ * {@code begin} methods return {@code null} without allocating and the {@code commit} methods return immediately.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+public final class MqttDigitalAdapterFlightRecorder {
+
+    // Checked before allocating an event, so the hot paths do not allocate while no recording enables the type
+    private static final EventType PUBLISH_EVENT_TYPE = EventType.getEventType(PublishEvent.class);
+
+    private static final EventType SERIALIZE_EVENT_TYPE = EventType.getEventType(SerializeEvent.class);
+
+    private static final EventType ACTION_DECODE_EVENT_TYPE = EventType.getEventType(ActionDecodeEvent.class);
+
+    private static final EventType ACTION_DISPATCH_EVENT_TYPE = EventType.getEventType(ActionDispatchEvent.class);
+
+    private MqttDigitalAdapterFlightRecorder() {
+    }
+
+    public static Object beginPublish() {
+        return PUBLISH_EVENT_TYPE.isEnabled() ? begin(new PublishEvent()) : null;
+    }
+
+    public static void commitPublish(Object event, String topic, int payloadSize, int qos) {
+        commit((MqttDigitalAdapterEvent) event, topic, payloadSize, qos);
+    }
+
+    public static Object beginSerialize() {
+        return SERIALIZE_EVENT_TYPE.isEnabled() ? begin(new SerializeEvent()) : null;
+    }
+
+    public static void commitSerialize(Object event, String topic, int payloadLength, int qos) {
+        commit((MqttDigitalAdapterEvent) event, topic, payloadLength, qos);
+    }
+
+    public static Object beginActionDecode() {
+        return ACTION_DECODE_EVENT_TYPE.isEnabled() ? begin(new ActionDecodeEvent()) : null;
+    }
+
+    public static void commitActionDecode(Object event, String topic, int payloadLength, int qos) {
+        commit((MqttDigitalAdapterEvent) event, topic, payloadLength, qos);
+    }
+
+    public static Object beginActionDispatch() {
+        return ACTION_DISPATCH_EVENT_TYPE.isEnabled() ? begin(new ActionDispatchEvent()) : null;
+    }
+
+    public static void commitActionDispatch(Object event, String topic, int payloadSize, int qos) {
+        commit((MqttDigitalAdapterEvent) event, topic, payloadSize, qos);
+    }
+
+    private static MqttDigitalAdapterEvent begin(MqttDigitalAdapterEvent event) {
+        if (!event.isEnabled())
+            return null;
+        event.begin();
+        return event;
+    }
+
+    private static void commit(MqttDigitalAdapterEvent event, String topic, int payloadSize, int qos) {
+        if (event == null)
+            return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.topic = topic;
+            event.payloadSize = payloadSize;
+            event.qos = qos;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package it.wldt.adapter.mqtt.digital.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Hand over of a message to the MQTT client and wait for its delivery.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+@Name("it.wldt.adapter.mqtt.digital.Publish")
+@Label("MQTT Publish")
+@Description("Hand over of a message to the MQTT client and wait for its delivery")
+class PublishEvent extends MqttDigitalAdapterEvent {
+}
@@ -0,0 +1,16 @@
+package it.wldt.adapter.mqtt.digital.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Execution of the publish function of an outgoing topic.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com, Marta Spadoni University of Bologna
+ */
+@Name("it.wldt.adapter.mqtt.digital.Serialize")
+@Label("MQTT Payload Serialization")
+@Description("Execution of the publish function of an outgoing topic")
+class SerializeEvent extends MqttDigitalAdapterEvent {
+}
@@ -0,0 +1,278 @@
+package it.wldt.adapter.mqtt.digital;
+
+import ch.qos.logback.classic.Level;
+import it.wldt.adapter.mqtt.digital.client.MqttProtocolVersion;
+import it.wldt.adapter.mqtt.digital.loopback.LoopbackMqttBroker;
+import it.wldt.adapter.mqtt.digital.pacing.AdaptivePacingPolicy;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.utils.*;
+import it.wldt.core.engine.DigitalTwin;
+import it.wldt.core.engine.DigitalTwinEngine;
+import org.eclipse.paho.client.mqttv3.*;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The `LoadTestMain` class runs a fleet of Digital Twins, each one with a {@link LoadTestPhysicalAdapter} and an
+ * {@link MqttDigitalAdapter}, against an embedded MQTT broker, so the whole test runs offline in a single JVM.
+ * A consumer subscribed to the outgoing topics measures the end-to-end latency of property updates and event
+ * notifications, while an action driver publishes actions to every twin and their latency is measured when they
+ * reach the physical adapter. With the {@code loopback} transport the network broker is replaced by an in-process
+ * {@link LoopbackMqttBroker} to measure the adapter without any network. After the warm-up, throughput, p50/p99/p999 latencies, heap usage, threads and GC
+ * activity of the measurement window are reported.
+ * <p>
+ * The run is configured with system properties (e.g. {@code ./gradlew loadTest -Pload.twins=100}):
+ * <ul>
+ *   <li>{@code load.twins}: number of Digital Twins (default 10)</li>
+ *   <li>{@code load.properties}: properties of each twin (default 2)</li>
+ *   <li>{@code load.propertyRate}: property updates per second of each twin (default 10)</li>
+ *   <li>{@code load.eventRate}: event notifications per second of each twin (default 1)</li>
+ *   <li>{@code load.actionRate}: incoming actions per second of each twin (default 1)</li>
+ *   <li>{@code load.qos}: QoS level of the adapter topics (default 0)</li>
+ *   <li>{@code load.protocol}: {@code MQTT_3_1_1} or {@code MQTT_5} (default MQTT_3_1_1)</li>
+ *   <li>{@code load.warmupSeconds} and {@code load.durationSeconds}: warm-up and measurement windows (default 10 and 30)</li>
+ *   <li>{@code load.transport}: {@code broker} (embedded MQTT broker) or {@code loopback} (default broker)</li>
+ *   <li>{@code load.brokerPort}: port of the embedded broker (default 1883)</li>
+ *   <li>{@code load.asyncStartup}: connect and subscribe the adapters asynchronously (default false)</li>
+ *   <li>{@code load.pacingMaxRate}: maximum adaptive publish rate of each adapter in messages per second (default 0, no pacing)</li>
+ * </ul>
+ */
+public class LoadTestMain {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestMain.class);
+
+    private static final String BROKER_ADDRESS = "127.0.0.1";
+
+    private static final String TOPIC_PREFIX = "load/";
+
+    private static final int TWINS = Integer.getInteger("load.twins", 10);
+
+    private static final int PROPERTIES = Integer.getInteger("load.properties", 2);
+
+    private static final double PROPERTY_RATE = Double.parseDouble(System.getProperty("load.propertyRate", "10"));
+
+    private static final double EVENT_RATE = Double.parseDouble(System.getProperty("load.eventRate", "1"));
+
+    private static final double ACTION_RATE = Double.parseDouble(System.getProperty("load.actionRate", "1"));
+
+    private static final int QOS = Integer.getInteger("load.qos", 0);
+
+    private static final MqttProtocolVersion PROTOCOL = MqttProtocolVersion.valueOf(System.getProperty("load.protocol", MqttProtocolVersion.MQTT_3_1_1.name()));
+
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmupSeconds", 10);
+
+    private static final int DURATION_SECONDS = Integer.getInteger("load.durationSeconds", 30);
+
+    private static final int BROKER_PORT = Integer.getInteger("load.brokerPort", 1883);
+
+    private static final boolean LOOPBACK = "loopback".equals(System.getProperty("load.transport", "broker"));
+
+    private static final boolean ASYNC_STARTUP = Boolean.getBoolean("load.asyncStartup");
+
+    private static final double PACING_MAX_RATE = Double.parseDouble(System.getProperty("load.pacingMaxRate", "0"));
+
+    private static final LoadTestLatencyRecorder propertyLatency = new LoadTestLatencyRecorder();
+
+    private static final LoadTestLatencyRecorder eventLatency = new LoadTestLatencyRecorder();
+
+    private static final LoadTestLatencyRecorder actionLatency = new LoadTestLatencyRecorder();
+
+    private static final AtomicLong sentActions = new AtomicLong();
+
+    /**
+     * The main method, the starting point of the load test.
+     *
+     * @param args Command line arguments (unused).
+     */
+    public static void main(String[] args) {
+
+        // Per-message logging would dominate the measurements
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        System.out.printf("Load test - twins: %d, properties: %d, property rate: %.1f/s, event rate: %.1f/s, action rate: %.1f/s, QoS: %d, protocol: %s, transport: %s, async startup: %s, pacing max rate: %.1f/s%n",
+                TWINS, PROPERTIES, PROPERTY_RATE, EVENT_RATE, ACTION_RATE, QOS, PROTOCOL, LOOPBACK ? "loopback" : "broker", ASYNC_STARTUP, PACING_MAX_RATE);
+
+        EmbeddedMqttBroker broker = null;
+
+        try (LoadTestResourceMonitor resourceMonitor = new LoadTestResourceMonitor()) {
+
+            LoopbackMqttBroker loopbackBroker = null;
+            MqttClient consumer = null;
+            MqttClient actionDriver = null;
+            ActionPublisher actionPublisher;
+
+            if (LOOPBACK) {
+                loopbackBroker = new LoopbackMqttBroker();
+                loopbackBroker.subscribe(TOPIC_PREFIX + "+/properties/#", QOS, (topic, payload) -> record(propertyLatency, payload));
+                loopbackBroker.subscribe(TOPIC_PREFIX + "+/events/#", QOS, (topic, payload) -> record(eventLatency, payload));
+                LoopbackMqttBroker actionBroker = loopbackBroker;
+                actionPublisher = (topic, payload) -> actionBroker.publish(topic, payload, QOS, false);
+            } else {
+                broker = new EmbeddedMqttBroker(BROKER_ADDRESS, BROKER_PORT);
+                broker.start();
+                String brokerUrl = String.format("tcp://%s:%d", BROKER_ADDRESS, BROKER_PORT);
+                consumer = createConsumer(brokerUrl);
+                actionDriver = new MqttClient(brokerUrl, "load-test-action-driver", new MemoryPersistence());
+                actionDriver.connect();
+                MqttClient actionClient = actionDriver;
+                actionPublisher = (topic, payload) -> actionClient.publish(topic, payload, QOS, false);
+            }
+
+            resourceMonitor.start();
+
+            List<LoadTestPhysicalAdapter> physicalAdapters = new ArrayList<>();
+            DigitalTwinEngine digitalTwinEngine = new DigitalTwinEngine();
+            for (int i = 0; i < TWINS; i++) {
+                String digitalTwinId = "load-dt-" + i;
+                LoadTestPhysicalAdapter physicalAdapter = new LoadTestPhysicalAdapter(digitalTwinId + "-pa",
+                        new LoadTestPhysicalAdapterConfiguration(PROPERTIES, PROPERTY_RATE, EVENT_RATE),
+                        actionLatency);
+                DigitalTwin digitalTwin = new DigitalTwin(digitalTwinId, new DefaultShadowingFunction());
+                digitalTwin.addPhysicalAdapter(physicalAdapter);
+                digitalTwin.addDigitalAdapter(new MqttDigitalAdapter(digitalTwinId + "-da", createConfiguration(digitalTwinId, loopbackBroker)));
+                digitalTwinEngine.addDigitalTwin(digitalTwin);
+                physicalAdapters.add(physicalAdapter);
+            }
+
+            long engineStart = System.nanoTime();
+            digitalTwinEngine.startAll();
+            System.out.printf("Engine startup: %.1f ms%n", (System.nanoTime() - engineStart) / 1e6);
+            ScheduledExecutorService actionScheduler = startActionDriver(actionPublisher);
+
+            Thread.sleep(TimeUnit.SECONDS.toMillis(WARMUP_SECONDS));
+
+            // Start of the measurement window
+            propertyLatency.reset();
+            eventLatency.reset();
+            actionLatency.reset();
+            resourceMonitor.reset();
+            long startActions = sentActions.get();
+            long startProperties = physicalAdapters.stream().mapToLong(LoadTestPhysicalAdapter::getEmittedPropertyUpdates).sum();
+            long startEvents = physicalAdapters.stream().mapToLong(LoadTestPhysicalAdapter::getEmittedEvents).sum();
+            long startTime = System.nanoTime();
+
+            Thread.sleep(TimeUnit.SECONDS.toMillis(DURATION_SECONDS));
+
+            double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+            long[] propertySamples = propertyLatency.sortedSamples();
+            long[] eventSamples = eventLatency.sortedSamples();
+            long[] actionSamples = actionLatency.sortedSamples();
+            long emittedProperties = physicalAdapters.stream().mapToLong(LoadTestPhysicalAdapter::getEmittedPropertyUpdates).sum() - startProperties;
+            long emittedEvents = physicalAdapters.stream().mapToLong(LoadTestPhysicalAdapter::getEmittedEvents).sum() - startEvents;
+            long actions = sentActions.get() - startActions;
+
+            System.out.printf("%nMeasurement window: %.1f s%n", elapsedSeconds);
+            System.out.printf("%-10s %10s %10s %12s %10s %10s %10s %10s%n", "flow", "sent", "received", "msg/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+            report("property", emittedProperties, propertySamples, elapsedSeconds);
+            report("event", emittedEvents, eventSamples, elapsedSeconds);
+            report("action", actions, actionSamples, elapsedSeconds);
+            System.out.printf("Heap: avg %d MB, peak %d MB, max %d MB - GC: %d collections, %d ms%n",
+                    toMegabytes(resourceMonitor.getAverageHeapUsedBytes()), toMegabytes(resourceMonitor.getPeakHeapUsedBytes()),
+                    toMegabytes(resourceMonitor.getMaxHeapBytes()), resourceMonitor.getGcCount(), resourceMonitor.getGcTimeMs());
+            System.out.printf("Threads: live %d, peak %d%n", resourceMonitor.getLiveThreads(), resourceMonitor.getPeakThreads());
+
+            actionScheduler.shutdownNow();
+            digitalTwinEngine.stopAll();
+            if (!LOOPBACK) {
+                actionDriver.disconnect();
+                consumer.disconnect();
+                broker.stop();
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        // Stop the remaining non-daemon threads of the twins and of the broker
+        System.exit(0);
+    }
+
+    private static MqttDigitalAdapterConfiguration createConfiguration(String digitalTwinId, LoopbackMqttBroker loopbackBroker) throws Exception {
+        MqttQosLevel qosLevel = MqttQosLevel.valueOf("MQTT_QOS_" + QOS);
+        MqttDigitalAdapterConfigurationBuilder builder = MqttDigitalAdapterConfiguration.builder(BROKER_ADDRESS, BROKER_PORT)
+                .setProtocolVersion(PROTOCOL)
+                .setAsyncStartupFlag(ASYNC_STARTUP);
+        if (loopbackBroker != null)
+            builder.setLoopbackBroker(loopbackBroker);
+        if (PACING_MAX_RATE > 0)
+            builder.setPublishPacingPolicy(AdaptivePacingPolicy.builder()
+                    .setRates(Math.min(1, PACING_MAX_RATE), PACING_MAX_RATE, PACING_MAX_RATE)
+                    .build());
+        for (int i = 0; i < PROPERTIES; i++) {
+            String propertyKey = LoadTestPhysicalAdapter.propertyKey(i);
+            builder.addPropertyTopic(propertyKey, TOPIC_PREFIX + digitalTwinId + "/properties/" + propertyKey, qosLevel, String::valueOf);
+        }
+        return builder
+                .addEventNotificationTopic(LoadTestPhysicalAdapter.ALARM_EVENT_KEY, TOPIC_PREFIX + digitalTwinId + "/events/" + LoadTestPhysicalAdapter.ALARM_EVENT_KEY, qosLevel, Object::toString)
+                .addActionTopic(LoadTestPhysicalAdapter.PING_ACTION_KEY, TOPIC_PREFIX + digitalTwinId + "/actions/" + LoadTestPhysicalAdapter.PING_ACTION_KEY, Long::parseLong)
+                .build();
+    }
+
+    private static MqttClient createConsumer(String brokerUrl) throws MqttException {
+        MqttClient consumer = new MqttClient(brokerUrl, "load-test-consumer", new MemoryPersistence());
+        consumer.connect();
+        consumer.subscribe(new String[]{ TOPIC_PREFIX + "+/properties/#", TOPIC_PREFIX + "+/events/#" }, new int[]{ QOS, QOS },
+                new IMqttMessageListener[]{
+                        (topic, message) -> record(propertyLatency, message.getPayload()),
+                        (topic, message) -> record(eventLatency, message.getPayload())
+                });
+        return consumer;
+    }
+
+    private static void record(LoadTestLatencyRecorder recorder, byte[] payload) {
+        long receivedAt = System.nanoTime();
+        try {
+            recorder.record(receivedAt - Long.parseLong(new String(payload, StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            // Initial values published when the twin is bound
+        }
+    }
+
+    private static ScheduledExecutorService startActionDriver(ActionPublisher actionPublisher) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        if (ACTION_RATE <= 0)
+            return scheduler;
+        AtomicInteger nextTwin = new AtomicInteger();
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / (ACTION_RATE * TWINS));
+        scheduler.scheduleAtFixedRate(() -> {
+            String topic = TOPIC_PREFIX + "load-dt-" + (nextTwin.getAndIncrement() % TWINS) + "/actions/" + LoadTestPhysicalAdapter.PING_ACTION_KEY;
+            try {
+                actionPublisher.publish(topic, String.valueOf(System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+                sentActions.incrementAndGet();
+            } catch (Exception e) {
+                logger.error("Error publishing action on {}: {}", topic, e.getLocalizedMessage());
+            }
+        }, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        return scheduler;
+    }
+
+    private static void report(String flow, long sent, long[] sortedSamples, double elapsedSeconds) {
+        System.out.printf("%-10s %10d %10d %12.1f %10.2f %10.2f %10.2f %10.2f%n", flow, sent, sortedSamples.length, sortedSamples.length / elapsedSeconds,
+                toMillis(LoadTestLatencyRecorder.percentile(sortedSamples, 50)),
+                toMillis(LoadTestLatencyRecorder.percentile(sortedSamples, 99)),
+                toMillis(LoadTestLatencyRecorder.percentile(sortedSamples, 99.9)),
+                toMillis(LoadTestLatencyRecorder.percentile(sortedSamples, 100)));
+    }
+
+    private interface ActionPublisher {
+        void publish(String topic, byte[] payload) throws Exception;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static long toMegabytes(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+}
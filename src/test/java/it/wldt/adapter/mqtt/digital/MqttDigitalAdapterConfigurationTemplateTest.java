@@ -0,0 +1,165 @@
+package it.wldt.adapter.mqtt.digital;
+
+import it.wldt.adapter.mqtt.digital.batch.SampleBatchPolicy;
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.topic.incoming.ActionIncomingTopic;
+import it.wldt.adapter.mqtt.digital.topic.outgoing.PropertyOutgoingTopic;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests of the configurations bound by a {@link MqttDigitalAdapterConfigurationTemplate}.
+ */
+public class MqttDigitalAdapterConfigurationTemplateTest {
+
+    private static MqttDigitalAdapterConfigurationBuilder fleetBuilder(MqttDigitalAdapterConfigurationBuilder builder) throws MqttDigitalAdapterConfigurationException {
+        return builder
+                .addPropertyTopic("energy", "fleet/{id}/properties/energy", MqttQosLevel.MQTT_QOS_0, Object::toString)
+                .addPropertyTopic("energy", "fleet/all/properties/energy", MqttQosLevel.MQTT_QOS_0, Object::toString)
+                .addPropertyTopic("temperature", "fleet/shared/temperature", MqttQosLevel.MQTT_QOS_0, Object::toString)
+                .addEventNotificationTopic("overheating", "fleet/{id}/events/{id}-overheating", MqttQosLevel.MQTT_QOS_1, Object::toString)
+                .addActionTopic("switch_off", "fleet/{id}/actions/switch_off", MqttQosLevel.MQTT_QOS_1, message -> "OFF")
+                .setStateRequestTopic("fleet/{id}/state/request", "fleet/{id}/state/response", MqttQosLevel.MQTT_QOS_1);
+    }
+
+    private static MqttDigitalAdapterConfigurationTemplate fleetTemplate() throws MqttDigitalAdapterConfigurationException {
+        return fleetBuilder(MqttDigitalAdapterConfiguration.builder("127.0.0.1", 1883, "client-{id}")).buildTemplate();
+    }
+
+    private static String firstTopic(List<? extends PropertyOutgoingTopic<?>> topics) {
+        return topics.get(0).getTopic();
+    }
+
+    @Test
+    public void placeholderIsReplacedInEveryTopic() throws Exception {
+        MqttDigitalAdapterConfiguration configuration = fleetTemplate().bind("dt-0001");
+
+        List<PropertyOutgoingTopic<?>> energyTopics = configuration.getPropertyUpdateTopics("energy");
+        assertEquals("fleet/dt-0001/properties/energy", energyTopics.get(0).getTopic());
+        assertEquals("fleet/all/properties/energy", energyTopics.get(1).getTopic());
+        assertEquals("fleet/dt-0001/properties/energy", configuration.getPropertyUpdateTopics().get("energy").getTopic());
+        assertEquals("fleet/dt-0001/events/dt-0001-overheating", configuration.getEventNotificationTopics("overheating").get(0).getTopic());
+        assertEquals("fleet/dt-0001/actions/switch_off", configuration.getActionIncomingTopics().get("switch_off").getTopic());
+        assertEquals("fleet/dt-0001/state/request", configuration.getStateRequestTopic().getTopic());
+        assertEquals("fleet/dt-0001/state/response", configuration.getStateResponseTopic().getTopic());
+    }
+
+    @Test
+    public void boundTopicsKeepTheSettingsAndFunctionsOfTheTemplate() throws Exception {
+        MqttDigitalAdapterConfigurationTemplate template = fleetTemplate();
+        MqttDigitalAdapterConfiguration configuration = template.bind("dt-0001");
+
+        ActionIncomingTopic<?> action = configuration.getActionIncomingTopics().get("switch_off");
+        assertEquals(1, (int) action.getQos());
+        assertEquals("switch_off", action.getActionKey());
+        assertEquals(new HashSet<>(Arrays.asList("fleet/{id}/properties/energy", "fleet/{id}/events/{id}-overheating",
+                "fleet/{id}/actions/switch_off", "fleet/{id}/state/request", "fleet/{id}/state/response")), template.getBoundTopics());
+    }
+
+    @Test
+    public void explicitClientIdIsBoundToTheDigitalTwinId() throws Exception {
+        MqttDigitalAdapterConfigurationTemplate template = fleetTemplate();
+
+        assertEquals("client-dt-0001", template.bind("dt-0001").getClientId());
+        assertEquals("client-dt-0002", template.bind("dt-0002").getClientId());
+    }
+
+    @Test
+    public void generatedClientIdIsDerivedFromTheDigitalTwinId() throws Exception {
+        MqttDigitalAdapterConfigurationTemplate template = fleetBuilder(MqttDigitalAdapterConfiguration.builder("127.0.0.1", 1883)).buildTemplate();
+
+        MqttDigitalAdapterConfiguration configuration = template.bind("dt-0001");
+        assertEquals(MqttDigitalAdapterConfiguration.CLIENT_ID_PREFIX + "dt-0001", configuration.getClientId());
+        assertEquals(configuration.getClientId(), template.bind("dt-0001").getClientId());
+
+        Set<String> clientIds = new HashSet<>();
+        for (int i = 0; i < 1000; i++)
+            clientIds.add(template.bind("dt-" + i).getClientId());
+        assertEquals(1000, clientIds.size());
+    }
+
+    @Test
+    public void fixedClientIdIsRejected() throws Exception {
+        try {
+            fleetBuilder(MqttDigitalAdapterConfiguration.builder("127.0.0.1", 1883, "client")).buildTemplate();
+            fail("A fixed client id would be shared by the whole fleet");
+        } catch (MqttDigitalAdapterConfigurationException expected) {
+        }
+    }
+
+    @Test
+    public void invalidDigitalTwinIdsAreRejected() throws Exception {
+        MqttDigitalAdapterConfigurationTemplate template = fleetTemplate();
+        for (String digitalTwinId : Arrays.asList(null, "", "dt/1", "dt+", "dt#")) {
+            try {
+                template.bind(digitalTwinId);
+                fail("Digital Twin id accepted: " + digitalTwinId);
+            } catch (MqttDigitalAdapterConfigurationException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void boundConfigurationsDoNotShareMutableState() throws Exception {
+        MqttDigitalAdapterConfigurationTemplate template = fleetTemplate();
+        MqttDigitalAdapterConfiguration first = template.bind("dt-0001");
+        MqttDigitalAdapterConfiguration second = template.bind("dt-0002");
+
+        List<PropertyOutgoingTopic<?>> firstEnergy = first.getPropertyUpdateTopics("energy");
+        List<PropertyOutgoingTopic<?>> secondEnergy = second.getPropertyUpdateTopics("energy");
+        assertNotSame(firstEnergy.get(0), secondEnergy.get(0));
+        assertNotSame(firstEnergy.get(0).getPayloadBufferSlot(), secondEnergy.get(0).getPayloadBufferSlot());
+        assertEquals("fleet/dt-0001/properties/energy", firstTopic(firstEnergy));
+        assertEquals("fleet/dt-0002/properties/energy", firstTopic(secondEnergy));
+        assertNotSame(first.getPersistence(), second.getPersistence());
+        assertNotSame(first.getMqttV5Persistence(), second.getMqttV5Persistence());
+
+        try {
+            first.getActionIncomingTopics().remove("switch_off");
+            fail("The topics of a bound configuration are shared with the template and must not be modifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            firstEnergy.clear();
+            fail("The topic lists of a bound configuration must not be modifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+        assertEquals("fleet/dt-0003/actions/switch_off", template.bind("dt-0003").getActionIncomingTopics().get("switch_off").getTopic());
+    }
+
+    @Test
+    public void topicsWithoutThePlaceholderAreShared() throws Exception {
+        MqttDigitalAdapterConfigurationTemplate template = fleetTemplate();
+        MqttDigitalAdapterConfiguration first = template.bind("dt-0001");
+        MqttDigitalAdapterConfiguration second = template.bind("dt-0002");
+
+        assertSame(first.getPropertyUpdateTopics("energy").get(1), second.getPropertyUpdateTopics("energy").get(1));
+        assertSame(first.getPropertyUpdateTopics("temperature").get(0), second.getPropertyUpdateTopics("temperature").get(0));
+    }
+
+    @Test
+    public void topicPoliciesFollowTheBoundTopics() throws Exception {
+        MqttDigitalAdapterConfigurationTemplate template = fleetBuilder(MqttDigitalAdapterConfiguration.builder("127.0.0.1", 1883, "client-{id}"))
+                .addPropertyTopic("power", "fleet/{id}/properties/power", MqttQosLevel.MQTT_QOS_0, Object::toString)
+                .setPropertyTopicBatching("power", SampleBatchPolicy.builder().build())
+                .buildTemplate();
+
+        MqttDigitalAdapterConfiguration configuration = template.bind("dt-0001");
+
+        PropertyOutgoingTopic<?> boundTopic = configuration.getPropertyUpdateTopics().get("power");
+        assertEquals("fleet/dt-0001/properties/power", boundTopic.getTopic());
+        assertTrue(configuration.getPropertyBatchPolicies().containsKey(boundTopic));
+        assertEquals(1, configuration.getPropertyBatchPolicies().size());
+    }
+}
@@ -0,0 +1,88 @@
+package it.wldt.adapter.mqtt.digital;
+
+import it.wldt.adapter.mqtt.digital.loopback.LoopbackMqttBroker;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.utils.DefaultShadowingFunction;
+import it.wldt.adapter.mqtt.digital.utils.DummyPhysicalAdapter;
+import it.wldt.adapter.mqtt.digital.utils.DummyPhysicalAdapterConfiguration;
+import it.wldt.core.engine.DigitalTwin;
+import it.wldt.core.engine.DigitalTwinEngine;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The `TestLoopbackMain` class runs the same scenario of `TestMain` with the MQTT Digital Adapter publishing on an
+ * in-process `LoopbackMqttBroker`, so no MQTT broker is required. A local consumer subscribed to the outgoing topics
+ * prints the received messages and, once the telemetry is over, a switch on action is published locally. Finally, the
+ * property payloads last published by the adapter are read from its cache and requested on the state request topic.
+ */
+public class TestLoopbackMain {
+
+    private static final long TEST_DURATION_MS = 30000;
+
+    /**
+     * The main method, the starting point of the demonstration.
+     *
+     * @param args Command line arguments (unused).
+     */
+    public static void main(String[] args) {
+
+        try{
+
+            LoopbackMqttBroker loopbackBroker = new LoopbackMqttBroker();
+
+            // Colocated consumer receiving every message published by the MQTT Digital Adapter
+            loopbackBroker.subscribe("dummy/#", 1, (topic, payload) ->
+                    System.out.printf("Consumer - received on %s: %s%n", topic, new String(payload, StandardCharsets.UTF_8)));
+
+            DigitalTwin digitalTwin = new DigitalTwin("loopback-digital-twin", new DefaultShadowingFunction());
+
+            digitalTwin.addPhysicalAdapter(
+                    new DummyPhysicalAdapter(
+                            "test-pa",
+                            new DummyPhysicalAdapterConfiguration(),
+                            true)
+            );
+
+            MqttDigitalAdapterConfiguration configuration = MqttDigitalAdapterConfiguration.builder("127.0.0.1", 1883)
+                    .setLoopbackBroker(loopbackBroker)
+                    .setDuplicatePayloadSuppressionFlag(true)
+                    .addPropertyTopic("energy", "dummy/properties/energy", MqttQosLevel.MQTT_QOS_0, value -> String.valueOf(((Double)value).intValue()))
+                    .addEventNotificationTopic("overheating", "dummy/events/overheating/notifications", MqttQosLevel.MQTT_QOS_0, Object::toString)
+                    .addPropertyTopic("switch", "dummy/properties/switch", MqttQosLevel.MQTT_QOS_0, Object::toString)
+                    .addActionTopic("switch_off", "app/actions/switch-off", msg -> "OFF")
+                    .addActionTopic("switch_on", "app/actions/switch-on", msg -> "ON")
+                    .setStateRequestTopic("dummy/state/request", "dummy/state/response", MqttQosLevel.MQTT_QOS_0)
+                    .build();
+
+            MqttDigitalAdapter mqttDigitalAdapter = new MqttDigitalAdapter("test-da", configuration);
+            digitalTwin.addDigitalAdapter(mqttDigitalAdapter);
+
+            DigitalTwinEngine digitalTwinEngine = new DigitalTwinEngine();
+            digitalTwinEngine.addDigitalTwin(digitalTwin);
+            digitalTwinEngine.startAll();
+
+            Thread.sleep(TEST_DURATION_MS);
+
+            // Inbound action fed locally
+            loopbackBroker.publish("app/actions/switch-on", "ON".getBytes(StandardCharsets.UTF_8), 1, false);
+
+            Thread.sleep(DummyPhysicalAdapter.MESSAGE_SLEEP_PERIOD_MS * 2);
+
+            mqttDigitalAdapter.getPublishedState().forEach((key, publishedPayload) ->
+                    System.out.printf("Published state - %s: %s (%s)%n", key, publishedPayload.getPayloadAsString(), publishedPayload));
+
+            // Identical requests are coalesced, the response is received on dummy/state/response
+            for(int i = 0; i < 3; i++)
+                loopbackBroker.publish("dummy/state/request", "energy,switch".getBytes(StandardCharsets.UTF_8), 0, false);
+            loopbackBroker.publish("dummy/state/request", "*".getBytes(StandardCharsets.UTF_8), 0, false);
+
+            Thread.sleep(1000);
+
+            digitalTwinEngine.stopAll();
+
+        }catch (Exception e){
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package it.wldt.adapter.mqtt.digital;
+
+import it.wldt.adapter.mqtt.digital.client.MqttProtocolVersion;
+import it.wldt.adapter.mqtt.digital.logging.HotPathLoggingPolicy;
+import it.wldt.adapter.mqtt.digital.metrics.JmxMqttDigitalAdapterMetrics;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.utils.DefaultShadowingFunction;
+import it.wldt.adapter.mqtt.digital.utils.DummyPhysicalAdapter;
+import it.wldt.adapter.mqtt.digital.utils.DummyPhysicalAdapterConfiguration;
+import it.wldt.adapter.mqtt.digital.utils.EmbeddedMqttBroker;
+import it.wldt.core.engine.DigitalTwin;
+import it.wldt.core.engine.DigitalTwinEngine;
+import org.eclipse.paho.mqttv5.client.IMqttMessageListener;
+import org.eclipse.paho.mqttv5.client.MqttClient;
+import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
+import org.eclipse.paho.mqttv5.client.persist.MemoryPersistence;
+import org.eclipse.paho.mqttv5.common.MqttSubscription;
+import org.slf4j.event.Level;
+
+/**
+ * The `TestMqtt5Main` class runs the same scenario of `TestMain` with the MQTT Digital Adapter working in MQTT 5 mode
+ * against an embedded MQTT 5 broker, so no external broker is required. An MQTT 5 consumer subscribes to the outgoing
+ * topics and prints the received messages together with their message expiry interval, while outgoing topic aliases
+ * are negotiated with the embedded broker.
+ */
+public class TestMqtt5Main {
+
+    private static final String BROKER_ADDRESS = "127.0.0.1";
+
+    private static final int BROKER_PORT = 1883;
+
+    private static final long TEST_DURATION_MS = 40000;
+
+    /**
+     * The main method, the starting point of the demonstration.
+     *
+     * @param args Command line arguments (unused).
+     */
+    public static void main(String[] args) {
+
+        try (EmbeddedMqttBroker broker = new EmbeddedMqttBroker(BROKER_ADDRESS, BROKER_PORT)) {
+
+            // Start the embedded MQTT 5 broker
+            broker.start();
+
+            // Consumer printing every message published by the MQTT Digital Adapter
+            MqttClient consumer = new MqttClient(String.format("tcp://%s:%d", BROKER_ADDRESS, BROKER_PORT), "test-mqtt5-consumer", new MemoryPersistence());
+            consumer.connect(new MqttConnectionOptions());
+            consumer.subscribe(new MqttSubscription[]{ new MqttSubscription("dummy/#", 0) },
+                    new IMqttMessageListener[]{ (topic, msg) -> System.out.printf("Consumer - received on %s: %s (message expiry interval: %s)%n",
+                            topic, new String(msg.getPayload()), msg.getProperties().getMessageExpiryInterval()) });
+
+            DigitalTwin digitalTwin = new DigitalTwin("mqtt5-digital-twin", new DefaultShadowingFunction());
+
+            digitalTwin.addPhysicalAdapter(
+                    new DummyPhysicalAdapter(
+                            "test-pa",
+                            new DummyPhysicalAdapterConfiguration(),
+                            true)
+            );
+
+            // Adapter metrics exposed on JMX
+            JmxMqttDigitalAdapterMetrics metrics = new JmxMqttDigitalAdapterMetrics("test-da");
+
+            // Build the MQTT Digital Adapter Configuration in MQTT 5 mode
+            MqttDigitalAdapterConfiguration configuration = MqttDigitalAdapterConfiguration.builder(BROKER_ADDRESS, BROKER_PORT)
+                    .setProtocolVersion(MqttProtocolVersion.MQTT_5)
+                    .setMetrics(metrics)
+                    .setHotPathLoggingPolicy(HotPathLoggingPolicy.builder()
+                            .setLevel(Level.INFO)
+                            .setSamplingRate(2)
+                            .setMaxPayloadLength(32)
+                            .setSummaryIntervalMs(10000)
+                            .build())
+                    .addPropertyTopic("energy", "dummy/properties/energy", MqttQosLevel.MQTT_QOS_0, value -> String.valueOf(((Double)value).intValue()))
+                    .setPropertyTopicMessageExpiryInterval("energy", 30)
+                    .addEventNotificationTopic("overheating", "dummy/events/overheating/notifications", MqttQosLevel.MQTT_QOS_0, Object::toString)
+                    .addPropertyTopic("switch", "dummy/properties/switch", MqttQosLevel.MQTT_QOS_0, Object::toString)
+                    .addActionTopic("switch_off", "app/actions/switch-off", msg -> "OFF")
+                    .addActionTopic("switch_on", "app/actions/switch-on", msg -> "ON")
+                    .build();
+
+            digitalTwin.addDigitalAdapter(new MqttDigitalAdapter("test-da", configuration));
+
+            DigitalTwinEngine digitalTwinEngine = new DigitalTwinEngine();
+            digitalTwinEngine.addDigitalTwin(digitalTwin);
+            digitalTwinEngine.startAll();
+
+            Thread.sleep(TEST_DURATION_MS);
+
+            System.out.printf("Energy - serialization: %s%n", metrics.getTopicMetrics("energy").getSerializationLatency());
+            System.out.printf("Energy - publish: %s%n", metrics.getTopicMetrics("energy").getPublishLatency());
+            System.out.printf("Energy - ack: %s%n", metrics.getTopicMetrics("energy").getAckLatency());
+
+            digitalTwinEngine.stopAll();
+            consumer.disconnect();
+            broker.stop();
+
+        }catch (Exception e){
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package it.wldt.adapter.mqtt.digital;
+
+import it.wldt.adapter.mqtt.digital.metrics.JmxMqttDigitalAdapterMetrics;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.utils.DefaultShadowingFunction;
+import it.wldt.adapter.mqtt.digital.utils.DummyPhysicalAdapter;
+import it.wldt.adapter.mqtt.digital.utils.DummyPhysicalAdapterConfiguration;
+import it.wldt.adapter.mqtt.digital.utils.EmbeddedMqttBroker;
+import it.wldt.core.engine.DigitalTwin;
+import it.wldt.core.engine.DigitalTwinEngine;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The `TestPersistentSessionMain` class runs the Digital Twin of `TestMain` twice against an embedded MQTT broker
+ * with the persistent session of the MQTT Digital Adapter enabled. Both runs use the same client id, derived from the
+ * DT and adapter ids, so the second run resumes the broker session: the switch on action published while the DT was
+ * stopped is delivered as soon as the adapter connects.
+ */
+public class TestPersistentSessionMain {
+
+    private static final String BROKER_ADDRESS = "127.0.0.1";
+
+    private static final int BROKER_PORT = 1883;
+
+    private static final long RUN_DURATION_MS = 10000;
+
+    /**
+     * The main method, the starting point of the demonstration.
+     *
+     * @param args Command line arguments (unused).
+     */
+    public static void main(String[] args) {
+
+        try (EmbeddedMqttBroker broker = new EmbeddedMqttBroker(BROKER_ADDRESS, BROKER_PORT)) {
+
+            broker.start();
+
+            runDigitalTwin(1);
+
+            // Action published while the DT is stopped, queued by the broker in the adapter session
+            MqttClient actionPublisher = new MqttClient(String.format("tcp://%s:%d", BROKER_ADDRESS, BROKER_PORT), "test-session-action-publisher", new MemoryPersistence());
+            actionPublisher.connect();
+            actionPublisher.publish("app/actions/switch-on", "ON".getBytes(StandardCharsets.UTF_8), 1, false);
+            actionPublisher.disconnect();
+
+            runDigitalTwin(2);
+
+            broker.stop();
+
+        }catch (Exception e){
+            e.printStackTrace();
+        }
+    }
+
+    private static void runDigitalTwin(int run) throws Exception {
+
+        DigitalTwin digitalTwin = new DigitalTwin("session-digital-twin", new DefaultShadowingFunction());
+
+        digitalTwin.addPhysicalAdapter(
+                new DummyPhysicalAdapter(
+                        "test-pa",
+                        new DummyPhysicalAdapterConfiguration(),
+                        false)
+        );
+
+        JmxMqttDigitalAdapterMetrics metrics = new JmxMqttDigitalAdapterMetrics("test-da");
+
+        MqttDigitalAdapterConfiguration configuration = MqttDigitalAdapterConfiguration.builder(BROKER_ADDRESS, BROKER_PORT)
+                .setPersistentSessionFlag(true)
+                .setFilePersistence(new File(System.getProperty("java.io.tmpdir"), "wldt-mqtt-digital-adapter").getPath())
+                .setMetrics(metrics)
+                .addPropertyTopic("switch", "dummy/properties/switch", MqttQosLevel.MQTT_QOS_1, Object::toString)
+                .addActionTopic("switch_off", "app/actions/switch-off", MqttQosLevel.MQTT_QOS_1, msg -> "OFF")
+                .addActionTopic("switch_on", "app/actions/switch-on", MqttQosLevel.MQTT_QOS_1, msg -> "ON")
+                .build();
+
+        digitalTwin.addDigitalAdapter(new MqttDigitalAdapter("test-da", configuration));
+
+        DigitalTwinEngine digitalTwinEngine = new DigitalTwinEngine();
+        digitalTwinEngine.addDigitalTwin(digitalTwin);
+        digitalTwinEngine.startAll();
+
+        Thread.sleep(RUN_DURATION_MS);
+
+        System.out.printf("Run %d - resumed sessions: %d, subscribe: %s, connect: %s%n",
+                run, metrics.getResumedSessions(), metrics.getSubscribeLatency(), metrics.getConnectLatency());
+
+        digitalTwinEngine.stopAll();
+        metrics.unregister();
+    }
+}
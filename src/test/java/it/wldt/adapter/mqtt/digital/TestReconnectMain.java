@@ -0,0 +1,108 @@
+package it.wldt.adapter.mqtt.digital;
+
+import it.wldt.adapter.mqtt.digital.metrics.JmxMqttDigitalAdapterMetrics;
+import it.wldt.adapter.mqtt.digital.reconnect.ReconnectPolicy;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.utils.DefaultShadowingFunction;
+import it.wldt.adapter.mqtt.digital.utils.DummyPhysicalAdapter;
+import it.wldt.adapter.mqtt.digital.utils.DummyPhysicalAdapterConfiguration;
+import it.wldt.adapter.mqtt.digital.utils.EmbeddedMqttBroker;
+import it.wldt.core.engine.DigitalTwin;
+import it.wldt.core.engine.DigitalTwinEngine;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The `TestReconnectMain` class runs the Digital Twin of `TestMain` against an embedded MQTT broker that is restarted
+ * while the DT is running. The MQTT Digital Adapter reconnects according to its reconnect policy, buffers the
+ * publications requested while the broker is down, then subscribes again to the action topics and replays the
+ * buffered publications following the warm-up ramp. A switch on action published after the restart shows that the
+ * subscriptions have been restored.
+ */
+public class TestReconnectMain {
+
+    private static final String BROKER_ADDRESS = "127.0.0.1";
+
+    private static final int BROKER_PORT = 1883;
+
+    private static final long BROKER_DOWNTIME_MS = 6000;
+
+    /**
+     * The main method, the starting point of the demonstration.
+     *
+     * @param args Command line arguments (unused).
+     */
+    public static void main(String[] args) {
+
+        try {
+
+            EmbeddedMqttBroker broker = new EmbeddedMqttBroker(BROKER_ADDRESS, BROKER_PORT);
+            broker.start();
+
+            DigitalTwin digitalTwin = new DigitalTwin("reconnect-digital-twin", new DefaultShadowingFunction());
+
+            digitalTwin.addPhysicalAdapter(
+                    new DummyPhysicalAdapter(
+                            "test-pa",
+                            new DummyPhysicalAdapterConfiguration(),
+                            true)
+            );
+
+            JmxMqttDigitalAdapterMetrics metrics = new JmxMqttDigitalAdapterMetrics("test-da");
+
+            MqttDigitalAdapterConfiguration configuration = MqttDigitalAdapterConfiguration.builder(BROKER_ADDRESS, BROKER_PORT)
+                    .setReconnectPolicy(ReconnectPolicy.builder()
+                            .setInitialDelayMs(500)
+                            .setMaxDelayMs(4000)
+                            .setWarmupDurationMs(2000)
+                            .setResumeRates(2, 50)
+                            .build())
+                    .setMetrics(metrics)
+                    .addPropertyTopic("energy", "dummy/properties/energy", MqttQosLevel.MQTT_QOS_0, value -> String.valueOf(((Double)value).intValue()))
+                    .addEventNotificationTopic("overheating", "dummy/events/overheating/notifications", MqttQosLevel.MQTT_QOS_0, Object::toString)
+                    .addPropertyTopic("switch", "dummy/properties/switch", MqttQosLevel.MQTT_QOS_0, Object::toString)
+                    .addActionTopic("switch_off", "app/actions/switch-off", msg -> "OFF")
+                    .addActionTopic("switch_on", "app/actions/switch-on", msg -> "ON")
+                    .build();
+
+            digitalTwin.addDigitalAdapter(new MqttDigitalAdapter("test-da", configuration));
+
+            DigitalTwinEngine digitalTwinEngine = new DigitalTwinEngine();
+            digitalTwinEngine.addDigitalTwin(digitalTwin);
+            digitalTwinEngine.startAll();
+
+            Thread.sleep(5000);
+
+            System.out.println("Stopping the MQTT broker ...");
+            broker.close();
+            Thread.sleep(BROKER_DOWNTIME_MS);
+            // The embedded broker cannot be started again once stopped, a new instance takes its place
+            System.out.println("Restarting the MQTT broker ...");
+            broker = new EmbeddedMqttBroker(BROKER_ADDRESS, BROKER_PORT);
+            broker.start();
+
+            Thread.sleep(10000);
+
+            MqttClient actionPublisher = new MqttClient(String.format("tcp://%s:%d", BROKER_ADDRESS, BROKER_PORT), "test-reconnect-action-publisher", new MemoryPersistence());
+            actionPublisher.connect();
+            actionPublisher.publish("app/actions/switch-on", "ON".getBytes(StandardCharsets.UTF_8), 0, false);
+            actionPublisher.disconnect();
+
+            Thread.sleep(2000);
+
+            System.out.printf("Connection losses: %d, reconnects: %d, attempts: %d, replayed: %d, dropped: %d, downtime: %s, resumption: %s%n",
+                    metrics.getConnectionLosses(), metrics.getReconnects(), metrics.getReconnectAttempts(),
+                    metrics.getReplayedPublications(), metrics.getDroppedBacklogPublications(),
+                    metrics.getReconnectDowntime(), metrics.getResumptionLatency());
+
+            digitalTwinEngine.stopAll();
+            metrics.unregister();
+            broker.close();
+
+        }catch (Exception e){
+            e.printStackTrace();
+        }
+    }
+}
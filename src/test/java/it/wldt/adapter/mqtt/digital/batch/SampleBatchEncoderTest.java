@@ -0,0 +1,147 @@
+package it.wldt.adapter.mqtt.digital.batch;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests of the delta encoding of the {@link SampleBatchEncoder} and of its plain fallback.
+ */
+public class SampleBatchEncoderTest {
+
+    private static final long T0 = 1700000000000L;
+
+    private static SampleBatch numericBatch(double... values) {
+        SampleBatch batch = new SampleBatch("temperature", values.length);
+        for (int i = 0; i < values.length; i++)
+            batch.add(T0 + i * 10L + (i % 2), values[i]);
+        return batch;
+    }
+
+    private static JsonObject encode(SampleBatchEncoder encoder, SampleBatch batch) {
+        return JsonParser.parseString(encoder.encode(batch)).getAsJsonObject();
+    }
+
+    private static List<Long> decodeTimestamps(JsonObject json) {
+        List<Long> timestamps = new ArrayList<>();
+        long timestamp = json.get("t0").getAsLong();
+        timestamps.add(timestamp);
+        for (int i = 0; i < json.getAsJsonArray("dt").size(); i++)
+            timestamps.add(timestamp += json.getAsJsonArray("dt").get(i).getAsLong());
+        return timestamps;
+    }
+
+    private static List<Double> decodeValues(JsonObject json) {
+        double divisor = Math.pow(10, json.get("scale").getAsInt());
+        List<Double> values = new ArrayList<>();
+        long scaled = json.get("v0").getAsLong();
+        values.add(scaled / divisor);
+        JsonArray deltas = json.getAsJsonArray("dv");
+        for (int i = 0; i < deltas.size(); i++)
+            values.add((scaled += deltas.get(i).getAsLong()) / divisor);
+        return values;
+    }
+
+    private static List<Long> timestampsOf(SampleBatch batch) {
+        List<Long> timestamps = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++)
+            timestamps.add(batch.getTimestamp(i));
+        return timestamps;
+    }
+
+    @Test
+    public void documentedExampleIsEncodedAsDeltas() {
+        SampleBatch batch = new SampleBatch("temperature", 3);
+        batch.add(1700000000000L, 20.5);
+        batch.add(1700000000010L, 20.6);
+        batch.add(1700000000021L, 20.4);
+
+        assertEquals("{\"count\":3,\"t0\":1700000000000,\"dt\":[10,11],\"scale\":1,\"v0\":205,\"dv\":[1,-2]}",
+                SampleBatchEncoder.deltaJson(1).encode(batch));
+    }
+
+    @Test
+    public void deltasRoundTripToTheScaledValues() {
+        SampleBatch batch = numericBatch(20.5, -3.25, 1e9, 0.001, -1e9, 42.0);
+
+        JsonObject json = encode(SampleBatchEncoder.DELTA_JSON, batch);
+
+        assertEquals(6, json.get("count").getAsInt());
+        assertFalse(json.has("values"));
+        assertEquals(timestampsOf(batch), decodeTimestamps(json));
+        assertEquals(Arrays.asList(20.5, -3.25, 1e9, 0.001, -1e9, 42.0), decodeValues(json));
+    }
+
+    @Test
+    public void valuesAreRoundedToTheScale() {
+        JsonObject json = encode(SampleBatchEncoder.deltaJson(2), numericBatch(1.234, 1.236));
+
+        assertEquals(Arrays.asList(1.23, 1.24), decodeValues(json));
+    }
+
+    @Test
+    public void emptyBatchCarriesOnlyTheCount() {
+        assertEquals("{\"count\":0}", SampleBatchEncoder.DELTA_JSON.encode(new SampleBatch("temperature", 4)));
+    }
+
+    @Test
+    public void nonNumericBatchCarriesTheTextValues() {
+        SampleBatch batch = new SampleBatch("switch", 2);
+        batch.add(T0, "ON");
+        batch.add(T0 + 10, "OFF \"forced\"");
+
+        assertEquals("{\"count\":2,\"t0\":1700000000000,\"dt\":[10],\"values\":[\"ON\",\"OFF \\\"forced\\\"\"]}",
+                SampleBatchEncoder.DELTA_JSON.encode(batch));
+    }
+
+    @Test
+    public void nonFiniteValuesFallBackToThePlainEncoding() {
+        for (double invalid : new double[]{Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            SampleBatch batch = numericBatch(20.5, invalid, 20.6);
+
+            JsonObject json = encode(SampleBatchEncoder.DELTA_JSON, batch);
+
+            assertFalse(json.has("dv"));
+            assertEquals(timestampsOf(batch), decodeTimestamps(json));
+            JsonArray values = json.getAsJsonArray("values");
+            assertEquals(3, values.size());
+            assertEquals("20.5", values.get(0).getAsString());
+            assertEquals(String.valueOf(invalid), values.get(1).getAsString());
+        }
+    }
+
+    @Test
+    public void scaledValueOverflowingALongFallsBackToThePlainEncoding() {
+        // 1e16 scaled by 10^3 exceeds Long.MAX_VALUE
+        JsonObject json = encode(SampleBatchEncoder.DELTA_JSON, numericBatch(1.0, 1e16));
+
+        assertFalse(json.has("v0"));
+        assertEquals("1.0E16", json.getAsJsonArray("values").get(1).getAsString());
+    }
+
+    @Test
+    public void deltaOverflowingALongFallsBackToThePlainEncoding() {
+        // Both scaled values fit a long, their difference does not
+        JsonObject json = encode(SampleBatchEncoder.DELTA_JSON, numericBatch(9e15, -9e15));
+
+        assertFalse(json.has("dv"));
+        assertEquals(2, json.getAsJsonArray("values").size());
+    }
+
+    @Test
+    public void largestDeltasWithinRangeAreStillDeltaEncoded() {
+        JsonObject json = encode(SampleBatchEncoder.deltaJson(0), numericBatch(4e18, -4e18));
+
+        assertTrue(json.has("dv"));
+        assertEquals(Arrays.asList(4e18, -4e18), decodeValues(json));
+    }
+}
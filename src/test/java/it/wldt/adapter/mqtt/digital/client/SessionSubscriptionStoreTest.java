@@ -0,0 +1,113 @@
+package it.wldt.adapter.mqtt.digital.client;
+
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests of the subscriptions of a persistent session recorded by a {@link SessionSubscriptionStore}.
+ */
+public class SessionSubscriptionStoreTest {
+
+    private static final String CLIENT_ID = "wldt.mqtt.digital.adapter.client.dt-1.mqtt-da";
+
+    private static final String SERVER_URI = "tcp://127.0.0.1:1883";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static MqttTopic topic(String filter, MqttQosLevel qosLevel) {
+        return new MqttTopic(filter, qosLevel);
+    }
+
+    private static List<String> subscriptionsOf(SessionSubscriptionStore store) {
+        List<String> subscriptions = new ArrayList<>();
+        store.getSubscribedTopics().forEach(topic -> subscriptions.add(topic.getTopic() + ":" + topic.getQos()));
+        Collections.sort(subscriptions);
+        return subscriptions;
+    }
+
+    private SessionSubscriptionStore fileStore() {
+        return new SessionSubscriptionStore(folder.getRoot().getPath(), CLIENT_ID, SERVER_URI);
+    }
+
+    @Test
+    public void subscriptionsAreUnknownUntilRecorded() {
+        assertNull(new SessionSubscriptionStore().getSubscribedTopics());
+        assertNull(fileStore().getSubscribedTopics());
+
+        SessionSubscriptionStore store = new SessionSubscriptionStore();
+        store.clear();
+        assertTrue(store.getSubscribedTopics().isEmpty());
+    }
+
+    @Test
+    public void subscriptionsAreUpdatedByFilter() {
+        SessionSubscriptionStore store = new SessionSubscriptionStore();
+        store.clear();
+
+        store.subscribed(Arrays.asList(topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1), topic("dt/actions/+/set", MqttQosLevel.MQTT_QOS_0)));
+        store.subscribed(Collections.singletonList(topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_2)));
+        store.unsubscribed(Collections.singletonList(topic("dt/actions/+/set", MqttQosLevel.MQTT_QOS_1)));
+
+        assertEquals(Collections.singletonList("dt/actions/switch:2"), subscriptionsOf(store));
+    }
+
+    @Test
+    public void newSessionHasNoSubscriptions() {
+        SessionSubscriptionStore store = fileStore();
+        store.subscribed(Collections.singletonList(topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1)));
+
+        store.clear();
+
+        assertTrue(store.getSubscribedTopics().isEmpty());
+        assertTrue(fileStore().getSubscribedTopics().isEmpty());
+    }
+
+    @Test
+    public void fileKeepsTheSubscriptionsAcrossRestarts() {
+        SessionSubscriptionStore store = fileStore();
+        store.clear();
+        store.subscribed(Arrays.asList(topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1), topic("dt/actions/#", MqttQosLevel.MQTT_QOS_2),
+                topic("dt/state request=all", MqttQosLevel.MQTT_QOS_0)));
+        store.unsubscribed(Collections.singletonList(topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1)));
+
+        assertEquals(Arrays.asList("dt/actions/#:2", "dt/state request=all:0"), subscriptionsOf(fileStore()));
+        // Another client or broker has its own session
+        assertNull(new SessionSubscriptionStore(folder.getRoot().getPath(), CLIENT_ID, "tcp://10.0.0.1:1883").getSubscribedTopics());
+    }
+
+    @Test
+    public void invalidFileLeavesTheSubscriptionsUnknown() throws Exception {
+        fileStore().clear();
+        File[] files = folder.getRoot().listFiles((directory, name) -> name.endsWith(SessionSubscriptionStore.FILE_EXTENSION));
+        assertEquals(1, files.length);
+        Files.write(files[0].toPath(), "dt/actions/switch=3\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        assertNull(fileStore().getSubscribedTopics());
+    }
+
+    @Test
+    public void failedWriteLeavesTheSubscriptionsUnknown() throws Exception {
+        File notADirectory = folder.newFile("persistence");
+        SessionSubscriptionStore store = new SessionSubscriptionStore(notADirectory.getPath(), CLIENT_ID, SERVER_URI);
+
+        store.subscribed(Collections.singletonList(topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1)));
+
+        assertNull(store.getSubscribedTopics());
+    }
+}
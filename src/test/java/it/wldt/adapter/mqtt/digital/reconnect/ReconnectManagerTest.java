@@ -0,0 +1,174 @@
+package it.wldt.adapter.mqtt.digital.reconnect;
+
+import it.wldt.adapter.mqtt.digital.client.MqttDigitalAdapterMessageListener;
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterClientException;
+import it.wldt.adapter.mqtt.digital.metrics.NoOpMqttDigitalAdapterMetrics;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests of the subscriptions applied by the {@link ReconnectManager} after a reconnection.
+ */
+public class ReconnectManagerTest {
+
+    private static final MqttDigitalAdapterMessageListener LISTENER = (topic, payload) -> { };
+
+    private static final long SETTLE_MS = 500;
+
+    private final List<String> operations = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger failingSubscriptions = new AtomicInteger();
+
+    private final AtomicBoolean sessionPresent = new AtomicBoolean();
+
+    private ReconnectManager manager;
+
+    private final ReconnectManager.ResumptionHandler handler = new ReconnectManager.ResumptionHandler() {
+        @Override
+        public boolean connect() {
+            operations.add("connect");
+            return sessionPresent.get();
+        }
+
+        @Override
+        public void subscribe(Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions) throws MqttDigitalAdapterClientException {
+            if (failingSubscriptions.getAndDecrement() > 0)
+                throw new MqttDigitalAdapterClientException("Subscription refused");
+            subscriptions.keySet().forEach(topic -> operations.add("+" + topic.getTopic() + ":" + topic.getQos()));
+        }
+
+        @Override
+        public void unsubscribe(Collection<MqttTopic> topics) {
+            topics.forEach(topic -> operations.add("-" + topic.getTopic()));
+        }
+
+        @Override
+        public void publish(BufferedPublication publication) {
+        }
+
+        @Override
+        public void onReconnectFailed(int attempts) {
+        }
+    };
+
+    private static Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions(MqttTopic... topics) {
+        Map<MqttTopic, MqttDigitalAdapterMessageListener> subscriptions = new LinkedHashMap<>();
+        for (MqttTopic topic : topics)
+            subscriptions.put(topic, LISTENER);
+        return subscriptions;
+    }
+
+    private ReconnectManager create() throws Exception {
+        manager = new ReconnectManager("test", ReconnectPolicy.builder()
+                .setInitialDelayMs(10)
+                .setMaxDelayMs(20)
+                .setWarmupDurationMs(0)
+                .setResumeRates(1000, 1000)
+                .build(), NoOpMqttDigitalAdapterMetrics.INSTANCE, handler);
+        manager.start();
+        return manager;
+    }
+
+    private List<String> settle() throws InterruptedException {
+        Thread.sleep(SETTLE_MS);
+        List<String> settled = new ArrayList<>(operations);
+        operations.clear();
+        return settled;
+    }
+
+    @After
+    public void stop() {
+        if (manager != null)
+            manager.stop();
+    }
+
+    @Test
+    public void newSessionIsSubscribedAgain() throws Exception {
+        create();
+        assertFalse(manager.setSubscriptions(subscriptions(new MqttTopic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1))));
+
+        manager.onConnectionLost(null);
+
+        assertEquals(Arrays.asList("connect", "+dt/actions/switch:1"), settle());
+    }
+
+    @Test
+    public void resumedSessionIsSubscribedOnlyWithTheChangesOfTheOutage() throws Exception {
+        create();
+        MqttTopic kept = new MqttTopic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1);
+        Map<MqttTopic, MqttDigitalAdapterMessageListener> session = subscriptions(kept, new MqttTopic("dt/actions/dimmer", MqttQosLevel.MQTT_QOS_1));
+        manager.setSubscriptions(session);
+        manager.setSessionSubscriptions(session);
+        sessionPresent.set(true);
+        failingSubscriptions.set(1000);
+
+        manager.onConnectionLost(null);
+        assertTrue(manager.setSubscriptions(subscriptions(kept, new MqttTopic("dt/actions/color", MqttQosLevel.MQTT_QOS_0))));
+        failingSubscriptions.set(0);
+
+        assertEquals(Arrays.asList("connect", "-dt/actions/dimmer", "+dt/actions/color:0"), settle());
+    }
+
+    @Test
+    public void failedResubscriptionIsRetriedUntilItSucceeds() throws Exception {
+        create();
+        manager.setSubscriptions(subscriptions(new MqttTopic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1)));
+        failingSubscriptions.set(3);
+
+        manager.onConnectionLost(null);
+
+        assertEquals(Arrays.asList("connect", "+dt/actions/switch:1"), settle());
+        assertEquals(-1, failingSubscriptions.get());
+        // Once subscribed, the adapter applies the changes again
+        assertFalse(manager.setSubscriptions(Collections.emptyMap()));
+    }
+
+    @Test
+    public void changesRequestedWhileRetryingAreAppliedByTheRetry() throws Exception {
+        create();
+        MqttTopic switchTopic = new MqttTopic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1);
+        manager.setSubscriptions(subscriptions(switchTopic));
+        failingSubscriptions.set(Integer.MAX_VALUE);
+        manager.onConnectionLost(null);
+        assertEquals(Collections.singletonList("connect"), settle());
+
+        // Retrying, so the manager applies the change
+        assertTrue(manager.setSubscriptions(subscriptions(switchTopic, new MqttTopic("dt/actions/color", MqttQosLevel.MQTT_QOS_2))));
+        failingSubscriptions.set(0);
+
+        assertEquals(Arrays.asList("+dt/actions/switch:1", "+dt/actions/color:2"), settle());
+        assertFalse(manager.setSubscriptions(subscriptions(switchTopic)));
+    }
+
+    @Test
+    public void stopEndsTheRetries() throws Exception {
+        create();
+        manager.setSubscriptions(subscriptions(new MqttTopic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1)));
+        failingSubscriptions.set(Integer.MAX_VALUE);
+        manager.onConnectionLost(null);
+        settle();
+
+        manager.stop();
+        int remaining = failingSubscriptions.get();
+        settle();
+
+        assertEquals(remaining, failingSubscriptions.get());
+    }
+}
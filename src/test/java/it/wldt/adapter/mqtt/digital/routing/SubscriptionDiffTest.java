@@ -0,0 +1,84 @@
+package it.wldt.adapter.mqtt.digital.routing;
+
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.topic.MqttTopic;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests of the subscriptions changed by a {@link SubscriptionDiff}.
+ */
+public class SubscriptionDiffTest {
+
+    private static MqttTopic topic(String filter, MqttQosLevel qosLevel) {
+        return new MqttTopic(filter, qosLevel);
+    }
+
+    private static List<String> filtersOf(List<MqttTopic> topics) {
+        List<String> filters = new ArrayList<>();
+        topics.forEach(topic -> filters.add(topic.getTopic()));
+        Collections.sort(filters);
+        return filters;
+    }
+
+    @Test
+    public void addedAndRemovedFiltersAreSubscribedAndUnsubscribed() {
+        SubscriptionDiff<MqttTopic> diff = SubscriptionDiff.between(
+                Arrays.asList(topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1), topic("dt/actions/dimmer", MqttQosLevel.MQTT_QOS_1)),
+                Arrays.asList(topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1), topic("dt/actions/color", MqttQosLevel.MQTT_QOS_0)));
+
+        assertEquals(Collections.singletonList("dt/actions/color"), filtersOf(diff.getSubscribed()));
+        assertEquals(Collections.singletonList("dt/actions/dimmer"), filtersOf(diff.getUnsubscribed()));
+        assertFalse(diff.isEmpty());
+    }
+
+    @Test
+    public void qosChangeIsOnlySubscribedAgain() {
+        MqttTopic upgraded = topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_2);
+
+        SubscriptionDiff<MqttTopic> diff = SubscriptionDiff.between(
+                Collections.singletonList(topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_0)),
+                Collections.singletonList(upgraded));
+
+        assertEquals(1, diff.getSubscribed().size());
+        assertSame(upgraded, diff.getSubscribed().get(0));
+        assertTrue(diff.getUnsubscribed().isEmpty());
+    }
+
+    @Test
+    public void sameFilterAndQosKeepsItsSubscription() {
+        SubscriptionDiff<MqttTopic> diff = SubscriptionDiff.between(
+                Arrays.asList(topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1), topic("dt/actions/+/set", MqttQosLevel.MQTT_QOS_0)),
+                Arrays.asList(topic("dt/actions/+/set", MqttQosLevel.MQTT_QOS_0), topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1)));
+
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void emptySessionSubscribesEverything() {
+        SubscriptionDiff<MqttTopic> diff = SubscriptionDiff.between(Collections.emptyList(),
+                Arrays.asList(topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1), topic("dt/state/request", MqttQosLevel.MQTT_QOS_0)));
+
+        assertEquals(Arrays.asList("dt/actions/switch", "dt/state/request"), filtersOf(diff.getSubscribed()));
+        assertTrue(diff.getUnsubscribed().isEmpty());
+    }
+
+    @Test
+    public void emptyTargetUnsubscribesEverything() {
+        SubscriptionDiff<MqttTopic> diff = SubscriptionDiff.between(
+                Arrays.asList(topic("dt/actions/switch", MqttQosLevel.MQTT_QOS_1), topic("dt/state/request", MqttQosLevel.MQTT_QOS_0)),
+                Collections.emptyList());
+
+        assertTrue(diff.getSubscribed().isEmpty());
+        assertEquals(Arrays.asList("dt/actions/switch", "dt/state/request"), filtersOf(diff.getUnsubscribed()));
+    }
+}
@@ -0,0 +1,156 @@
+package it.wldt.adapter.mqtt.digital.serialization;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests of the emission order of the {@link ParallelPropertySerializer}, also when the chunks complete out of
+ * order or fail.
+ */
+public class ParallelPropertySerializerTest {
+
+    private final List<ParallelPropertySerializer> serializers = new ArrayList<>();
+
+    private ParallelPropertySerializer create(int parallelism, int chunkSize) throws Exception {
+        ParallelPropertySerializer serializer = new ParallelPropertySerializer(ParallelSerializationPolicy.builder()
+                .setParallelism(parallelism).setThreshold(4).setChunkSize(chunkSize).build());
+        serializer.start();
+        serializers.add(serializer);
+        return serializer;
+    }
+
+    private static List<Integer> updates(int count) {
+        List<Integer> updates = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            updates.add(i);
+        return updates;
+    }
+
+    // Serializes an update, the first ones being the slowest
+    private static Function<Integer, String> slowFirst(int count) {
+        return update -> {
+            try {
+                Thread.sleep(Math.max(0, count - update) / 4);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "payload-" + update;
+        };
+    }
+
+    @After
+    public void shutdown() {
+        serializers.forEach(ParallelPropertySerializer::shutdown);
+    }
+
+    @Test
+    public void thresholdAppliesToThePropertyUpdates() throws Exception {
+        ParallelPropertySerializer serializer = create(2, 2);
+
+        assertFalse(serializer.isParallel(3));
+        assertTrue(serializer.isParallel(4));
+    }
+
+    @Test
+    public void chunksCompletedOutOfOrderAreEmittedInOrder() throws Exception {
+        ParallelPropertySerializer serializer = create(4, 2);
+        List<Integer> updates = updates(40);
+        List<String> emitted = new ArrayList<>();
+
+        serializer.serializeInOrder(updates, slowFirst(updates.size()), (update, payload) -> emitted.add(update + "=" + payload));
+
+        List<String> expected = new ArrayList<>();
+        updates.forEach(update -> expected.add(update + "=payload-" + update));
+        assertEquals(expected, emitted);
+    }
+
+    @Test
+    public void failedChunkStopsTheEmissionAfterThePreviousChunks() throws Exception {
+        ParallelPropertySerializer serializer = create(4, 4);
+        List<Integer> updates = updates(32);
+        List<Integer> emitted = new ArrayList<>();
+        Set<Integer> serialized = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        try {
+            serializer.serializeInOrder(updates, update -> {
+                serialized.add(update);
+                if (update == 13)
+                    throw new IllegalStateException("Serialization failed");
+                return slowFirst(updates.size()).apply(update);
+            }, (update, payload) -> emitted.add(update));
+            fail("The serialization failure must be thrown");
+        } catch (IllegalStateException expected) {
+        }
+
+        // The chunks before the failed one (updates 12 to 15) are emitted in order, the following ones never
+        assertEquals(updates(12), emitted);
+        assertTrue(serialized.contains(13));
+    }
+
+    @Test
+    public void stoppedSerializerSerializesOnTheCallingThread() throws Exception {
+        ParallelPropertySerializer serializer = create(4, 2);
+        serializer.shutdown();
+        Set<String> threads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        List<Integer> emitted = new ArrayList<>();
+
+        serializer.serializeInOrder(updates(10), update -> {
+            threads.add(Thread.currentThread().getName());
+            return String.valueOf(update);
+        }, (update, payload) -> emitted.add(update));
+
+        assertEquals(Collections.singleton(Thread.currentThread().getName()), threads);
+        assertEquals(updates(10), emitted);
+    }
+
+    @Test
+    public void restartedSerializerUsesThePoolAgain() throws Exception {
+        ParallelPropertySerializer serializer = create(2, 1);
+        serializer.shutdown();
+        serializer.start();
+        Set<String> threads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        serializer.serializeInOrder(updates(8), update -> {
+            threads.add(Thread.currentThread().getName());
+            return String.valueOf(update);
+        }, (update, payload) -> { });
+
+        assertTrue(threads.toString(), threads.stream().anyMatch(thread -> thread.startsWith("mqtt-digital-adapter-serializer-2-")));
+    }
+
+    @Test
+    public void serializersWithTheSameParallelismShareThePool() throws Exception {
+        int parallelism = 3;
+        List<ParallelPropertySerializer> adapters = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+            adapters.add(create(parallelism, 1));
+        Set<String> threads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        List<Thread> callers = new ArrayList<>();
+        for (ParallelPropertySerializer serializer : adapters)
+            callers.add(new Thread(() -> serializer.serializeInOrder(updates(16), update -> {
+                threads.add(Thread.currentThread().getName());
+                return slowFirst(16).apply(update);
+            }, (update, payload) -> { })));
+        callers.forEach(Thread::start);
+        for (Thread caller : callers)
+            caller.join();
+
+        // A caller may run its own last chunk while joining it, the other chunks run on the threads of the shared pool
+        threads.removeIf(thread -> !thread.startsWith("mqtt-digital-adapter-serializer-" + parallelism + "-"));
+        assertFalse(threads.isEmpty());
+        assertTrue(threads.toString(), threads.size() <= parallelism);
+    }
+}
@@ -0,0 +1,200 @@
+package it.wldt.adapter.mqtt.digital.stripe;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+import it.wldt.adapter.mqtt.digital.metrics.NoOpMqttDigitalAdapterMetrics;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests of the per key ordering and of the start, shutdown and restart of the {@link StripedPublisher}.
+ */
+public class StripedPublisherTest {
+
+    private static final String NAME = "striped-publisher-test";
+
+    private StripedPublisher publisher;
+
+    private StripedPublisher create(int laneCount, int laneCapacity) throws MqttDigitalAdapterConfigurationException {
+        publisher = new StripedPublisher(NAME, StripedPublishingPolicy.builder().setLaneCount(laneCount).setLaneCapacity(laneCapacity).build(),
+                NoOpMqttDigitalAdapterMetrics.INSTANCE);
+        return publisher;
+    }
+
+    // Finds a key assigned to a lane
+    private String keyOnLane(int laneIndex) {
+        for (int i = 0; ; i++)
+            if (publisher.getLaneIndex("key-" + i) == laneIndex)
+                return "key-" + i;
+    }
+
+    private static int aliveLaneThreads() {
+        int alive = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet())
+            if (thread.getName().startsWith("mqtt-digital-adapter-publisher-" + NAME) && thread.isAlive())
+                alive++;
+        return alive;
+    }
+
+    @After
+    public void shutdown() {
+        if (publisher != null)
+            publisher.shutdown();
+    }
+
+    @Test
+    public void publicationsOfAKeyAreDeliveredInSubmissionOrderOnItsLane() throws Exception {
+        create(4, 16).start();
+        int keys = 32;
+        int publicationsPerKey = 200;
+        Map<String, List<Integer>> delivered = new ConcurrentHashMap<>();
+        Map<String, String> laneThreads = new ConcurrentHashMap<>();
+        List<Thread> producers = new ArrayList<>();
+        for (int k = 0; k < keys; k++) {
+            String key = "key-" + k;
+            delivered.put(key, Collections.synchronizedList(new ArrayList<>()));
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < publicationsPerKey; i++) {
+                    int sequence = i;
+                    publisher.submit(key, () -> {
+                        delivered.get(key).add(sequence);
+                        laneThreads.merge(key, Thread.currentThread().getName(), (previous, current) -> previous.equals(current) ? previous : "many");
+                    });
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        for (Thread producer : producers)
+            producer.join();
+        publisher.shutdown();
+
+        for (int k = 0; k < keys; k++) {
+            String key = "key-" + k;
+            List<Integer> sequences = delivered.get(key);
+            assertEquals(publicationsPerKey, sequences.size());
+            for (int i = 0; i < publicationsPerKey; i++)
+                assertEquals(key, i, (int) sequences.get(i));
+            assertEquals(key, "mqtt-digital-adapter-publisher-" + NAME + "-" + publisher.getLaneIndex(key), laneThreads.get(key));
+        }
+    }
+
+    @Test
+    public void busyLaneDoesNotDelayTheOtherLanes() throws Exception {
+        create(2, 16).start();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(1);
+
+        publisher.submit(keyOnLane(0), () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        publisher.submit(keyOnLane(1), delivered::countDown);
+
+        assertTrue(delivered.await(1, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void shutdownDeliversThePendingPublications() throws Exception {
+        create(2, 64).start();
+        AtomicInteger delivered = new AtomicInteger();
+        for (int i = 0; i < 50; i++)
+            publisher.submit("key-" + (i % 5), () -> {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                delivered.incrementAndGet();
+            });
+
+        publisher.shutdown();
+
+        assertEquals(50, delivered.get());
+        assertEquals(0, aliveLaneThreads());
+    }
+
+    @Test
+    public void publicationsSubmittedWhileStoppedAreDiscarded() throws Exception {
+        create(2, 16);
+        AtomicInteger delivered = new AtomicInteger();
+
+        publisher.submit("key-0", delivered::incrementAndGet);
+        publisher.start();
+        publisher.shutdown();
+        publisher.submit("key-0", delivered::incrementAndGet);
+
+        Thread.sleep(100);
+        assertEquals(0, delivered.get());
+        assertEquals(0, publisher.getLaneDepth(0));
+    }
+
+    @Test
+    public void restartedPublisherDeliversOnNewLanes() throws Exception {
+        create(2, 16).start();
+        publisher.start();
+        assertEquals(2, aliveLaneThreads());
+        publisher.shutdown();
+        assertEquals(0, aliveLaneThreads());
+
+        publisher.start();
+        CountDownLatch delivered = new CountDownLatch(2);
+        publisher.submit(keyOnLane(0), delivered::countDown);
+        publisher.submit(keyOnLane(1), delivered::countDown);
+
+        assertTrue(delivered.await(1, TimeUnit.SECONDS));
+        assertEquals(2, aliveLaneThreads());
+        publisher.shutdown();
+        assertEquals(0, aliveLaneThreads());
+    }
+
+    @Test
+    public void stuckLaneAndBlockedProducerAreReleasedByShutdown() throws Exception {
+        create(1, 1).start();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger delivered = new AtomicInteger();
+        // Ignores the interruption, as a publication blocked in a client could
+        publisher.submit("key-0", () -> {
+            running.countDown();
+            while (true) {
+                try {
+                    release.await();
+                    return;
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        running.await();
+        publisher.submit("key-0", delivered::incrementAndGet);
+        Thread producer = new Thread(() -> publisher.submit("key-0", delivered::incrementAndGet));
+        producer.start();
+
+        long shutdownStart = System.nanoTime();
+        publisher.shutdown();
+        long shutdownMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - shutdownStart);
+        producer.join(1000);
+
+        assertTrue(shutdownMs < 7000);
+        assertFalse(producer.isAlive());
+        release.countDown();
+        Thread.sleep(200);
+        assertEquals(0, delivered.get());
+        assertEquals(0, aliveLaneThreads());
+    }
+}
@@ -0,0 +1,141 @@
+package it.wldt.adapter.mqtt.digital.structure;
+
+import com.google.gson.Gson;
+import it.wldt.core.state.DigitalTwinStateAction;
+import it.wldt.core.state.DigitalTwinStateChange;
+import it.wldt.core.state.DigitalTwinStateEvent;
+import it.wldt.core.state.DigitalTwinStateProperty;
+import it.wldt.core.state.DigitalTwinStateResource;
+import it.wldt.exception.WldtDigitalTwinStateException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static it.wldt.core.state.DigitalTwinStateChange.Operation.OPERATION_ADD;
+import static it.wldt.core.state.DigitalTwinStateChange.Operation.OPERATION_REMOVE;
+import static it.wldt.core.state.DigitalTwinStateChange.Operation.OPERATION_UPDATE;
+import static it.wldt.core.state.DigitalTwinStateChange.Operation.OPERATION_UPDATE_VALUE;
+import static it.wldt.core.state.DigitalTwinStateChange.ResourceType.ACTION;
+import static it.wldt.core.state.DigitalTwinStateChange.ResourceType.EVENT;
+import static it.wldt.core.state.DigitalTwinStateChange.ResourceType.PROPERTY;
+import static it.wldt.core.state.DigitalTwinStateChange.ResourceType.PROPERTY_VALUE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests of the structure diffs produced by the {@link StructureTracker} for bursts of structural changes.
+ */
+public class StructureTrackerTest {
+
+    private static final Gson GSON = new Gson();
+
+    private static DigitalTwinStateChange change(DigitalTwinStateChange.Operation operation,
+                                                 DigitalTwinStateChange.ResourceType resourceType,
+                                                 DigitalTwinStateResource resource) throws WldtDigitalTwinStateException {
+        return new DigitalTwinStateChange(operation, resourceType, resource);
+    }
+
+    private static StructureDiff diffOf(List<StructurePublication> publications) {
+        StructurePublication last = publications.get(publications.size() - 1);
+        assertEquals(StructureTracker.STRUCTURE_TOPIC_KEY, last.getTopicKey());
+        return GSON.fromJson(last.getPayload(), StructureDiff.class);
+    }
+
+    private static List<String> changesOf(StructureDiff diff) {
+        List<String> changes = new ArrayList<>();
+        diff.getChanges().forEach(change -> changes.add(change.getResource() + "/" + change.getKey() + ":" + change.getOperation()));
+        Collections.sort(changes);
+        return changes;
+    }
+
+    private static StructureTracker trackerWithBurst(StructurePublishingPolicy policy) throws Exception {
+        StructureTracker tracker = new StructureTracker(policy);
+        tracker.update(Arrays.asList(
+                change(OPERATION_ADD, PROPERTY, new DigitalTwinStateProperty<>("temperature", 20.0)),
+                change(OPERATION_ADD, ACTION, new DigitalTwinStateAction("switch", "switch.toggle", "text/plain")),
+                change(OPERATION_ADD, EVENT, new DigitalTwinStateEvent("overheating", "text/plain"))));
+        return tracker;
+    }
+
+    @Test
+    public void burstIsPublishedAsSingleDiffOfTheNetChanges() throws Exception {
+        StructureTracker tracker = new StructureTracker(StructurePublishingPolicy.builder().build());
+
+        List<StructurePublication> publications = tracker.update(Arrays.asList(
+                change(OPERATION_ADD, PROPERTY, new DigitalTwinStateProperty<>("temperature", 20.0)),
+                change(OPERATION_ADD, PROPERTY, new DigitalTwinStateProperty<>("humidity", 40.0)),
+                change(OPERATION_ADD, ACTION, new DigitalTwinStateAction("switch", "switch.toggle", "text/plain")),
+                change(OPERATION_ADD, EVENT, new DigitalTwinStateEvent("overheating", "text/plain")),
+                change(OPERATION_UPDATE_VALUE, PROPERTY_VALUE, new DigitalTwinStateProperty<>("temperature", 21.0)),
+                // Added and removed by the same update, never published
+                change(OPERATION_REMOVE, PROPERTY, new DigitalTwinStateProperty<>("humidity", 40.0))));
+
+        assertEquals(1, publications.size());
+        StructureDiff diff = diffOf(publications);
+        assertEquals(Arrays.asList("action/switch:enabled", "event/overheating:registered", "property/temperature:created"), changesOf(diff));
+        assertEquals("0", diff.getPreviousHash());
+        assertEquals(tracker.getStructureHash(), diff.getHash());
+    }
+
+    @Test
+    public void burstOfUpdatesAndRemovalsIsChainedToThePreviousHash() throws Exception {
+        StructureTracker tracker = trackerWithBurst(StructurePublishingPolicy.builder().build());
+        String previousHash = tracker.getStructureHash();
+
+        List<StructurePublication> publications = tracker.update(Arrays.asList(
+                change(OPERATION_UPDATE, ACTION, new DigitalTwinStateAction("switch", "switch.toggle", "application/json")),
+                change(OPERATION_REMOVE, EVENT, new DigitalTwinStateEvent("overheating", "text/plain")),
+                change(OPERATION_REMOVE, PROPERTY, new DigitalTwinStateProperty<>("temperature", 20.0))));
+
+        StructureDiff diff = diffOf(publications);
+        assertEquals(Arrays.asList("action/switch:updated", "event/overheating:unregistered", "property/temperature:deleted"), changesOf(diff));
+        assertEquals(previousHash, diff.getPreviousHash());
+        assertEquals(tracker.getStructureHash(), diff.getHash());
+    }
+
+    @Test
+    public void burstLeavingStructureUnchangedPublishesNothing() throws Exception {
+        StructureTracker tracker = trackerWithBurst(StructurePublishingPolicy.builder().build());
+        String hash = tracker.getStructureHash();
+
+        List<StructurePublication> publications = tracker.update(Arrays.asList(
+                change(OPERATION_UPDATE, ACTION, new DigitalTwinStateAction("switch", "switch.toggle", "text/plain")),
+                change(OPERATION_ADD, PROPERTY, new DigitalTwinStateProperty<>("humidity", 40.0)),
+                change(OPERATION_REMOVE, PROPERTY, new DigitalTwinStateProperty<>("humidity", 40.0)),
+                change(OPERATION_UPDATE_VALUE, PROPERTY_VALUE, new DigitalTwinStateProperty<>("temperature", 22.0))));
+
+        assertTrue(publications.isEmpty());
+        assertEquals(hash, tracker.getStructureHash());
+    }
+
+    @Test
+    public void resourceTopicsPublishEachNetChangeBeforeTheDiff() throws Exception {
+        StructureTracker tracker = trackerWithBurst(StructurePublishingPolicy.builder().setResourceTopicsFlag(true).build());
+
+        List<StructurePublication> publications = tracker.update(Arrays.asList(
+                change(OPERATION_REMOVE, ACTION, new DigitalTwinStateAction("switch", "switch.toggle", "text/plain")),
+                change(OPERATION_ADD, PROPERTY, new DigitalTwinStateProperty<>("humidity", 40.0))));
+
+        assertEquals(3, publications.size());
+        List<String> topics = new ArrayList<>();
+        publications.subList(0, 2).forEach(publication -> topics.add(publication.getTopic().getTopic()));
+        Collections.sort(topics);
+        assertEquals(Arrays.asList("state/actions/switch/disabled", "state/properties/humidity/created"), topics);
+        assertEquals(Arrays.asList("action/switch:disabled", "property/humidity:created"), changesOf(diffOf(publications)));
+    }
+
+    @Test
+    public void synchronizationReportsOnlyTheDifferences() throws Exception {
+        StructureTracker tracker = trackerWithBurst(StructurePublishingPolicy.builder().build());
+
+        List<StructurePublication> publications = tracker.synchronize(
+                Arrays.asList(new DigitalTwinStateProperty<>("temperature", 23.0), new DigitalTwinStateProperty<>("humidity", 40.0)),
+                Collections.singletonList(new DigitalTwinStateAction("switch", "switch.toggle", "text/plain")),
+                Collections.emptyList());
+
+        assertEquals(Arrays.asList("event/overheating:unregistered", "property/humidity:created"), changesOf(diffOf(publications)));
+    }
+}
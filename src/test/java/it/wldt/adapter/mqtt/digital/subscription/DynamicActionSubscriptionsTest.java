@@ -0,0 +1,137 @@
+package it.wldt.adapter.mqtt.digital.subscription;
+
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterClientException;
+import it.wldt.adapter.mqtt.digital.exception.MqttDigitalAdapterConfigurationException;
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.topic.incoming.ActionIncomingTopic;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests of the debouncing and of the subscription updates of the {@link DynamicActionSubscriptions}.
+ */
+public class DynamicActionSubscriptionsTest {
+
+    private static final long DEBOUNCE_MS = 50;
+
+    // Long enough for a debounced flush to run
+    private static final long SETTLE_MS = DEBOUNCE_MS * 6;
+
+    // Action keys "<name>-<n>" share the topic filter "dt/actions/<name>"
+    private static final Function<String, ActionIncomingTopic<?>> TOPIC_RESOLVER = actionKey ->
+            new ActionIncomingTopic<>("dt/actions/" + actionKey.split("-")[0], MqttQosLevel.MQTT_QOS_0, actionKey, message -> message);
+
+    private final BlockingQueue<String> updates = new LinkedBlockingQueue<>();
+
+    private DynamicActionSubscriptions subscriptions;
+
+    private DynamicActionSubscriptions create(DynamicActionSubscriptions.SubscriptionHandler handler) throws MqttDigitalAdapterConfigurationException {
+        subscriptions = new DynamicActionSubscriptions("test",
+                DynamicSubscriptionPolicy.builder().setDebounceMs(DEBOUNCE_MS).build(), TOPIC_RESOLVER, handler);
+        subscriptions.start();
+        return subscriptions;
+    }
+
+    private void record(List<ActionIncomingTopic<?>> unsubscribed, List<ActionIncomingTopic<?>> subscribed) {
+        unsubscribed.forEach(topic -> updates.add("-" + topic.getTopic()));
+        subscribed.forEach(topic -> updates.add("+" + topic.getTopic()));
+    }
+
+    private List<String> drainUpdates() throws InterruptedException {
+        Thread.sleep(SETTLE_MS);
+        List<String> drained = new ArrayList<>();
+        updates.drainTo(drained);
+        return drained;
+    }
+
+    @After
+    public void stop() {
+        if (subscriptions != null)
+            subscriptions.stop();
+    }
+
+    @Test
+    public void actionRegisteredAndRemovedWithinDebounceIsNeverSubscribed() throws Exception {
+        create(this::record);
+
+        subscriptions.onActionsRegistered(Collections.singletonList("switch-1"));
+        subscriptions.onActionUnregistered("switch-1");
+
+        assertEquals(Collections.emptyList(), drainUpdates());
+        assertEquals(0, subscriptions.getReferenceCount("dt/actions/switch"));
+    }
+
+    @Test
+    public void changesWithinDebounceAreReconciledOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        create((unsubscribed, subscribed) -> {
+            calls.incrementAndGet();
+            record(unsubscribed, subscribed);
+        });
+
+        subscriptions.onActionsRegistered(Arrays.asList("switch-1", "switch-2"));
+        subscriptions.onActionsRegistered(Collections.singletonList("dimmer-1"));
+
+        List<String> drained = drainUpdates();
+        Collections.sort(drained);
+        assertEquals(Arrays.asList("+dt/actions/dimmer", "+dt/actions/switch"), drained);
+        assertEquals(1, calls.get());
+        assertEquals(2, subscriptions.getReferenceCount("dt/actions/switch"));
+    }
+
+    @Test
+    public void sharedFilterIsUnsubscribedWithItsLastAction() throws Exception {
+        create(this::record);
+        subscriptions.onActionsRegistered(Arrays.asList("switch-1", "switch-2"));
+        assertEquals(Collections.singletonList("+dt/actions/switch"), drainUpdates());
+
+        subscriptions.onActionUnregistered("switch-1");
+        assertEquals(Collections.emptyList(), drainUpdates());
+
+        subscriptions.onActionUnregistered("switch-2");
+        assertEquals(Collections.singletonList("-dt/actions/switch"), drainUpdates());
+        assertEquals(0, subscriptions.getSubscribedTopics().size());
+    }
+
+    @Test
+    public void failedUpdateIsRetriedWithoutCommittingTheRegistry() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        create((unsubscribed, subscribed) -> {
+            if (calls.incrementAndGet() == 1)
+                throw new MqttDigitalAdapterClientException("Broker unavailable");
+            record(unsubscribed, subscribed);
+        });
+
+        subscriptions.onActionsRegistered(Collections.singletonList("switch-1"));
+
+        assertNull(updates.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS));
+        assertEquals(Collections.singletonList("+dt/actions/switch"), drainUpdates());
+        assertEquals(2, calls.get());
+        assertEquals(1, subscriptions.getReferenceCount("dt/actions/switch"));
+    }
+
+    @Test
+    public void changesDiscardedByStopAreReconciledWhenStartedAgain() throws Exception {
+        create(this::record);
+        subscriptions.onActionsRegistered(Collections.singletonList("switch-1"));
+        subscriptions.stop();
+        assertEquals(Collections.emptyList(), drainUpdates());
+
+        subscriptions.start();
+        assertEquals(Collections.singletonList("+dt/actions/switch"), drainUpdates());
+        assertEquals(1, subscriptions.getReferenceCount("dt/actions/switch"));
+    }
+}
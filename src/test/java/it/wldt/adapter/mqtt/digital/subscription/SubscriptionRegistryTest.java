@@ -0,0 +1,76 @@
+package it.wldt.adapter.mqtt.digital.subscription;
+
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.adapter.mqtt.digital.topic.incoming.ActionIncomingTopic;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests of the reference counting of the {@link SubscriptionRegistry}.
+ */
+public class SubscriptionRegistryTest {
+
+    private static ActionIncomingTopic<String> topic(String filter, String actionKey) {
+        return new ActionIncomingTopic<>(filter, MqttQosLevel.MQTT_QOS_0, actionKey, message -> message);
+    }
+
+    @Test
+    public void sharedFilterIsSubscribedByFirstKeyAndUnsubscribedByLastOne() {
+        SubscriptionRegistry<ActionIncomingTopic<?>> registry = new SubscriptionRegistry<>();
+        ActionIncomingTopic<String> first = topic("dt/actions/switch", "switch-on");
+        ActionIncomingTopic<String> second = topic("dt/actions/switch", "switch-off");
+
+        assertSame(first, registry.acquire("switch-on", first));
+        assertNull(registry.acquire("switch-off", second));
+        assertEquals(2, registry.getReferenceCount("dt/actions/switch"));
+        assertEquals(1, registry.getSubscribedTopics().size());
+
+        assertNull(registry.release("switch-on"));
+        assertEquals(1, registry.getReferenceCount("dt/actions/switch"));
+        // The subscription made by the first key is the one unsubscribed
+        assertSame(first, registry.release("switch-off"));
+        assertEquals(0, registry.getReferenceCount("dt/actions/switch"));
+        assertEquals(0, registry.getSubscribedTopics().size());
+    }
+
+    @Test
+    public void releasedFilterIsSubscribedAgainWhenAcquiredAgain() {
+        SubscriptionRegistry<ActionIncomingTopic<?>> registry = new SubscriptionRegistry<>();
+        ActionIncomingTopic<String> topic = topic("dt/actions/switch", "switch-on");
+
+        assertSame(topic, registry.acquire("switch-on", topic));
+        assertSame(topic, registry.release("switch-on"));
+        assertNull(registry.get("switch-on"));
+
+        ActionIncomingTopic<String> again = topic("dt/actions/switch", "switch-on");
+        assertSame(again, registry.acquire("switch-on", again));
+        assertEquals(1, registry.getReferenceCount("dt/actions/switch"));
+    }
+
+    @Test
+    public void releasingUnknownKeyUnsubscribesNothing() {
+        SubscriptionRegistry<ActionIncomingTopic<?>> registry = new SubscriptionRegistry<>();
+        registry.acquire("switch-on", topic("dt/actions/switch", "switch-on"));
+
+        assertNull(registry.release("switch-off"));
+        assertEquals(1, registry.getReferenceCount("dt/actions/switch"));
+    }
+
+    @Test
+    public void copyIsIndependentOfOriginal() {
+        SubscriptionRegistry<ActionIncomingTopic<?>> registry = new SubscriptionRegistry<>();
+        registry.acquire("switch-on", topic("dt/actions/switch", "switch-on"));
+        SubscriptionRegistry<ActionIncomingTopic<?>> copy = new SubscriptionRegistry<>(registry);
+
+        copy.acquire("switch-off", topic("dt/actions/switch", "switch-off"));
+        copy.release("switch-on");
+
+        assertEquals(1, registry.getReferenceCount("dt/actions/switch"));
+        assertEquals(1, copy.getReferenceCount("dt/actions/switch"));
+        assertNull(registry.get("switch-off"));
+        assertNull(copy.get("switch-on"));
+    }
+}
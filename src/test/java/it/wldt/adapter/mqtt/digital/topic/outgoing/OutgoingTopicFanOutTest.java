@@ -0,0 +1,85 @@
+package it.wldt.adapter.mqtt.digital.topic.outgoing;
+
+import it.wldt.adapter.mqtt.digital.topic.MqttQosLevel;
+import it.wldt.core.state.DigitalTwinStateProperty;
+import it.wldt.exception.WldtDigitalTwinStateException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests of the serialization of the {@link OutgoingTopicFanOut} topics, once for each serialization key.
+ */
+public class OutgoingTopicFanOutTest {
+
+    private final Function<Double, String> celsius = value -> value + " C";
+
+    private final Function<Double, String> json = value -> "{\"value\":" + value + "}";
+
+    private final List<String> serializedTopics = new ArrayList<>();
+
+    private String[] serialize(OutgoingTopicFanOut<PropertyOutgoingTopic<Double>> fanOut) throws WldtDigitalTwinStateException {
+        DigitalTwinStateProperty<Double> property = new DigitalTwinStateProperty<>("temperature", 20.5);
+        return fanOut.serialize(topic -> {
+            serializedTopics.add(topic.getTopic());
+            return topic.applyPublishFunction(property);
+        });
+    }
+
+    @Test
+    public void topicsSharingAKeyAreSerializedOnce() throws Exception {
+        PropertyOutgoingTopic<Double> first = new PropertyOutgoingTopic<>("dt/temperature", MqttQosLevel.MQTT_QOS_0, celsius);
+        PropertyOutgoingTopic<Double> retained = new PropertyOutgoingTopic<>("dt/retained/temperature", MqttQosLevel.MQTT_QOS_1, true, celsius);
+        PropertyOutgoingTopic<Double> mirror = first.withTopic("mirror/temperature");
+
+        String[] payloads = serialize(new OutgoingTopicFanOut<>(Arrays.asList(first, retained, mirror), first));
+
+        assertEquals(Collections.singletonList("dt/temperature"), serializedTopics);
+        assertArrayEquals(new String[]{"20.5 C", "20.5 C", "20.5 C"}, payloads);
+    }
+
+    @Test
+    public void topicsWithDifferentKeysAreSerializedSeparately() throws Exception {
+        PropertyOutgoingTopic<Double> text = new PropertyOutgoingTopic<>("dt/temperature", MqttQosLevel.MQTT_QOS_0, celsius);
+        PropertyOutgoingTopic<Double> structured = new PropertyOutgoingTopic<>("dt/json/temperature", MqttQosLevel.MQTT_QOS_0, json);
+        PropertyOutgoingTopic<Double> textMirror = text.withTopic("mirror/temperature");
+        PropertyOutgoingTopic<Double> structuredMirror = structured.withTopic("mirror/json/temperature");
+
+        String[] payloads = serialize(new OutgoingTopicFanOut<>(Arrays.asList(text, structured, textMirror, structuredMirror), text));
+
+        assertEquals(Arrays.asList("dt/temperature", "dt/json/temperature"), serializedTopics);
+        assertArrayEquals(new String[]{"20.5 C", "{\"value\":20.5}", "20.5 C", "{\"value\":20.5}"}, payloads);
+    }
+
+    @Test
+    public void equalButDistinctFunctionsAreSerializedSeparately() throws Exception {
+        Function<Double, String> sameFormat = value -> value + " C";
+        PropertyOutgoingTopic<Double> first = new PropertyOutgoingTopic<>("dt/temperature", MqttQosLevel.MQTT_QOS_0, celsius);
+        PropertyOutgoingTopic<Double> second = new PropertyOutgoingTopic<>("mirror/temperature", MqttQosLevel.MQTT_QOS_0, sameFormat);
+
+        String[] payloads = serialize(new OutgoingTopicFanOut<>(Arrays.asList(first, second), null));
+
+        assertEquals(Arrays.asList("dt/temperature", "mirror/temperature"), serializedTopics);
+        assertArrayEquals(new String[]{"20.5 C", "20.5 C"}, payloads);
+    }
+
+    @Test
+    public void primaryTopicIsIdentifiedByIndex() {
+        PropertyOutgoingTopic<Double> first = new PropertyOutgoingTopic<>("dt/temperature", MqttQosLevel.MQTT_QOS_0, celsius);
+        PropertyOutgoingTopic<Double> primary = first.withTopic("cached/temperature");
+
+        OutgoingTopicFanOut<PropertyOutgoingTopic<Double>> fanOut = new OutgoingTopicFanOut<>(Arrays.asList(first, primary), primary);
+
+        assertFalse(fanOut.isPrimary(0));
+        assertTrue(fanOut.isPrimary(1));
+    }
+}
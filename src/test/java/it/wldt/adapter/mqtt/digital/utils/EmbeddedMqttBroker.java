@@ -0,0 +1,130 @@
+package it.wldt.adapter.mqtt.digital.utils;
+
+import com.hivemq.embedded.EmbeddedHiveMQ;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+/**
+ * In-process MQTT broker (HiveMQ Community Edition embedded) supporting both MQTT 3.1.1 and MQTT 5, used to run the
+ * test scenarios without an external broker. Optionally, the broker also listens for TLS connections with a
+ * self-signed certificate for 127.0.0.1 and localhost, generated with the JDK keytool and trusted by
+ * {@link #getTrustStore()}.
+ */
+public class EmbeddedMqttBroker implements AutoCloseable {
+
+    private static final String CONFIG_TEMPLATE = "<?xml version=\"1.0\"?>\n" +
+            "<hivemq>\n" +
+            "    <listeners>\n" +
+            "        <tcp-listener>\n" +
+            "            <port>%d</port>\n" +
+            "            <bind-address>%s</bind-address>\n" +
+            "        </tcp-listener>\n" +
+            "%s" +
+            "    </listeners>\n" +
+            "    <anonymous-usage-statistics>\n" +
+            "        <enabled>false</enabled>\n" +
+            "    </anonymous-usage-statistics>\n" +
+            "</hivemq>\n";
+
+    private static final String TLS_LISTENER_TEMPLATE = "        <tls-tcp-listener>\n" +
+            "            <port>%d</port>\n" +
+            "            <bind-address>%s</bind-address>\n" +
+            "            <tls>\n" +
+            "                <keystore>\n" +
+            "                    <path>%s</path>\n" +
+            "                    <password>%s</password>\n" +
+            "                    <private-key-password>%s</private-key-password>\n" +
+            "                </keystore>\n" +
+            "            </tls>\n" +
+            "        </tls-tcp-listener>\n";
+
+    private static final String KEY_STORE_PASSWORD = "wldt-embedded-broker";
+
+    private final EmbeddedHiveMQ hiveMQ;
+
+    private final Path keyStore;
+
+    public EmbeddedMqttBroker(String address, int port) throws IOException {
+        this(address, port, -1);
+    }
+
+    /**
+     * Constructs a broker listening for TCP connections and, if a TLS port is provided, for TLS connections.
+     *
+     * @param address The bind address.
+     * @param port The TCP port.
+     * @param tlsPort The TLS port, or -1 to disable the TLS listener.
+     * @throws IOException If the broker folders or the key store cannot be created.
+     */
+    public EmbeddedMqttBroker(String address, int port, int tlsPort) throws IOException {
+        Path baseFolder = Files.createTempDirectory("wldt-embedded-broker");
+        Path configFolder = Files.createDirectories(baseFolder.resolve("conf"));
+        String tlsListener = "";
+        if (tlsPort > 0) {
+            this.keyStore = createKeyStore(configFolder.resolve("broker.jks"));
+            tlsListener = String.format(TLS_LISTENER_TEMPLATE, tlsPort, address, keyStore.toAbsolutePath(), KEY_STORE_PASSWORD, KEY_STORE_PASSWORD);
+        }
+        else
+            this.keyStore = null;
+        Files.write(configFolder.resolve("config.xml"), String.format(CONFIG_TEMPLATE, port, address, tlsListener).getBytes(StandardCharsets.UTF_8));
+        this.hiveMQ = EmbeddedHiveMQ.builder()
+                .withConfigurationFolder(configFolder)
+                .withDataFolder(Files.createDirectories(baseFolder.resolve("data")))
+                .withExtensionsFolder(Files.createDirectories(baseFolder.resolve("extensions")))
+                .build();
+    }
+
+    /**
+     * Gets a trust store containing the self-signed certificate of the TLS listener.
+     *
+     * @return The trust store.
+     * @throws IOException If the key store cannot be read.
+     * @throws GeneralSecurityException If the key store cannot be loaded.
+     */
+    public KeyStore getTrustStore() throws IOException, GeneralSecurityException {
+        if (keyStore == null)
+            throw new IllegalStateException("TLS listener not enabled");
+        KeyStore trustStore = KeyStore.getInstance("JKS");
+        try (InputStream in = Files.newInputStream(keyStore)) {
+            trustStore.load(in, KEY_STORE_PASSWORD.toCharArray());
+        }
+        return trustStore;
+    }
+
+    public void start() {
+        hiveMQ.start().join();
+    }
+
+    public void stop() {
+        hiveMQ.stop().join();
+    }
+
+    @Override
+    public void close() throws Exception {
+        hiveMQ.close();
+    }
+
+    private static Path createKeyStore(Path keyStore) throws IOException {
+        String keytool = System.getProperty("java.home") + File.separator + "bin" + File.separator + "keytool";
+        Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "broker", "-keyalg", "EC", "-groupname", "secp256r1",
+                "-dname", "CN=localhost", "-ext", "san=ip:127.0.0.1,dns:localhost", "-validity", "1",
+                "-storetype", "JKS", "-keystore", keyStore.toString(), "-storepass", KEY_STORE_PASSWORD, "-keypass", KEY_STORE_PASSWORD)
+                .redirectErrorStream(true)
+                .start();
+        try {
+            if (process.waitFor() != 0)
+                throw new IOException("keytool failed: " + new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while creating the key store", e);
+        }
+        return keyStore;
+    }
+}
@@ -0,0 +1,36 @@
+package it.wldt.adapter.mqtt.digital.utils;
+
+import java.util.Arrays;
+
+/**
+ * Records every latency sample of a load test run so that exact percentiles can be computed at the end of the run.
+ */
+public class LoadTestLatencyRecorder {
+
+    private long[] samples = new long[1 << 16];
+
+    private int count = 0;
+
+    public synchronized void record(long latencyNanos) {
+        if (count == samples.length)
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        samples[count++] = latencyNanos;
+    }
+
+    public synchronized void reset() {
+        count = 0;
+    }
+
+    public synchronized long[] sortedSamples() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    public static long percentile(long[] sortedSamples, double percentile) {
+        if (sortedSamples.length == 0)
+            return 0;
+        int index = (int) Math.ceil(percentile / 100.0 * sortedSamples.length) - 1;
+        return sortedSamples[Math.max(0, Math.min(index, sortedSamples.length - 1))];
+    }
+}
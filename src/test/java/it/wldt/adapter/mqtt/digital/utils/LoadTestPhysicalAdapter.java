@@ -0,0 +1,135 @@
+package it.wldt.adapter.mqtt.digital.utils;
+
+import it.wldt.adapter.physical.*;
+import it.wldt.adapter.physical.event.PhysicalAssetActionWldtEvent;
+import it.wldt.adapter.physical.event.PhysicalAssetEventWldtEvent;
+import it.wldt.adapter.physical.event.PhysicalAssetPropertyWldtEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parameterized version of the {@link DummyPhysicalAdapter} used by the load test: it emits property updates and
+ * event notifications at the configured rates, carrying their emission time ({@link System#nanoTime()}) as value so
+ * that the end-to-end latency can be measured on the MQTT side, and records the latency of the incoming actions.
+ */
+public class LoadTestPhysicalAdapter extends ConfigurablePhysicalAdapter<LoadTestPhysicalAdapterConfiguration> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestPhysicalAdapter.class);
+
+    public static final String PROPERTY_KEY_PREFIX = "load-property-";
+
+    public static final String ALARM_EVENT_KEY = "alarm";
+
+    public static final String PING_ACTION_KEY = "ping";
+
+    private final LoadTestLatencyRecorder actionLatencyRecorder;
+
+    private final AtomicLong emittedPropertyUpdates = new AtomicLong();
+
+    private final AtomicLong emittedEvents = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    private int nextPropertyIndex = 0;
+
+    public LoadTestPhysicalAdapter(String id, LoadTestPhysicalAdapterConfiguration configuration, LoadTestLatencyRecorder actionLatencyRecorder) {
+        super(id, configuration);
+        this.actionLatencyRecorder = actionLatencyRecorder;
+    }
+
+    public static String propertyKey(int index) {
+        return PROPERTY_KEY_PREFIX + index;
+    }
+
+    @Override
+    public void onIncomingPhysicalAction(PhysicalAssetActionWldtEvent<?> physicalActionEvent) {
+        if (physicalActionEvent != null && PING_ACTION_KEY.equals(physicalActionEvent.getActionKey()) && physicalActionEvent.getBody() instanceof Long)
+            actionLatencyRecorder.record(System.nanoTime() - (Long) physicalActionEvent.getBody());
+        else
+            logger.error("WRONG OR NULL ACTION RECEIVED !");
+    }
+
+    @Override
+    public void onAdapterStart() {
+
+        try {
+
+            PhysicalAssetDescription physicalAssetDescription = new PhysicalAssetDescription();
+
+            physicalAssetDescription.setActions(new ArrayList<PhysicalAssetAction>() {{
+                add(new PhysicalAssetAction(PING_ACTION_KEY, "load.ping", "text/plain"));
+            }});
+
+            physicalAssetDescription.setProperties(new ArrayList<PhysicalAssetProperty<?>>() {{
+                for (int i = 0; i < getConfiguration().getPropertyCount(); i++)
+                    add(new PhysicalAssetProperty<>(propertyKey(i), 0L));
+            }});
+
+            physicalAssetDescription.setEvents(new ArrayList<PhysicalAssetEvent>() {{
+                add(new PhysicalAssetEvent(ALARM_EVENT_KEY, "text/plain"));
+            }});
+
+            this.notifyPhysicalAdapterBound(physicalAssetDescription);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, getId() + "-emulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        schedule(getConfiguration().getPropertyUpdatesPerSecond(), this::emitPropertyUpdate);
+        schedule(getConfiguration().getEventsPerSecond(), this::emitEvent);
+    }
+
+    private void schedule(double ratePerSecond, Runnable task) {
+        if (ratePerSecond <= 0)
+            return;
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        scheduler.scheduleAtFixedRate(task, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void emitPropertyUpdate() {
+        try {
+            String propertyKey = propertyKey(nextPropertyIndex);
+            nextPropertyIndex = (nextPropertyIndex + 1) % getConfiguration().getPropertyCount();
+            publishPhysicalAssetPropertyWldtEvent(new PhysicalAssetPropertyWldtEvent<>(propertyKey, System.nanoTime()));
+            emittedPropertyUpdates.incrementAndGet();
+        } catch (Exception e) {
+            logger.error("Error emitting property update: {}", e.getLocalizedMessage());
+        }
+    }
+
+    private void emitEvent() {
+        try {
+            publishPhysicalAssetEventWldtEvent(new PhysicalAssetEventWldtEvent<>(ALARM_EVENT_KEY, String.valueOf(System.nanoTime())));
+            emittedEvents.incrementAndGet();
+        } catch (Exception e) {
+            logger.error("Error emitting event: {}", e.getLocalizedMessage());
+        }
+    }
+
+    public long getEmittedPropertyUpdates() {
+        return emittedPropertyUpdates.get();
+    }
+
+    public long getEmittedEvents() {
+        return emittedEvents.get();
+    }
+
+    @Override
+    public void onAdapterStop() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+        logger.info("LoadTestPhysicalAdapter {} Stopped !", getId());
+    }
+}
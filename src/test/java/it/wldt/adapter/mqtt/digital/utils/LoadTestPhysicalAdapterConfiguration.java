@@ -0,0 +1,53 @@
+package it.wldt.adapter.mqtt.digital.utils;
+
+public class LoadTestPhysicalAdapterConfiguration {
+
+    private int propertyCount = 2;
+
+    private double propertyUpdatesPerSecond = 10.0;
+
+    private double eventsPerSecond = 1.0;
+
+    public LoadTestPhysicalAdapterConfiguration() {
+    }
+
+    public LoadTestPhysicalAdapterConfiguration(int propertyCount, double propertyUpdatesPerSecond, double eventsPerSecond) {
+        this.propertyCount = propertyCount;
+        this.propertyUpdatesPerSecond = propertyUpdatesPerSecond;
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    public int getPropertyCount() {
+        return propertyCount;
+    }
+
+    public void setPropertyCount(int propertyCount) {
+        this.propertyCount = propertyCount;
+    }
+
+    public double getPropertyUpdatesPerSecond() {
+        return propertyUpdatesPerSecond;
+    }
+
+    public void setPropertyUpdatesPerSecond(double propertyUpdatesPerSecond) {
+        this.propertyUpdatesPerSecond = propertyUpdatesPerSecond;
+    }
+
+    public double getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    public void setEventsPerSecond(double eventsPerSecond) {
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LoadTestPhysicalAdapterConfiguration{");
+        sb.append("propertyCount=").append(propertyCount);
+        sb.append(", propertyUpdatesPerSecond=").append(propertyUpdatesPerSecond);
+        sb.append(", eventsPerSecond=").append(eventsPerSecond);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,100 @@
+package it.wldt.adapter.mqtt.digital.utils;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically samples the heap usage and the live threads of the JVM running a load test and tracks the garbage
+ * collections since the last reset.
+ */
+public class LoadTestResourceMonitor implements AutoCloseable {
+
+    private static final long SAMPLING_PERIOD_MS = 250;
+
+    private final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "load-test-resource-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile long peakHeapUsedBytes = 0;
+
+    private volatile long heapUsedBytesSum = 0;
+
+    private volatile long heapSamples = 0;
+
+    private long gcCountAtReset = 0;
+
+    private long gcTimeMsAtReset = 0;
+
+    public void start() {
+        reset();
+        sampler.scheduleAtFixedRate(this::sample, 0, SAMPLING_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void reset() {
+        peakHeapUsedBytes = 0;
+        heapUsedBytesSum = 0;
+        heapSamples = 0;
+        threadMXBean.resetPeakThreadCount();
+        gcCountAtReset = totalGcCount();
+        gcTimeMsAtReset = totalGcTimeMs();
+    }
+
+    private synchronized void sample() {
+        long heapUsed = memoryMXBean.getHeapMemoryUsage().getUsed();
+        peakHeapUsedBytes = Math.max(peakHeapUsedBytes, heapUsed);
+        heapUsedBytesSum += heapUsed;
+        heapSamples++;
+    }
+
+    public long getPeakHeapUsedBytes() {
+        return peakHeapUsedBytes;
+    }
+
+    public synchronized long getAverageHeapUsedBytes() {
+        return heapSamples == 0 ? 0 : heapUsedBytesSum / heapSamples;
+    }
+
+    public long getMaxHeapBytes() {
+        return memoryMXBean.getHeapMemoryUsage().getMax();
+    }
+
+    public int getLiveThreads() {
+        return threadMXBean.getThreadCount();
+    }
+
+    public int getPeakThreads() {
+        return threadMXBean.getPeakThreadCount();
+    }
+
+    public long getGcCount() {
+        return totalGcCount() - gcCountAtReset;
+    }
+
+    public long getGcTimeMs() {
+        return totalGcTimeMs() - gcTimeMsAtReset;
+    }
+
+    private static long totalGcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).filter(c -> c > 0).sum();
+    }
+
+    private static long totalGcTimeMs() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).filter(t -> t > 0).sum();
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+}